@@ -0,0 +1,187 @@
+package data_structure;
+
+import java.util.NoSuchElementException;
+
+/**
+ * The <tt>DoubleIndexMinPQ</tt> class represents an indexed priority queue of
+ * primitive <tt>double</tt> keys. It has the same operations as {@link IndexMinPQ}
+ * but stores keys in a <tt>double[]</tt>, so no key is ever boxed; this is the
+ * queue to use for Dijkstra-style searches that must not allocate per edge.
+ * <p/>
+ * This implementation uses a binary heap along with an array to associate
+ * keys with integers in the given range.
+ * The <em>insert</em>, <em>delete-the-minimum</em>, <em>delete</em>,
+ * <em>change-key</em>, <em>decrease-key</em>, and <em>increase-key</em>
+ * operations take logarithmic time.
+ * The <em>is-empty</em>, <em>size</em>, <em>min-index</em>, <em>min-key</em>, and <em>key-of</em>
+ * operations take constant time. <em>clear</em> takes time proportional to the
+ * number of indices on the queue, so a queue can be reused across searches
+ * without paying for its capacity each time.
+ * Construction takes time proportional to the specified capacity.
+ * <p/>
+ */
+public class DoubleIndexMinPQ {
+    private int NMAX;        // maximum number of elements on PQ
+    private int N;           // number of elements on PQ
+    private int[] pq;        // binary heap using 1-based indexing
+    private int[] qp;        // inverse of pq - qp[pq[i]] = pq[qp[i]] = i
+    private double[] keys;   // keys[i] = priority of i
+
+    /**
+     * Initializes an empty indexed priority queue with indices between 0 and NMAX-1.
+     *
+     * @param NMAX the keys on the priority queue are index from 0 to NMAX-1
+     * @throws java.lang.IllegalArgumentException if NMAX < 0
+     */
+    public DoubleIndexMinPQ(int NMAX) {
+        if (NMAX < 0) throw new IllegalArgumentException();
+        this.NMAX = NMAX;
+        keys = new double[NMAX];
+        pq = new int[NMAX + 1];
+        qp = new int[NMAX];
+        for (int i = 0; i < NMAX; i++) qp[i] = -1;
+    }
+
+    public boolean isEmpty() {
+        return N == 0;
+    }
+
+    // Is i an index on the priority queue?
+    public boolean contains(int i) {
+        if (i < 0 || i >= NMAX) throw new IndexOutOfBoundsException();
+        return qp[i] != -1;
+    }
+
+    public int size() {
+        return N;
+    }
+
+    // Associates key with index i.
+    public void insert(int i, double key) {
+        if (contains(i)) throw new IllegalArgumentException("index is already in the priority queue");
+        N++;
+        qp[i] = N;
+        pq[N] = i;
+        keys[i] = key;
+        swim(N);
+    }
+
+    // Returns an index associated with a minimum key.
+    public int minIndex() {
+        if (N == 0) throw new NoSuchElementException("Priority queue underflow");
+        return pq[1];
+    }
+
+    // Returns a minimum key.
+    public double minKey() {
+        if (N == 0) throw new NoSuchElementException("Priority queue underflow");
+        return keys[pq[1]];
+    }
+
+    // Removes a minimum key and returns its associated index.
+    public int delMin() {
+        if (N == 0) throw new NoSuchElementException("Priority queue underflow");
+        int min = pq[1];
+        exch(1, N--);
+        sink(1);
+        qp[min] = -1;
+        return min;
+    }
+
+    // Returns the key associated with index i.
+    public double keyOf(int i) {
+        if (!contains(i)) throw new NoSuchElementException("index is not in the priority queue");
+        return keys[i];
+    }
+
+    // Change the key associated with index i to the specified value.
+    public void changeKey(int i, double key) {
+        if (!contains(i)) throw new NoSuchElementException("index is not in the priority queue");
+        keys[i] = key;
+        swim(qp[i]);
+        sink(qp[i]);
+    }
+
+    // Decrease the key associated with index i to the specified value.
+    public void decreaseKey(int i, double key) {
+        if (!contains(i)) throw new NoSuchElementException("index is not in the priority queue");
+        if (keys[i] <= key)
+            throw new IllegalArgumentException("Calling decreaseKey() with given argument would not strictly decrease the key");
+        keys[i] = key;
+        swim(qp[i]);
+    }
+
+    // Increase the key associated with index i to the specified value.
+    public void increaseKey(int i, double key) {
+        if (!contains(i)) throw new NoSuchElementException("index is not in the priority queue");
+        if (keys[i] >= key)
+            throw new IllegalArgumentException("Calling increaseKey() with given argument would not strictly increase the key");
+        keys[i] = key;
+        sink(qp[i]);
+    }
+
+    // Remove the key associated with index i.
+    public void delete(int i) {
+        if (!contains(i)) throw new NoSuchElementException("index is not in the priority queue");
+        int index = qp[i];
+        exch(index, N--);
+        swim(index);
+        sink(index);
+        qp[i] = -1;
+    }
+
+    // Removes every index from the priority queue, in time proportional to their number.
+    public void clear() {
+        for (int k = 1; k <= N; k++) qp[pq[k]] = -1;
+        N = 0;
+    }
+
+
+    /**************************************************************
+     * General helper functions
+     **************************************************************/
+    private boolean greater(int i, int j) {
+        return keys[pq[i]] > keys[pq[j]];
+    }
+
+    private void exch(int i, int j) {
+        int swap = pq[i];
+        pq[i] = pq[j];
+        pq[j] = swap;
+        qp[pq[i]] = i;
+        qp[pq[j]] = j;
+    }
+
+
+    /**************************************************************
+     * Heap helper functions
+     **************************************************************/
+    private void swim(int k) {
+        while (k > 1 && greater(k / 2, k)) {
+            exch(k, k / 2);
+            k = k / 2;
+        }
+    }
+
+    private void sink(int k) {
+        while (2 * k <= N) {
+            int j = 2 * k;
+            if (j < N && greater(j, j + 1)) j++;
+            if (!greater(k, j)) break;
+            exch(k, j);
+            k = j;
+        }
+    }
+
+    public static void main(String[] args) {
+        double[] keys = {0.5, 0.25, 0.75, 0.125, 1.0, 0.375};
+        DoubleIndexMinPQ pq = new DoubleIndexMinPQ(keys.length);
+        for (int i = 0; i < keys.length; i++) pq.insert(i, keys[i]);
+        pq.decreaseKey(4, 0.0);
+        while (!pq.isEmpty()) {
+            double key = pq.minKey();
+            int i = pq.delMin();
+            System.out.println(i + " " + key);
+        }
+    }
+}
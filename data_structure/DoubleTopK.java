@@ -0,0 +1,133 @@
+package data_structure;
+
+/**
+ * The <tt>DoubleTopK</tt> class keeps the <em>K</em> largest of a stream of
+ * primitive <tt>double</tt> values. <tt>NaN</tt> values are never kept.
+ * <p/>
+ * This implementation uses a binary min heap of <em>K</em> values stored in a
+ * <tt>double[]</tt>, so nothing is boxed. The smallest value kept is cached as the
+ * <em>threshold</em>: once <em>K</em> values have been seen, a value that is not
+ * larger than the threshold is rejected with a single comparison, without
+ * touching the heap. Accepting a value takes time proportional to log <em>K</em>.
+ * Accumulators filled by different threads can be combined with {@link #merge}.
+ * {@link #sorted()} heapsorts the values in place and returns the backing array,
+ * so reading the result does not copy it.
+ * <p/>
+ * See {@link LongTopK} for <tt>long</tt> values and {@link TopK} for generic keys.
+ */
+public class DoubleTopK {
+    private final double[] heap;  // min heap of the largest values, heap[0] is the smallest
+    private int N;              // number of values kept
+    private double threshold;    // heap[0] once the heap is full
+    private boolean sorted;     // has sorted() turned the heap into a sorted array?
+
+    // Initializes an accumulator that keeps the K largest values.
+    public DoubleTopK(int K) {
+        if (K < 1) throw new IllegalArgumentException("K must be positive");
+        heap = new double[K];
+    }
+
+    // Returns the maximum number of values kept.
+    public int capacity() {
+        return heap.length;
+    }
+
+    // Returns the number of values kept, which is at most K.
+    public int size() {
+        return N;
+    }
+
+    public boolean isEmpty() {
+        return N == 0;
+    }
+
+    // Returns the smallest value kept once K values have been seen; values not larger are rejected.
+    public double threshold() {
+        if (N < heap.length) throw new IllegalStateException("Fewer than K values seen");
+        return threshold;
+    }
+
+    /**
+     * Offers a value to the accumulator.
+     *
+     * @param x the value
+     * @return <tt>true</tt> if the value is kept, <tt>false</tt> if it is not among the K largest so far
+     * @throws IllegalStateException if {@link #sorted()} has been called
+     */
+    public boolean offer(double x) {
+        if (sorted) throw new IllegalStateException("Accumulator has been sorted");
+        if (N == heap.length) {
+            if (!(x > threshold)) return false;   // fast path: no heap access, also rejects NaN
+            heap[0] = x;
+            sink(0, N);
+            threshold = heap[0];
+            return true;
+        }
+        if (Double.isNaN(x)) return false;
+        heap[N] = x;
+        swim(N++);
+        if (N == heap.length) threshold = heap[0];
+        return true;
+    }
+
+    // Offers all the values kept by that accumulator to this one, e.g. to combine per-thread results.
+    public void merge(DoubleTopK that) {
+        if (that == this) throw new IllegalArgumentException("Cannot merge an accumulator with itself");
+        for (int i = 0; i < that.N; i++) offer(that.heap[i]);
+    }
+
+    /**
+     * Sorts the kept values into descending order in place and returns the
+     * backing array. Entries <tt>0</tt> to <tt>size() - 1</tt> are the values,
+     * largest first; any further entries are unused. No more values can be
+     * offered afterwards.
+     *
+     * @return the backing array, sorted in descending order
+     */
+    public double[] sorted() {
+        if (!sorted) {
+            // heapsort: move the minimum to the end of the shrinking heap
+            for (int n = N - 1; n > 0; n--) {
+                double swap = heap[0];
+                heap[0] = heap[n];
+                heap[n] = swap;
+                sink(0, n);
+            }
+            sorted = true;
+        }
+        return heap;
+    }
+
+    private void swim(int k) {
+        double x = heap[k];
+        while (k > 0) {
+            int parent = (k - 1) / 2;
+            if (heap[parent] <= x) break;
+            heap[k] = heap[parent];
+            k = parent;
+        }
+        heap[k] = x;
+    }
+
+    // restore the heap order of heap[0..n-1] below position k
+    private void sink(int k, int n) {
+        double x = heap[k];
+        while (2 * k + 1 < n) {
+            int j = 2 * k + 1;
+            if (j + 1 < n && heap[j + 1] < heap[j]) j++;
+            if (x <= heap[j]) break;
+            heap[k] = heap[j];
+            k = j;
+        }
+        heap[k] = x;
+    }
+
+    public static void main(String[] args) {
+        DoubleTopK top = new DoubleTopK(3);
+        double[] scores = {0.5, 2.5, Double.NaN, -1.0, 7.25, 3.0, 0.75};
+        for (double x : scores) top.offer(x);
+        double[] result = top.sorted();
+        for (int i = 0; i < top.size(); i++) System.out.print(result[i] + " ");
+        System.out.println();
+    }
+}
@@ -3,13 +3,35 @@ package data_structure;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
+/**
+ * A singly-linked list.
+ * <p/>
+ * The list keeps a pointer to its last node and a count of its nodes, so
+ * <em>addFirst</em>, <em>addLast</em>, <em>getFirst</em>, <em>getLast</em>,
+ * <em>removeFirst</em>, <em>length</em> and <em>append</em> take constant time.
+ * <em>get</em> remembers the last position it visited, so reading the list
+ * in index order takes linear time in total rather than quadratic.
+ * {@link #listIterator()} inserts, removes and splices at its cursor in constant time.
+ * <p/>
+ * The <em>xxxRecursive</em> methods are kept to show the recursive
+ * formulation; they use stack space proportional to the length of the list
+ * and overflow on long lists. Each has an iterative counterpart without the
+ * suffix which should be used instead.
+ */
 public class ILinkedList<T> implements Iterable<T> {
 
     private Node<T> head; // the linked list
+    private Node<T> tail; // last node of the list
+    private int N;        // number of nodes in the list
+
+    private Node<T> finger;  // node last visited by get(), or null if unknown
+    private int fingerPos;   // position of finger
 
     // Create an empty linked list
     public ILinkedList() {
         head = null;
+        tail = null;
+        N = 0;
     }
 
     // Is the list empty
@@ -20,6 +42,9 @@ public class ILinkedList<T> implements Iterable<T> {
     // Insert a new node at the beginning of list
     public void addFirst(T item) {
         head = new Node<T>(item, head);
+        if (tail == null) tail = head;
+        N++;
+        finger = null;
     }
 
     // Get the first element of the list
@@ -32,6 +57,9 @@ public class ILinkedList<T> implements Iterable<T> {
     public T removeFirst() {
         T tmp = getFirst();
         head = head.next;
+        if (head == null) tail = null;
+        N--;
+        finger = null;
         return tmp;
     }
 
@@ -39,14 +67,14 @@ public class ILinkedList<T> implements Iterable<T> {
     public void addLast(T item) {
         if (head == null) addFirst(item);
         else {
-            Node<T> tmp = head;
-            while (tmp.next != null) tmp = tmp.next;
-            tmp.next = new Node<T>(item, null);
+            tail.next = new Node<T>(item, null);
+            tail = tail.next;
+            N++;
         }
     }
 
     public Node<T> addLastRecursive(Node<T> head, T item) {
-        if (head == null) head = new Node<T>(item, null);
+        if (head == null) return new Node<T>(item, null);
         if (head.next == null) head.next = new Node<T>(item, null);
         else head.next = addLastRecursive(head.next, item);
         return head;
@@ -54,14 +82,13 @@ public class ILinkedList<T> implements Iterable<T> {
 
     public void addLastRecursive(T item) {
         this.head = addLastRecursive(this.head, item);
+        resync();
     }
 
     // Get the last element of the list
     public T getLast() {
-        if (head == null) throw new NoSuchElementException();
-        Node<T> tmp = head;
-        while (tmp.next != null) tmp = tmp.next;
-        return tmp.data;
+        if (tail == null) throw new NoSuchElementException();
+        return tail.data;
     }
 
     public T getLastRecursive(Node<T> head) {
@@ -77,13 +104,14 @@ public class ILinkedList<T> implements Iterable<T> {
     // Remove all nodes from the list
     public void clear() {
         head = null;
+        tail = null;
+        N = 0;
+        finger = null;
     }
 
     // Get the length of list
     public int length() {
-        int len = 0;
-        for (T data : this) len++;
-        return len;
+        return N;
     }
 
     public int lengthRecursive(Node<T> head) {
@@ -97,17 +125,26 @@ public class ILinkedList<T> implements Iterable<T> {
 
     // Does the list contains an element
     public boolean contains(T x) {
-        for (T data : this) if (data.equals(x)) return true;
+        for (Node<T> node = head; node != null; node = node.next)
+            if (x == null ? node.data == null : x.equals(node.data)) return true;
         return false;
     }
 
     // Get the data at the specified position
     public T get(int pos) {
+        if (pos < 0 || pos >= N) throw new IndexOutOfBoundsException("position " + pos + " is not between 0 and " + (N - 1));
+        if (pos == N - 1) return tail.data;
+
+        // start from the last visited node if it is not past pos
         Node<T> tmp = head;
-        for (int i = 0; i < pos; i++) {
-            if (tmp == null) throw new IndexOutOfBoundsException();
-            tmp = tmp.next;
+        int i = 0;
+        if (finger != null && fingerPos <= pos) {
+            tmp = finger;
+            i = fingerPos;
         }
+        for (; i < pos; i++) tmp = tmp.next;
+        finger = tmp;
+        fingerPos = pos;
         return tmp.data;
     }
 
@@ -134,7 +171,12 @@ public class ILinkedList<T> implements Iterable<T> {
     public void insertAfter(T key, T toInsert) {
         Node<T> tmp = head;
         while (tmp != null && !tmp.data.equals(key)) tmp = tmp.next;
-        if (tmp != null) tmp.next = new Node<T>(toInsert, tmp.next);
+        if (tmp != null) {
+            tmp.next = new Node<T>(toInsert, tmp.next);
+            if (tmp == tail) tail = tmp.next;
+            N++;
+            finger = null;
+        }
     }
 
     public Node<T> insertAfterRecursive(Node<T> head, T key, T toInsert) {
@@ -147,10 +189,12 @@ public class ILinkedList<T> implements Iterable<T> {
 
     public void insertAfterRecursive(T key, T toInsert) {
         this.head = insertAfterRecursive(head, key, toInsert);
+        resync();
     }
 
 
-    // Insert a new node before the node containing the key
+    // Insert a new node before the node containing the key,
+    // or at the end of the list if there is no such node
     public void insertBefore(T key, T toInsert) {
         if (head == null) return;
 
@@ -163,7 +207,12 @@ public class ILinkedList<T> implements Iterable<T> {
         }
 
         if (previous == null) addFirst(toInsert);
-        else previous.next = new Node<T>(toInsert, current);
+        else {
+            previous.next = new Node<T>(toInsert, current);
+            if (current == null) tail = previous.next;
+            N++;
+            finger = null;
+        }
     }
 
     public Node<T> insertBeforeRecursive(Node<T> head, T key, T toInsert) {
@@ -175,6 +224,7 @@ public class ILinkedList<T> implements Iterable<T> {
 
     public void insertBeforeRecursive(T key, T toInsert) {
         this.head = insertBeforeRecursive(head, key, toInsert);
+        resync();
     }
 
     // Remove the first occurrence of the specified element
@@ -189,8 +239,12 @@ public class ILinkedList<T> implements Iterable<T> {
             current = current.next;
         }
 
+        if (current == null) return;
         if (previous == null) head = head.next;
-        else if (current != null) previous.next = current.next;
+        else previous.next = current.next;
+        if (current == tail) tail = previous;
+        N--;
+        finger = null;
     }
 
     public Node<T> removeRecursive(Node<T> head, T value) {
@@ -204,6 +258,7 @@ public class ILinkedList<T> implements Iterable<T> {
 
     public void removeRecursive(T value) {
         this.head = removeRecursive(head, value);
+        resync();
     }
 
     public Node<T> removeAll(Node<T> head, T value) {
@@ -215,8 +270,34 @@ public class ILinkedList<T> implements Iterable<T> {
         }
     }
 
-    public void removeAll(T value) {
+    public void removeAllRecursive(T value) {
         this.head = removeAll(head, value);
+        resync();
+    }
+
+    // Remove all occurrences of the specified element
+    public void removeAll(T value) {
+        Node<T> previous = null;
+        for (Node<T> current = head; current != null; current = current.next) {
+            if (value == null ? current.data == null : value.equals(current.data)) {
+                if (previous == null) head = current.next;
+                else previous.next = current.next;
+                N--;
+            } else previous = current;
+        }
+        tail = previous;
+        finger = null;
+    }
+
+    // Move all the nodes of that list to the end of this list, leaving that list empty
+    public void append(ILinkedList<T> that) {
+        if (that == this) throw new IllegalArgumentException("Cannot append a list to itself");
+        if (that.isEmpty()) return;
+        if (isEmpty()) head = that.head;
+        else tail.next = that.head;
+        tail = that.tail;
+        N += that.N;
+        that.clear();
     }
 
     @Override
@@ -231,6 +312,7 @@ public class ILinkedList<T> implements Iterable<T> {
 
             @Override
             public T next() {
+                if (!hasNext()) throw new NoSuchElementException();
                 T res = nextNode.data;
                 nextNode = nextNode.next;
                 return res;
@@ -238,7 +320,100 @@ public class ILinkedList<T> implements Iterable<T> {
         };
     }
 
-    // Return a deep copy of list, complexity: O(n^2)
+    // Returns an iterator positioned before the first element that can modify the list at its cursor
+    public ListIterator listIterator() {
+        return new ListIterator();
+    }
+
+    /**
+     * An iterator that can insert, replace and remove elements, and splice in
+     * a whole list, at its cursor in constant time. The cursor sits between the
+     * element returned by the last call to <tt>next()</tt> and the element the
+     * next call would return. The list must not be modified other than through
+     * this iterator while it is in use.
+     */
+    public class ListIterator implements Iterator<T> {
+        private Node<T> previous;      // node before the cursor, null at the front
+        private Node<T> nextNode;      // node after the cursor, null at the end
+        private Node<T> lastReturned;  // node returned by next(), null after add or remove
+        private Node<T> beforeLast;    // node before lastReturned
+        private int index;             // position of nextNode
+
+        private ListIterator() {
+            nextNode = head;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextNode != null;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            beforeLast = previous;
+            lastReturned = nextNode;
+            previous = nextNode;
+            nextNode = nextNode.next;
+            index++;
+            return lastReturned.data;
+        }
+
+        // Returns the position of the element that would be returned by next()
+        public int nextIndex() {
+            return index;
+        }
+
+        // Removes the element last returned by next()
+        @Override
+        public void remove() {
+            if (lastReturned == null) throw new IllegalStateException();
+            if (beforeLast == null) head = nextNode;
+            else beforeLast.next = nextNode;
+            if (lastReturned == tail) tail = beforeLast;
+            previous = beforeLast;
+            lastReturned = null;
+            index--;
+            N--;
+            finger = null;
+        }
+
+        // Replaces the element last returned by next()
+        public void set(T item) {
+            if (lastReturned == null) throw new IllegalStateException();
+            lastReturned.data = item;
+        }
+
+        // Inserts the element at the cursor; a following call to next() is unaffected
+        public void add(T item) {
+            Node<T> node = new Node<T>(item, nextNode);
+            link(node, node, 1);
+        }
+
+        // Moves all the nodes of that list to the cursor, leaving that list empty;
+        // the cursor ends up after the spliced elements
+        public void splice(ILinkedList<T> that) {
+            if (that == ILinkedList.this) throw new IllegalArgumentException("Cannot splice a list into itself");
+            if (that.isEmpty()) return;
+            that.tail.next = nextNode;
+            link(that.head, that.tail, that.N);
+            that.clear();
+        }
+
+        // link the chain first..last, already pointing at nextNode, in after previous
+        private void link(Node<T> first, Node<T> last, int n) {
+            if (previous == null) head = first;
+            else previous.next = first;
+            if (nextNode == null) tail = last;
+            previous = last;
+            lastReturned = null;
+            index += n;
+            N += n;
+            finger = null;
+        }
+    }
+
+    // Return a deep copy of list, complexity: O(n^2) without the tail pointer, O(n) with it
     public ILinkedList<T> copy1() {
         ILinkedList<T> twin = new ILinkedList<T>();
         for (T data : this) {
@@ -265,6 +440,21 @@ public class ILinkedList<T> implements Iterable<T> {
         return list;
     }
 
+    // Reverse the list in place by relinking its nodes
+    public void reverseInPlace() {
+        Node<T> reversed = null;
+        Node<T> current = head;
+        tail = head;
+        while (current != null) {
+            Node<T> next = current.next;
+            current.next = reversed;
+            reversed = current;
+            current = next;
+        }
+        head = reversed;
+        finger = null;
+    }
+
     // Reverse a linked list using recursion
     private Node<T> reverseRecursive(Node<T> list) {
 
@@ -300,6 +490,18 @@ public class ILinkedList<T> implements Iterable<T> {
 
     private void reverseRecursive() {
         this.head = reverseRecursive(head);
+        resync();
+    }
+
+    // recompute tail and N after a recursive method relinked the nodes
+    private void resync() {
+        N = 0;
+        tail = null;
+        for (Node<T> node = head; node != null; node = node.next) {
+            tail = node;
+            N++;
+        }
+        finger = null;
     }
 
     public static void main(String[] args) {
@@ -347,5 +549,31 @@ public class ILinkedList<T> implements Iterable<T> {
         System.out.println(list);
         list.reverseRecursive();
         System.out.println(list);
-    }
-}
\ No newline at end of file
+
+        // edit at a cursor: drop "aa", put "x" after "c", splice a list at the end
+        ILinkedList<String>.ListIterator it = list.listIterator();
+        while (it.hasNext()) {
+            String s = it.next();
+            if (s.equals("aa")) it.remove();
+            else if (s.equals("c")) it.add("x");
+        }
+        ILinkedList<String> more = new ILinkedList<String>();
+        more.addLast("m");
+        more.addLast("n");
+        it.splice(more);
+        System.out.println("After cursor edits: " + list + "(length " + list.length() + ", last " + list.getLast() + ")");
+
+        list.reverseInPlace();
+        System.out.println("Reversed in place: " + list);
+
+        // operations that used to overflow the stack or walk the whole list
+        ILinkedList<Integer> big = new ILinkedList<Integer>();
+        int n = 1000000;
+        for (int i = 0; i < n; i++) big.addLast(i);
+        long sum = 0;
+        for (int i = 0; i < big.length(); i++) sum += big.get(i);
+        big.removeAll(0);
+        big.append(big.copy1());
+        System.out.println("length " + big.length() + ", sum " + sum + ", last " + big.getLast());
+    }
+}
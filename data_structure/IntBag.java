@@ -0,0 +1,173 @@
+package data_structure;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * The <tt>IntBag</tt> class represents a bag (or multiset) of
+ * primitive <tt>int</tt> items. It supports insertion and iterating
+ * over the items in arbitrary order.
+ * <p/>
+ * This implementation uses a resizing array instead of the linked list of
+ * {@link Bag}, so an item costs 4 bytes instead of a node and a boxed <tt>Integer</tt>.
+ * Items are returned most-recently-added first, which is the same order a
+ * {@link Bag} would return them in.
+ * The <em>add</em> operation takes constant amortized time; <em>get</em>,
+ * <em>isEmpty</em>, and <em>size</em> take constant time.
+ * Iteration with {@link #get(int)} or {@link #intIterator()} does not box.
+ * <p/>
+ */
+public class IntBag implements Iterable<Integer> {
+    private int[] a;  // items, in insertion order
+    private int N;    // number of items in bag
+
+    /**
+     * Initializes an empty bag.
+     */
+    public IntBag() {
+        this(2);
+    }
+
+    /**
+     * Initializes an empty bag with the given initial capacity.
+     *
+     * @param initCapacity the initial capacity of the bag
+     */
+    public IntBag(int initCapacity) {
+        if (initCapacity < 1) initCapacity = 1;
+        a = new int[initCapacity];
+        N = 0;
+    }
+
+    /**
+     * Is this bag empty?
+     *
+     * @return true if this bag is empty; false otherwise
+     */
+    public boolean isEmpty() {
+        return N == 0;
+    }
+
+    /**
+     * Returns the number of items in this bag.
+     *
+     * @return the number of items in this bag
+     */
+    public int size() {
+        return N;
+    }
+
+    /**
+     * Adds the item to this bag.
+     *
+     * @param item the item to add to this bag
+     */
+    public void add(int item) {
+        if (N == a.length) resize(2 * a.length);
+        a[N++] = item;
+    }
+
+    /**
+     * Removes one occurrence of the item from this bag, if there is one,
+     * keeping the others in the same order. Takes time proportional to the size of the bag.
+     *
+     * @param item the item to remove
+     * @return true if the item was in this bag; false otherwise
+     */
+    public boolean remove(int item) {
+        for (int i = N - 1; i >= 0; i--) {
+            if (a[i] != item) continue;
+            System.arraycopy(a, i + 1, a, i, N - 1 - i);
+            N--;
+            return true;
+        }
+        return false;
+    }
+
+    // resize the underlying array holding the items
+    private void resize(int capacity) {
+        int[] temp = new int[capacity];
+        System.arraycopy(a, 0, temp, 0, N);
+        a = temp;
+    }
+
+    /**
+     * Returns the <tt>i</tt>th item in iteration order.
+     * Together with {@link #size()} this gives an allocation-free way to
+     * walk the bag, or to keep a cursor into it.
+     *
+     * @param i the position in iteration order
+     * @return the <tt>i</tt>th item
+     * @throws IndexOutOfBoundsException unless 0 &le; <tt>i</tt> &lt; <tt>size()</tt>
+     */
+    public int get(int i) {
+        if (i < 0 || i >= N) throw new IndexOutOfBoundsException("index " + i + " is not between 0 and " + (N - 1));
+        return a[N - 1 - i];
+    }
+
+    /**
+     * Returns an iterator over the items that does not box them.
+     *
+     * @return an iterator over the items as primitive <tt>int</tt>s
+     */
+    public IntIterator intIterator() {
+        return new IntIterator() {
+            private int i = N - 1;
+
+            @Override
+            public boolean hasNext() {
+                return i >= 0;
+            }
+
+            @Override
+            public int next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return a[i--];
+            }
+        };
+    }
+
+    /**
+     * Returns an iterator that iterates over the items in the bag.
+     * Provided so an <tt>IntBag</tt> can be used wherever an
+     * <tt>Iterable&lt;Integer&gt;</tt> is expected; each item is boxed.
+     *
+     * @return an iterator that iterates over the items in the bag
+     */
+    @Override
+    public Iterator<Integer> iterator() {
+        return new Iterator<Integer>() {
+            private int i = N - 1;
+
+            @Override
+            public boolean hasNext() {
+                return i >= 0;
+            }
+
+            @Override
+            public Integer next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return a[i--];
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < N; i++) sb.append(get(i)).append(" ");
+        return sb.toString();
+    }
+
+    public static void main(String[] args) {
+        IntBag bag = new IntBag();
+        bag.add(1);
+        bag.add(2);
+        bag.add(3);
+        bag.add(4);
+        System.out.println("size of bag = " + bag.size());
+        for (IntIterator it = bag.intIterator(); it.hasNext(); ) System.out.print(it.next() + " ");
+        System.out.println();
+        System.out.println(bag);
+    }
+}
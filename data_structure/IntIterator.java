@@ -0,0 +1,15 @@
+package data_structure;
+
+/**
+ * An iterator over primitive <tt>int</tt> values.
+ * Unlike an <tt>Iterator&lt;Integer&gt;</tt>, <tt>next()</tt> never boxes,
+ * so walking a collection of vertex ids does not allocate per item.
+ */
+public interface IntIterator {
+
+    // Is there another item to return?
+    boolean hasNext();
+
+    // Returns the next item, throws NoSuchElementException if there is none.
+    int next();
+}
@@ -0,0 +1,147 @@
+package data_structure;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Queue of primitive <tt>int</tt>s with a resizing circular array.
+ * The same algorithm as {@link ResizingArrayQueue}, without boxing.
+ * Iteration order is FIFO.
+ */
+public class IntQueue implements Iterable<Integer> {
+    private int[] q;       // queue elements
+    private int N = 0;     // number of elements on queue
+    private int first = 0; // index of first element
+    private int last = 0;  // index of next available slot
+
+    public IntQueue() {
+        this(2);
+    }
+
+    public IntQueue(int initCapacity) {
+        if (initCapacity < 1) initCapacity = 1;
+        q = new int[initCapacity];
+    }
+
+    public boolean isEmpty() {
+        return N == 0;
+    }
+
+    public int size() {
+        return N;
+    }
+
+    public void enqueue(int item) {
+        // double size of array if necessary and recopy to front of array
+        if (N == q.length) resize(2 * q.length);
+        q[last++] = item;
+        if (last == q.length) last = 0; // wrap-around
+        N++;
+    }
+
+    // adds item at the front of the queue, so that it is dequeued next
+    public void enqueueFirst(int item) {
+        if (N == q.length) resize(2 * q.length);
+        if (--first < 0) first = q.length - 1;
+        q[first] = item;
+        N++;
+    }
+
+    private void resize(int capacity) {
+        assert capacity >= N;
+        int[] temp = new int[capacity];
+        for (int i = 0; i < N; i++) {
+            temp[i] = q[(first + i) % q.length];
+        }
+        q = temp;
+        first = 0;
+        last = N;
+    }
+
+    public int dequeue() {
+        if (isEmpty()) throw new NoSuchElementException("Queue underflow");
+        int item = q[first++];
+        N--;
+        if (first == q.length) first = 0; // wrap-around
+        if (N > 0 && N == q.length / 4) resize(q.length / 2);
+        return item;
+    }
+
+    public int peek() {
+        if (isEmpty()) throw new NoSuchElementException("Queue underflow");
+        return q[first];
+    }
+
+    // removes all items, keeping the current capacity so the queue can be reused
+    public void clear() {
+        N = 0;
+        first = 0;
+        last = 0;
+    }
+
+    // returns the i-th item from the front of the queue, 0 being the front
+    public int get(int i) {
+        if (i < 0 || i >= N) throw new IndexOutOfBoundsException("index " + i + " is not between 0 and " + (N - 1));
+        int j = first + i;
+        if (j >= q.length) j -= q.length;
+        return q[j];
+    }
+
+    // iterator over the items in FIFO order that does not box
+    public IntIterator intIterator() {
+        return new IntIterator() {
+            private int i = 0;
+
+            @Override
+            public boolean hasNext() {
+                return i < N;
+            }
+
+            @Override
+            public int next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return get(i++);
+            }
+        };
+    }
+
+    @Override
+    public Iterator<Integer> iterator() {
+        return new Iterator<Integer>() {
+            private int i = 0;
+
+            @Override
+            public boolean hasNext() {
+                return i < N;
+            }
+
+            @Override
+            public Integer next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return get(i++);
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < N; i++) sb.append(get(i)).append(" ");
+        return sb.toString();
+    }
+
+    public static void main(String[] args) {
+        IntQueue q = new IntQueue();
+        for (int i = 0; i < 6; i++) q.enqueue(i);
+        System.out.println(q);
+        q.dequeue();
+        q.dequeue();
+        q.dequeue();
+        q.dequeue();
+        System.out.println(q);
+        q.enqueue(6);
+        q.enqueue(7);
+        q.enqueue(8);
+        System.out.println(q);
+    }
+}
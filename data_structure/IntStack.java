@@ -0,0 +1,122 @@
+package data_structure;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Stack of primitive <tt>int</tt>s with a resizing array.
+ * The same algorithm as {@link ResizingArrayStack}, without boxing.
+ * Iteration order is from the top of the stack to the bottom.
+ */
+public class IntStack implements Iterable<Integer> {
+    private int[] a; // array of items
+    private int N;   // number of elements on stack
+
+    public IntStack() {
+        this(2);
+    }
+
+    public IntStack(int initCapacity) {
+        if (initCapacity < 1) initCapacity = 1;
+        a = new int[initCapacity];
+    }
+
+    public boolean isEmpty() {
+        return N == 0;
+    }
+
+    public int size() {
+        return N;
+    }
+
+    public void push(int item) {
+        if (N == a.length) resize(2 * a.length); // double the size of array if necessary
+        a[N++] = item;
+    }
+
+    // resize the underlying array holding the elements
+    private void resize(int capacity) {
+        assert capacity >= N;
+        int[] temp = new int[capacity];
+        System.arraycopy(a, 0, temp, 0, N);
+        a = temp;
+    }
+
+    public int pop() {
+        if (isEmpty()) throw new NoSuchElementException("Stack underflow");
+        int item = a[--N];
+        // shrink size of array if necessary
+        if (N > 0 && N == a.length / 4) resize(a.length / 2);
+        return item;
+    }
+
+    public int peek() {
+        if (isEmpty()) throw new NoSuchElementException("Stack underflow");
+        return a[N - 1];
+    }
+
+    // removes all items, keeping the current capacity so the stack can be reused
+    public void clear() {
+        N = 0;
+    }
+
+    // returns the i-th item from the top of the stack, 0 being the top
+    public int get(int i) {
+        if (i < 0 || i >= N) throw new IndexOutOfBoundsException("index " + i + " is not between 0 and " + (N - 1));
+        return a[N - 1 - i];
+    }
+
+    // iterator over the items from top to bottom that does not box
+    public IntIterator intIterator() {
+        return new IntIterator() {
+            private int i = N - 1;
+
+            @Override
+            public boolean hasNext() {
+                return i >= 0;
+            }
+
+            @Override
+            public int next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return a[i--];
+            }
+        };
+    }
+
+    @Override
+    public Iterator<Integer> iterator() {
+        return new Iterator<Integer>() {
+            private int i = N - 1;
+
+            @Override
+            public boolean hasNext() {
+                return i >= 0;
+            }
+
+            @Override
+            public Integer next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return a[i--];
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = N - 1; i >= 0; i--) sb.append(a[i]).append(" ");
+        return sb.toString();
+    }
+
+    public static void main(String[] args) {
+        IntStack s = new IntStack();
+        for (int i = 0; i < 6; i++) s.push(i);
+        System.out.println(s);
+        s.pop();
+        s.pop();
+        s.pop();
+        System.out.println(s);
+        System.out.println("peek: " + s.peek());
+    }
+}
@@ -0,0 +1,85 @@
+package data_structure;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+
+/**
+ * The <tt>LeftistMaxPQ</tt> class represents a max priority queue of generic keys
+ * that can be melded in logarithmic time. It supports the same operations as
+ * {@link MaxPQ}, and can be used with a comparator instead of the natural order.
+ * <p/>
+ * This implementation is a {@link LeftistMinPQ} with the order reversed.
+ * The <em>insert</em>, <em>delete-the-maximum</em> and <em>meld</em> operations take
+ * logarithmic time; <em>max</em>, <em>size</em> and <em>is-empty</em> take constant time.
+ * <p/>
+ */
+public class LeftistMaxPQ<Key> implements Iterable<Key> {
+    private LeftistMinPQ<Key> pq;  // min priority queue in reversed order
+
+    // Initializes an empty priority queue.
+    public LeftistMaxPQ() {
+        pq = new LeftistMinPQ<Key>(Collections.<Key>reverseOrder());
+    }
+
+    // Initializes an empty priority queue using the given comparator.
+    public LeftistMaxPQ(Comparator<Key> comparator) {
+        pq = new LeftistMinPQ<Key>(Collections.reverseOrder(comparator));
+    }
+
+    public boolean isEmpty() {
+        return pq.isEmpty();
+    }
+
+    public int size() {
+        return pq.size();
+    }
+
+    // returns a largest key on the priority queue
+    public Key max() {
+        return pq.min();
+    }
+
+    // Adds a key to the priority queue.
+    public void insert(Key x) {
+        pq.insert(x);
+    }
+
+    // Removes and returns a largest key on the priority queue.
+    public Key delMax() {
+        return pq.delMin();
+    }
+
+    // Moves all the keys of that priority queue, which must order keys the same way,
+    // into this one in logarithmic time and leaves it empty.
+    public void meld(LeftistMaxPQ<Key> that) {
+        if (that == this) throw new IllegalArgumentException("Cannot meld a priority queue with itself");
+        pq.meld(that.pq);
+    }
+
+    @Override
+    public String toString() {
+        return pq.toString();
+    }
+
+    // iterates over the keys in no particular order
+    @Override
+    public Iterator<Key> iterator() {
+        return pq.iterator();
+    }
+
+    public static void main(String[] args) {
+        LeftistMaxPQ<String> pq = new LeftistMaxPQ<String>();
+        pq.insert("P");
+        pq.insert("Q");
+        pq.insert("E");
+        LeftistMaxPQ<String> other = new LeftistMaxPQ<String>();
+        other.insert("X");
+        other.insert("A");
+        other.insert("M");
+        pq.meld(other);
+        System.out.println(pq.size() + " keys, " + other.size() + " left in the other queue");
+        while (!pq.isEmpty()) System.out.print(pq.delMax() + " ");
+        System.out.println();
+    }
+}
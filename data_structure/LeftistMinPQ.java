@@ -0,0 +1,243 @@
+package data_structure;
+
+import helper.StdRandom;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * The <tt>LeftistMinPQ</tt> class represents a min priority queue of generic keys
+ * that can be <em>melded</em>: all the keys of one queue can be moved into another
+ * in logarithmic time. It supports the same operations as {@link MinPQ}, and can
+ * be used with a comparator instead of the natural order.
+ * <p/>
+ * This implementation uses a leftist heap: a heap-ordered binary tree in which
+ * the rank (distance to the nearest missing child) of every left child is at least
+ * that of its right sibling, so the right spine of a heap of <em>N</em> keys has at
+ * most lg <em>N</em> nodes. Two heaps are merged by walking down their right spines.
+ * The <em>insert</em>, <em>delete-the-minimum</em> and <em>meld</em> operations take
+ * logarithmic time; <em>min</em>, <em>size</em> and <em>is-empty</em> take constant time.
+ * <p/>
+ */
+public class LeftistMinPQ<Key> implements Iterable<Key> {
+    private Node<Key> root;              // root of the heap
+    private int N;                       // number of keys on the priority queue
+    private Comparator<Key> comparator;  // optional comparator
+
+    private static class Node<Key> {
+        private Key key;
+        private Node<Key> left, right;
+        private int rank;  // length of the right spine of the subtree rooted here
+
+        Node(Key key) {
+            this.key = key;
+            this.rank = 1;
+        }
+    }
+
+    // Initializes an empty priority queue.
+    public LeftistMinPQ() {
+    }
+
+    // Initializes an empty priority queue using the given comparator.
+    public LeftistMinPQ(Comparator<Key> comparator) {
+        this.comparator = comparator;
+    }
+
+    public boolean isEmpty() {
+        return N == 0;
+    }
+
+    public int size() {
+        return N;
+    }
+
+    // returns a smallest key on the priority queue
+    public Key min() {
+        if (isEmpty()) throw new NoSuchElementException("Priority queue underflow");
+        return root.key;
+    }
+
+    // Adds a key to the priority queue.
+    public void insert(Key x) {
+        root = merge(root, new Node<Key>(x));
+        N++;
+    }
+
+    // Removes and returns a smallest key on the priority queue.
+    public Key delMin() {
+        if (isEmpty()) throw new NoSuchElementException("Priority queue underflow");
+        Key min = root.key;
+        root = merge(root.left, root.right);
+        N--;
+        return min;
+    }
+
+    /**
+     * Moves all the keys of <tt>that</tt> priority queue into this one in
+     * logarithmic time, leaving <tt>that</tt> empty.
+     * Both queues must order keys the same way.
+     *
+     * @param that the priority queue to meld into this one
+     */
+    public void meld(LeftistMinPQ<Key> that) {
+        if (that == this) throw new IllegalArgumentException("Cannot meld a priority queue with itself");
+        root = merge(root, that.root);
+        N += that.N;
+        that.root = null;
+        that.N = 0;
+    }
+
+    // merge the heaps rooted at a and b along their right spines; the recursion
+    // depth is at most rank(a) + rank(b), which is logarithmic in the size
+    private Node<Key> merge(Node<Key> a, Node<Key> b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        if (greater(a.key, b.key)) {
+            Node<Key> swap = a;
+            a = b;
+            b = swap;
+        }
+        a.right = merge(a.right, b);
+        // restore the leftist property
+        if (a.left == null || a.left.rank < a.right.rank) {
+            Node<Key> swap = a.left;
+            a.left = a.right;
+            a.right = swap;
+        }
+        a.rank = a.right == null ? 1 : a.right.rank + 1;
+        return a;
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean greater(Key a, Key b) {
+        if (comparator == null) return ((Comparable<Key>) a).compareTo(b) > 0;
+        else return comparator.compare(a, b) > 0;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Key key : this) {
+            sb.append(key).append(" ");
+        }
+        return sb.toString();
+    }
+
+    // iterates over the keys in preorder of the heap, which is not sorted order
+    @Override
+    public Iterator<Key> iterator() {
+        return new Iterator<Key>() {
+            private ResizingArrayStack<Node<Key>> stack = new ResizingArrayStack<Node<Key>>();
+
+            {
+                if (root != null) stack.push(root);
+            }
+
+            @Override
+            public boolean hasNext() {
+                return !stack.isEmpty();
+            }
+
+            @Override
+            public Key next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                Node<Key> x = stack.pop();
+                if (x.right != null) stack.push(x.right);
+                if (x.left != null) stack.push(x.left);
+                return x.key;
+            }
+        };
+    }
+
+    /**
+     * Benchmarks a meld-heavy workload: shards of random keys are merged pairwise
+     * into one queue, which is then drained to check it. Times the merging for
+     * leftist heaps, for {@link MinPQ}s melded with {@link MinPQ#meld}, and for
+     * {@link MinPQ}s merged by inserting every key of one queue into the other.
+     */
+    public static void main(String[] args) {
+        LeftistMinPQ<String> pq = new LeftistMinPQ<String>();
+        pq.insert("P");
+        pq.insert("Q");
+        pq.insert("E");
+        LeftistMinPQ<String> other = new LeftistMinPQ<String>();
+        other.insert("X");
+        other.insert("A");
+        other.insert("M");
+        pq.meld(other);
+        System.out.print("melded: ");
+        while (!pq.isEmpty()) System.out.print(pq.delMin() + " ");
+        System.out.println();
+
+        int shards = args.length > 0 ? Integer.parseInt(args[0]) : 4096;
+        int perShard = args.length > 1 ? Integer.parseInt(args[1]) : 256;
+        for (int round = 0; round < 3; round++) {
+            Double[][] keys = new Double[shards][perShard];
+            for (int i = 0; i < shards; i++)
+                for (int j = 0; j < perShard; j++) keys[i][j] = StdRandom.uniform();
+
+            @SuppressWarnings("unchecked")
+            LeftistMinPQ<Double>[] leftist = (LeftistMinPQ<Double>[]) new LeftistMinPQ<?>[shards];
+            for (int i = 0; i < shards; i++) {
+                leftist[i] = new LeftistMinPQ<Double>();
+                for (Double key : keys[i]) leftist[i].insert(key);
+            }
+            long start = System.nanoTime();
+            for (int step = 1; step < shards; step *= 2)
+                for (int i = 0; i + step < shards; i += 2 * step) leftist[i].meld(leftist[i + step]);
+            long t1 = System.nanoTime() - start;
+            double check1 = drain(leftist[0]);
+
+            @SuppressWarnings("unchecked")
+            MinPQ<Double>[] melded = (MinPQ<Double>[]) new MinPQ<?>[shards];
+            for (int i = 0; i < shards; i++) melded[i] = new MinPQ<Double>(keys[i]);
+            start = System.nanoTime();
+            for (int step = 1; step < shards; step *= 2)
+                for (int i = 0; i + step < shards; i += 2 * step) melded[i].meld(melded[i + step]);
+            long t2 = System.nanoTime() - start;
+            double check2 = drain(melded[0]);
+
+            @SuppressWarnings("unchecked")
+            MinPQ<Double>[] inserted = (MinPQ<Double>[]) new MinPQ<?>[shards];
+            for (int i = 0; i < shards; i++) {
+                inserted[i] = new MinPQ<Double>();
+                for (Double key : keys[i]) inserted[i].insert(key);
+            }
+            start = System.nanoTime();
+            for (int step = 1; step < shards; step *= 2)
+                for (int i = 0; i + step < shards; i += 2 * step)
+                    while (!inserted[i + step].isEmpty()) inserted[i].insert(inserted[i + step].delMin());
+            long t3 = System.nanoTime() - start;
+            double check3 = drain(inserted[0]);
+
+            if (check1 != check2 || check1 != check3) throw new AssertionError("queues disagree");
+            System.out.printf("merging %d shards of %d keys: leftist meld %6.1f ms, MinPQ.meld %6.1f ms, MinPQ insert %6.1f ms%n",
+                    shards, perShard, t1 / 1e6, t2 / 1e6, t3 / 1e6);
+        }
+    }
+
+    // empty the queue, checking the keys come out in order; returns a checksum
+    private static double drain(LeftistMinPQ<Double> pq) {
+        double sum = 0, last = Double.NEGATIVE_INFINITY;
+        while (!pq.isEmpty()) {
+            double x = pq.delMin();
+            if (x < last) throw new AssertionError("keys out of order");
+            last = x;
+            sum += x;
+        }
+        return sum;
+    }
+
+    private static double drain(MinPQ<Double> pq) {
+        double sum = 0, last = Double.NEGATIVE_INFINITY;
+        while (!pq.isEmpty()) {
+            double x = pq.delMin();
+            if (x < last) throw new AssertionError("keys out of order");
+            last = x;
+            sum += x;
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,180 @@
+package data_structure;
+
+import java.util.Random;
+
+/**
+ * The <tt>LongTopK</tt> class keeps the <em>K</em> largest of a stream of
+ * primitive <tt>long</tt> values.
+ * <p/>
+ * This implementation uses a binary min heap of <em>K</em> values stored in a
+ * <tt>long[]</tt>, so nothing is boxed. The smallest value kept is cached as the
+ * <em>threshold</em>: once <em>K</em> values have been seen, a value that is not
+ * larger than the threshold is rejected with a single comparison, without
+ * touching the heap. Accepting a value takes time proportional to log <em>K</em>.
+ * Accumulators filled by different threads can be combined with {@link #merge}.
+ * {@link #sorted()} heapsorts the values in place and returns the backing array,
+ * so reading the result does not copy it.
+ * <p/>
+ * See {@link DoubleTopK} for <tt>double</tt> values and {@link TopK} for generic keys.
+ */
+public class LongTopK {
+    private final long[] heap;  // min heap of the largest values, heap[0] is the smallest
+    private int N;              // number of values kept
+    private long threshold;     // heap[0] once the heap is full
+    private boolean sorted;     // has sorted() turned the heap into a sorted array?
+
+    // Initializes an accumulator that keeps the K largest values.
+    public LongTopK(int K) {
+        if (K < 1) throw new IllegalArgumentException("K must be positive");
+        heap = new long[K];
+    }
+
+    // Returns the maximum number of values kept.
+    public int capacity() {
+        return heap.length;
+    }
+
+    // Returns the number of values kept, which is at most K.
+    public int size() {
+        return N;
+    }
+
+    public boolean isEmpty() {
+        return N == 0;
+    }
+
+    // Returns the smallest value kept once K values have been seen; values not larger are rejected.
+    public long threshold() {
+        if (N < heap.length) throw new IllegalStateException("Fewer than K values seen");
+        return threshold;
+    }
+
+    /**
+     * Offers a value to the accumulator.
+     *
+     * @param x the value
+     * @return <tt>true</tt> if the value is kept, <tt>false</tt> if it is not among the K largest so far
+     * @throws IllegalStateException if {@link #sorted()} has been called
+     */
+    public boolean offer(long x) {
+        if (sorted) throw new IllegalStateException("Accumulator has been sorted");
+        if (N == heap.length) {
+            if (x <= threshold) return false;   // fast path: no heap access
+            heap[0] = x;
+            sink(0, N);
+            threshold = heap[0];
+            return true;
+        }
+        heap[N] = x;
+        swim(N++);
+        if (N == heap.length) threshold = heap[0];
+        return true;
+    }
+
+    // Offers all the values kept by that accumulator to this one, e.g. to combine per-thread results.
+    public void merge(LongTopK that) {
+        if (that == this) throw new IllegalArgumentException("Cannot merge an accumulator with itself");
+        for (int i = 0; i < that.N; i++) offer(that.heap[i]);
+    }
+
+    /**
+     * Sorts the kept values into descending order in place and returns the
+     * backing array. Entries <tt>0</tt> to <tt>size() - 1</tt> are the values,
+     * largest first; any further entries are unused. No more values can be
+     * offered afterwards.
+     *
+     * @return the backing array, sorted in descending order
+     */
+    public long[] sorted() {
+        if (!sorted) {
+            // heapsort: move the minimum to the end of the shrinking heap
+            for (int n = N - 1; n > 0; n--) {
+                long swap = heap[0];
+                heap[0] = heap[n];
+                heap[n] = swap;
+                sink(0, n);
+            }
+            sorted = true;
+        }
+        return heap;
+    }
+
+    private void swim(int k) {
+        long x = heap[k];
+        while (k > 0) {
+            int parent = (k - 1) / 2;
+            if (heap[parent] <= x) break;
+            heap[k] = heap[parent];
+            k = parent;
+        }
+        heap[k] = x;
+    }
+
+    // restore the heap order of heap[0..n-1] below position k
+    private void sink(int k, int n) {
+        long x = heap[k];
+        while (2 * k + 1 < n) {
+            int j = 2 * k + 1;
+            if (j + 1 < n && heap[j + 1] < heap[j]) j++;
+            if (x <= heap[j]) break;
+            heap[k] = heap[j];
+            k = j;
+        }
+        heap[k] = x;
+    }
+
+    /**
+     * Checks the accumulator against {@link MinPQ} on a random stream, merges
+     * per-thread accumulators, and compares throughput with the
+     * insert-then-<tt>delMin</tt> idiom on <tt>MinPQ&lt;Long&gt;</tt>.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int K = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        final int n = args.length > 1 ? Integer.parseInt(args[1]) : 20000000;
+
+        for (int round = 0; round < 3; round++) {
+            Random random = new Random(round);
+            long start = System.nanoTime();
+            LongTopK top = new LongTopK(K);
+            for (int i = 0; i < n; i++) top.offer(random.nextLong());
+            long[] result = top.sorted();
+            long t1 = System.nanoTime() - start;
+
+            random = new Random(round);
+            start = System.nanoTime();
+            MinPQ<Long> pq = new MinPQ<Long>(K + 1);
+            for (int i = 0; i < n; i++) {
+                pq.insert(random.nextLong());
+                if (pq.size() > K) pq.delMin();
+            }
+            long t2 = System.nanoTime() - start;
+
+            for (int i = top.size() - 1; i >= 0; i--)
+                if (result[i] != pq.delMin()) throw new AssertionError("results differ at " + i);
+            System.out.printf("top %d of %d: LongTopK %6.1f ms, MinPQ<Long> %6.1f ms%n", K, n, t1 / 1e6, t2 / 1e6);
+        }
+
+        // per-thread accumulators over parts of the stream, merged at the end
+        int threads = 4;
+        final LongTopK[] parts = new LongTopK[threads];
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            final int id = t;
+            parts[t] = new LongTopK(K);
+            workers[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (long i = id; i < n; i += parts.length) parts[id].offer(i * 2654435761L % n);
+                }
+            });
+            workers[t].start();
+        }
+        LongTopK all = new LongTopK(K);
+        for (int t = 0; t < threads; t++) {
+            workers[t].join();
+            all.merge(parts[t]);
+        }
+        long[] merged = all.sorted();
+        System.out.println("merged top 3: " + merged[0] + " " + merged[1] + " " + merged[2]);
+    }
+}
@@ -60,12 +60,23 @@ public class MaxPQ<Key> implements Iterable<Key> {
      *
      * @param keys the array of keys
      */
-    //TODO
     public MaxPQ(Key[] keys) {
+        this(keys, null);
+    }
+
+    /**
+     * Initializes a priority queue from the array of keys, using the given comparator.
+     * Taken time proportional to the number of keys, using sink based heap construction.
+     *
+     * @param keys       the array of keys
+     * @param comparator the order in which to compare the keys
+     */
+    public MaxPQ(Key[] keys, Comparator<Key> comparator) {
+        this.comparator = comparator;
         N = keys.length;
         pq = (Key[]) new Object[keys.length + 1];
-        for (int i = 0; i < N; i++) pq[i + 1] = keys[i];
-
+        System.arraycopy(keys, 0, pq, 1, N);
+        for (int k = N / 2; k >= 1; k--) sink(k);
     }
 
     /**
@@ -135,6 +146,36 @@ public class MaxPQ<Key> implements Iterable<Key> {
         return max;
     }
 
+    /**
+     * Moves all the keys of <tt>that</tt> priority queue into this one, leaving
+     * <tt>that</tt> empty. Both queues must order keys the same way.
+     * If <tt>that</tt> is large the two arrays are concatenated and heapified
+     * bottom-up, which takes time proportional to the total number of keys;
+     * otherwise its keys are inserted one at a time.
+     * See {@link LeftistMaxPQ} for a heap that melds in logarithmic time.
+     *
+     * @param that the priority queue to meld into this one
+     */
+    public void meld(MaxPQ<Key> that) {
+        if (that == this) throw new IllegalArgumentException("Cannot meld a priority queue with itself");
+        int M = that.N;
+        int total = N + M;
+        if (total >= pq.length) resize(Math.max(2 * pq.length, total + 1));
+        System.arraycopy(that.pq, 1, pq, N + 1, M);
+        int n = N;
+        N = total;
+        // inserting costs about M lg(N + M) compares, rebuilding about 2(N + M)
+        if ((long) M * (32 - Integer.numberOfLeadingZeros(total)) > 2L * total) {
+            for (int k = N / 2; k >= 1; k--) sink(k);
+        } else {
+            for (int k = n + 1; k <= N; k++) swim(k);
+        }
+        that.N = 0;
+        @SuppressWarnings("unchecked")
+        Key[] empty = (Key[]) new Object[2];
+        that.pq = empty;
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
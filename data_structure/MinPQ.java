@@ -34,7 +34,13 @@ public class MinPQ<Key> implements Iterable<Key> {
         this(1, comparator);
     }
 
+    // Initializes a priority queue from the array of keys, in linear time with bottom-up heap construction.
     public MinPQ(Key[] keys) {
+        this(keys, null);
+    }
+
+    public MinPQ(Key[] keys, Comparator<Key> comparator) {
+        this.comparator = comparator;
         N = keys.length;
         pq = (Key[]) new Object[keys.length + 1];
         System.arraycopy(keys, 0, pq, 1, N);
@@ -81,6 +87,29 @@ public class MinPQ<Key> implements Iterable<Key> {
         return min;
     }
 
+    // Moves all the keys of that priority queue, which must order keys the same way, into this one
+    // and leaves it empty. A large queue is concatenated and heapified bottom-up in linear time,
+    // a small one is inserted key by key. See LeftistMinPQ for a heap that melds in logarithmic time.
+    public void meld(MinPQ<Key> that) {
+        if (that == this) throw new IllegalArgumentException("Cannot meld a priority queue with itself");
+        int M = that.N;
+        int total = N + M;
+        if (total >= pq.length) resize(Math.max(2 * pq.length, total + 1));
+        System.arraycopy(that.pq, 1, pq, N + 1, M);
+        int n = N;
+        N = total;
+        // inserting costs about M lg(N + M) compares, rebuilding about 2(N + M)
+        if ((long) M * (32 - Integer.numberOfLeadingZeros(total)) > 2L * total) {
+            for (int k = N / 2; k >= 1; k--) sink(k);
+        } else {
+            for (int k = n + 1; k <= N; k++) swim(k);
+        }
+        that.N = 0;
+        @SuppressWarnings("unchecked")
+        Key[] empty = (Key[]) new Object[2];
+        that.pq = empty;
+    }
+
     private void swim(int k) {
         while (k > 1 && greater(k / 2, k)) {
             exch(k, k / 2);
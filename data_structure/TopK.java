@@ -0,0 +1,171 @@
+package data_structure;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * The <tt>TopK</tt> class keeps the <em>K</em> largest of a stream of generic keys,
+ * using the natural order or a comparator. It replaces the idiom of inserting every
+ * key into a {@link MinPQ} and calling <tt>delMin</tt> when it grows past <em>K</em>.
+ * <p/>
+ * This implementation uses a binary min heap of <em>K</em> keys. Once <em>K</em> keys
+ * have been seen, a key that is not larger than the smallest key kept is rejected with
+ * one comparison, without touching the heap; accepting a key takes time proportional
+ * to log <em>K</em>. {@link #sorted()} heapsorts the keys in place and returns a
+ * view of the backing array, so reading the result does not copy it.
+ * <p/>
+ * See {@link LongTopK} and {@link DoubleTopK} for primitive values, which avoid boxing.
+ */
+public class TopK<Key> {
+    private final Key[] heap;                  // min heap of the largest keys, heap[0] is the smallest
+    private int N;                             // number of keys kept
+    private Key threshold;                     // heap[0] once the heap is full
+    private final Comparator<Key> comparator;  // optional comparator
+    private boolean sorted;                    // has sorted() turned the heap into a sorted array?
+
+    // Initializes an accumulator that keeps the K largest keys in natural order.
+    public TopK(int K) {
+        this(K, null);
+    }
+
+    // Initializes an accumulator that keeps the K largest keys in the order of the comparator.
+    @SuppressWarnings("unchecked")
+    public TopK(int K, Comparator<Key> comparator) {
+        if (K < 1) throw new IllegalArgumentException("K must be positive");
+        heap = (Key[]) new Object[K];
+        this.comparator = comparator;
+    }
+
+    // Returns the maximum number of keys kept.
+    public int capacity() {
+        return heap.length;
+    }
+
+    // Returns the number of keys kept, which is at most K.
+    public int size() {
+        return N;
+    }
+
+    public boolean isEmpty() {
+        return N == 0;
+    }
+
+    // Returns the smallest key kept once K keys have been seen; keys not larger are rejected.
+    public Key threshold() {
+        if (N < heap.length) throw new IllegalStateException("Fewer than K keys seen");
+        return threshold;
+    }
+
+    /**
+     * Offers a key to the accumulator.
+     *
+     * @param x the key
+     * @return <tt>true</tt> if the key is kept, <tt>false</tt> if it is not among the K largest so far
+     * @throws IllegalStateException if {@link #sorted()} has been called
+     */
+    public boolean offer(Key x) {
+        if (sorted) throw new IllegalStateException("Accumulator has been sorted");
+        if (x == null) throw new NullPointerException("Cannot offer null");
+        if (N == heap.length) {
+            if (compare(x, threshold) <= 0) return false;   // fast path: no heap access
+            heap[0] = x;
+            sink(0, N);
+            threshold = heap[0];
+            return true;
+        }
+        heap[N] = x;
+        swim(N++);
+        if (N == heap.length) threshold = heap[0];
+        return true;
+    }
+
+    // Offers all the keys kept by that accumulator to this one, e.g. to combine per-thread results.
+    public void merge(TopK<Key> that) {
+        if (that == this) throw new IllegalArgumentException("Cannot merge an accumulator with itself");
+        for (int i = 0; i < that.N; i++) offer(that.heap[i]);
+    }
+
+    /**
+     * Sorts the kept keys into descending order in place and returns a view
+     * of the backing array, largest key first. No more keys can be offered
+     * afterwards.
+     *
+     * @return the kept keys in descending order
+     */
+    public Iterable<Key> sorted() {
+        if (!sorted) {
+            for (int n = N - 1; n > 0; n--) {
+                Key swap = heap[0];
+                heap[0] = heap[n];
+                heap[n] = swap;
+                sink(0, n);
+            }
+            sorted = true;
+        }
+        return new Iterable<Key>() {
+            @Override
+            public Iterator<Key> iterator() {
+                return new Iterator<Key>() {
+                    private int i = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return i < N;
+                    }
+
+                    @Override
+                    public Key next() {
+                        if (!hasNext()) throw new NoSuchElementException();
+                        return heap[i++];
+                    }
+                };
+            }
+        };
+    }
+
+    // Returns the i-th largest key, 0 being the largest; only valid after sorted() has been called
+    public Key get(int i) {
+        if (!sorted) throw new IllegalStateException("Call sorted() first");
+        if (i < 0 || i >= N) throw new IndexOutOfBoundsException("index " + i + " is not between 0 and " + (N - 1));
+        return heap[i];
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compare(Key a, Key b) {
+        if (comparator == null) return ((Comparable<Key>) a).compareTo(b);
+        else return comparator.compare(a, b);
+    }
+
+    private void swim(int k) {
+        Key x = heap[k];
+        while (k > 0) {
+            int parent = (k - 1) / 2;
+            if (compare(heap[parent], x) <= 0) break;
+            heap[k] = heap[parent];
+            k = parent;
+        }
+        heap[k] = x;
+    }
+
+    // restore the heap order of heap[0..n-1] below position k
+    private void sink(int k, int n) {
+        Key x = heap[k];
+        while (2 * k + 1 < n) {
+            int j = 2 * k + 1;
+            if (j + 1 < n && compare(heap[j + 1], heap[j]) < 0) j++;
+            if (compare(x, heap[j]) <= 0) break;
+            heap[k] = heap[j];
+            k = j;
+        }
+        heap[k] = x;
+    }
+
+    public static void main(String[] args) {
+        TopK<String> top = new TopK<String>(3);
+        String[] words = {"it", "was", "the", "best", "of", "times", "it", "was", "the", "worst"};
+        for (String word : words) top.offer(word);
+        for (String word : top.sorted()) System.out.print(word + " ");
+        System.out.println();
+    }
+}
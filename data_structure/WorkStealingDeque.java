@@ -0,0 +1,267 @@
+package data_structure;
+
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The <tt>WorkStealingDeque</tt> class represents a Chase-Lev work-stealing deque.
+ * A single owner thread uses the bottom end like a stack ({@link #push} and {@link #pop});
+ * any number of thief threads take items from the top end with {@link #steal}.
+ * <p/>
+ * The owner end works like {@link ResizingArrayStack}: items live in an array
+ * that doubles when it is full. The array is circular and indexed by two
+ * ever-increasing counters, <em>top</em> and <em>bottom</em>. Only the owner writes
+ * <em>bottom</em>; thieves and the owner race on <em>top</em> with a compare-and-set,
+ * which only happens when stealing or when the owner pops the last item.
+ * <p/>
+ * <em>push</em> and <em>pop</em> take constant amortized time and are wait-free
+ * for the owner except when contending for the last item; <em>steal</em> takes
+ * constant time and is lock-free. The array never shrinks.
+ * <p/>
+ * See D. Chase and Y. Lev, <i>Dynamic Circular Work-Stealing Deque</i>, SPAA 2005.
+ * <p/>
+ */
+public class WorkStealingDeque<T> {
+    private volatile long bottom;              // next slot the owner pushes to
+    private final AtomicLong top;              // next slot a thief steals from
+    private volatile CircularArray<T> array;   // items at indices top to bottom - 1
+
+    // circular array indexed by a long counter, the size is a power of two
+    private static class CircularArray<T> {
+        private final int mask;
+        private final AtomicReferenceArray<T> items;
+
+        CircularArray(int capacity) {
+            mask = capacity - 1;
+            items = new AtomicReferenceArray<T>(capacity);
+        }
+
+        int capacity() {
+            return mask + 1;
+        }
+
+        T get(long i) {
+            return items.get((int) i & mask);
+        }
+
+        void put(long i, T item) {
+            items.lazySet((int) i & mask, item);
+        }
+
+        // copy items t to b - 1 into an array twice as large
+        CircularArray<T> grow(long t, long b) {
+            CircularArray<T> a = new CircularArray<T>(2 * capacity());
+            for (long i = t; i < b; i++) a.put(i, get(i));
+            return a;
+        }
+    }
+
+    /**
+     * Initializes an empty deque.
+     */
+    public WorkStealingDeque() {
+        this(16);
+    }
+
+    /**
+     * Initializes an empty deque with room for <tt>initCapacity</tt> items
+     * before the first resize.
+     *
+     * @param initCapacity the initial capacity, rounded up to a power of two
+     */
+    public WorkStealingDeque(int initCapacity) {
+        if (initCapacity < 1) throw new IllegalArgumentException("Capacity must be positive");
+        int capacity = Integer.highestOneBit(initCapacity);
+        if (capacity < initCapacity) capacity <<= 1;
+        array = new CircularArray<T>(capacity);
+        top = new AtomicLong();
+        bottom = 0;
+    }
+
+    /**
+     * Is the deque empty? The answer may be stale as soon as it is returned
+     * if other threads are using the deque.
+     *
+     * @return true if the deque is empty; false otherwise
+     */
+    public boolean isEmpty() {
+        return bottom - top.get() <= 0;
+    }
+
+    /**
+     * Returns an estimate of the number of items on the deque.
+     *
+     * @return the number of items on the deque at some recent instant
+     */
+    public int size() {
+        long n = bottom - top.get();
+        return n < 0 ? 0 : (int) n;
+    }
+
+    /**
+     * Adds the item to the bottom of the deque. Must only be called by the owner.
+     *
+     * @param item the item to add
+     */
+    public void push(T item) {
+        if (item == null) throw new NullPointerException("Cannot push null");
+        long b = bottom;
+        long t = top.get();
+        CircularArray<T> a = array;
+        if (b - t >= a.capacity()) {
+            a = a.grow(t, b);
+            array = a;
+        }
+        a.put(b, item);
+        bottom = b + 1;   // volatile write publishes the item to thieves
+    }
+
+    /**
+     * Removes and returns the item at the bottom of the deque, which is the
+     * most recently pushed one. Must only be called by the owner.
+     *
+     * @return the most recently pushed item, or <tt>null</tt> if the deque is empty
+     */
+    public T pop() {
+        long b = bottom - 1;
+        CircularArray<T> a = array;
+        bottom = b;       // volatile write, then read top: a thief now sees at most b items
+        long t = top.get();
+        if (b < t) {      // deque was empty
+            bottom = t;
+            return null;
+        }
+        T item = a.get(b);
+        if (b > t) {      // more than one item left, no thief can reach this one
+            a.put(b, null);
+            return item;
+        }
+        // last item, race against thieves for it
+        if (!top.compareAndSet(t, t + 1)) item = null;
+        else a.put(b, null);
+        bottom = t + 1;
+        return item;
+    }
+
+    /**
+     * Removes and returns the item at the top of the deque, which is the
+     * least recently pushed one. May be called from any thread.
+     *
+     * @return the least recently pushed item, or <tt>null</tt> if the deque
+     * is empty or another thread took the item first
+     */
+    public T steal() {
+        long t = top.get();
+        long b = bottom;
+        CircularArray<T> a = array;
+        if (b - t <= 0) return null;
+        T item = a.get(t);
+        if (!top.compareAndSet(t, t + 1)) return null;
+        return item;
+    }
+
+    /**
+     * Stress tests the deque: the owner pushes and pops while thieves steal,
+     * and every item must be taken exactly once. Then compares throughput with
+     * {@link ConcurrentLinkedDeque} on the same workload.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int N = args.length > 0 ? Integer.parseInt(args[0]) : 2000000;
+        int thieves = args.length > 1 ? Integer.parseInt(args[1])
+                : Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+
+        for (int round = 0; round < 5; round++) {
+            AtomicIntegerArray taken = new AtomicIntegerArray(N);
+            long start = System.nanoTime();
+            runWorkStealing(N, thieves, taken);
+            long elapsed = System.nanoTime() - start;
+            for (int i = 0; i < N; i++)
+                if (taken.get(i) != 1) throw new AssertionError("item " + i + " taken " + taken.get(i) + " times");
+
+            taken = new AtomicIntegerArray(N);
+            start = System.nanoTime();
+            runConcurrentLinkedDeque(N, thieves, taken);
+            long baseline = System.nanoTime() - start;
+            for (int i = 0; i < N; i++)
+                if (taken.get(i) != 1) throw new AssertionError("item " + i + " taken " + taken.get(i) + " times");
+
+            System.out.printf("%d items, %d thieves: WorkStealingDeque %6.1f ms, ConcurrentLinkedDeque %6.1f ms%n",
+                    N, thieves, elapsed / 1e6, baseline / 1e6);
+        }
+    }
+
+    // owner pushes all items, popping one after every other push, and drains the rest
+    private static void runWorkStealing(final int N, int thieves, final AtomicIntegerArray taken)
+            throws InterruptedException {
+        final WorkStealingDeque<Integer> deque = new WorkStealingDeque<Integer>();
+        final Integer[] items = boxed(N);
+        final CountDownLatch done = new CountDownLatch(1);
+        Thread[] threads = new Thread[thieves];
+        for (int i = 0; i < thieves; i++) {
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    while (true) {
+                        Integer x = deque.steal();
+                        if (x != null) taken.incrementAndGet(x);
+                        else if (done.getCount() == 0 && deque.isEmpty()) return;
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (int i = 0; i < N; i++) {
+            deque.push(items[i]);
+            if (i % 2 == 1) {
+                Integer x = deque.pop();
+                if (x != null) taken.incrementAndGet(x);
+            }
+        }
+        Integer x;
+        while ((x = deque.pop()) != null) taken.incrementAndGet(x);
+        done.countDown();
+        for (Thread thread : threads) thread.join();
+    }
+
+    // same workload with the owner at the last end of a ConcurrentLinkedDeque
+    private static void runConcurrentLinkedDeque(final int N, int thieves, final AtomicIntegerArray taken)
+            throws InterruptedException {
+        final ConcurrentLinkedDeque<Integer> deque = new ConcurrentLinkedDeque<Integer>();
+        final Integer[] items = boxed(N);
+        final CountDownLatch done = new CountDownLatch(1);
+        Thread[] threads = new Thread[thieves];
+        for (int i = 0; i < thieves; i++) {
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    while (true) {
+                        Integer x = deque.pollFirst();
+                        if (x != null) taken.incrementAndGet(x);
+                        else if (done.getCount() == 0 && deque.isEmpty()) return;
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (int i = 0; i < N; i++) {
+            deque.addLast(items[i]);
+            if (i % 2 == 1) {
+                Integer x = deque.pollLast();
+                if (x != null) taken.incrementAndGet(x);
+            }
+        }
+        Integer x;
+        while ((x = deque.pollLast()) != null) taken.incrementAndGet(x);
+        done.countDown();
+        for (Thread thread : threads) thread.join();
+    }
+
+    private static Integer[] boxed(int N) {
+        Integer[] items = new Integer[N];
+        for (int i = 0; i < N; i++) items[i] = i;
+        return items;
+    }
+}
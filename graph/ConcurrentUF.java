@@ -0,0 +1,225 @@
+package graph;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * The <tt>ConcurrentUF</tt> class represents a union-find data type that many
+ * threads can use at once, without locks. It has the <em>union</em>,
+ * <em>connected</em> and <em>count</em> operations of {@link UF}, and a
+ * <em>find</em> operation that returns the root of a component.
+ * <em>union</em>, <em>connected</em> and <em>find</em> are linearizable: each appears
+ * to take effect at one instant between its call and its return. <em>count</em> is not:
+ * a union takes effect when its link is made, and only then decrements the count, so
+ * while unions are under way <em>count</em> can return more components than there
+ * are, never fewer; it never goes up, and it is exact once the unions have returned.
+ * <p/>
+ * This implementation keeps the parents in an {@link AtomicIntegerArray}.
+ * Two roots are linked with a compare-and-set that succeeds only if the child
+ * is still a root; the root with the lower priority becomes the child, where the
+ * priority of <em>i</em> is a fixed pseudo-random function of <em>i</em>, which
+ * works like randomized linking without storing ranks or sizes. <em>find</em>
+ * compresses paths concurrently by splitting: each node it passes is pointed at
+ * its grandparent with a compare-and-set that may harmlessly fail.
+ * A thread can only be delayed by others changing the nodes it looks at, which
+ * each of them does a bounded number of times, and the operations take
+ * logarithmic expected time.
+ * <p/>
+ */
+public class ConcurrentUF {
+    private final AtomicIntegerArray parent;  // parent[i] = parent of i
+    private final AtomicInteger count;        // number of components
+
+    public ConcurrentUF(int N) {
+        if (N < 0) throw new IllegalArgumentException("N must be non-negative");
+        parent = new AtomicIntegerArray(N);
+        for (int i = 0; i < N; i++) parent.set(i, i);
+        count = new AtomicInteger(N);
+    }
+
+    // Returns the number of components, or more while unions are under way
+    public int count() {
+        return count.get();
+    }
+
+    // Returns the root of the component containing i, halving the path on the way
+    public int find(int i) {
+        if (i < 0 || i >= parent.length()) throw new IndexOutOfBoundsException();
+        while (true) {
+            int p = parent.get(i);
+            int gp = parent.get(p);
+            if (p == gp) return p;
+            parent.compareAndSet(i, p, gp);  // path splitting
+            i = p;
+        }
+    }
+
+    public boolean connected(int p, int q) {
+        while (true) {
+            p = find(p);
+            q = find(q);
+            if (p == q) return true;
+            // p was still a root after q was found, so they were apart at that instant
+            if (parent.get(p) == p) return false;
+        }
+    }
+
+    public void union(int p, int q) {
+        while (true) {
+            p = find(p);
+            q = find(q);
+            if (p == q) return;
+
+            // make the root of lower priority point to the other one
+            if (priority(p) > priority(q) || (priority(p) == priority(q) && p > q)) {
+                int swap = p;
+                p = q;
+                q = swap;
+            }
+            if (parent.compareAndSet(p, p, q)) {
+                count.decrementAndGet();
+                return;
+            }
+        }
+    }
+
+    // a fixed pseudo-random permutation of the ints (the MurmurHash3 finalizer)
+    private static int priority(int i) {
+        i ^= i >>> 16;
+        i *= 0x85ebca6b;
+        i ^= i >>> 13;
+        i *= 0xc2b2ae35;
+        i ^= i >>> 16;
+        return i;
+    }
+
+    /**
+     * Runs a stress test and a scaling benchmark.
+     * <ul>
+     * <li>Threads union random pairs; the final components must be those a {@link UF}
+     * finds for the same pairs.</li>
+     * <li>A writer links 0-1, 1-2, 2-3, ... in order while readers call <tt>connected</tt>:
+     * once 0 is seen connected to <em>k</em>, it must be seen connected to every <em>j</em> &lt; <em>k</em>,
+     * and the count must then be at most that after the first <em>k</em> - 1 unions; once the count
+     * is seen to be <em>c</em>, 0 must be seen connected to the vertex the union that made it
+     * <em>c</em> linked; and the count must never go up.</li>
+     * <li>The time to union random pairs with 1, 2, 4, ... threads, against a
+     * {@link UF} whose <tt>union</tt> is called under a lock.</li>
+     * </ul>
+     * Arguments: N (default 1000000), unions (default 4000000), maximum threads (default 8).
+     */
+    public static void main(String[] args) throws InterruptedException {
+        ConcurrentUF small = new ConcurrentUF(10);
+        small.union(4, 3);
+        small.union(3, 8);
+        small.union(6, 5);
+        small.union(9, 4);
+        small.union(2, 1);
+        small.union(5, 0);
+        small.union(7, 2);
+        small.union(6, 1);
+        System.out.println(small.count() + " components");
+
+        final int N = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        final int M = args.length > 1 ? Integer.parseInt(args[1]) : 4000000;
+        int maxThreads = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+        Random random = new Random(42);
+        final int[] p = new int[M], q = new int[M];
+        for (int i = 0; i < M; i++) {
+            p[i] = random.nextInt(N);
+            q[i] = random.nextInt(N);
+        }
+
+        // the same components as a sequential UF
+        UF uf = new UF(N);
+        for (int i = 0; i < M; i++) uf.union(p[i], q[i]);
+        ConcurrentUF cuf = new ConcurrentUF(N);
+        unionAll(cuf, null, p, q, 4);
+        if (cuf.count() != uf.count()) throw new AssertionError("counts differ");
+        for (int i = 0; i < N; i++) {
+            int j = random.nextInt(N);
+            if (cuf.connected(i, j) != uf.connected(i, j)) throw new AssertionError("components differ");
+        }
+        System.out.println("random unions: " + cuf.count() + " components, same as UF");
+
+        // what readers see must be consistent with the order of the writer's unions
+        final int chain = Math.min(N, 200000);
+        final ConcurrentUF linear = new ConcurrentUF(chain);
+        final AtomicBoolean failed = new AtomicBoolean();
+        Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i + 1 < chain; i++) linear.union(i + 1, i);
+            }
+        });
+        Thread[] readers = new Thread[3];
+        for (int t = 0; t < readers.length; t++) {
+            final long seed = t;
+            readers[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Random random = new Random(seed);
+                    int lastCount = Integer.MAX_VALUE;
+                    while (linear.count() > 1) {
+                        int count = linear.count();
+                        if (count > lastCount) failed.set(true);
+                        lastCount = count;
+                        // union i links i + 1 to i and returns before union i + 1 starts
+                        if (!linear.connected(0, chain - count)) failed.set(true);
+                        int k = random.nextInt(chain);
+                        if (linear.connected(0, k)) {
+                            int j = random.nextInt(k + 1);
+                            if (!linear.connected(j, 0)) failed.set(true);
+                            if (linear.count() > chain - k + 1) failed.set(true);
+                        }
+                    }
+                }
+            });
+        }
+        writer.start();
+        for (Thread reader : readers) reader.start();
+        writer.join();
+        for (Thread reader : readers) reader.join();
+        if (failed.get()) throw new AssertionError("non-linearizable result observed");
+        System.out.println("chain of " + chain + " unions with concurrent readers: consistent");
+
+        // scaling
+        System.out.printf("%d unions on %d elements, %d processors%n", M, N, Runtime.getRuntime().availableProcessors());
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            long best1 = Long.MAX_VALUE, best2 = Long.MAX_VALUE;
+            for (int round = 0; round < 3; round++) {
+                long start = System.nanoTime();
+                unionAll(new ConcurrentUF(N), null, p, q, threads);
+                best1 = Math.min(best1, System.nanoTime() - start);
+                start = System.nanoTime();
+                unionAll(null, new UF(N), p, q, threads);
+                best2 = Math.min(best2, System.nanoTime() - start);
+            }
+            System.out.printf("%2d threads: ConcurrentUF %6.1f ms, locked UF %6.1f ms%n", threads, best1 / 1e6, best2 / 1e6);
+        }
+    }
+
+    // union the pairs with the given number of threads, into cuf or, under a lock, into uf
+    private static void unionAll(final ConcurrentUF cuf, final UF uf, final int[] p, final int[] q, final int threads)
+            throws InterruptedException {
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            final int id = t;
+            workers[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = id; i < p.length; i += threads) {
+                        if (cuf != null) cuf.union(p[i], q[i]);
+                        else synchronized (uf) {
+                            uf.union(p[i], q[i]);
+                        }
+                    }
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) worker.join();
+    }
+}
@@ -0,0 +1,391 @@
+package graph;
+
+import data_structure.IntBag;
+import data_structure.IntStack;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * The <tt>DynamicConnectivity</tt> class represents a union-find data type in which
+ * connections can also be removed: a graph of <em>N</em> vertices changes by adding
+ * and removing edges, and is asked whether two vertices are connected and how many
+ * components it has. Parallel edges are allowed; removing an edge removes one copy.
+ * <p/>
+ * Queries are answered offline, in batches. <tt>askConnected()</tt> and <tt>askCount()</tt>
+ * record a question about the graph as it is at that moment and return a ticket;
+ * <tt>solve()</tt> answers every question recorded so far, after which
+ * <tt>connected(ticket)</tt> and <tt>count(ticket)</tt> return the answers.
+ * For a question about the graph as it is now, <tt>connected(p, q)</tt> and
+ * <tt>count()</tt> have the same surface as {@link UF}; the first of them builds an
+ * {@link OnlineConnectivity} of the current edges, which every later change then
+ * updates in polylogarithmic time.
+ * <p/>
+ * This implementation uses the offline divide-and-conquer method. Each copy of an edge
+ * is alive for an interval of questions, from the first one asked after it was added
+ * to the last one asked before it was removed. A segment tree over the questions
+ * stores every interval in at most 2 lg <em>Q</em> nodes. A depth-first walk of the
+ * tree adds the edges of each node to a union-find with union by size and no path
+ * compression, so that the unions can be undone in reverse order on the way back up;
+ * each leaf is answered by the union-find as it stands there.
+ * With <em>U</em> edge additions and <em>Q</em> questions, <tt>solve()</tt> takes time
+ * proportional to (<em>U</em> log <em>Q</em> + <em>Q</em>) log <em>N</em>, and the other
+ * operations take constant expected time, and once <tt>connected(p, q)</tt> or
+ * <tt>count()</tt> has been called, changes take the time of {@link OnlineConnectivity}.
+ * <p/>
+ */
+public class DynamicConnectivity {
+    private final int N;
+    private int[] edgeV = new int[2];     // edge i joins edgeV[i] and edgeW[i]
+    private int[] edgeW = new int[2];
+    private int[] edgeFrom = new int[2];  // and is alive for questions edgeFrom[i] to edgeTo[i] - 1,
+    private int[] edgeTo = new int[2];    // or until the last one if edgeTo[i] is -1
+    private int edges;                    // number of edges ever added
+    private final Map<Long, IntStack> alive = new HashMap<Long, IntStack>();  // live copies of each edge, most recent on top
+    private int[] askP = new int[2];      // question i asks if askP[i] and askQ[i] are connected,
+    private int[] askQ = new int[2];      // or for the count if askP[i] is -1
+    private int questions;                // number of questions asked
+    private int[] answers = new int[0];   // answers to the questions solved so far
+    private int solved;                   // number of questions solved so far
+    private OnlineConnectivity current;   // the current graph, once asked about it directly (or null)
+
+    // Initializes a graph of N vertices and no edges
+    public DynamicConnectivity(int N) {
+        if (N < 0) throw new IllegalArgumentException("N must be non-negative");
+        this.N = N;
+    }
+
+    private void validate(int v) {
+        if (v < 0 || v >= N) throw new IndexOutOfBoundsException("vertex " + v + " is not between 0 and " + (N - 1));
+    }
+
+    private static long key(int v, int w) {
+        return v < w ? ((long) v << 32) | w : ((long) w << 32) | v;
+    }
+
+    // Adds the edge v-w
+    public void addEdge(int v, int w) {
+        validate(v);
+        validate(w);
+        long key = key(v, w);
+        IntStack copies = alive.get(key);
+        if (copies == null) {
+            copies = new IntStack();
+            alive.put(key, copies);
+        }
+        if (edges == edgeV.length) {
+            edgeV = Arrays.copyOf(edgeV, 2 * edges);
+            edgeW = Arrays.copyOf(edgeW, 2 * edges);
+            edgeFrom = Arrays.copyOf(edgeFrom, 2 * edges);
+            edgeTo = Arrays.copyOf(edgeTo, 2 * edges);
+        }
+        edgeV[edges] = v;
+        edgeW[edges] = w;
+        edgeFrom[edges] = questions;
+        edgeTo[edges] = -1;
+        copies.push(edges++);
+        if (current != null) current.addEdge(v, w);
+    }
+
+    // Removes one copy of the edge v-w
+    public void removeEdge(int v, int w) {
+        validate(v);
+        validate(w);
+        IntStack copies = alive.get(key(v, w));
+        if (copies == null || copies.isEmpty())
+            throw new IllegalArgumentException("no edge " + v + "-" + w + " to remove");
+        edgeTo[copies.pop()] = questions;
+        if (current != null) current.removeEdge(v, w);
+    }
+
+    // Records the question "are p and q connected now?" and returns its ticket
+    public int askConnected(int p, int q) {
+        validate(p);
+        validate(q);
+        return ask(p, q);
+    }
+
+    // Records the question "how many components are there now?" and returns its ticket
+    public int askCount() {
+        return ask(-1, -1);
+    }
+
+    private int ask(int p, int q) {
+        if (questions == askP.length) {
+            askP = Arrays.copyOf(askP, 2 * questions);
+            askQ = Arrays.copyOf(askQ, 2 * questions);
+        }
+        askP[questions] = p;
+        askQ[questions] = q;
+        return questions++;
+    }
+
+    // Returns the answer to the question with the given ticket, which must have been solved
+    public boolean connected(int ticket) {
+        validateTicket(ticket);
+        if (askP[ticket] == -1) throw new IllegalArgumentException("ticket " + ticket + " asks for the count");
+        return answers[ticket] == 1;
+    }
+
+    // Returns the answer to the question with the given ticket, which must have been solved
+    public int count(int ticket) {
+        validateTicket(ticket);
+        if (askP[ticket] != -1) throw new IllegalArgumentException("ticket " + ticket + " asks about a pair");
+        return answers[ticket];
+    }
+
+    private void validateTicket(int ticket) {
+        if (ticket < 0 || ticket >= questions) throw new IndexOutOfBoundsException("no ticket " + ticket);
+        if (ticket >= solved) throw new IllegalStateException("ticket " + ticket + " has not been solved yet");
+    }
+
+    // Are p and q connected in the current graph?
+    public boolean connected(int p, int q) {
+        return online().connected(p, q);
+    }
+
+    // Returns the number of components of the current graph
+    public int count() {
+        return online().count();
+    }
+
+    private OnlineConnectivity online() {
+        if (current == null) {
+            current = new OnlineConnectivity(N);
+            for (IntStack copies : alive.values())
+                for (int i = 0; i < copies.size(); i++) {
+                    int e = copies.get(i);
+                    current.addEdge(edgeV[e], edgeW[e]);
+                }
+        }
+        return current;
+    }
+
+    /**
+     * Answers every question recorded so far. Calling it again after more changes
+     * and questions answers the new questions too.
+     */
+    public void solve() {
+        int Q = questions;
+        if (Q == 0) return;
+        IntBag[] tree = new IntBag[4 * Q];  // tree[x] = edges alive for all the questions of node x
+        for (int i = 0; i < edges; i++) {
+            int from = edgeFrom[i];
+            int to = edgeTo[i] == -1 ? Q : edgeTo[i];
+            if (from < to) insert(tree, 1, 0, Q, from, to, i);
+        }
+        answers = new int[Q];
+        solve(tree, 1, 0, Q, new RollbackUF(N));
+        solved = Q;
+    }
+
+    // store edge i in the nodes covering questions from to to-1; node x covers lo to hi-1
+    private void insert(IntBag[] tree, int x, int lo, int hi, int from, int to, int i) {
+        if (to <= lo || hi <= from) return;
+        if (from <= lo && hi <= to) {
+            if (tree[x] == null) tree[x] = new IntBag();
+            tree[x].add(i);
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        insert(tree, 2 * x, lo, mid, from, to, i);
+        insert(tree, 2 * x + 1, mid, hi, from, to, i);
+    }
+
+    // answer the questions lo to hi-1, undoing the unions made here on the way out;
+    // the recursion is only lg Q deep
+    private void solve(IntBag[] tree, int x, int lo, int hi, RollbackUF uf) {
+        int mark = uf.mark();
+        if (tree[x] != null)
+            for (int k = 0; k < tree[x].size(); k++) {
+                int i = tree[x].get(k);
+                uf.union(edgeV[i], edgeW[i]);
+            }
+        if (hi - lo == 1) {
+            int p = askP[lo];
+            answers[lo] = p == -1 ? uf.count() : (uf.connected(p, askQ[lo]) ? 1 : 0);
+        } else {
+            int mid = (lo + hi) >>> 1;
+            solve(tree, 2 * x, lo, mid, uf);
+            solve(tree, 2 * x + 1, mid, hi, uf);
+        }
+        uf.rollback(mark);
+    }
+
+    // weighted quick-union without path compression, whose unions can be undone
+    private static class RollbackUF {
+        private final int[] parent;
+        private final int[] size;
+        private int count;
+        private final IntStack history = new IntStack();  // roots made children, most recent on top
+
+        RollbackUF(int N) {
+            parent = new int[N];
+            size = new int[N];
+            count = N;
+            for (int i = 0; i < N; i++) {
+                parent[i] = i;
+                size[i] = 1;
+            }
+        }
+
+        int root(int i) {
+            while (i != parent[i]) i = parent[i];
+            return i;
+        }
+
+        boolean connected(int p, int q) {
+            return root(p) == root(q);
+        }
+
+        int count() {
+            return count;
+        }
+
+        void union(int p, int q) {
+            int i = root(p);
+            int j = root(q);
+            if (i == j) return;
+            if (size[i] < size[j]) {
+                int swap = i;
+                i = j;
+                j = swap;
+            }
+            parent[j] = i;
+            size[i] += size[j];
+            count--;
+            history.push(j);
+        }
+
+        int mark() {
+            return history.size();
+        }
+
+        // undo the unions made since mark() returned the given value
+        void rollback(int mark) {
+            while (history.size() > mark) {
+                int j = history.pop();
+                int i = parent[j];
+                size[i] -= size[j];
+                parent[j] = j;
+                count++;
+            }
+        }
+    }
+
+    /**
+     * Replays a random sequence of additions, removals and questions, answering them
+     * offline with tickets and online as they are asked, checks both against a {@link UF}
+     * rebuilt from the live edges at some of the questions, and compares the running times.
+     * Arguments: N (default 100000), operations (default 400000).
+     */
+    public static void main(String[] args) {
+        DynamicConnectivity dc = new DynamicConnectivity(5);
+        dc.addEdge(0, 1);
+        dc.addEdge(1, 2);
+        int a = dc.askConnected(0, 2);
+        dc.removeEdge(1, 2);
+        int b = dc.askConnected(0, 2);
+        dc.addEdge(3, 2);
+        dc.addEdge(3, 0);
+        int c = dc.askConnected(0, 2);
+        int d = dc.askCount();
+        dc.solve();
+        System.out.println("0-2 connected: " + dc.connected(a) + ", " + dc.connected(b) + ", " + dc.connected(c)
+                + "; " + dc.count(d) + " components; now " + dc.count());
+
+        int N = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        int M = args.length > 1 ? Integer.parseInt(args[1]) : 400000;
+        Random random = new Random(42);
+        int[] type = new int[M], p = new int[M], q = new int[M], slot = new int[M];
+        int[] liveV = new int[M], liveW = new int[M];
+        int live = 0, questions = 0;
+        for (int i = 0; i < M; i++) {
+            int r = random.nextInt(10);
+            type[i] = r < 5 ? 0 : r < 8 && live > 0 ? 1 : 2;   // add, remove, ask
+            if (type[i] == 0) {
+                p[i] = random.nextInt(N);
+                q[i] = random.nextInt(N);
+                liveV[live] = p[i];
+                liveW[live++] = q[i];
+            } else if (type[i] == 1) {
+                // remove a random live edge, keeping the live edges packed
+                int k = random.nextInt(live);
+                slot[i] = k;
+                p[i] = liveV[k];
+                q[i] = liveW[k];
+                liveV[k] = liveV[--live];
+                liveW[k] = liveW[live];
+            } else {
+                p[i] = random.nextInt(N);
+                q[i] = random.nextInt(N);
+                questions++;
+            }
+        }
+
+        long start = System.nanoTime();
+        DynamicConnectivity dynamic = new DynamicConnectivity(N);
+        int[] tickets = new int[questions];
+        int[] countTickets = new int[questions];
+        int t = 0;
+        for (int i = 0; i < M; i++) {
+            if (type[i] == 0) dynamic.addEdge(p[i], q[i]);
+            else if (type[i] == 1) dynamic.removeEdge(p[i], q[i]);
+            else {
+                tickets[t] = dynamic.askConnected(p[i], q[i]);
+                countTickets[t++] = dynamic.askCount();
+            }
+        }
+        dynamic.solve();
+        long t1 = System.nanoTime() - start;
+
+        // online, answering each question as it is asked
+        start = System.nanoTime();
+        DynamicConnectivity online = new DynamicConnectivity(N);
+        online.count();
+        boolean[] connected = new boolean[questions];
+        int[] count = new int[questions];
+        t = 0;
+        for (int i = 0; i < M; i++) {
+            if (type[i] == 0) online.addEdge(p[i], q[i]);
+            else if (type[i] == 1) online.removeEdge(p[i], q[i]);
+            else {
+                connected[t] = online.connected(p[i], q[i]);
+                count[t++] = online.count();
+            }
+        }
+        long t2 = System.nanoTime() - start;
+
+        // rebuild from scratch at some of the questions, to check the others and to time it
+        int checks = Math.min(questions, 200);
+        long t3 = 0;
+        live = 0;
+        t = 0;
+        for (int i = 0; i < M; i++) {
+            if (type[i] == 0) {
+                liveV[live] = p[i];
+                liveW[live++] = q[i];
+            } else if (type[i] == 1) {
+                int k = slot[i];
+                liveV[k] = liveV[--live];
+                liveW[k] = liveW[live];
+            } else {
+                if (t % (questions / checks) == 0) {
+                    start = System.nanoTime();
+                    UF uf = new UF(N);
+                    for (int k = 0; k < live; k++) uf.union(liveV[k], liveW[k]);
+                    boolean same = uf.connected(p[i], q[i]);
+                    t3 += System.nanoTime() - start;
+                    if (same != dynamic.connected(tickets[t]) || same != connected[t]
+                            || uf.count() != dynamic.count(countTickets[t]) || uf.count() != count[t])
+                        throw new AssertionError("answers differ at question " + t);
+                }
+                t++;
+            }
+        }
+        System.out.printf("%d operations, %d questions on %d vertices: offline %6.1f ms, online %6.1f ms for all; "
+                + "rebuilding a UF %6.1f ms for %d of them%n", M, questions, N, t1 / 1e6, t2 / 1e6, t3 / 1e6, checks);
+    }
+}
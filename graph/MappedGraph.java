@@ -0,0 +1,444 @@
+package graph;
+
+import graph.directed_graph.CSRDigraph;
+import graph.shortest_path.CSREdgeWeightedDigraph;
+import graph.undirected_graph.CSRGraph;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * The <tt>MappedGraph</tt> class represents a read-only graph stored on disk in a
+ * binary compressed sparse row format, and opened by memory-mapping the file rather
+ * than parsing it. Opening a graph takes time independent of its size, and queries
+ * read the arrays straight from the operating system's page cache, so graphs much
+ * larger than the heap can be searched. A file holds a digraph, an undirected graph
+ * or an edge-weighted digraph; it is written from the in-memory CSR classes by
+ * <tt>write()</tt>, or converted from the text format read by <tt>In</tt> by
+ * <tt>convert()</tt>, which streams the text twice and never holds the edges on heap.
+ * <p/>
+ * The file is big-endian, as written by {@link DataOutputStream}, and every array
+ * starts at a multiple of 8 bytes:
+ * <pre>
+ *     int    magic 0x43535247 ("CSRG"), version 1, kind, 0 (padding)
+ *     long   V, the number of vertices
+ *     long   E, the number of edges
+ *     long   M, the number of entries of target[] (2E for an undirected graph)
+ *     long   offset[V + 1]   the entries for v are offset[v] to offset[v+1]-1
+ *     int    target[M]       padded with zeros to a multiple of 8 bytes
+ *     double weight[M]       edge-weighted digraphs only
+ * </pre>
+ * Edge indices and offsets are <tt>long</tt>s, and the file is mapped in segments of
+ * 2<sup>30</sup> bytes, so files larger than 2GB are supported. As the segment size
+ * is a multiple of 8 and the arrays are aligned, no value straddles two segments.
+ * All operations take constant time.
+ * <p/>
+ */
+public class MappedGraph {
+    public static final int DIGRAPH = 0;                // kind of a file holding a digraph
+    public static final int GRAPH = 1;                  // kind of a file holding an undirected graph
+    public static final int EDGE_WEIGHTED_DIGRAPH = 2;  // kind of a file holding an edge-weighted digraph
+
+    private static final int MAGIC = 0x43535247;
+    private static final int VERSION = 1;
+    private static final int HEADER = 40;               // bytes before offset[]
+    private static final int SEGMENT_BITS = 30;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_BITS) - 1;
+
+    private final MappedByteBuffer[] segments;  // segments[i] maps bytes i * 2^30 to (i+1) * 2^30 - 1
+    private final int kind;
+    private final int V;
+    private final long E;
+    private final long M;
+    private final long targetStart;             // position of target[0] in the file
+    private final long weightStart;             // position of weight[0] in the file, or -1
+
+    /**
+     * Opens a graph file by memory-mapping it. The file can be closed, moved or
+     * deleted afterwards; the mapping stays valid until the object is garbage collected.
+     *
+     * @param file the file, as written by <tt>write()</tt> or <tt>convert()</tt>
+     * @throws IOException              if the file cannot be read
+     * @throws IllegalArgumentException if the file is not a graph file or is truncated
+     */
+    public MappedGraph(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            long size = channel.size();
+            if (size < HEADER) throw new IllegalArgumentException(file + " is not a graph file");
+            int n = (int) ((size + SEGMENT_MASK) >>> SEGMENT_BITS);
+            segments = new MappedByteBuffer[n];
+            for (int i = 0; i < n; i++) {
+                long start = (long) i << SEGMENT_BITS;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(SEGMENT_MASK + 1, size - start));
+            }
+        } finally {
+            raf.close();
+        }
+        if (getInt(0) != MAGIC) throw new IllegalArgumentException(file + " is not a graph file");
+        if (getInt(4) != VERSION) throw new IllegalArgumentException("Unsupported graph file version " + getInt(4));
+        kind = getInt(8);
+        if (kind < DIGRAPH || kind > EDGE_WEIGHTED_DIGRAPH)
+            throw new IllegalArgumentException("Unknown kind of graph " + kind);
+        long V = getLong(16);
+        if (V < 0 || V > Integer.MAX_VALUE - 1) throw new IllegalArgumentException("Bad number of vertices " + V);
+        this.V = (int) V;
+        E = getLong(24);
+        M = getLong(32);
+        targetStart = HEADER + 8 * (V + 1);
+        weightStart = kind == EDGE_WEIGHTED_DIGRAPH ? align(targetStart + 4 * M) : -1;
+        long expected = kind == EDGE_WEIGHTED_DIGRAPH ? weightStart + 8 * M : align(targetStart + 4 * M);
+        if (segments.length == 0 || size(segments) < expected)
+            throw new IllegalArgumentException(file + " is truncated");
+    }
+
+    private static long size(MappedByteBuffer[] segments) {
+        return ((long) (segments.length - 1) << SEGMENT_BITS) + segments[segments.length - 1].capacity();
+    }
+
+    private static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+
+    private int getInt(long position) {
+        return segments[(int) (position >>> SEGMENT_BITS)].getInt((int) (position & SEGMENT_MASK));
+    }
+
+    private long getLong(long position) {
+        return segments[(int) (position >>> SEGMENT_BITS)].getLong((int) (position & SEGMENT_MASK));
+    }
+
+    private double getDouble(long position) {
+        return segments[(int) (position >>> SEGMENT_BITS)].getDouble((int) (position & SEGMENT_MASK));
+    }
+
+    private void validateVertex(int v) {
+        if (v < 0 || v >= V)
+            throw new IndexOutOfBoundsException("vertex " + v + " is not between 0 and " + (V - 1));
+    }
+
+    // Returns DIGRAPH, GRAPH or EDGE_WEIGHTED_DIGRAPH
+    public int kind() {
+        return kind;
+    }
+
+    public int V() {
+        return V;
+    }
+
+    // Returns the number of edges; an undirected graph stores each of them twice
+    public long E() {
+        return E;
+    }
+
+    // Returns the first entry for v
+    public long begin(int v) {
+        validateVertex(v);
+        return getLong(HEADER + 8L * v);
+    }
+
+    // Returns one past the last entry for v
+    public long end(int v) {
+        validateVertex(v);
+        return getLong(HEADER + 8L * (v + 1));
+    }
+
+    // Returns the number of entries for v: its outdegree, or its degree if the graph is undirected
+    public int degree(int v) {
+        return (int) (end(v) - begin(v));
+    }
+
+    // Returns the vertex that entry e leads to
+    public int to(long e) {
+        if (e < 0 || e >= M) throw new IndexOutOfBoundsException("entry " + e + " is not between 0 and " + (M - 1));
+        return getInt(targetStart + 4 * e);
+    }
+
+    // Returns the weight of entry e of an edge-weighted digraph
+    public double weight(long e) {
+        if (weightStart < 0) throw new UnsupportedOperationException("The graph is not edge-weighted");
+        if (e < 0 || e >= M) throw new IndexOutOfBoundsException("entry " + e + " is not between 0 and " + (M - 1));
+        return getDouble(weightStart + 8 * e);
+    }
+
+    /**************************************************************
+     * Writing graph files
+     **************************************************************/
+
+    // Writes the digraph G to a graph file
+    public static void write(CSRDigraph G, File file) throws IOException {
+        DataOutputStream out = open(file);
+        try {
+            writeHeader(out, DIGRAPH, G.V(), G.E(), G.E());
+            for (int v = 0; v < G.V(); v++) out.writeLong(G.begin(v));
+            out.writeLong(G.E());
+            for (int e = 0; e < G.E(); e++) out.writeInt(G.to(e));
+            if (G.E() % 2 != 0) out.writeInt(0);
+        } finally {
+            out.close();
+        }
+    }
+
+    // Writes the undirected graph G to a graph file
+    public static void write(CSRGraph G, File file) throws IOException {
+        DataOutputStream out = open(file);
+        try {
+            long M = 2L * G.E();
+            writeHeader(out, GRAPH, G.V(), G.E(), M);
+            for (int v = 0; v < G.V(); v++) out.writeLong(G.begin(v));
+            out.writeLong(M);
+            for (int e = 0; e < M; e++) out.writeInt(G.to(e));
+        } finally {
+            out.close();
+        }
+    }
+
+    // Writes the edge-weighted digraph G to a graph file
+    public static void write(CSREdgeWeightedDigraph G, File file) throws IOException {
+        DataOutputStream out = open(file);
+        try {
+            writeHeader(out, EDGE_WEIGHTED_DIGRAPH, G.V(), G.E(), G.E());
+            for (int v = 0; v < G.V(); v++) out.writeLong(G.begin(v));
+            out.writeLong(G.E());
+            for (int e = 0; e < G.E(); e++) out.writeInt(G.to(e));
+            if (G.E() % 2 != 0) out.writeInt(0);
+            for (int e = 0; e < G.E(); e++) out.writeDouble(G.weight(e));
+        } finally {
+            out.close();
+        }
+    }
+
+    private static DataOutputStream open(File file) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+    }
+
+    private static void writeHeader(DataOutputStream out, int kind, long V, long E, long M) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(kind);
+        out.writeInt(0);
+        out.writeLong(V);
+        out.writeLong(E);
+        out.writeLong(M);
+    }
+
+    /**
+     * Converts a graph from the text format read by <tt>Digraph(In)</tt>,
+     * <tt>Graph(In)</tt> or <tt>EdgeWeightedDigraph(In)</tt> to a graph file.
+     * The text is read twice: once to count the degrees, then again to store each
+     * edge at its place in the memory-mapped output, so memory use is proportional
+     * to <em>V</em> whatever the number of edges. Edges keep the order of the text.
+     * Weights may use a decimal point or a decimal comma.
+     *
+     * @param text the text file
+     * @param kind DIGRAPH, GRAPH or EDGE_WEIGHTED_DIGRAPH
+     * @param file the graph file to write
+     * @throws IOException               if a file cannot be read or written
+     * @throws IllegalArgumentException  if the text is malformed
+     * @throws IndexOutOfBoundsException if an endpoint is not between 0 and <em>V</em> - 1
+     */
+    public static void convert(File text, int kind, File file) throws IOException {
+        if (kind < DIGRAPH || kind > EDGE_WEIGHTED_DIGRAPH)
+            throw new IllegalArgumentException("Unknown kind of graph " + kind);
+        boolean undirected = kind == GRAPH, weighted = kind == EDGE_WEIGHTED_DIGRAPH;
+
+        // first pass: count the entries of each vertex
+        TextReader in = new TextReader(text);
+        int V;
+        long E;
+        long[] next;
+        try {
+            long n = in.readLong();
+            if (n < 0 || n > Integer.MAX_VALUE - 1) throw new IllegalArgumentException("Bad number of vertices " + n);
+            V = (int) n;
+            E = in.readLong();
+            if (E < 0) throw new IllegalArgumentException("Number of edges must be nonnegative");
+            next = new long[V + 1];
+            for (long i = 0; i < E; i++) {
+                int v = in.readVertex(V), w = in.readVertex(V);
+                if (weighted) in.readDouble();
+                next[v + 1]++;
+                if (undirected) next[w + 1]++;
+            }
+        } finally {
+            in.close();
+        }
+        for (int v = 0; v < V; v++) next[v + 1] += next[v];
+        long M = next[V];
+        long targetStart = HEADER + 8L * (V + 1);
+        long weightStart = align(targetStart + 4 * M);
+        long size = weighted ? weightStart + 8 * M : weightStart;
+
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.setLength(0);
+            raf.setLength(size);
+            FileChannel channel = raf.getChannel();
+            int n = (int) ((size + SEGMENT_MASK) >>> SEGMENT_BITS);
+            MappedByteBuffer[] out = new MappedByteBuffer[n];
+            for (int i = 0; i < n; i++) {
+                long start = (long) i << SEGMENT_BITS;
+                out[i] = channel.map(FileChannel.MapMode.READ_WRITE, start, Math.min(SEGMENT_MASK + 1, size - start));
+            }
+            out[0].putInt(0, MAGIC);
+            out[0].putInt(4, VERSION);
+            out[0].putInt(8, kind);
+            out[0].putLong(16, V);
+            out[0].putLong(24, E);
+            out[0].putLong(32, M);
+            for (int v = 0; v <= V; v++) putLong(out, HEADER + 8L * v, next[v]);
+
+            // second pass: store each entry at the next free place of its vertex
+            in = new TextReader(text);
+            try {
+                in.readLong();
+                in.readLong();
+                for (long i = 0; i < E; i++) {
+                    int v = in.readVertex(V), w = in.readVertex(V);
+                    long e = next[v]++;
+                    putInt(out, targetStart + 4 * e, w);
+                    if (weighted) putDouble(out, weightStart + 8 * e, in.readDouble());
+                    if (undirected) putInt(out, targetStart + 4 * next[w]++, v);
+                }
+            } finally {
+                in.close();
+            }
+            for (MappedByteBuffer segment : out) segment.force();
+        } finally {
+            raf.close();
+        }
+    }
+
+    private static void putInt(MappedByteBuffer[] out, long position, int x) {
+        out[(int) (position >>> SEGMENT_BITS)].putInt((int) (position & SEGMENT_MASK), x);
+    }
+
+    private static void putLong(MappedByteBuffer[] out, long position, long x) {
+        out[(int) (position >>> SEGMENT_BITS)].putLong((int) (position & SEGMENT_MASK), x);
+    }
+
+    private static void putDouble(MappedByteBuffer[] out, long position, double x) {
+        out[(int) (position >>> SEGMENT_BITS)].putDouble((int) (position & SEGMENT_MASK), x);
+    }
+
+    // reads whitespace-separated numbers from a text file, much faster than Scanner
+    private static class TextReader {
+        private final InputStream in;
+        private final StringBuilder token = new StringBuilder();
+
+        TextReader(File file) throws IOException {
+            in = new BufferedInputStream(new FileInputStream(file), 1 << 16);
+        }
+
+        // read the next token into token, or throw if there is none
+        private void next() throws IOException {
+            int c = in.read();
+            while (c != -1 && Character.isWhitespace(c)) c = in.read();
+            if (c == -1) throw new IllegalArgumentException("Unexpected end of input");
+            token.setLength(0);
+            while (c != -1 && !Character.isWhitespace(c)) {
+                token.append((char) c);
+                c = in.read();
+            }
+        }
+
+        long readLong() throws IOException {
+            next();
+            try {
+                return Long.parseLong(token.toString());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Expected an integer, found " + token);
+            }
+        }
+
+        int readVertex(int V) throws IOException {
+            long v = readLong();
+            if (v < 0 || v >= V)
+                throw new IndexOutOfBoundsException("vertex " + v + " is not between 0 and " + (V - 1));
+            return (int) v;
+        }
+
+        double readDouble() throws IOException {
+            next();
+            for (int i = 0; i < token.length(); i++)
+                if (token.charAt(i) == ',') token.setCharAt(i, '.');
+            try {
+                double x = Double.parseDouble(token.toString());
+                if (Double.isNaN(x)) throw new IllegalArgumentException("Weight is NaN");
+                return x;
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Expected a number, found " + token);
+            }
+        }
+
+        void close() throws IOException {
+            in.close();
+        }
+    }
+
+    /**
+     * Usage:
+     * <pre>
+     *     java graph.MappedGraph convert digraph|graph|ewd input.txt output.bin
+     *     java graph.MappedGraph bfs output.bin s
+     * </pre>
+     * With no arguments, converts tinyEWD.txt and prints its adjacency lists from the mapping.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 4 && args[0].equals("convert")) {
+            int kind = args[1].equals("graph") ? GRAPH : args[1].equals("ewd") ? EDGE_WEIGHTED_DIGRAPH : DIGRAPH;
+            long start = System.nanoTime();
+            convert(new File(args[2]), kind, new File(args[3]));
+            System.out.printf("converted in %.1f ms%n", (System.nanoTime() - start) / 1e6);
+        } else if (args.length == 3 && args[0].equals("bfs")) {
+            long start = System.nanoTime();
+            MappedGraph G = new MappedGraph(new File(args[1]));
+            long opened = System.nanoTime() - start;
+            int s = Integer.parseInt(args[2]);
+
+            // breadth-first search reading the adjacency lists from the mapping
+            int[] distTo = new int[G.V()];
+            for (int v = 0; v < G.V(); v++) distTo[v] = -1;
+            int[] queue = new int[G.V()];
+            int head = 0, tail = 0, reached = 0, depth = 0;
+            distTo[s] = 0;
+            queue[tail++] = s;
+            while (head < tail) {
+                int v = queue[head++];
+                reached++;
+                depth = distTo[v];
+                for (long e = G.begin(v); e < G.end(v); e++) {
+                    int w = G.to(e);
+                    if (distTo[w] < 0) {
+                        distTo[w] = distTo[v] + 1;
+                        queue[tail++] = w;
+                    }
+                }
+            }
+            System.out.printf("%d vertices, %d edges: opened in %.2f ms, bfs reached %d vertices, depth %d in %.1f ms%n",
+                    G.V(), G.E(), opened / 1e6, reached, depth, (System.nanoTime() - start - opened) / 1e6);
+        } else {
+            File file = File.createTempFile("tinyEWD", ".bin");
+            file.deleteOnExit();
+            convert(new File("src/graph/tinyEWD.txt"), EDGE_WEIGHTED_DIGRAPH, file);
+            MappedGraph G = new MappedGraph(file);
+            System.out.println(G.V() + " " + G.E());
+            for (int v = 0; v < G.V(); v++) {
+                System.out.print(v + ": ");
+                for (long e = G.begin(v); e < G.end(v); e++)
+                    System.out.printf("%d->%d %5.2f  ", v, G.to(e), G.weight(e));
+                System.out.println();
+            }
+        }
+    }
+}
@@ -0,0 +1,421 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * The <tt>OnlineConnectivity</tt> class represents a union-find data type in which
+ * connections can also be removed, answering each question as it is asked: a graph of
+ * <em>N</em> vertices changes by adding and removing edges, and <tt>connected()</tt> and
+ * <tt>count()</tt> answer for the graph as it is, with the same surface as {@link UF}.
+ * Parallel edges and self-loops are allowed; removing an edge removes one copy.
+ * <p/>
+ * This implementation uses the algorithm of Holm, de Lichtenberg and Thorup. It keeps a
+ * spanning forest of the graph, and gives every edge a level, at most lg <em>N</em>: the
+ * tree edges of level <em>i</em> or more make a forest F<sub><em>i</em></sub> whose trees
+ * have at most <em>N</em> / 2<sup><em>i</em></sup> vertices. Each F<sub><em>i</em></sub> is
+ * kept as the Euler tours of its trees, in treaps ordered by position, so that two trees
+ * can be joined or one cut in two in logarithmic expected time; the treaps also count
+ * the vertices below each node, and mark where the tree edges of level <em>i</em> and
+ * the vertices with non-tree edges of level <em>i</em> are.
+ * An edge is added at level 0, to the forest if it joins two trees. Removing a tree edge
+ * of level <em>l</em> cuts its tree in two; from level <em>l</em> down, the tree edges of
+ * that level in the smaller half move up a level, then the non-tree edges of that level
+ * leaving its vertices are tried in turn: the first that goes to the other half joins the
+ * halves again, and those that do not move up a level. As an edge only moves up, adding
+ * and removing edges take time proportional to log<sup>2</sup> <em>N</em>, amortized and
+ * expected; <tt>connected()</tt> takes logarithmic expected time and <tt>count()</tt>
+ * constant time.
+ * <p/>
+ */
+public class OnlineConnectivity {
+    private final int N;
+    private final Node[][] vertexNode;   // vertexNode[i][v] = node of v in the tours of level i, or null
+    private final Map<Long, ArrayList<Edge>> edges = new HashMap<Long, ArrayList<Edge>>();  // copies of each edge
+    private int E;
+    private int count;                   // number of components
+    private final Random random = new Random();
+    private Node splitLeft, splitRight;  // the two parts of the last split
+
+    private static class Edge {
+        private final int v, w;
+        private int level;
+        private boolean tree;
+        private Node[] arcs;     // of a tree edge: arcs[2i] and arcs[2i+1] = its nodes in the tours of level i
+        private int posV, posW;  // of a non-tree edge: its positions in the lists of v and w at its level
+
+        Edge(int v, int w) {
+            this.v = v;
+            this.w = w;
+        }
+    }
+
+    // a node of an Euler tour: a vertex, or an edge passed from one end
+    private static class Node {
+        private Node left, right, parent;
+        private final int priority;
+        private final int vertex;         // the vertex, or -1 for an edge
+        private final Edge edge;          // the edge, or null for a vertex
+        private int size;                 // nodes in this subtree
+        private int vertices;             // vertex nodes in this subtree
+        private boolean levelEdge;        // an edge of the level of this tour, on one of its two nodes
+        private boolean anyLevelEdge;     // some node of this subtree has levelEdge
+        private Edge[] nonTree;           // of a vertex: its non-tree edges of the level of this tour
+        private int nonTreeCount;
+        private boolean anyNonTree;       // some vertex of this subtree has non-tree edges
+
+        Node(int vertex, Edge edge, int priority) {
+            this.vertex = vertex;
+            this.edge = edge;
+            this.priority = priority;
+            size = 1;
+            vertices = vertex >= 0 ? 1 : 0;
+        }
+    }
+
+    // Initializes a graph of N vertices and no edges
+    public OnlineConnectivity(int N) {
+        if (N < 0) throw new IllegalArgumentException("N must be non-negative");
+        this.N = N;
+        count = N;
+        int levels = 1;
+        while ((1L << levels) <= N) levels++;
+        vertexNode = new Node[levels][];
+    }
+
+    private void validate(int v) {
+        if (v < 0 || v >= N) throw new IndexOutOfBoundsException("vertex " + v + " is not between 0 and " + (N - 1));
+    }
+
+    private static long key(int v, int w) {
+        return v < w ? ((long) v << 32) | w : ((long) w << 32) | v;
+    }
+
+    // Returns the number of components
+    public int count() {
+        return count;
+    }
+
+    // Returns the number of edges
+    public int E() {
+        return E;
+    }
+
+    // Are p and q connected?
+    public boolean connected(int p, int q) {
+        validate(p);
+        validate(q);
+        return connected(0, p, q);
+    }
+
+    // Adds the edge v-w
+    public void addEdge(int v, int w) {
+        validate(v);
+        validate(w);
+        long key = key(v, w);
+        ArrayList<Edge> copies = edges.get(key);
+        if (copies == null) {
+            copies = new ArrayList<Edge>(1);
+            edges.put(key, copies);
+        }
+        Edge e = new Edge(v, w);
+        copies.add(e);
+        E++;
+        if (v == w) return;   // a self-loop connects nothing
+        if (connected(0, v, w)) addNonTree(e);
+        else {
+            e.tree = true;
+            link(e, 0);
+            count--;
+        }
+    }
+
+    // Removes one copy of the edge v-w
+    public void removeEdge(int v, int w) {
+        validate(v);
+        validate(w);
+        long key = key(v, w);
+        ArrayList<Edge> copies = edges.get(key);
+        if (copies == null) throw new IllegalArgumentException("no edge " + v + "-" + w + " to remove");
+        // a non-tree copy if there is one, as removing it leaves the forest as it is
+        int k = copies.size() - 1;
+        for (int j = k; j >= 0; j--) {
+            if (!copies.get(j).tree) {
+                k = j;
+                break;
+            }
+        }
+        Edge e = copies.get(k);
+        copies.set(k, copies.get(copies.size() - 1));
+        copies.remove(copies.size() - 1);
+        if (copies.isEmpty()) edges.remove(key);
+        E--;
+        if (v == w) return;
+        if (!e.tree) {
+            removeNonTree(e);
+            return;
+        }
+        for (int i = e.level; i >= 0; i--) cut(e, i);
+        for (int i = e.level; i >= 0; i--) if (replace(e.v, e.w, i)) return;
+        count++;
+    }
+
+    // the tree of level i containing v has just been cut from the one containing w:
+    // look for an edge of level i joining them again, moving up those that do not
+    private boolean replace(int v, int w, int i) {
+        Node x = root(node(i, v)), y = root(node(i, w));
+        Node small = x.vertices <= y.vertices ? x : y;
+        // the smaller tree is small enough for level i + 1
+        while (small.anyLevelEdge) {
+            Node a = small;
+            while (!a.levelEdge) a = a.left != null && a.left.anyLevelEdge ? a.left : a.right;
+            a.levelEdge = false;
+            pullUp(a);
+            a.edge.level = i + 1;
+            link(a.edge, i + 1);
+        }
+        while (small.anyNonTree) {
+            Node z = small;
+            while (z.nonTreeCount == 0) z = z.left != null && z.left.anyNonTree ? z.left : z.right;
+            Edge f = z.nonTree[z.nonTreeCount - 1];
+            removeNonTree(f);
+            if (connected(i, f.v, f.w)) {
+                f.level = i + 1;
+                addNonTree(f);
+            } else {
+                f.tree = true;
+                for (int j = 0; j <= i; j++) link(f, j);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /***************************************************************************
+     *  The forests of each level, as Euler tours.
+     ***************************************************************************/
+
+    // the node of v in the tours of level i, made alone if it had none
+    private Node node(int i, int v) {
+        if (vertexNode[i] == null) vertexNode[i] = new Node[N];
+        if (vertexNode[i][v] == null) vertexNode[i][v] = new Node(v, null, random.nextInt());
+        return vertexNode[i][v];
+    }
+
+    private boolean connected(int i, int v, int w) {
+        if (v == w) return true;
+        if (vertexNode[i] == null) return false;
+        Node x = vertexNode[i][v], y = vertexNode[i][w];
+        return x != null && y != null && root(x) == root(y);
+    }
+
+    // join the trees of level i of the ends of e, with e
+    private void link(Edge e, int i) {
+        Node x = reroot(node(i, e.v));
+        Node y = reroot(node(i, e.w));
+        if (e.arcs == null) e.arcs = new Node[2 * i + 2];
+        else if (e.arcs.length < 2 * i + 2) e.arcs = Arrays.copyOf(e.arcs, 2 * i + 2);
+        Node a = new Node(-1, e, random.nextInt());
+        Node b = new Node(-1, e, random.nextInt());
+        a.levelEdge = a.anyLevelEdge = e.level == i;
+        e.arcs[2 * i] = a;
+        e.arcs[2 * i + 1] = b;
+        join(join(join(x, a), y), b);
+    }
+
+    // cut the tree of level i containing e in two, removing e
+    private void cut(Edge e, int i) {
+        Node a = e.arcs[2 * i], b = e.arcs[2 * i + 1];
+        int p = index(a), q = index(b);
+        if (p > q) {
+            int swap = p;
+            p = q;
+            q = swap;
+        }
+        split(root(a), p);
+        Node before = splitLeft;
+        split(splitRight, q - p + 1);
+        Node after = splitRight;
+        // the tour between the two nodes of e, without them, is one of the trees
+        split(splitLeft, 1);
+        split(splitRight, q - p - 1);
+        join(before, after);
+        e.arcs[2 * i] = e.arcs[2 * i + 1] = null;
+    }
+
+    // rotate the tour of x so that it starts at x
+    private Node reroot(Node x) {
+        split(root(x), index(x));
+        return join(splitRight, splitLeft);
+    }
+
+    private static Node root(Node x) {
+        while (x.parent != null) x = x.parent;
+        return x;
+    }
+
+    // the position of x in its tour
+    private static int index(Node x) {
+        int i = size(x.left);
+        for (; x.parent != null; x = x.parent)
+            if (x == x.parent.right) i += size(x.parent.left) + 1;
+        return i;
+    }
+
+    private static int size(Node x) {
+        return x == null ? 0 : x.size;
+    }
+
+    // recompute the counts and marks of x from its children
+    private static void pull(Node x) {
+        x.size = 1;
+        x.vertices = x.vertex >= 0 ? 1 : 0;
+        x.anyLevelEdge = x.levelEdge;
+        x.anyNonTree = x.nonTreeCount > 0;
+        add(x, x.left);
+        add(x, x.right);
+    }
+
+    private static void add(Node x, Node child) {
+        if (child == null) return;
+        child.parent = x;
+        x.size += child.size;
+        x.vertices += child.vertices;
+        x.anyLevelEdge |= child.anyLevelEdge;
+        x.anyNonTree |= child.anyNonTree;
+    }
+
+    // after a mark of x changed
+    private static void pullUp(Node x) {
+        for (; x != null; x = x.parent) pull(x);
+    }
+
+    // the tour a followed by the tour b
+    private static Node join(Node a, Node b) {
+        Node t = merge(a, b);
+        if (t != null) t.parent = null;
+        return t;
+    }
+
+    private static Node merge(Node a, Node b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        if (a.priority > b.priority) {
+            a.right = merge(a.right, b);
+            pull(a);
+            return a;
+        }
+        b.left = merge(a, b.left);
+        pull(b);
+        return b;
+    }
+
+    // the first k nodes of t in splitLeft, the others in splitRight
+    private void split(Node t, int k) {
+        splitTreap(t, k);
+        if (splitLeft != null) splitLeft.parent = null;
+        if (splitRight != null) splitRight.parent = null;
+    }
+
+    private void splitTreap(Node t, int k) {
+        if (t == null) {
+            splitLeft = splitRight = null;
+        } else if (size(t.left) >= k) {
+            splitTreap(t.left, k);
+            t.left = splitRight;
+            pull(t);
+            splitRight = t;
+        } else {
+            splitTreap(t.right, k - size(t.left) - 1);
+            t.right = splitLeft;
+            pull(t);
+            splitLeft = t;
+        }
+    }
+
+    /***************************************************************************
+     *  The non-tree edges of each vertex and level.
+     ***************************************************************************/
+
+    private void addNonTree(Edge e) {
+        e.posV = push(node(e.level, e.v), e);
+        e.posW = push(node(e.level, e.w), e);
+    }
+
+    private int push(Node x, Edge e) {
+        if (x.nonTree == null) x.nonTree = new Edge[2];
+        else if (x.nonTreeCount == x.nonTree.length) x.nonTree = Arrays.copyOf(x.nonTree, 2 * x.nonTreeCount);
+        x.nonTree[x.nonTreeCount++] = e;
+        if (x.nonTreeCount == 1) pullUp(x);
+        return x.nonTreeCount - 1;
+    }
+
+    private void removeNonTree(Edge e) {
+        pop(vertexNode[e.level][e.v], e.posV);
+        pop(vertexNode[e.level][e.w], e.posW);
+    }
+
+    // remove the edge at position k of the list of x, moving the last one there
+    private static void pop(Node x, int k) {
+        Edge last = x.nonTree[--x.nonTreeCount];
+        x.nonTree[x.nonTreeCount] = null;
+        if (k < x.nonTreeCount) {
+            x.nonTree[k] = last;
+            if (last.v == x.vertex) last.posV = k;
+            else last.posW = k;
+        }
+        if (x.nonTreeCount == 0) pullUp(x);
+    }
+
+    /**
+     * Adds and removes random edges, checking the answers against a {@link UF} rebuilt
+     * from the edges now and then.
+     * Arguments: N (default 1000), operations (default 100000).
+     */
+    public static void main(String[] args) {
+        OnlineConnectivity oc = new OnlineConnectivity(5);
+        oc.addEdge(0, 1);
+        oc.addEdge(1, 2);
+        System.out.print("0-2 connected: " + oc.connected(0, 2));
+        oc.removeEdge(1, 2);
+        System.out.print(", " + oc.connected(0, 2));
+        oc.addEdge(3, 2);
+        oc.addEdge(3, 0);
+        System.out.println(", " + oc.connected(0, 2) + "; " + oc.count() + " components");
+
+        int N = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int M = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+        Random random = new Random(42);
+        oc = new OnlineConnectivity(N);
+        int[] liveV = new int[M], liveW = new int[M];
+        int live = 0, checks = 0;
+        for (int i = 0; i < M; i++) {
+            // about 2N edges live: as many additions as removals once there
+            if (live == 0 || random.nextInt(4 * N) >= live) {
+                liveV[live] = random.nextInt(N);
+                liveW[live] = random.nextInt(N);
+                oc.addEdge(liveV[live], liveW[live++]);
+            } else {
+                int k = random.nextInt(live);
+                oc.removeEdge(liveV[k], liveW[k]);
+                liveV[k] = liveV[--live];
+                liveW[k] = liveW[live];
+            }
+            if (i % 1000 == 0) {
+                UF uf = new UF(N);
+                for (int k = 0; k < live; k++) uf.union(liveV[k], liveW[k]);
+                if (uf.count() != oc.count()) throw new AssertionError("counts differ after " + i + " operations");
+                for (int k = 0; k < 100; k++) {
+                    int p = random.nextInt(N), q = random.nextInt(N);
+                    if (uf.connected(p, q) != oc.connected(p, q)) throw new AssertionError(p + "-" + q);
+                }
+                checks++;
+            }
+        }
+        System.out.printf("%d operations on %d vertices: %d edges and %d components at the end, %d checks agree%n",
+                M, N, oc.E(), oc.count(), checks);
+    }
+}
@@ -40,8 +40,16 @@ public class BreadthFirstDirectedPaths {
         bfs(G, sources);
     }
 
+    public BreadthFirstDirectedPaths(CSRDigraph G, int s) {
+        marked = new boolean[G.V()];
+        edgeTo = new int[G.V()];
+        distTo = new int[G.V()];
+        for (int v = 0; v < G.V(); v++) distTo[v] = INFINITY;
+        bfs(G, s);
+    }
+
     private void bfs(Digraph G, Iterable<Integer> sources) {
-        LinkedQueue<Integer> q = new LinkedQueue<>();
+        IntQueue q = new IntQueue();
 
         for (int s : sources) {
             marked[s] = true;
@@ -51,7 +59,9 @@ public class BreadthFirstDirectedPaths {
 
         while (!q.isEmpty()) {
             int v = q.dequeue();
-            for (int w : G.adj(v)) {
+            IntBag adj = G.adj(v);
+            for (int i = 0; i < adj.size(); i++) {
+                int w = adj.get(i);
                 if (!marked[w]) {
                     edgeTo[w] = v;
                     distTo[w] = distTo[v] + 1;
@@ -63,14 +73,37 @@ public class BreadthFirstDirectedPaths {
     }
 
     private void bfs(Digraph G, int s) {
-        LinkedQueue<Integer> queue = new LinkedQueue<Integer>();
+        IntQueue queue = new IntQueue();
+        marked[s] = true;
+        distTo[s] = 0;
+        queue.enqueue(s);
+
+        while (!queue.isEmpty()) {
+            int v = queue.dequeue();
+            IntBag adj = G.adj(v);
+            for (int i = 0; i < adj.size(); i++) {
+                int w = adj.get(i);
+                if (!marked[w]) {
+                    edgeTo[w] = v;
+                    distTo[w] = distTo[v] + 1;
+                    marked[w] = true;
+                    queue.enqueue(w);
+                }
+            }
+        }
+    }
+
+    // walks the CSR arrays directly, so nothing is allocated per edge
+    private void bfs(CSRDigraph G, int s) {
+        IntQueue queue = new IntQueue();
         marked[s] = true;
         distTo[s] = 0;
         queue.enqueue(s);
 
         while (!queue.isEmpty()) {
             int v = queue.dequeue();
-            for (int w : G.adj(v)) {
+            for (int e = G.begin(v); e < G.end(v); e++) {
+                int w = G.to(e);
                 if (!marked[w]) {
                     edgeTo[w] = v;
                     distTo[w] = distTo[v] + 1;
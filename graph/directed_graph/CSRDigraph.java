@@ -0,0 +1,268 @@
+package graph.directed_graph;
+
+import data_structure.IntBag;
+import helper.In;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Scanner;
+
+/**
+ * The <tt>CSRDigraph</tt> class represents an immutable directed graph of
+ * vertices named 0 through <em>V</em> - 1, stored in compressed sparse row form.
+ * It is built once, from a {@link Digraph}, an input stream or arrays of edges,
+ * and then supports iterating over the vertices adjacent from a given vertex.
+ * Parallel edges and self-loops are permitted.
+ * <p/>
+ * This implementation numbers the edges 0 through <em>E</em> - 1 so that the edges
+ * leaving <em>v</em> are <tt>begin(v)</tt> through <tt>end(v) - 1</tt>, and keeps
+ * two <tt>int</tt> arrays: <tt>offset[]</tt> of length <em>V</em> + 1 and the
+ * heads of the edges <tt>target[]</tt> of length <em>E</em>. It uses 4<em>V</em> + 4<em>E</em>
+ * bytes, against several dozen bytes per edge for the adjacency lists of
+ * {@link Digraph}, and walking the neighbours of a vertex reads contiguous memory:
+ * <pre>
+ *     for (int e = G.begin(v); e &lt; G.end(v); e++) { int w = G.to(e); ... }
+ * </pre>
+ * Construction takes time proportional to <em>V</em> + <em>E</em>, and all other
+ * operations take constant time except <tt>reverse()</tt> and <tt>toString()</tt>.
+ * <p/>
+ */
+public class CSRDigraph {
+    private final int V;
+    private final int[] offset;  // the edges leaving v are offset[v] to offset[v+1]-1
+    private final int[] target;  // target[e] = head of edge e
+
+    // Initialize a digraph with the same vertices, edges and adjacency order as G
+    public CSRDigraph(Digraph G) {
+        V = G.V();
+        offset = new int[V + 1];
+        for (int v = 0; v < V; v++) offset[v + 1] = offset[v] + G.adj(v).size();
+        target = new int[offset[V]];
+        for (int v = 0; v < V; v++) {
+            IntBag adj = G.adj(v);
+            for (int i = 0; i < adj.size(); i++) target[offset[v] + i] = adj.get(i);
+        }
+    }
+
+    // Initialize a digraph from an input stream in the format read by Digraph(In);
+    // the adjacency lists come out in the same order as those of new Digraph(in)
+    public CSRDigraph(In in) {
+        this(readV(in), in, true);
+    }
+
+    /**
+     * Initializes a digraph from arrays of edges: edge <em>i</em> goes from
+     * <tt>from[i]</tt> to <tt>to[i]</tt>. The edges leaving each vertex keep
+     * the order in which they appear in the arrays.
+     *
+     * @param V    the number of vertices
+     * @param from the tails of the edges
+     * @param to   the heads of the edges
+     * @throws IllegalArgumentException  if <tt>V</tt> is negative or the arrays differ in length
+     * @throws IndexOutOfBoundsException if an endpoint is not between 0 and <tt>V</tt> - 1
+     */
+    public CSRDigraph(int V, int[] from, int[] to) {
+        if (V < 0) throw new IllegalArgumentException("Number of vertices must be non-negative");
+        if (from.length != to.length) throw new IllegalArgumentException("Edge arrays differ in length");
+        this.V = V;
+        for (int i = 0; i < from.length; i++) {
+            validateVertex(from[i]);
+            validateVertex(to[i]);
+        }
+        offset = new int[V + 1];
+        target = new int[from.length];
+        fill(from, to, false);
+    }
+
+    // read the rest of the input stream into edge arrays, then build the digraph from them
+    private CSRDigraph(int V, In in, boolean reversed) {
+        this.V = V;
+        int E = in.readInt();
+        if (E < 0) throw new IllegalArgumentException("Number of edges in a Digraph must be nonnegative");
+        int[] from = new int[E];
+        int[] to = new int[E];
+        for (int i = 0; i < E; i++) {
+            from[i] = in.readInt();
+            to[i] = in.readInt();
+            validateVertex(from[i]);
+            validateVertex(to[i]);
+        }
+        offset = new int[V + 1];
+        target = new int[E];
+        fill(from, to, reversed);
+    }
+
+    /**
+     * Initializes a digraph that wraps arrays already in CSR form, without copying
+     * them: the edges leaving <em>v</em> go to <tt>target[offset[v]]</tt> through
+     * <tt>target[offset[v+1]-1]</tt>. The arrays must not be modified afterwards.
+     *
+     * @param offset the first edge of each vertex, followed by the number of edges
+     * @param target the heads of the edges
+     * @throws IllegalArgumentException  if <tt>offset[]</tt> is empty, does not start at 0,
+     *                                   decreases, or does not end at the length of <tt>target[]</tt>
+     * @throws IndexOutOfBoundsException if a head is not between 0 and <em>V</em> - 1
+     */
+    public CSRDigraph(int[] offset, int[] target) {
+        this(offset, target, true);
+    }
+
+    private CSRDigraph(int[] offset, int[] target, boolean validate) {
+        if (offset.length == 0) throw new IllegalArgumentException("offset[] must have V + 1 entries");
+        this.V = offset.length - 1;
+        this.offset = offset;
+        this.target = target;
+        if (!validate) return;
+        if (offset[0] != 0 || offset[V] != target.length)
+            throw new IllegalArgumentException("offset[] must run from 0 to the number of edges");
+        for (int v = 0; v < V; v++)
+            if (offset[v] > offset[v + 1]) throw new IllegalArgumentException("offset[] must be nondecreasing");
+        for (int e = 0; e < target.length; e++) validateVertex(target[e]);
+    }
+
+    private static int readV(In in) {
+        int V = in.readInt();
+        if (V < 0) throw new IllegalArgumentException("Number of vertices in a Digraph must be nonnegative");
+        return V;
+    }
+
+    // counting sort of the edges by tail; if reversed, each adjacency list is
+    // filled back to front, which is the order a bag returns its items in
+    private void fill(int[] from, int[] to, boolean reversed) {
+        for (int i = 0; i < from.length; i++) offset[from[i] + 1]++;
+        for (int v = 0; v < V; v++) offset[v + 1] += offset[v];
+        int[] next = new int[V];
+        for (int v = 0; v < V; v++) next[v] = reversed ? offset[v + 1] : offset[v];
+        for (int i = 0; i < from.length; i++) {
+            if (reversed) target[--next[from[i]]] = to[i];
+            else target[next[from[i]]++] = to[i];
+        }
+    }
+
+    private void validateVertex(int v) {
+        if (v < 0 || v >= V)
+            throw new IndexOutOfBoundsException("vertex " + v + " is not between 0 and " + (V - 1));
+    }
+
+    public int V() {
+        return V;
+    }
+
+    public int E() {
+        return target.length;
+    }
+
+    // Returns the first edge leaving v
+    public int begin(int v) {
+        validateVertex(v);
+        return offset[v];
+    }
+
+    // Returns one past the last edge leaving v
+    public int end(int v) {
+        validateVertex(v);
+        return offset[v + 1];
+    }
+
+    // Returns the head of edge e
+    public int to(int e) {
+        return target[e];
+    }
+
+    public int outDegree(int v) {
+        validateVertex(v);
+        return offset[v + 1] - offset[v];
+    }
+
+    // Returns the reverse of the digraph, also in CSR form
+    public CSRDigraph reverse() {
+        int[] rOffset = new int[V + 1];
+        int[] rTarget = new int[target.length];
+        for (int e = 0; e < target.length; e++) rOffset[target[e] + 1]++;
+        for (int v = 0; v < V; v++) rOffset[v + 1] += rOffset[v];
+        int[] next = new int[V];
+        System.arraycopy(rOffset, 0, next, 0, V);
+        for (int v = 0; v < V; v++)
+            for (int e = offset[v]; e < offset[v + 1]; e++) rTarget[next[target[e]]++] = v;
+        return new CSRDigraph(rOffset, rTarget, false);
+    }
+
+    // Returns the vertices adjacent from v, for code written against Digraph.
+    // Iterating boxes every vertex; use begin(v), end(v) and to(e) in inner loops.
+    public Iterable<Integer> adj(final int v) {
+        validateVertex(v);
+        return new Iterable<Integer>() {
+            @Override
+            public Iterator<Integer> iterator() {
+                return new Iterator<Integer>() {
+                    private int e = offset[v];
+
+                    @Override
+                    public boolean hasNext() {
+                        return e < offset[v + 1];
+                    }
+
+                    @Override
+                    public Integer next() {
+                        if (!hasNext()) throw new NoSuchElementException();
+                        return target[e++];
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        String NEWLINE = System.getProperty("line.separator");
+        sb.append(V).append(" vertices, ").append(E()).append(" edges ").append(NEWLINE);
+        for (int v = 0; v < V; v++) {
+            sb.append(String.format("%d: ", v));
+            for (int e = offset[v]; e < offset[v + 1]; e++) {
+                sb.append(String.format("%d ", target[e]));
+            }
+            sb.append(NEWLINE);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Prints tinyDG in CSR form, then builds the same random digraph as a
+     * {@link Digraph} and as a <tt>CSRDigraph</tt>, checks that breadth-first
+     * search finds the same distances in both, and times the searches.
+     */
+    public static void main(String[] args) throws FileNotFoundException {
+        In in = new In(new Scanner(new File("src/graph/tinyDG.txt")));
+        CSRDigraph G = new CSRDigraph(in);
+        System.out.println(G);
+
+        int V = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        int E = args.length > 1 ? Integer.parseInt(args[1]) : 8000000;
+        Random random = new Random(42);
+        int[] from = new int[E], to = new int[E];
+        for (int i = 0; i < E; i++) {
+            from[i] = random.nextInt(V);
+            to[i] = random.nextInt(V);
+        }
+        Digraph lists = new Digraph(V);
+        for (int i = 0; i < E; i++) lists.addEdge(from[i], to[i]);
+        CSRDigraph csr = new CSRDigraph(V, from, to);
+
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            BreadthFirstDirectedPaths bfs1 = new BreadthFirstDirectedPaths(lists, 0);
+            long t1 = System.nanoTime() - start;
+            start = System.nanoTime();
+            BreadthFirstDirectedPaths bfs2 = new BreadthFirstDirectedPaths(csr, 0);
+            long t2 = System.nanoTime() - start;
+            for (int v = 0; v < V; v++)
+                if (bfs1.distTo(v) != bfs2.distTo(v)) throw new AssertionError("distances differ at " + v);
+            System.out.printf("bfs on %d vertices, %d edges: Digraph %6.1f ms, CSRDigraph %6.1f ms%n",
+                    V, E, t1 / 1e6, t2 / 1e6);
+        }
+    }
+}
@@ -0,0 +1,366 @@
+package graph.directed_graph;
+
+import helper.In;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.Scanner;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The <tt>DAGExecutor</tt> class runs a job for each vertex of a directed acyclic
+ * graph, where an edge <em>v</em>-&gt;<em>w</em> means that the job of <em>v</em> must be
+ * done before the job of <em>w</em> starts. The jobs run on an {@link Executor}: a
+ * {@link ForkJoinPool}, a fixed pool of threads for jobs that block, or any other.
+ * Each job is submitted as soon as the last of its predecessors is done, not when its
+ * whole level of a {@link ParallelTopological} is, so one slow job only holds up the
+ * jobs after it. The time each job waited, started and took is recorded.
+ * <p/>
+ * This implementation keeps an atomic counter per vertex of the predecessors not done
+ * yet. The thread that finishes a job decrements the counters of its successors, and
+ * submits each one it takes to 0; when no job is left submitted or running, the
+ * thread that called {@link #run} is released. If a job throws, or the executor
+ * refuses one, no more jobs start, and once those running are done, <tt>run</tt>
+ * throws the first exception.
+ * Apart from the jobs, a run takes time proportional to <em>V</em> + <em>E</em>.
+ * <p/>
+ */
+public class DAGExecutor {
+
+    /**
+     * The job of each vertex.
+     */
+    public interface Job {
+        void run(int v) throws Exception;
+    }
+
+    private final CSRDigraph G;
+    private final int[] indegree;
+    private final int[] sources;
+
+    // of the last run, in nanoseconds from its start
+    private final long[] ready, started, finished;
+
+    private AtomicIntegerArray waiting;       // waiting[v] = predecessors of v not done
+    private AtomicInteger running;            // jobs submitted and not done
+    private AtomicInteger done;
+    private AtomicReference<Throwable> failure;
+    private CountDownLatch latch;
+    private long origin;
+    private Job job;
+    private Executor executor;
+
+    /**
+     * Initializes an executor for the digraph <tt>G</tt>.
+     *
+     * @param G the digraph
+     * @throws IllegalArgumentException if <tt>G</tt> has a cycle
+     */
+    public DAGExecutor(CSRDigraph G) {
+        ParallelTopological top = new ParallelTopological(G);
+        if (!top.hasOrder()) throw new IllegalArgumentException("The digraph has a cycle");
+        this.G = G;
+        int V = G.V();
+        indegree = new int[V];
+        for (int v = 0; v < V; v++)
+            for (int e = G.begin(v); e < G.end(v); e++) indegree[G.to(e)]++;
+        sources = new int[V == 0 ? 0 : top.levelSize(0)];
+        int i = 0;
+        if (V > 0) for (int v : top.level(0)) sources[i++] = v;
+        ready = new long[V];
+        started = new long[V];
+        finished = new long[V];
+    }
+
+    /**
+     * Runs the job of every vertex on <tt>executor</tt>, each once its predecessors are
+     * done, and returns when all are done. Only one run at a time.
+     *
+     * @param job      the job of each vertex
+     * @param executor where the jobs run
+     * @throws RuntimeException with the first exception a job threw, or the executor threw
+     *                          when a job was submitted, as its cause, after the jobs
+     *                          running then are done
+     */
+    public synchronized void run(Job job, Executor executor) {
+        int V = G.V();
+        this.job = job;
+        this.executor = executor;
+        waiting = new AtomicIntegerArray(indegree);
+        running = new AtomicInteger();
+        done = new AtomicInteger();
+        failure = new AtomicReference<>();
+        latch = new CountDownLatch(1);
+        for (int v = 0; v < V; v++) ready[v] = started[v] = finished[v] = -1;
+        if (V == 0) return;
+
+        origin = System.nanoTime();
+        running.addAndGet(sources.length);
+        for (int v : sources) submit(v, 0);
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("interrupted while waiting for the jobs", e);
+        }
+        this.job = null;
+        this.executor = null;
+        Throwable e = failure.get();
+        if (e != null) throw new RuntimeException("a job failed: " + e, e);
+    }
+
+    private void submit(final int v, long now) {
+        ready[v] = now;
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    execute(v);
+                }
+            });
+        } catch (RuntimeException e) {
+            // the executor refused the job: the run fails as if the job had thrown
+            failure.compareAndSet(null, e);
+            if (running.decrementAndGet() == 0) latch.countDown();
+        }
+    }
+
+    // run the job of v, then submit the successors it makes ready; after a failure, only count it
+    private void execute(int v) {
+        try {
+            if (failure.get() != null) return;
+            started[v] = System.nanoTime() - origin;
+            try {
+                job.run(v);
+            } catch (Throwable e) {
+                failure.compareAndSet(null, e);
+            }
+            long now = System.nanoTime() - origin;
+            finished[v] = now;
+            done.incrementAndGet();
+            if (failure.get() != null) return;
+            for (int e = G.begin(v); e < G.end(v); e++) {
+                int w = G.to(e);
+                if (waiting.decrementAndGet(w) == 0) {
+                    running.incrementAndGet();
+                    submit(w, now);
+                }
+            }
+        } finally {
+            if (running.decrementAndGet() == 0) latch.countDown();
+        }
+    }
+
+    private void validateVertex(int v) {
+        if (v < 0 || v >= G.V()) throw new IndexOutOfBoundsException("vertex " + v + " is not between 0 and " + (G.V() - 1));
+    }
+
+    // Returns the number of jobs done in the last run, including one that failed
+    public int done() {
+        return done == null ? 0 : done.get();
+    }
+
+    // Returns when the job of v was ready to run in the last run, in nanoseconds from its start, or -1
+    public long ready(int v) {
+        validateVertex(v);
+        return ready[v];
+    }
+
+    // Returns when the job of v started in the last run, in nanoseconds from its start, or -1
+    public long started(int v) {
+        validateVertex(v);
+        return started[v];
+    }
+
+    // Returns when the job of v finished in the last run, in nanoseconds from its start, or -1
+    public long finished(int v) {
+        validateVertex(v);
+        return finished[v];
+    }
+
+    // Returns how long the job of v waited for a thread in the last run, in nanoseconds
+    public long queued(int v) {
+        validateVertex(v);
+        return started[v] - ready[v];
+    }
+
+    // Returns how long the job of v took in the last run, in nanoseconds
+    public long duration(int v) {
+        validateVertex(v);
+        return finished[v] - started[v];
+    }
+
+    // Returns how long the last run took, in nanoseconds
+    public long makespan() {
+        long max = 0;
+        for (long t : finished) max = Math.max(max, t);
+        return max;
+    }
+
+    /**
+     * Runs the jobs of tinyDAG.txt, each sleeping 10 to 30 ms, on 4 threads and prints
+     * when each ran. Then runs a random DAG of jobs that sleep, as jobs waiting on I/O
+     * do, one at a time in topological order, level by level, and as soon as ready;
+     * and a DAG of jobs that compute on the common fork-join pool, one at a time and as
+     * soon as ready. Checks that no job started before one it depends on was done, and
+     * that a run stops when a job throws or the executor refuses one.
+     * Arguments: jobs (default 1000), threads for the jobs that sleep (default 16).
+     */
+    public static void main(String[] args) throws FileNotFoundException {
+        CSRDigraph tiny = new CSRDigraph(new In(new Scanner(new File("src/graph/tinyDAG.txt"))));
+        ExecutorService threads = Executors.newFixedThreadPool(4);
+        DAGExecutor dag = new DAGExecutor(tiny);
+        dag.run(new Job() {
+            @Override
+            public void run(int v) throws Exception {
+                Thread.sleep(10 * (1 + v % 3));
+            }
+        }, threads);
+        threads.shutdown();
+        System.out.println(" job   ready   start  finish (ms)");
+        for (int v = 0; v < tiny.V(); v++)
+            System.out.printf("%4d %7.1f %7.1f %7.1f%n", v, dag.ready(v) / 1e6, dag.started(v) / 1e6, dag.finished(v) / 1e6);
+        System.out.printf("all done in %.1f ms%n", dag.makespan() / 1e6);
+
+        int V = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int n = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        // each job depends on up to 3 of the 50 before it
+        Random random = new Random(42);
+        int[] from = new int[3 * V], to = new int[3 * V];
+        int E = 0;
+        for (int w = 1; w < V; w++) {
+            for (int k = random.nextInt(4); k > 0; k--) {
+                from[E] = Math.max(0, w - 1 - random.nextInt(50));
+                to[E++] = w;
+            }
+        }
+        CSRDigraph G = new CSRDigraph(V, Arrays.copyOf(from, E), Arrays.copyOf(to, E));
+        final ParallelTopological top = new ParallelTopological(G);
+        final int[] millis = new int[V];
+        long total = 0;
+        for (int v = 0; v < V; v++) {
+            millis[v] = random.nextInt(10) == 0 ? 10 + random.nextInt(20) : 1 + random.nextInt(3);
+            total += millis[v];
+        }
+        System.out.printf("%nrandom DAG: %d jobs, %d dependencies, %d levels; jobs sleep %.1f s in all%n",
+                V, E, top.levels(), total / 1e3);
+
+        // sleeping jobs on a fixed pool of threads: as soon as ready, then level by level
+        threads = Executors.newFixedThreadPool(n);
+        Job sleep = new Job() {
+            @Override
+            public void run(int v) throws Exception {
+                Thread.sleep(millis[v]);
+            }
+        };
+        dag = new DAGExecutor(G);
+        dag.run(sleep, threads);
+        check(dag, G);
+        long start = System.nanoTime();
+        for (int k = 0; k < top.levels(); k++) {
+            final CountDownLatch level = new CountDownLatch(top.levelSize(k));
+            for (final int v : top.level(k)) {
+                threads.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            Thread.sleep(millis[v]);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        level.countDown();
+                    }
+                });
+            }
+            try {
+                level.await();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        long levels = System.nanoTime() - start;
+        threads.shutdown();
+        long queued = 0, maxQueued = 0;
+        for (int v = 0; v < V; v++) {
+            queued += dag.queued(v);
+            maxQueued = Math.max(maxQueued, dag.queued(v));
+        }
+        System.out.printf("sleeping jobs, %d threads: one at a time %.2f s, level by level %.2f s, as soon as ready %.2f s%n",
+                n, total / 1e3, levels / 1e9, dag.makespan() / 1e9);
+        System.out.printf("  as soon as ready: queued %.3f ms on average, %.3f ms at most%n", queued / 1e6 / V, maxQueued / 1e6);
+
+        // computing jobs on the common pool
+        final long[] sink = new long[V];
+        Job compute = new Job() {
+            @Override
+            public void run(int v) {
+                long x = v;
+                for (int i = 0; i < 20000 * millis[v]; i++) x = x * 6364136223846793005L + 1442695040888963407L;
+                sink[v] = x;
+            }
+        };
+        start = System.nanoTime();
+        for (int v : top.order()) {
+            try {
+                compute.run(v);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+        long sequential = System.nanoTime() - start;
+        dag.run(compute, ForkJoinPool.commonPool());
+        check(dag, G);
+        long busy = 0;
+        for (int v = 0; v < V; v++) busy += dag.duration(v);
+        System.out.printf("computing jobs, %d threads: one at a time %.1f ms, as soon as ready %.1f ms, %.1f ms of it in jobs%n",
+                ForkJoinPool.commonPool().getParallelism(), sequential / 1e6, dag.makespan() / 1e6, busy / 1e6);
+
+        // a job that fails stops the run
+        try {
+            dag.run(new Job() {
+                @Override
+                public void run(int v) {
+                    if (v == 0) throw new IllegalStateException("job 0 failed");
+                }
+            }, ForkJoinPool.commonPool());
+        } catch (RuntimeException e) {
+            System.out.println(e.getMessage() + "; " + dag.done() + " jobs done");
+        }
+
+        // an executor that refuses a job stops the run too
+        ThreadPoolExecutor one = new ThreadPoolExecutor(1, 1, 1, TimeUnit.SECONDS, new SynchronousQueue<Runnable>());
+        dag = new DAGExecutor(new CSRDigraph(3, new int[]{0, 1}, new int[]{1, 2}));
+        try {
+            dag.run(new Job() {
+                @Override
+                public void run(int v) throws Exception {
+                    Thread.sleep(10);
+                }
+            }, one);
+        } catch (RuntimeException e) {
+            System.out.println(e.getMessage() + "; " + dag.done() + " jobs done");
+        }
+        one.shutdown();
+    }
+
+    // no job started before the jobs it depends on were done
+    private static void check(DAGExecutor dag, CSRDigraph G) {
+        for (int v = 0; v < G.V(); v++) {
+            if (dag.finished(v) < 0) throw new AssertionError("job " + v + " did not run");
+            for (int e = G.begin(v); e < G.end(v); e++)
+                if (dag.started(G.to(e)) < dag.finished(v)) throw new AssertionError(v + "->" + G.to(e));
+        }
+    }
+}
@@ -1,13 +1,15 @@
 package graph.directed_graph;
 
-import data_structure.LinkedQueue;
-import data_structure.LinkedStack;
+import data_structure.IntBag;
+import data_structure.IntQueue;
+import data_structure.IntStack;
 import graph.shortest_path.DirectedEdge;
 import graph.shortest_path.EdgeWeightedDigraph;
 import helper.In;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.util.Iterator;
 import java.util.Scanner;
 
 /**
@@ -28,8 +30,8 @@ public class DepthFirstOrder {
     private boolean[] marked;  // marked[v] = has v been marked in dfs?
     private int[] pre;  // pre[v] = preOrder number of v
     private int[] post;  // post[v] = postOrder number of v
-    private LinkedQueue<Integer> preOrder;  // vertices in pre order
-    private LinkedQueue<Integer> postOrder; // vertices in post order
+    private IntQueue preOrder;  // vertices in pre order
+    private IntQueue postOrder; // vertices in post order
     private int preCounter;  // counter or pre order numbering
     private int postCounter;  // counter or pre order numbering
 
@@ -37,43 +39,89 @@ public class DepthFirstOrder {
     public DepthFirstOrder(Digraph G) {
         pre = new int[G.V()];
         post = new int[G.V()];
-        postOrder = new LinkedQueue<>();
-        preOrder = new LinkedQueue<>();
+        postOrder = new IntQueue();
+        preOrder = new IntQueue();
         marked = new boolean[G.V()];
-        for (int v = 0; v < G.V(); v++) if (!marked[v]) dfs(G, v);
+        int[] stack = new int[G.V()];
+        int[] next = new int[G.V()];
+        for (int v = 0; v < G.V(); v++) if (!marked[v]) dfs(G, v, stack, next);
     }
 
     // Determines a depth-first order for the edge-weighted digraph
     public DepthFirstOrder(EdgeWeightedDigraph G) {
         pre = new int[G.V()];
         post = new int[G.V()];
-        preOrder = new LinkedQueue<>();
-        postOrder = new LinkedQueue<>();
+        preOrder = new IntQueue();
+        postOrder = new IntQueue();
         marked = new boolean[G.V()];
-        for (int v = 0; v < G.V(); v++) if (!marked[v]) dfs(G, v);
+        int[] stack = new int[G.V()];
+        @SuppressWarnings("unchecked")
+        Iterator<DirectedEdge>[] next = (Iterator<DirectedEdge>[]) new Iterator<?>[G.V()];
+        for (int v = 0; v < G.V(); v++) if (!marked[v]) dfs(G, v, stack, next);
     }
 
-    // run DFS in digraph G from vertex v and compute preOrder/postOrder
-    private void dfs(Digraph G, int v) {
-        marked[v] = true;
-        pre[v] = preCounter++;
-        preOrder.enqueue(v);
-
-        for (int w : G.adj(v)) if (!marked[w]) dfs(G, w);
+    // run DFS in digraph G from vertex s and compute preOrder/postOrder, with an explicit
+    // stack in place of recursion; next[v] is the position in adj(v) of the next vertex to check
+    private void dfs(Digraph G, int s, int[] stack, int[] next) {
+        int top = 0;
+        visit(s);
+        stack[top++] = s;
+        while (top > 0) {
+            int v = stack[top - 1];
+            IntBag adj = G.adj(v);
+            int i = next[v];
+            while (i < adj.size() && marked[adj.get(i)]) i++;
+            if (i == adj.size()) {
+                next[v] = i;
+                top--;
+                finish(v);
+                continue;
+            }
+            int w = adj.get(i);
+            next[v] = i + 1;
+            visit(w);
+            stack[top++] = w;
+        }
+    }
 
-        postOrder.enqueue(v);
-        post[v] = postCounter++;
+    // run DFS in edge-weighted digraph G from vertex s and compute preOrder/postOrder;
+    // next[v] iterates over the edges leaving v that are still to be checked
+    private void dfs(EdgeWeightedDigraph G, int s, int[] stack, Iterator<DirectedEdge>[] next) {
+        int top = 0;
+        visit(s);
+        next[s] = G.adj(s).iterator();
+        stack[top++] = s;
+        while (top > 0) {
+            int v = stack[top - 1];
+            int w = -1;
+            while (next[v].hasNext()) {
+                int x = next[v].next().to();
+                if (!marked[x]) {
+                    w = x;
+                    break;
+                }
+            }
+            if (w == -1) {
+                next[v] = null;
+                top--;
+                finish(v);
+                continue;
+            }
+            visit(w);
+            next[w] = G.adj(w).iterator();
+            stack[top++] = w;
+        }
     }
 
-    // run DFS in edge-weighted digraph G from vertex v and compute preOrder/postOrder
-    private void dfs(EdgeWeightedDigraph G, int v) {
+    // number v in preorder
+    private void visit(int v) {
         marked[v] = true;
         pre[v] = preCounter++;
         preOrder.enqueue(v);
-        for (DirectedEdge e : G.adj(v)) {
-            int w = e.to();
-            if (!marked[w]) dfs(G, w);
-        }
+    }
+
+    // number v in postorder, once all the vertices reachable from it are done
+    private void finish(int v) {
         postOrder.enqueue(v);
         post[v] = postCounter++;
     }
@@ -100,8 +148,8 @@ public class DepthFirstOrder {
 
     // returns the vertices in reverse post order
     public Iterable<Integer> reversePost() {
-        LinkedStack<Integer> reverse = new LinkedStack<>();
-        for (int v : postOrder) reverse.push(v);
+        IntStack reverse = new IntStack(postOrder.size());
+        for (int i = 0; i < postOrder.size(); i++) reverse.push(postOrder.get(i));
         return reverse;
     }
 
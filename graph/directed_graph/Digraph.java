@@ -1,5 +1,6 @@
 package graph.directed_graph;
 
+import data_structure.IntBag;
 import helper.In;
 
 import java.io.File;
@@ -14,14 +15,14 @@ import java.util.Scanner;
  * Parallel edges and self-loops are permitted.
  * <p/>
  * This implementation uses an adjacency-lists representation, which
- * is a vertex-indexed array of {@link In.Bag} objects.
+ * is a vertex-indexed array of {@link IntBag} objects.
  * All operations take constant time (in the worst case) except
  * iterating over the vertices adjacent from a given vertex, which takes
  * time proportional to the number of such vertices.
  * <p/>
  */
 public class Digraph {
-    private In.Bag<Integer>[] adj;
+    private IntBag[] adj;
     private int V;
     private int E;
 
@@ -30,8 +31,8 @@ public class Digraph {
         if (V < 0) throw new IllegalArgumentException("Number of vertices must be non-negative");
         this.V = V;
         this.E = 0;
-        adj = (In.Bag<Integer>[]) new In.Bag[V];
-        for (int i = 0; i < V; i++) adj[i] = new In.Bag<Integer>();
+        adj = new IntBag[V];
+        for (int i = 0; i < V; i++) adj[i] = new IntBag();
     }
 
     // Initialize a digraph from an input stream
@@ -39,8 +40,8 @@ public class Digraph {
         this.V = in.readInt();
         if (V < 0)
             throw new IllegalArgumentException("Number of vertices in a Digraph must be nonnegative");
-        adj = (In.Bag<Integer>[]) new In.Bag[V];
-        for (int v = 0; v < V; v++) adj[v] = new In.Bag<Integer>();
+        adj = new IntBag[V];
+        for (int v = 0; v < V; v++) adj[v] = new IntBag();
 
 
         int E = in.readInt();
@@ -59,8 +60,9 @@ public class Digraph {
         this(G.V());
         this.E = G.E();
         for (int v = 0; v < G.V(); v++) {
-            // reverse so that adjacency list is in same order as original
-            for (int w : G.adj[v]) adj[v].add(w);
+            // add in reverse so that adjacency list is in same order as original
+            IntBag bag = G.adj[v];
+            for (int i = bag.size() - 1; i >= 0; i--) adj[v].add(bag.get(i));
         }
     }
 
@@ -84,7 +86,8 @@ public class Digraph {
     public Digraph reverse() {
         Digraph R = new Digraph(V);
         for (int v = 0; v < V; v++) {
-            for (int w : adj(v)) R.addEdge(w, v);
+            IntBag bag = adj[v];
+            for (int i = 0; i < bag.size(); i++) R.addEdge(bag.get(i), v);
         }
         return R;
     }
@@ -97,7 +100,9 @@ public class Digraph {
         return E;
     }
 
-    public Iterable<Integer> adj(int v) {
+    // Returns the vertices adjacent from v.
+    // Use adj(v).get(i) for 0 <= i < adj(v).size() to walk them without boxing.
+    public IntBag adj(int v) {
         return adj[v];
     }
 
@@ -1,5 +1,6 @@
 package graph.directed_graph;
 
+import data_structure.IntBag;
 import data_structure.LinkedStack;
 import helper.In;
 
@@ -37,21 +38,35 @@ public class DirectedCycle {
         onStack = new boolean[G.V()];
         edgeTo = new int[G.V()];
         marked = new boolean[G.V()];
-        for (int v = 0; v < G.V(); v++) if (!marked[v]) dfs(G, v);
+        int[] stack = new int[G.V()];
+        int[] next = new int[G.V()];
+        for (int v = 0; v < G.V() && cycle == null; v++) if (!marked[v]) dfs(G, v, stack, next);
     }
 
-    // check that algorithm computes either the topological order or finds a directed cycle
-    private void dfs(Digraph G, int v) {
-        onStack[v] = true;
-        marked[v] = true;
-        for (int w : G.adj(v)) {
-            // short circuit if directed cycle found
-            if (cycle != null) return;
+    // depth-first search from s, with an explicit stack in place of recursion; the
+    // vertices on stack[] are those with onStack[] set, and next[v] is the position
+    // in adj(v) of the next vertex to check
+    private void dfs(Digraph G, int s, int[] stack, int[] next) {
+        int top = 0;
+        marked[s] = true;
+        onStack[s] = true;
+        stack[top++] = s;
+        while (top > 0) {
+            int v = stack[top - 1];
+            IntBag adj = G.adj(v);
+            if (next[v] == adj.size()) {
+                onStack[v] = false;
+                top--;
+                continue;
+            }
+            int w = adj.get(next[v]++);
 
-                // found new vertex, so recur
-            else if (!marked[w]) {
+            // found new vertex, so descend
+            if (!marked[w]) {
                 edgeTo[w] = v;
-                dfs(G, w);
+                marked[w] = true;
+                onStack[w] = true;
+                stack[top++] = w;
             }
 
             // trace back directed cycle
@@ -60,9 +75,9 @@ public class DirectedCycle {
                 for (int x = v; x != w; x = edgeTo[x]) cycle.push(x);
                 cycle.push(w);
                 cycle.push(v);
+                return;
             }
         }
-        onStack[v] = false;
     }
 
     // Does the digraph have a directed cycle?
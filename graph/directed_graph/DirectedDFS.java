@@ -2,8 +2,10 @@ package graph.directed_graph;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.util.Random;
 import java.util.Scanner;
 
+import data_structure.IntBag;
 import helper.*;
 
 /**
@@ -26,22 +28,42 @@ public class DirectedDFS {
     // Computes that vertices in digraph G that are reachable from the source vertex s
     public DirectedDFS(Digraph G, int s) {
         marked = new boolean[G.V()];
-        dfs(G, s);
+        dfs(G, s, new int[G.V()], new int[G.V()]);
     }
 
-    private void dfs(Digraph G, int s) {
+    // depth-first search from s, with an explicit stack in place of recursion so that long
+    // paths cannot overflow the call stack; stack[] holds the vertices on the current path and
+    // next[v] is the position in adj(v) of the next vertex to check
+    private void dfs(Digraph G, int s, int[] stack, int[] next) {
+        int top = 0;
         marked[s] = true;
         count++;
-        for (int v : G.adj(s)) {
-            if (!marked[v]) dfs(G, v);
+        stack[top++] = s;
+        while (top > 0) {
+            int v = stack[top - 1];
+            IntBag adj = G.adj(v);
+            int i = next[v];
+            while (i < adj.size() && marked[adj.get(i)]) i++;
+            if (i == adj.size()) {
+                next[v] = i;
+                top--;
+                continue;
+            }
+            int w = adj.get(i);
+            next[v] = i + 1;
+            marked[w] = true;
+            count++;
+            stack[top++] = w;
         }
     }
 
     // Computes the vertices in digraph G that are connected to any of the source vertices
     public DirectedDFS(Digraph G, Iterable<Integer> sources) {
         marked = new boolean[G.V()];
+        int[] stack = new int[G.V()];
+        int[] next = new int[G.V()];
         for (int v : sources) {
-            if (!marked[v]) dfs(G, v);
+            if (!marked[v]) dfs(G, v, stack, next);
         }
     }
 
@@ -55,13 +77,66 @@ public class DirectedDFS {
         return count;
     }
 
-    public static void main(String[] args) throws FileNotFoundException {
+    public static void main(String[] args) throws FileNotFoundException, InterruptedException {
         In in = new In(new Scanner(new File("src/tinyDG.txt")));
         Digraph G = new Digraph(in);
         DirectedDFS dfs = new DirectedDFS(G, 0);
         for (int v = 0; v < G.V(); v++) {
             if (dfs.marked(v)) System.out.print(v + " ");
         }
+        System.out.println();
+
+        // a 2M-vertex chain overflows the default stack when searched recursively
+        int V = args.length > 0 ? Integer.parseInt(args[0]) : 2000000;
+        Digraph chain = new Digraph(V);
+        for (int v = 0; v + 1 < V; v++) chain.addEdge(v, v + 1);
+        try {
+            recursiveCount(chain, 0, new boolean[V]);
+            System.out.println("recursive search of a " + V + "-vertex chain: no overflow");
+        } catch (StackOverflowError e) {
+            System.out.println("recursive search of a " + V + "-vertex chain: StackOverflowError");
+        }
+
+        Random random = new Random(42);
+        Digraph sparse = new Digraph(V);
+        for (int i = 0; i < 4 * V; i++) sparse.addEdge(random.nextInt(V), random.nextInt(V));
+        benchmark("chain", chain);
+        benchmark("random digraph, E = 4V", sparse);
+    }
+
+    // compare with the recursive search, run in a thread with a stack big enough for it
+    private static void benchmark(String name, final Digraph G) throws InterruptedException {
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            int count = new DirectedDFS(G, 0).count();
+            final long t1 = System.nanoTime() - start;
+            final int[] recursive = new int[2];
+            Thread thread = new Thread(null, new Runnable() {
+                @Override
+                public void run() {
+                    long start = System.nanoTime();
+                    recursive[0] = recursiveCount(G, 0, new boolean[G.V()]);
+                    recursive[1] = (int) ((System.nanoTime() - start) / 1000);
+                }
+            }, "recursive", 1L << 30);
+            thread.start();
+            thread.join();
+            if (recursive[0] != count) throw new AssertionError("counts differ");
+            System.out.printf("%s, %d reached: iterative %6.1f ms, recursive %6.1f ms%n",
+                    name, count, t1 / 1e6, recursive[1] / 1e3);
+        }
+    }
+
+    // the recursive search, for comparison
+    private static int recursiveCount(Digraph G, int v, boolean[] marked) {
+        marked[v] = true;
+        int count = 1;
+        IntBag adj = G.adj(v);
+        for (int i = 0; i < adj.size(); i++) {
+            int w = adj.get(i);
+            if (!marked[w]) count += recursiveCount(G, w, marked);
+        }
+        return count;
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,349 @@
+package graph.directed_graph;
+
+import data_structure.IntBag;
+import data_structure.IntStack;
+import data_structure.LinkedStack;
+import helper.In;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Scanner;
+
+/**
+ * The <tt>OnlineTopological</tt> class represents a directed acyclic graph that keeps
+ * a topological order as edges are added and removed, and refuses an edge that would
+ * make a cycle, instead of adding it to a {@link Digraph} and running
+ * {@link DirectedCycle} again, in time proportional to <em>V</em> + <em>E</em> each time.
+ * The refused edge and a path back make a cycle, which it returns like
+ * <tt>DirectedCycle</tt> does.
+ * <p/>
+ * This implementation uses the algorithm of Pearce and Kelly. An edge <em>v</em>-&gt;<em>w</em>
+ * with <em>v</em> before <em>w</em> in the order changes nothing. Otherwise only the vertices
+ * between <em>w</em> and <em>v</em> in the order can be out of place: a depth-first search
+ * from <em>w</em> finds those reachable from it, and one backwards from <em>v</em> those
+ * that reach it, both only among these vertices; if the first reaches <em>v</em>, the edge
+ * closes a cycle. The two sets then swap their positions, each keeping its own order.
+ * So an edge takes time proportional to the degrees of the vertices in the region
+ * between its ends that it actually reorders, log of their number to sort them, and
+ * <em>V</em> + <em>E</em> only in the worst case. Removing an edge keeps the order valid.
+ * The edges leaving and entering each vertex are kept in {@link IntBag}s.
+ * <p/>
+ */
+public class OnlineTopological {
+    private final int V;
+    private int E;
+    private final IntBag[] adj;           // adj[v] = heads of the edges leaving v
+    private final IntBag[] reverseAdj;    // reverseAdj[v] = tails of the edges entering v
+    private final int[] ord;              // ord[k] = vertex at position k of the order
+    private final int[] pos;              // pos[v] = position of vertex v
+
+    // work space of the searches
+    private final int[] mark;
+    private int search;
+    private final int[] edgeTo;           // edgeTo[x] = previous vertex on the path from w to x
+    private final IntStack stack = new IntStack();
+    private final int[] shifted, before, positions;
+    private LinkedStack<Integer> cycle;   // the cycle of the last refused edge (or null)
+    private long moved;                   // vertices that changed position, in all
+
+    /**
+     * Initializes an empty digraph with <tt>V</tt> vertices, in the order 0 to <tt>V</tt> - 1.
+     *
+     * @throws IllegalArgumentException if <tt>V</tt> &lt; 0
+     */
+    public OnlineTopological(int V) {
+        if (V < 0) throw new IllegalArgumentException("Number of vertices must be nonnegative");
+        this.V = V;
+        adj = new IntBag[V];
+        reverseAdj = new IntBag[V];
+        ord = new int[V];
+        pos = new int[V];
+        for (int v = 0; v < V; v++) {
+            adj[v] = new IntBag();
+            reverseAdj[v] = new IntBag();
+            ord[v] = v;
+            pos[v] = v;
+        }
+        mark = new int[V];
+        edgeTo = new int[V];
+        shifted = new int[V];
+        before = new int[V];
+        positions = new int[V];
+    }
+
+    /**
+     * Initializes a copy of the digraph <tt>G</tt>, in the order of {@link Topological}.
+     *
+     * @throws IllegalArgumentException if <tt>G</tt> has a cycle
+     */
+    public OnlineTopological(Digraph G) {
+        this(G.V());
+        Topological top = new Topological(G);
+        if (!top.hasOrder()) throw new IllegalArgumentException("The digraph has a cycle");
+        int k = 0;
+        for (int v : top.order()) {
+            ord[k] = v;
+            pos[v] = k++;
+        }
+        for (int v = 0; v < V; v++) {
+            // adj(v) returns the most recent edge first; add them in the order they were added to G
+            for (int i = G.adj(v).size() - 1; i >= 0; i--) {
+                int w = G.adj(v).get(i);
+                adj[v].add(w);
+                reverseAdj[w].add(v);
+                E++;
+            }
+        }
+    }
+
+    private void validateVertex(int v) {
+        if (v < 0 || v >= V) throw new IndexOutOfBoundsException("vertex " + v + " is not between 0 and " + (V - 1));
+    }
+
+    /**
+     * Adds the directed edge <tt>v</tt>-&gt;<tt>w</tt>, unless it makes a cycle.
+     *
+     * @return true if the edge was added; false if it makes a cycle, which
+     * {@link #cycle()} then returns
+     * @throws IndexOutOfBoundsException unless both vertices are between 0 and <tt>V</tt> - 1
+     */
+    public boolean addEdge(int v, int w) {
+        validateVertex(v);
+        validateVertex(w);
+        cycle = null;
+        if (v == w) {
+            cycle = new LinkedStack<>();
+            cycle.push(v);
+            cycle.push(v);
+            return false;
+        }
+        if (pos[v] > pos[w] && !reorder(v, w)) return false;
+        adj[v].add(w);
+        reverseAdj[w].add(v);
+        E++;
+        return true;
+    }
+
+    /**
+     * Removes one directed edge <tt>v</tt>-&gt;<tt>w</tt>, if there is one.
+     *
+     * @return true if there was such an edge; false otherwise
+     * @throws IndexOutOfBoundsException unless both vertices are between 0 and <tt>V</tt> - 1
+     */
+    public boolean removeEdge(int v, int w) {
+        validateVertex(v);
+        validateVertex(w);
+        if (!adj[v].remove(w)) return false;
+        reverseAdj[w].remove(v);
+        E--;
+        return true;
+    }
+
+    // make room for v->w, with pos[v] > pos[w]; or find the cycle and return false
+    private boolean reorder(int v, int w) {
+        int lower = pos[w], upper = pos[v];
+        search++;
+        // the vertices reachable from w, up to the position of v
+        int F = 0;
+        mark[w] = search;
+        stack.push(w);
+        while (!stack.isEmpty()) {
+            int x = stack.pop();
+            shifted[F++] = pos[x];
+            for (int i = 0; i < adj[x].size(); i++) {
+                int y = adj[x].get(i);
+                if (y == v) {
+                    stack.clear();
+                    edgeTo[v] = x;
+                    cycle = new LinkedStack<>();
+                    for (int z = v; z != w; z = edgeTo[z]) cycle.push(z);
+                    cycle.push(w);
+                    cycle.push(v);
+                    return false;
+                }
+                if (mark[y] != search && pos[y] < upper) {
+                    mark[y] = search;
+                    edgeTo[y] = x;
+                    stack.push(y);
+                }
+            }
+        }
+        // the vertices that reach v, down to the position of w
+        int B = 0;
+        mark[v] = search;
+        stack.push(v);
+        while (!stack.isEmpty()) {
+            int x = stack.pop();
+            before[B++] = pos[x];
+            for (int i = 0; i < reverseAdj[x].size(); i++) {
+                int y = reverseAdj[x].get(i);
+                if (mark[y] != search && pos[y] > lower) {
+                    mark[y] = search;
+                    stack.push(y);
+                }
+            }
+        }
+        // the vertices that reach v, then those reachable from w, each in their order, in the positions of both
+        Arrays.sort(shifted, 0, F);
+        Arrays.sort(before, 0, B);
+        System.arraycopy(before, 0, positions, 0, B);
+        System.arraycopy(shifted, 0, positions, B, F);
+        Arrays.sort(positions, 0, B + F);
+        for (int k = 0; k < B; k++) before[k] = ord[before[k]];
+        for (int k = 0; k < F; k++) shifted[k] = ord[shifted[k]];
+        for (int k = 0; k < B + F; k++) {
+            int x = k < B ? before[k] : shifted[k - B];
+            pos[x] = positions[k];
+            ord[positions[k]] = x;
+        }
+        moved += B + F;
+        return true;
+    }
+
+    // Returns the number of vertices
+    public int V() {
+        return V;
+    }
+
+    // Returns the number of edges
+    public int E() {
+        return E;
+    }
+
+    // Returns the vertices pointing from v
+    public IntBag adj(int v) {
+        validateVertex(v);
+        return adj[v];
+    }
+
+    // Returns the vertices pointing to v
+    public IntBag reverseAdj(int v) {
+        validateVertex(v);
+        return reverseAdj[v];
+    }
+
+    // Returns the position of v in the topological order
+    public int rank(int v) {
+        validateVertex(v);
+        return pos[v];
+    }
+
+    // Returns the vertices in topological order; the order changes as edges are added
+    public Iterable<Integer> order() {
+        return new Iterable<Integer>() {
+            @Override
+            public Iterator<Integer> iterator() {
+                return new Iterator<Integer>() {
+                    private int k = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return k < V;
+                    }
+
+                    @Override
+                    public Integer next() {
+                        if (!hasNext()) throw new NoSuchElementException();
+                        return ord[k++];
+                    }
+                };
+            }
+        };
+    }
+
+    // Returns the cycle made by the last edge refused by addEdge(), if the last call refused it, and null otherwise
+    public Iterable<Integer> cycle() {
+        return cycle;
+    }
+
+    // Returns the number of times a vertex changed position, in all
+    public long moved() {
+        return moved;
+    }
+
+    /**
+     * Adds the edges of tinyDAG.txt one at a time and prints the order, then tries the
+     * reverse of a few of them. Then adds random edges to a large digraph, as a registry
+     * of dependencies would, between vertices up to 100 apart, one in 20 of them
+     * against the order, which makes a cycle or moves vertices, and times that against
+     * adding each to a {@link Digraph} and running {@link DirectedCycle}; checks the
+     * order, and some refused edges with <tt>DirectedCycle</tt>.
+     * Arguments: V (default 100000), edges to try (default 1000000).
+     */
+    public static void main(String[] args) throws FileNotFoundException {
+        In in = new In(new Scanner(new File("src/graph/tinyDAG.txt")));
+        OnlineTopological tiny = new OnlineTopological(in.readInt());
+        int tinyE = in.readInt();
+        int[] tails = new int[tinyE], heads = new int[tinyE];
+        for (int i = 0; i < tinyE; i++) {
+            tails[i] = in.readInt();
+            heads[i] = in.readInt();
+            tiny.addEdge(tails[i], heads[i]);
+        }
+        System.out.print("order:");
+        for (int v : tiny.order()) System.out.print(" " + v);
+        System.out.println();
+        for (int i = 0; i < 3; i++) {
+            System.out.print(heads[i] + "->" + tails[i] + ": " + (tiny.addEdge(heads[i], tails[i]) ? "added" : "refused, cycle"));
+            for (int v : tiny.cycle()) System.out.print(" " + v);
+            System.out.println();
+        }
+
+        int V = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        int M = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+        // a registry: each edge from a vertex to one of the 100 after it, one in 20 the other way round
+        Random random = new Random(42);
+        OnlineTopological G = new OnlineTopological(V);
+        Digraph lists = new Digraph(V);
+        int[] refusedV = new int[M], refusedW = new int[M];
+        int refused = 0, backwards = 0;
+        long start = System.nanoTime();
+        for (int m = 0; m < M; m++) {
+            int v = random.nextInt(V - 1);
+            int w = Math.min(V - 1, v + 1 + random.nextInt(100));
+            if (random.nextInt(20) == 0) {
+                int x = v;
+                v = w;
+                w = x;
+                backwards++;
+            }
+            if (G.addEdge(v, w)) {
+                lists.addEdge(v, w);
+            } else {
+                refusedV[refused] = v;
+                refusedW[refused++] = w;
+            }
+        }
+        long t = System.nanoTime() - start;
+        System.out.printf("%nOnlineTopological: %d edges tried, %d of them backwards; %d added, %d refused in %.2f s: %.2f us per edge, %.1f vertices moved per edge%n",
+                M, backwards, G.E(), refused, t / 1e9, t / 1e3 / M, (double) G.moved() / M);
+
+        int[] rank = new int[V];
+        int r = 0;
+        for (int v : G.order()) rank[v] = r++;
+        for (int v = 0; v < V; v++) {
+            if (rank[v] != G.rank(v)) throw new AssertionError("rank of " + v);
+            for (int k = 0; k < G.adj(v).size(); k++)
+                if (rank[G.adj(v).get(k)] <= rank[v]) throw new AssertionError(v + "->" + G.adj(v).get(k));
+        }
+
+        // add a few refused edges to a copy, each alone: DirectedCycle must find a cycle
+        int checks = Math.min(refused, 20);
+        start = System.nanoTime();
+        for (int k = 0; k < checks; k++) {
+            int i = random.nextInt(refused);
+            Digraph copy = new Digraph(lists);
+            copy.addEdge(refusedV[i], refusedW[i]);
+            if (!new DirectedCycle(copy).hasCycle()) throw new AssertionError(refusedV[i] + "->" + refusedW[i]);
+        }
+        start = System.nanoTime();
+        for (int k = 0; k < checks; k++) new DirectedCycle(lists);
+        t = System.nanoTime() - start;
+        System.out.printf("Digraph and DirectedCycle: %.2f ms per edge at the end (%d refused edges checked)%n",
+                t / 1e6 / checks, checks);
+    }
+}
@@ -0,0 +1,340 @@
+package graph.directed_graph;
+
+import data_structure.LinkedStack;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The <tt>ParallelBreadthFirstDirectedPaths</tt> class represents a data type for
+ * finding shortest paths (number of edges) from a source vertex <em>s</em> to every
+ * other vertex in a {@link CSRDigraph}, using all the threads of a fork-join pool.
+ * It has the same <tt>distTo()</tt> and <tt>pathTo()</tt> API as
+ * {@link BreadthFirstDirectedPaths}; the distances are the same, but where there are
+ * several shortest paths the one returned may differ from run to run.
+ * <p/>
+ * This implementation uses Beamer's direction-optimizing breadth-first search,
+ * which visits the graph one level at a time in one of two directions:
+ * <ul>
+ * <li><em>top-down</em>: the frontier is a list of vertices, split among tasks; each
+ * task scans the edges leaving its vertices and claims unvisited heads with a
+ * compare-and-set on a bitmap of visited vertices.</li>
+ * <li><em>bottom-up</em>: the frontier is a bitmap, and the vertices are split into
+ * blocks of whole bitmap words; each task checks the unvisited vertices of its
+ * block, scanning the edges entering each one only until it finds a parent in the
+ * frontier. No synchronization is needed as every vertex belongs to one task.</li>
+ * </ul>
+ * Top-down is cheaper while the frontier is small. When the edges leaving the
+ * frontier exceed 1/14 of the edges leaving unvisited vertices the search goes
+ * bottom-up, which then checks far fewer edges than there are in the frontier, and it
+ * returns to top-down once the frontier has shrunk below 1/24 of the vertices.
+ * <p/>
+ * The bottom-up steps need the edges entering each vertex, so the constructor takes
+ * or computes the reverse digraph. It uses extra space (not including the digraphs)
+ * proportional to <em>V</em>, and takes time proportional to <em>V</em> + <em>E</em>
+ * in the worst case, divided among the threads of the pool.
+ * <p/>
+ */
+public class ParallelBreadthFirstDirectedPaths {
+    private static final int INFINITY = Integer.MAX_VALUE;
+    private static final int ALPHA = 14;     // go bottom-up when the frontier has more than 1/ALPHA of the unexplored edges
+    private static final int BETA = 24;      // go top-down when the frontier has less than 1/BETA of the vertices
+    private static final int GRAIN = 256;    // frontier vertices per top-down task
+    private static final int BLOCK = 4096;   // vertices per bottom-up task, a multiple of 64
+
+    private final CSRDigraph G;              // the digraph
+    private final CSRDigraph R;              // its reverse
+    private final int[] distTo;              // distTo[v] = number of edges on shortest s->v path
+    private final int[] edgeTo;              // edgeTo[v] = last vertex on shortest s->v path
+    private final AtomicLongArray visited;   // bit v is set once v has been reached
+
+    private int level;                       // distance of the frontier from s
+    private int[] frontier;                  // the frontier, when going top-down
+    private int[] next;                      // the next frontier, when going top-down
+    private final AtomicInteger nextSize = new AtomicInteger();
+    private long[] frontierBits;             // the frontier, when going bottom-up
+    private long[] nextBits;                 // the next frontier, when going bottom-up
+    private final AtomicLong nextEdges = new AtomicLong();  // edges leaving the next frontier
+    private int topDownSteps, bottomUpSteps;
+
+    /**
+     * Computes shortest paths from <tt>s</tt> to every other vertex of <tt>G</tt>
+     * in the common fork-join pool.
+     *
+     * @param G the digraph
+     * @param s the source vertex
+     * @throws IndexOutOfBoundsException unless 0 &le; <tt>s</tt> &le; <tt>V</tt> - 1
+     */
+    public ParallelBreadthFirstDirectedPaths(CSRDigraph G, int s) {
+        this(G, G.reverse(), s, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Computes shortest paths from <tt>s</tt> to every other vertex of <tt>G</tt>
+     * in the given fork-join pool, reusing a reverse of <tt>G</tt> computed
+     * beforehand, so that repeated searches do not build it each time.
+     *
+     * @param G       the digraph
+     * @param reverse the reverse of <tt>G</tt>; a graph converted with {@link CSRDigraph}
+     *                from an undirected graph is its own reverse
+     * @param s       the source vertex
+     * @param pool    the pool that runs the tasks
+     * @throws IllegalArgumentException  if <tt>reverse</tt> does not have the vertices and edges of <tt>G</tt>
+     * @throws IndexOutOfBoundsException unless 0 &le; <tt>s</tt> &le; <tt>V</tt> - 1
+     */
+    public ParallelBreadthFirstDirectedPaths(CSRDigraph G, CSRDigraph reverse, int s, ForkJoinPool pool) {
+        if (reverse.V() != G.V() || reverse.E() != G.E())
+            throw new IllegalArgumentException("reverse must have the vertices and edges of G");
+        this.G = G;
+        this.R = reverse;
+        int V = G.V();
+        distTo = new int[V];
+        edgeTo = new int[V];
+        Arrays.fill(distTo, INFINITY);
+        visited = new AtomicLongArray((V + 63) >>> 6);
+        bfs(s, pool);
+        // the frontiers are only needed during the search
+        frontier = next = null;
+        frontierBits = nextBits = null;
+    }
+
+    private void bfs(int s, ForkJoinPool pool) {
+        int V = G.V();
+        long unexplored = G.E();              // edges leaving unvisited vertices
+        long frontierEdges = G.outDegree(s);  // edges leaving the frontier
+        int frontierSize = 1;
+        boolean bottomUp = false;
+
+        frontier = new int[V];
+        next = new int[V];
+        frontierBits = new long[visited.length()];
+        nextBits = new long[visited.length()];
+        distTo[s] = 0;
+        edgeTo[s] = s;
+        visited.set(s >>> 6, 1L << s);
+        frontier[0] = s;
+
+        for (level = 0; frontierSize > 0; level++) {
+            unexplored -= frontierEdges;
+            if (!bottomUp && frontierEdges > unexplored / ALPHA) {
+                // list to bitmap
+                Arrays.fill(frontierBits, 0);
+                for (int i = 0; i < frontierSize; i++) frontierBits[frontier[i] >>> 6] |= 1L << frontier[i];
+                bottomUp = true;
+            } else if (bottomUp && frontierSize < V / BETA) {
+                // bitmap to list
+                int n = 0;
+                for (int i = 0; i < frontierBits.length; i++)
+                    for (long word = frontierBits[i]; word != 0; word &= word - 1)
+                        frontier[n++] = (i << 6) + Long.numberOfTrailingZeros(word);
+                bottomUp = false;
+            }
+
+            nextSize.set(0);
+            nextEdges.set(0);
+            if (bottomUp) {
+                Arrays.fill(nextBits, 0);
+                pool.invoke(new BottomUp(0, V));
+                long[] swap = frontierBits;
+                frontierBits = nextBits;
+                nextBits = swap;
+                bottomUpSteps++;
+            } else {
+                pool.invoke(new TopDown(0, frontierSize));
+                int[] swap = frontier;
+                frontier = next;
+                next = swap;
+                topDownSteps++;
+            }
+            frontierSize = nextSize.get();
+            frontierEdges = nextEdges.get();
+        }
+    }
+
+    // claim w for the next frontier; only one thread succeeds
+    private boolean claim(int w) {
+        int i = w >>> 6;
+        long bit = 1L << w;
+        while (true) {
+            long word = visited.get(i);
+            if ((word & bit) != 0) return false;
+            if (visited.compareAndSet(i, word, word | bit)) return true;
+        }
+    }
+
+    // scan the edges leaving frontier[lo..hi-1]
+    @SuppressWarnings("serial")
+    private class TopDown extends RecursiveAction {
+        private final int lo, hi;
+
+        TopDown(int lo, int hi) {
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo > GRAIN) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new TopDown(lo, mid), new TopDown(mid, hi));
+                return;
+            }
+            int[] found = new int[16];
+            int n = 0;
+            long edges = 0;
+            for (int i = lo; i < hi; i++) {
+                int v = frontier[i];
+                for (int e = G.begin(v); e < G.end(v); e++) {
+                    int w = G.to(e);
+                    if ((visited.get(w >>> 6) & (1L << w)) == 0 && claim(w)) {
+                        distTo[w] = level + 1;
+                        edgeTo[w] = v;
+                        edges += G.outDegree(w);
+                        if (n == found.length) found = Arrays.copyOf(found, 2 * n);
+                        found[n++] = w;
+                    }
+                }
+            }
+            if (n > 0) {
+                System.arraycopy(found, 0, next, nextSize.getAndAdd(n), n);
+                nextEdges.addAndGet(edges);
+            }
+        }
+    }
+
+    // find a parent in the frontier for each unvisited vertex in lo..hi-1; lo is a multiple of 64
+    @SuppressWarnings("serial")
+    private class BottomUp extends RecursiveAction {
+        private final int lo, hi;
+
+        BottomUp(int lo, int hi) {
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo > BLOCK) {
+                int mid = lo + ((hi - lo) / 2 & ~63);
+                invokeAll(new BottomUp(lo, mid), new BottomUp(mid, hi));
+                return;
+            }
+            int n = 0;
+            long edges = 0;
+            for (int v = lo; v < hi; v++) {
+                if (distTo[v] != INFINITY) continue;
+                for (int e = R.begin(v); e < R.end(v); e++) {
+                    int u = R.to(e);
+                    if ((frontierBits[u >>> 6] & (1L << u)) != 0) {
+                        distTo[v] = level + 1;
+                        edgeTo[v] = u;
+                        nextBits[v >>> 6] |= 1L << v;
+                        edges += G.outDegree(v);
+                        n++;
+                        break;
+                    }
+                }
+            }
+            // this task owns the words of its block, so plain updates are safe
+            for (int i = lo >>> 6; i <= (hi - 1) >>> 6; i++)
+                if (nextBits[i] != 0) visited.set(i, visited.get(i) | nextBits[i]);
+            if (n > 0) {
+                nextSize.addAndGet(n);
+                nextEdges.addAndGet(edges);
+            }
+        }
+    }
+
+    public boolean hasPathTo(int v) {
+        return distTo[v] != INFINITY;
+    }
+
+    public int distTo(int v) {
+        return distTo[v];
+    }
+
+    public Iterable<Integer> pathTo(int v) {
+        if (!hasPathTo(v)) return null;
+        LinkedStack<Integer> path = new LinkedStack<>();
+        int x;
+        for (x = v; distTo[x] != 0; x = edgeTo[x]) path.push(x);
+        path.push(x);
+        return path;
+    }
+
+    // Returns the number of levels searched top-down and bottom-up, e.g. "3 top-down, 2 bottom-up"
+    public String steps() {
+        return topDownSteps + " top-down, " + bottomUpSteps + " bottom-up";
+    }
+
+    /**
+     * Generates the edges of an RMAT graph with 2<sup>scale</sup> vertices and
+     * <tt>edgeFactor</tt> edges per vertex, using the Graph500 parameters
+     * a = 0.57, b = c = 0.19: each edge picks a quadrant of the adjacency matrix
+     * recursively, <tt>scale</tt> times. Returns <tt>{from, to}</tt>.
+     */
+    public static int[][] rmat(int scale, int edgeFactor, long seed) {
+        int E = edgeFactor << scale;
+        int[] from = new int[E], to = new int[E];
+        Random random = new Random(seed);
+        for (int i = 0; i < E; i++) {
+            int v = 0, w = 0;
+            for (int bit = 0; bit < scale; bit++) {
+                double r = random.nextDouble();
+                if (r >= 0.57 + 0.19 + 0.19) { v |= 1 << bit; w |= 1 << bit; }
+                else if (r >= 0.57 + 0.19) v |= 1 << bit;
+                else if (r >= 0.57) w |= 1 << bit;
+            }
+            from[i] = v;
+            to[i] = w;
+        }
+        return new int[][]{from, to};
+    }
+
+    /**
+     * Benchmarks the search against {@link BreadthFirstDirectedPaths} on an RMAT digraph,
+     * checking that the distances agree.
+     * Arguments: scale (default 18), edges per vertex (default 16), pool size.
+     */
+    public static void main(String[] args) {
+        int scale = args.length > 0 ? Integer.parseInt(args[0]) : 18;
+        int edgeFactor = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        ForkJoinPool pool = args.length > 2 ? new ForkJoinPool(Integer.parseInt(args[2])) : ForkJoinPool.commonPool();
+        int V = 1 << scale;
+        int[][] edges = rmat(scale, edgeFactor, 42);
+        Digraph lists = new Digraph(V);
+        for (int i = 0; i < edges[0].length; i++) lists.addEdge(edges[0][i], edges[1][i]);
+        CSRDigraph G = new CSRDigraph(V, edges[0], edges[1]);
+        CSRDigraph R = G.reverse();
+        edges = null;
+
+        // start from the vertex of largest outdegree, which RMAT puts at 0
+        int s = 0;
+        System.out.printf("RMAT scale %d: %d vertices, %d edges, %d threads%n",
+                scale, V, G.E(), pool.getParallelism());
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            BreadthFirstDirectedPaths bfs1 = new BreadthFirstDirectedPaths(lists, s);
+            long t1 = System.nanoTime() - start;
+            start = System.nanoTime();
+            BreadthFirstDirectedPaths bfs2 = new BreadthFirstDirectedPaths(G, s);
+            long t2 = System.nanoTime() - start;
+            start = System.nanoTime();
+            ParallelBreadthFirstDirectedPaths bfs3 = new ParallelBreadthFirstDirectedPaths(G, R, s, pool);
+            long t3 = System.nanoTime() - start;
+            int reached = 0;
+            for (int v = 0; v < V; v++) {
+                if (bfs1.distTo(v) != bfs3.distTo(v) || bfs2.distTo(v) != bfs3.distTo(v))
+                    throw new AssertionError("distances differ at " + v);
+                if (bfs3.hasPathTo(v)) reached++;
+            }
+            System.out.printf("reached %d: Digraph %6.1f ms, CSRDigraph %6.1f ms, parallel %6.1f ms (%s)%n",
+                    reached, t1 / 1e6, t2 / 1e6, t3 / 1e6, bfs3.steps());
+        }
+    }
+}
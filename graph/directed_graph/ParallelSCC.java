@@ -0,0 +1,344 @@
+package graph.directed_graph;
+
+import data_structure.IntStack;
+import data_structure.LinkedQueue;
+import helper.In;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.Arrays;
+import java.util.Scanner;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * The <tt>ParallelSCC</tt> class represents a data type for determining the
+ * strong components in a {@link CSRDigraph}, using all the threads of a
+ * fork-join pool. It has the same API as {@link KosarajuSharirSCC}: <em>id</em>,
+ * <em>count</em> and <em>stronglyConnected</em>. Components are numbered 0 through
+ * <em>count</em> - 1 in the order of their smallest vertex.
+ * <p/>
+ * This implementation uses the Multistep method of Slota, Rajamanickam and Madduri,
+ * which suits digraphs with one giant strong component and many small ones:
+ * <ul>
+ * <li><em>Trim</em>: a vertex with no edge in or no edge out to an unassigned vertex is
+ * a component by itself. The vertices are checked in parallel, twice.</li>
+ * <li><em>Forward-backward</em>: the strong component of a pivot is the intersection of
+ * the vertices it reaches and those that reach it, found with two parallel breadth-first
+ * searches ({@link ParallelBreadthFirstDirectedPaths}). The pivot is the vertex with the
+ * largest product of indegree and outdegree, which is very likely in the giant component.</li>
+ * <li><em>Coloring</em>: every remaining vertex starts with its own number as color, and
+ * colors are pushed along the edges, in parallel and with a compare-and-set, until each
+ * vertex has the largest color that reaches it. A vertex that kept its own color is then
+ * the root of its component: the vertices of that color that reach it, found by a search
+ * over the reverse edges. These searches are disjoint and run in parallel.
+ * The rounds repeat on the vertices left until none are.</li>
+ * </ul>
+ * It needs the reverse digraph, which the constructor takes or computes, and uses extra
+ * space proportional to <em>V</em>. Trimming and the forward-backward step take time
+ * proportional to <em>V</em> + <em>E</em>; each coloring pass takes time proportional
+ * to <em>V</em> + <em>E</em> times the number of times colors are pushed, which is small
+ * when the giant component is gone. All of it is divided among the threads of the pool.
+ * Afterwards, the <em>id</em>, <em>count</em>, and <em>stronglyConnected</em>
+ * operations take constant time.
+ * <p/>
+ */
+public class ParallelSCC {
+    private static final int TRIM_ROUNDS = 2;  // trimming passes before the forward-backward step
+    private static final int GRAIN = 1024;     // vertices per task
+
+    private final CSRDigraph G;              // the digraph
+    private final CSRDigraph R;              // its reverse
+    private final int[] comp;                // comp[v] = a vertex of the strong component of v, or -1 until known
+    private final AtomicIntegerArray color;  // color[v] = largest vertex known to reach v, while coloring
+    private volatile boolean changed;        // did the last coloring pass change a color?
+    private int[] remaining;                 // the first n entries are the vertices not yet assigned
+    private int[] roots;                     // roots of the colors of the current pass
+    private int[] id;                        // id[v] = id of strong component containing v
+    private int count;                       // number of strongly-connected components
+
+    // Compute the strong components of the digraph, in the common fork-join pool
+    public ParallelSCC(CSRDigraph G) {
+        this(G, G.reverse(), ForkJoinPool.commonPool());
+    }
+
+    // Compute the strong components of the digraph, given its reverse, running the tasks in pool
+    public ParallelSCC(CSRDigraph G, CSRDigraph reverse, ForkJoinPool pool) {
+        if (reverse.V() != G.V() || reverse.E() != G.E())
+            throw new IllegalArgumentException("reverse must have the vertices and edges of G");
+        this.G = G;
+        this.R = reverse;
+        int V = G.V();
+        comp = new int[V];
+        Arrays.fill(comp, -1);
+        remaining = new int[V];
+        for (int v = 0; v < V; v++) remaining[v] = v;
+        int n = V;
+
+        // trim
+        for (int round = 0; round < TRIM_ROUNDS && n > 0; round++) {
+            pool.invoke(new Trim(0, n));
+            n = compact(n);
+        }
+
+        // forward-backward from the pivot
+        if (n > 0) {
+            int pivot = remaining[0];
+            long best = -1;
+            for (int i = 0; i < n; i++) {
+                int v = remaining[i];
+                long degrees = (long) G.outDegree(v) * R.outDegree(v);
+                if (degrees > best) {
+                    pivot = v;
+                    best = degrees;
+                }
+            }
+            ParallelBreadthFirstDirectedPaths forward = new ParallelBreadthFirstDirectedPaths(G, R, pivot, pool);
+            ParallelBreadthFirstDirectedPaths backward = new ParallelBreadthFirstDirectedPaths(R, G, pivot, pool);
+            for (int i = 0; i < n; i++) {
+                int v = remaining[i];
+                if (forward.hasPathTo(v) && backward.hasPathTo(v)) comp[v] = pivot;
+            }
+            n = compact(n);
+        }
+
+        // coloring
+        color = new AtomicIntegerArray(V);
+        roots = new int[V];
+        while (n > 0) {
+            for (int i = 0; i < n; i++) color.set(remaining[i], remaining[i]);
+            do {
+                changed = false;
+                pool.invoke(new Propagate(0, n));
+            } while (changed);
+            int r = 0;
+            for (int i = 0; i < n; i++)
+                if (color.get(remaining[i]) == remaining[i]) roots[r++] = remaining[i];
+            pool.invoke(new Collect(0, r));
+            n = compact(n);
+        }
+        remaining = roots = null;
+
+        // number the components in order of their smallest vertex
+        id = new int[V];
+        int[] idOf = new int[V];
+        Arrays.fill(idOf, -1);
+        for (int v = 0; v < V; v++) {
+            if (idOf[comp[v]] == -1) idOf[comp[v]] = count++;
+            id[v] = idOf[comp[v]];
+        }
+    }
+
+    // Compute the strong components of the digraph, after converting it to CSR form
+    public ParallelSCC(Digraph G) {
+        this(new CSRDigraph(G));
+    }
+
+    // move the vertices still unassigned to the front of the first n of remaining, and return how many there are
+    private int compact(int n) {
+        int m = 0;
+        for (int i = 0; i < n; i++)
+            if (comp[remaining[i]] == -1) remaining[m++] = remaining[i];
+        return m;
+    }
+
+    // does v have an edge in H to another unassigned vertex? A stale read only makes it seem so
+    private boolean hasUnassigned(CSRDigraph H, int v) {
+        for (int e = H.begin(v); e < H.end(v); e++) {
+            int w = H.to(e);
+            if (w != v && comp[w] == -1) return true;
+        }
+        return false;
+    }
+
+    // make each of remaining[lo..hi-1] with no edge out or no edge in to an unassigned vertex a component
+    @SuppressWarnings("serial")
+    private class Trim extends RecursiveAction {
+        private final int lo, hi;
+
+        Trim(int lo, int hi) {
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo > GRAIN) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new Trim(lo, mid), new Trim(mid, hi));
+                return;
+            }
+            for (int i = lo; i < hi; i++) {
+                int v = remaining[i];
+                if (!hasUnassigned(G, v) || !hasUnassigned(R, v)) comp[v] = v;
+            }
+        }
+    }
+
+    // push the colors of remaining[lo..hi-1] to their unassigned successors with a smaller color
+    @SuppressWarnings("serial")
+    private class Propagate extends RecursiveAction {
+        private final int lo, hi;
+
+        Propagate(int lo, int hi) {
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo > GRAIN) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new Propagate(lo, mid), new Propagate(mid, hi));
+                return;
+            }
+            for (int i = lo; i < hi; i++) {
+                int v = remaining[i];
+                int c = color.get(v);
+                for (int e = G.begin(v); e < G.end(v); e++) {
+                    int w = G.to(e);
+                    if (comp[w] != -1) continue;
+                    int cw = color.get(w);
+                    while (cw < c) {
+                        if (color.compareAndSet(w, cw, c)) {
+                            if (!changed) changed = true;
+                            break;
+                        }
+                        cw = color.get(w);
+                    }
+                }
+            }
+        }
+    }
+
+    // assign the component of each of roots[lo..hi-1]: the vertices of its color that reach it
+    @SuppressWarnings("serial")
+    private class Collect extends RecursiveAction {
+        private final int lo, hi;
+
+        Collect(int lo, int hi) {
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo > GRAIN) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new Collect(lo, mid), new Collect(mid, hi));
+                return;
+            }
+            IntStack stack = new IntStack();
+            for (int i = lo; i < hi; i++) {
+                int root = roots[i];
+                comp[root] = root;
+                stack.push(root);
+                while (!stack.isEmpty()) {
+                    int v = stack.pop();
+                    for (int e = R.begin(v); e < R.end(v); e++) {
+                        int w = R.to(e);
+                        // only this task writes comp[] for vertices of this color
+                        if (color.get(w) == root && comp[w] == -1) {
+                            comp[w] = root;
+                            stack.push(w);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    // returns the number of strongly connected components
+    public int count() {
+        return count;
+    }
+
+    // Are vertices v, w strongly connected?
+    public boolean stronglyConnected(int v, int w) {
+        return id[v] == id[w];
+    }
+
+    // returns the component id of the strong component containing vertex v
+    public int id(int v) {
+        return id[v];
+    }
+
+    /**
+     * Prints the components of tinyDG, checks the four implementations on a cycle
+     * through a million vertices, which a recursive search could not follow, then
+     * compares their running times on an RMAT digraph and checks that they find the
+     * same components.
+     * Arguments: scale (default 18), edges per vertex (default 8), pool size.
+     */
+    public static void main(String[] args) throws FileNotFoundException {
+        In in = new In(new Scanner(new File("src/graph/tinyDG.txt")));
+        Digraph tiny = new Digraph(in);
+        ParallelSCC scc = new ParallelSCC(tiny);
+        int M = scc.count();
+        System.out.println(M + " components");
+        @SuppressWarnings("unchecked")
+        LinkedQueue<Integer>[] components = (LinkedQueue<Integer>[]) new LinkedQueue<?>[M];
+        for (int i = 0; i < M; i++) components[i] = new LinkedQueue<>();
+        for (int v = 0; v < tiny.V(); v++) components[scc.id(v)].enqueue(v);
+        for (int i = 0; i < M; i++) {
+            for (int v : components[i]) System.out.print(v + " ");
+            System.out.println();
+        }
+
+        int cycle = 1000000;
+        Digraph ring = new Digraph(cycle);
+        for (int v = 0; v < cycle; v++) ring.addEdge(v, (v + 1) % cycle);
+        if (new TarjanSCC(ring).count() != 1 || new GabowSCC(ring).count() != 1
+                || new KosarajuSharirSCC(ring).count() != 1 || new ParallelSCC(ring).count() != 1)
+            throw new AssertionError("a cycle is one component");
+        System.out.println("cycle of " + cycle + " vertices: 1 component");
+
+        int scale = args.length > 0 ? Integer.parseInt(args[0]) : 18;
+        int edgeFactor = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        ForkJoinPool pool = args.length > 2 ? new ForkJoinPool(Integer.parseInt(args[2])) : ForkJoinPool.commonPool();
+        int V = 1 << scale;
+        int[][] edges = ParallelBreadthFirstDirectedPaths.rmat(scale, edgeFactor, 42);
+        Digraph lists = new Digraph(V);
+        for (int i = 0; i < edges[0].length; i++) lists.addEdge(edges[0][i], edges[1][i]);
+        CSRDigraph G = new CSRDigraph(V, edges[0], edges[1]);
+        CSRDigraph R = G.reverse();
+        edges = null;
+        System.out.printf("RMAT scale %d: %d vertices, %d edges, %d threads%n", scale, V, G.E(), pool.getParallelism());
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            KosarajuSharirSCC scc1 = new KosarajuSharirSCC(lists);
+            long t1 = System.nanoTime() - start;
+            start = System.nanoTime();
+            TarjanSCC scc2 = new TarjanSCC(lists);
+            long t2 = System.nanoTime() - start;
+            start = System.nanoTime();
+            GabowSCC scc3 = new GabowSCC(lists);
+            long t3 = System.nanoTime() - start;
+            start = System.nanoTime();
+            ParallelSCC scc4 = new ParallelSCC(G, R, pool);
+            long t4 = System.nanoTime() - start;
+
+            // the same partition: ids map one-to-one onto each other
+            if (scc1.count() != scc4.count() || scc2.count() != scc4.count() || scc3.count() != scc4.count())
+                throw new AssertionError("counts differ");
+            int[] map1 = new int[scc4.count()], map2 = new int[scc4.count()], map3 = new int[scc4.count()];
+            Arrays.fill(map1, -1);
+            Arrays.fill(map2, -1);
+            Arrays.fill(map3, -1);
+            int largest = 0;
+            int[] size = new int[scc4.count()];
+            for (int v = 0; v < V; v++) {
+                int c = scc4.id(v);
+                if (map1[c] == -1) map1[c] = scc1.id(v);
+                if (map2[c] == -1) map2[c] = scc2.id(v);
+                if (map3[c] == -1) map3[c] = scc3.id(v);
+                if (map1[c] != scc1.id(v) || map2[c] != scc2.id(v) || map3[c] != scc3.id(v))
+                    throw new AssertionError("components differ at " + v);
+                largest = Math.max(largest, ++size[c]);
+            }
+            System.out.printf("%d components, largest %d: Kosaraju %6.1f ms, Tarjan %6.1f ms, Gabow %6.1f ms, parallel %6.1f ms%n",
+                    scc4.count(), largest, t1 / 1e6, t2 / 1e6, t3 / 1e6, t4 / 1e6);
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package graph.directed_graph;
+
+import helper.In;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Scanner;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * The <tt>ParallelTopological</tt> class represents a data type for determining a
+ * topological order of a {@link CSRDigraph}, using all the threads of a fork-join pool.
+ * It has the <tt>hasOrder()</tt> and <tt>order()</tt> API of {@link Topological}, and
+ * besides splits the order into <em>levels</em>, or wavefronts: level 0 holds the
+ * vertices without edges entering them, and level <em>k</em> the vertices whose longest
+ * path from one of those has <em>k</em> edges. The vertices of a level have no edges
+ * between them, so a level of jobs can run at once once the levels before it are done.
+ * <p/>
+ * This implementation uses Kahn's algorithm one level at a time. The indegrees are
+ * counted in an array of atomic counters, the vertices split among tasks. Then the
+ * edges leaving each level are split among tasks by tail, and each task decrements the
+ * counter of the head; the task that takes it to 0 appends the head to the next level,
+ * which is written in the order array right after the current one, so the levels
+ * make up a topological order. If some vertices are never reached, they are on or
+ * after a cycle and there is no order.
+ * The constructor takes time proportional to <em>V</em> + <em>E</em>, divided among
+ * the threads, plus the number of levels, and extra space proportional to <em>V</em>.
+ * <p/>
+ */
+public class ParallelTopological {
+    private static final int GRAIN = 1024;   // vertices per task
+
+    private final CSRDigraph G;
+    private final AtomicIntegerArray indegree;  // edges entering v from vertices not yet ordered
+    private final int[] order;               // the vertices, level by level
+    private final int[] level;               // level[v] = level of v
+    private final int[] levelStart;          // vertices of level k are order[levelStart[k]..levelStart[k+1]-1]
+    private final int levels;
+    private final int ordered;               // number of vertices in the order
+    private final AtomicInteger end = new AtomicInteger();  // where the next level is written
+
+    // Determines whether the digraph has a topological order, in the common fork-join pool
+    public ParallelTopological(CSRDigraph G) {
+        this(G, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Determines whether the digraph <tt>G</tt> has a topological order and if so,
+     * finds one and its levels, running the tasks in <tt>pool</tt>.
+     *
+     * @param G    the digraph
+     * @param pool the fork-join pool
+     */
+    public ParallelTopological(CSRDigraph G, ForkJoinPool pool) {
+        this.G = G;
+        int V = G.V();
+        indegree = new AtomicIntegerArray(V);
+        order = new int[V];
+        level = new int[V];
+        pool.invoke(new Step(0, V, Step.COUNT, 0));
+        pool.invoke(new Step(0, V, Step.SOURCES, 0));
+
+        int[] starts = new int[16];
+        int k = 0, lo = 0;
+        while (lo < end.get()) {
+            int hi = end.get();
+            if (k + 2 > starts.length) starts = Arrays.copyOf(starts, 2 * starts.length);
+            starts[k] = lo;
+            pool.invoke(new Step(lo, hi, Step.RELEASE, k + 1));
+            lo = hi;
+            k++;
+        }
+        starts[k] = lo;
+        levels = k;
+        levelStart = Arrays.copyOf(starts, k + 1);
+        ordered = lo;
+    }
+
+    // one pass over the vertices lo..hi-1, or over order[lo..hi-1] to release the next level
+    @SuppressWarnings("serial")
+    private class Step extends RecursiveAction {
+        static final int COUNT = 0, SOURCES = 1, RELEASE = 2;
+        private final int lo, hi, kind, next;
+
+        Step(int lo, int hi, int kind, int next) {
+            this.lo = lo;
+            this.hi = hi;
+            this.kind = kind;
+            this.next = next;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo > GRAIN) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new Step(lo, mid, kind, next), new Step(mid, hi, kind, next));
+                return;
+            }
+            for (int i = lo; i < hi; i++) {
+                if (kind == COUNT) {
+                    for (int e = G.begin(i); e < G.end(i); e++) indegree.incrementAndGet(G.to(e));
+                } else if (kind == SOURCES) {
+                    if (indegree.get(i) == 0) order[end.getAndIncrement()] = i;
+                } else {
+                    int v = order[i];
+                    for (int e = G.begin(v); e < G.end(v); e++) {
+                        int w = G.to(e);
+                        if (indegree.decrementAndGet(w) == 0) {
+                            level[w] = next;
+                            order[end.getAndIncrement()] = w;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private void validateVertex(int v) {
+        if (v < 0 || v >= G.V()) throw new IndexOutOfBoundsException("vertex " + v + " is not between 0 and " + (G.V() - 1));
+    }
+
+    // Does the digraph have a topological order ?
+    public boolean hasOrder() {
+        return ordered == G.V();
+    }
+
+    // Returns a topological order if the digraph has one, and null otherwise
+    public Iterable<Integer> order() {
+        if (!hasOrder()) return null;
+        return range(0, ordered);
+    }
+
+    // Returns the number of levels, or 0 if the digraph has no topological order
+    public int levels() {
+        return hasOrder() ? levels : 0;
+    }
+
+    /**
+     * Returns the vertices of level <tt>k</tt>.
+     *
+     * @throws UnsupportedOperationException if the digraph has no topological order
+     * @throws IndexOutOfBoundsException     unless 0 &le; <tt>k</tt> &lt; <tt>levels()</tt>
+     */
+    public Iterable<Integer> level(int k) {
+        if (!hasOrder()) throw new UnsupportedOperationException("The digraph has a cycle");
+        if (k < 0 || k >= levels) throw new IndexOutOfBoundsException("level " + k + " is not between 0 and " + (levels - 1));
+        return range(levelStart[k], levelStart[k + 1]);
+    }
+
+    /**
+     * Returns the level of vertex <tt>v</tt>: the number of edges of a longest path to it.
+     *
+     * @throws UnsupportedOperationException if the digraph has no topological order
+     * @throws IndexOutOfBoundsException     unless 0 &le; <tt>v</tt> &lt; <tt>V</tt>
+     */
+    public int levelOf(int v) {
+        if (!hasOrder()) throw new UnsupportedOperationException("The digraph has a cycle");
+        validateVertex(v);
+        return level[v];
+    }
+
+    // Returns the number of vertices of level k
+    public int levelSize(int k) {
+        if (!hasOrder()) throw new UnsupportedOperationException("The digraph has a cycle");
+        if (k < 0 || k >= levels) throw new IndexOutOfBoundsException("level " + k + " is not between 0 and " + (levels - 1));
+        return levelStart[k + 1] - levelStart[k];
+    }
+
+    // the vertices order[lo..hi-1]
+    private Iterable<Integer> range(final int lo, final int hi) {
+        return new Iterable<Integer>() {
+            @Override
+            public Iterator<Integer> iterator() {
+                return new Iterator<Integer>() {
+                    private int i = lo;
+
+                    @Override
+                    public boolean hasNext() {
+                        return i < hi;
+                    }
+
+                    @Override
+                    public Integer next() {
+                        if (!hasNext()) throw new NoSuchElementException();
+                        return order[i++];
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * Prints the levels of tinyDAG.txt, then times this class against {@link Topological}
+     * on a random DAG, checking that every edge goes forward in the order and one
+     * level up at least.
+     * Arguments: V (default 1000000), edges per vertex (default 8), threads (default: the common pool).
+     */
+    public static void main(String[] args) throws FileNotFoundException {
+        CSRDigraph tiny = new CSRDigraph(new In(new Scanner(new File("src/graph/tinyDAG.txt"))));
+        ParallelTopological tinyTop = new ParallelTopological(tiny);
+        for (int k = 0; k < tinyTop.levels(); k++) {
+            System.out.print("level " + k + ":");
+            for (int v : tinyTop.level(k)) System.out.print(" " + v);
+            System.out.println();
+        }
+
+        int V = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        int degree = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        ForkJoinPool pool = args.length > 2 ? new ForkJoinPool(Integer.parseInt(args[2])) : ForkJoinPool.commonPool();
+        // edges from lower to higher ranks of a random permutation, mostly to nearby ranks
+        Random random = new Random(42);
+        int[] vertex = new int[V];
+        for (int i = 0; i < V; i++) {
+            int j = random.nextInt(i + 1);
+            vertex[i] = vertex[j];
+            vertex[j] = i;
+        }
+        int E = V * degree;
+        int[] from = new int[E], to = new int[E];
+        Digraph lists = new Digraph(V);
+        for (int e = 0; e < E; e++) {
+            int i = random.nextInt(V - 1);
+            int j = i + 1 + (random.nextInt(4) == 0 ? random.nextInt(V - 1 - i) : random.nextInt(Math.min(1000, V - 1 - i)));
+            from[e] = vertex[i];
+            to[e] = vertex[j];
+            lists.addEdge(from[e], to[e]);
+        }
+        CSRDigraph G = new CSRDigraph(V, from, to);
+        System.out.printf("random DAG: %d vertices, %d edges, %d threads%n", V, G.E(), pool.getParallelism());
+
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            Topological dfs = new Topological(lists);
+            long t1 = System.nanoTime() - start;
+            start = System.nanoTime();
+            ParallelTopological kahn = new ParallelTopological(G, pool);
+            long t2 = System.nanoTime() - start;
+            if (!dfs.hasOrder() || !kahn.hasOrder()) throw new AssertionError("no order");
+            int[] rank = new int[V];
+            int r = 0;
+            for (int v : kahn.order()) rank[v] = r++;
+            if (r != V) throw new AssertionError("order of " + r + " vertices");
+            for (int v = 0; v < V; v++)
+                for (int e = G.begin(v); e < G.end(v); e++)
+                    if (rank[G.to(e)] <= rank[v] || kahn.levelOf(G.to(e)) <= kahn.levelOf(v))
+                        throw new AssertionError(v + "->" + G.to(e));
+            int widest = 0;
+            for (int k = 0; k < kahn.levels(); k++) widest = Math.max(widest, kahn.levelSize(k));
+            System.out.printf("Topological %6.1f ms, parallel Kahn %6.1f ms: %d levels, widest %d vertices%n",
+                    t1 / 1e6, t2 / 1e6, kahn.levels(), widest);
+        }
+
+        // one edge back makes a cycle
+        from = Arrays.copyOf(from, E + 1);
+        to = Arrays.copyOf(to, E + 1);
+        from[E] = to[0];
+        to[E] = from[0];
+        System.out.printf("with the edge %d->%d added: has order %b%n", from[E], to[E],
+                new ParallelTopological(new CSRDigraph(V, from, to), pool).hasOrder());
+    }
+}
@@ -0,0 +1,137 @@
+package graph.directed_graph;
+
+import data_structure.IntBag;
+import data_structure.LinkedQueue;
+import helper.In;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.Scanner;
+
+/**
+ * The <tt>TarjanSCC</tt> class represents a data type for
+ * determining the strong components in a digraph.
+ * The <em>id</em> operation determines in which strong component
+ * a given vertex lies; the <em>stronglyConnected</em> operation
+ * determines whether two vertices are in the same strong component;
+ * and the <em>count</em> operation determines the number of strong
+ * components.
+ * <p/>
+ * The <em>component identifier</em> of a component is one of the
+ * integers 0 through <em>count</em> - 1: two vertices have the same component
+ * identifier if and only if they are in the same strong component.
+ * Components are numbered in the order they are completed, which is a
+ * reverse topological order of the kernel DAG.
+ * <p/>
+ * This implementation uses Tarjan's algorithm: a single depth-first search
+ * that keeps the vertices of unfinished components on a stack and tracks,
+ * for each vertex, the lowest preorder number it can reach. Unlike
+ * {@link KosarajuSharirSCC}, it does not build the reverse digraph.
+ * The search uses an explicit stack, so deep digraphs do not overflow the call stack.
+ * The constructor takes time proportional to <em>V</em> + <em>E</em>
+ * (in the worst case),
+ * where <em>V</em> is the number of vertices and <em>E</em> is the number of edges.
+ * Afterwards, the <em>id</em>, <em>count</em>, and <em>stronglyConnected</em>
+ * operations take constant time.
+ * For alternate implementations of the same API, see
+ * {@link KosarajuSharirSCC} and {@link GabowSCC}.
+ * <p/>
+ */
+public class TarjanSCC {
+    private boolean[] marked;  // marked[v] = has v been visited?
+    private int[] id;          // id[v] = id of strong component containing v
+    private int[] low;         // low[v] = low number of v
+    private int[] min;         // min[v] = smallest low number seen so far from v, while v is on the call stack
+    private int pre;           // preorder number counter
+    private int count;         // number of strongly-connected components
+    private int[] stack;       // vertices of the components not yet completed
+    private int top;           // number of vertices on stack
+
+    // Compute the strong components of the digraph
+    public TarjanSCC(Digraph G) {
+        marked = new boolean[G.V()];
+        id = new int[G.V()];
+        low = new int[G.V()];
+        min = new int[G.V()];
+        stack = new int[G.V()];
+        int[] call = new int[G.V()];
+        int[] next = new int[G.V()];
+        for (int v = 0; v < G.V(); v++) {
+            if (!marked[v]) dfs(G, v, call, next);
+        }
+    }
+
+    // run DFS on graph G from s, with an explicit call stack in place of recursion;
+    // next[v] is the position in adj(v) of the next vertex to check
+    private void dfs(Digraph G, int s, int[] call, int[] next) {
+        int depth = 0;
+        call[depth++] = visit(s);
+        while (depth > 0) {
+            int v = call[depth - 1];
+            IntBag adj = G.adj(v);
+            if (next[v] < adj.size()) {
+                int w = adj.get(next[v]++);
+                if (!marked[w]) call[depth++] = visit(w);
+                else if (low[w] < min[v]) min[v] = low[w];
+                continue;
+            }
+
+            // v is finished: either it hands its low number to its caller, or it closes a component
+            depth--;
+            if (min[v] < low[v]) low[v] = min[v];
+            else {
+                int w;
+                do {
+                    w = stack[--top];
+                    id[w] = count;
+                    low[w] = G.V();
+                } while (w != v);
+                count++;
+            }
+            if (depth > 0 && low[v] < min[call[depth - 1]]) min[call[depth - 1]] = low[v];
+        }
+    }
+
+    private int visit(int v) {
+        marked[v] = true;
+        low[v] = pre++;
+        min[v] = low[v];
+        stack[top++] = v;
+        return v;
+    }
+
+    // returns the number of strongly connected components
+    public int count() {
+        return count;
+    }
+
+    // Are vertices v, w strongly connected?
+    public boolean stronglyConnected(int v, int w) {
+        return id[v] == id[w];
+    }
+
+    // returns the component id of the strong component containing vertex v
+    public int id(int v) {
+        return id[v];
+    }
+
+    public static void main(String[] args) throws FileNotFoundException {
+        In in = new In(new Scanner(new File("src/graph/tinyDG.txt")));
+        Digraph G = new Digraph(in);
+        TarjanSCC scc = new TarjanSCC(G);
+        int M = scc.count();
+        System.out.println(M + " components");
+
+        // compute list of vertices in each strong component
+        @SuppressWarnings("unchecked")
+        LinkedQueue<Integer>[] components = (LinkedQueue<Integer>[]) new LinkedQueue<?>[M];
+        for (int i = 0; i < M; i++) components[i] = new LinkedQueue<>();
+        for (int v = 0; v < G.V(); v++) components[scc.id(v)].enqueue(v);
+
+        // print results
+        for (int i = 0; i < M; i++) {
+            for (int v : components[i]) System.out.print(v + " ");
+            System.out.println();
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package graph.minimun_spanning_tree;
+
+import data_structure.LinkedQueue;
+import graph.UF;
+import helper.In;
+import strings.LSD;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.Random;
+import java.util.Scanner;
+
+/**
+ * The <tt>FilterKruskalMST</tt> class represents a data type for computing a
+ * <em>minimum spanning tree</em> (or forest) in an edge-weighted graph, with the
+ * same <tt>edges()</tt> and <tt>weight()</tt> API as {@link KruskalMST}.
+ * The graph is an {@link EdgeWeightedGraph}, or three parallel arrays of endpoints
+ * and weights, which take 16 bytes per edge instead of an {@link Edge} object.
+ * <p/>
+ * This implementation uses the Filter-Kruskal algorithm of Osipov, Sanders and Singler.
+ * Kruskal's algorithm only needs the edges in order up to the last one of the tree,
+ * and in a dense graph that is a small fraction of them. So the edges are partitioned
+ * around a random pivot weight, like quicksort; the lighter part is processed first,
+ * then the edges of the heavier part whose endpoints are already connected are
+ * filtered out before it is partitioned in turn, and most heavy edges are dropped
+ * without ever being sorted. Small parts are sorted with an LSD radix sort on the
+ * bits of the weights ({@link LSD}) and scanned in order as in Kruskal's algorithm.
+ * The constructor takes expected time proportional to <em>E</em> + <em>V</em> log <em>V</em>
+ * log(<em>E</em> / <em>V</em>) on random graphs, and <em>E</em> log <em>E</em> in the worst
+ * case, and extra space proportional to <em>E</em>.
+ * Afterwards, the <tt>weight()</tt> method takes constant time and the
+ * <tt>edges()</tt> method takes time proportional to <em>V</em>.
+ * <p/>
+ */
+public class FilterKruskalMST {
+    private static final int CUTOFF = 4096;  // parts at most this size are sorted
+
+    private final int V;
+    private final int[] from, to;     // edge i joins from[i] and to[i]
+    private final double[] weights;   // and has weight weights[i]
+    private final Edge[] source;      // the edges of the graph, or null if given as arrays
+    private final int[] edges;        // permutation of the edges, partitioned as the algorithm goes
+    private final UF uf;
+    private final Random random = new Random(0);
+    private int[] mst;                // the edges of the tree
+    private int size;                 // number of edges in mst
+    private double weight;            // weight of MST
+
+    // Compute a MST (or forest) of an edge-weighted graph.
+    public FilterKruskalMST(EdgeWeightedGraph G) {
+        V = G.V();
+        source = new Edge[G.E()];
+        int E = 0;
+        for (Edge e : G.edges()) source[E++] = e;
+        from = new int[E];
+        to = new int[E];
+        weights = new double[E];
+        for (int i = 0; i < E; i++) {
+            from[i] = source[i].either();
+            to[i] = source[i].other(from[i]);
+            weights[i] = source[i].weight();
+        }
+        edges = new int[E];
+        uf = new UF(V);
+        kruskal();
+    }
+
+    /**
+     * Computes a MST (or forest) of the graph of <tt>V</tt> vertices whose edge
+     * <em>i</em> joins <tt>from[i]</tt> and <tt>to[i]</tt> and has weight <tt>weight[i]</tt>.
+     * The arrays are not copied, and must not be changed while this object is in use.
+     *
+     * @throws IllegalArgumentException  if the arrays have different lengths
+     * @throws IndexOutOfBoundsException if an endpoint is not between 0 and <tt>V</tt> - 1
+     */
+    public FilterKruskalMST(int V, int[] from, int[] to, double[] weight) {
+        if (to.length != from.length || weight.length != from.length)
+            throw new IllegalArgumentException("from, to and weight must have the same length");
+        for (int i = 0; i < from.length; i++)
+            if (from[i] < 0 || from[i] >= V || to[i] < 0 || to[i] >= V)
+                throw new IndexOutOfBoundsException("edge " + i + " has an endpoint not between 0 and " + (V - 1));
+        this.V = V;
+        this.from = from;
+        this.to = to;
+        this.weights = weight;
+        source = null;
+        edges = new int[from.length];
+        uf = new UF(V);
+        kruskal();
+    }
+
+    private void kruskal() {
+        for (int i = 0; i < edges.length; i++) edges[i] = i;
+        mst = new int[Math.max(V - 1, 0)];
+        filterKruskal(0, edges.length);
+        for (int k = 0; k < size; k++) weight += weights[mst[k]];
+    }
+
+    // run the algorithm on edges[lo..hi-1], all heavier than the edges already processed
+    private void filterKruskal(int lo, int hi) {
+        if (size == V - 1) return;  // the tree is complete
+        if (hi - lo <= CUTOFF) {
+            scan(lo, hi);
+            return;
+        }
+        double pivot = weights[edges[lo + random.nextInt(hi - lo)]];
+        int mid = partition(lo, hi, pivot);
+        if (mid == hi) {
+            // nothing heavier than the pivot: no progress, so sort it all
+            scan(lo, hi);
+            return;
+        }
+        filterKruskal(lo, mid);
+        filterKruskal(mid, filter(mid, hi));
+    }
+
+    // move the edges of edges[lo..hi-1] no heavier than pivot to the front, and return where the others start
+    private int partition(int lo, int hi, double pivot) {
+        int i = lo, j = hi - 1;
+        while (true) {
+            while (i <= j && weights[edges[i]] <= pivot) i++;
+            while (i <= j && weights[edges[j]] > pivot) j--;
+            if (i > j) return i;
+            int swap = edges[i];
+            edges[i] = edges[j];
+            edges[j] = swap;
+        }
+    }
+
+    // drop the edges of edges[lo..hi-1] within a component, and return the end of those left
+    private int filter(int lo, int hi) {
+        int k = lo;
+        for (int i = lo; i < hi; i++)
+            if (!uf.connected(from[edges[i]], to[edges[i]])) edges[k++] = edges[i];
+        return k;
+    }
+
+    // sort edges[lo..hi-1] by weight and add them to the tree in order, as Kruskal's algorithm does
+    private void scan(int lo, int hi) {
+        LSD.sort(edges, lo, hi, weights);
+        for (int i = lo; i < hi && size < V - 1; i++) {
+            int e = edges[i];
+            if (!uf.connected(from[e], to[e])) {
+                uf.union(from[e], to[e]);
+                mst[size++] = e;
+            }
+        }
+    }
+
+    // Returns the edges in a minimum spanning tree (or forest).
+    public Iterable<Edge> edges() {
+        LinkedQueue<Edge> queue = new LinkedQueue<>();
+        for (int k = 0; k < size; k++) {
+            int e = mst[k];
+            queue.enqueue(source != null ? source[e] : new Edge(from[e], to[e], weights[e]));
+        }
+        return queue;
+    }
+
+    // Returns the sum of the edge weights in a minimum spanning tree (or forest).
+    public double weight() {
+        return weight;
+    }
+
+    /**
+     * Prints the MST of tinyEWG, then compares the running time with {@link KruskalMST}
+     * on a complete graph with random weights, and on a sparse random graph, checking
+     * that the weights agree.
+     * Arguments: V of the complete graph (default 2000).
+     */
+    public static void main(String[] args) throws FileNotFoundException {
+        In in = new In(new Scanner(new File("src/graph/tinyEWG.txt")));
+        EdgeWeightedGraph tiny = new EdgeWeightedGraph(in);
+        FilterKruskalMST mst = new FilterKruskalMST(tiny);
+        for (Edge e : mst.edges()) System.out.println(e);
+        System.out.printf("%.5f\n", mst.weight());
+
+        int dense = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        benchmark("complete", dense, dense * (dense - 1) / 2, true);
+        benchmark("sparse", 1 << 18, 8 << 18, false);
+    }
+
+    private static void benchmark(String name, int V, int E, boolean complete) {
+        Random random = new Random(42);
+        int[] from = new int[E], to = new int[E];
+        double[] weight = new double[E];
+        EdgeWeightedGraph G = new EdgeWeightedGraph(V);
+        if (complete) {
+            int i = 0;
+            for (int v = 0; v < V; v++)
+                for (int w = v + 1; w < V; w++, i++) {
+                    from[i] = v;
+                    to[i] = w;
+                }
+        } else {
+            for (int i = 0; i < E; i++) {
+                from[i] = random.nextInt(V);
+                to[i] = random.nextInt(V);
+            }
+        }
+        for (int i = 0; i < E; i++) {
+            weight[i] = random.nextDouble();
+            G.addEdge(new Edge(from[i], to[i], weight[i]));
+        }
+        System.out.printf("%s graph: %d vertices, %d edges%n", name, V, E);
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            KruskalMST mst1 = new KruskalMST(G);
+            long t1 = System.nanoTime() - start;
+            start = System.nanoTime();
+            FilterKruskalMST mst2 = new FilterKruskalMST(G);
+            long t2 = System.nanoTime() - start;
+            start = System.nanoTime();
+            FilterKruskalMST mst3 = new FilterKruskalMST(V, from, to, weight);
+            long t3 = System.nanoTime() - start;
+            if (Math.abs(mst1.weight() - mst2.weight()) > 1e-6 || Math.abs(mst1.weight() - mst3.weight()) > 1e-6)
+                throw new AssertionError("weights differ");
+            System.out.printf("weight %.6f: Kruskal %7.1f ms, Filter-Kruskal %7.1f ms (%.1fx), on arrays %7.1f ms (%.1fx)%n",
+                    mst1.weight(), t1 / 1e6, t2 / 1e6, (double) t1 / t2, t3 / 1e6, (double) t1 / t3);
+        }
+    }
+}
@@ -33,9 +33,11 @@ public class KruskalMST {
 
     // Compute a MST (or forest) of an edge-weighted graph.
     public KruskalMST(EdgeWeightedGraph G) {
-        // more efficient to build heap by passing array of edges
-        MinPQ<Edge> pq = new MinPQ<>();
-        for (Edge e : G.edges()) pq.insert(e);
+        // build the heap bottom-up from an array of the edges, in linear time
+        Edge[] edges = new Edge[G.E()];
+        int E = 0;
+        for (Edge e : G.edges()) edges[E++] = e;
+        MinPQ<Edge> pq = new MinPQ<>(edges);
 
         // run greedy algorithm, use union found to detect cycles.
         UF uf = new UF(G.V());
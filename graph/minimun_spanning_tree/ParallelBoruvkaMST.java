@@ -0,0 +1,307 @@
+package graph.minimun_spanning_tree;
+
+import data_structure.LinkedQueue;
+import graph.ConcurrentUF;
+import helper.In;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.Random;
+import java.util.Scanner;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * The <tt>ParallelBoruvkaMST</tt> class represents a data type for computing a
+ * <em>minimum spanning tree</em> (or forest) in an edge-weighted graph, using all
+ * the threads of a fork-join pool. It has the same <tt>edges()</tt> and
+ * <tt>weight()</tt> API as {@link KruskalMST} and {@link PrimMST}.
+ * The graph is an {@link EdgeWeightedGraph}, or for very large graphs three
+ * parallel arrays of endpoints and weights, which take 16 bytes per edge instead
+ * of an {@link Edge} object and two list nodes.
+ * <p/>
+ * This implementation uses Boruvka's algorithm. Each round finds the lightest edge
+ * leaving every component and adds all of them to the tree at once, which at least
+ * halves the number of components, so there are at most lg <em>V</em> rounds:
+ * <ul>
+ * <li>The edges still joining two components are split among tasks. Each finds the
+ * roots of the endpoints in a {@link ConcurrentUF} and offers the edge to both roots,
+ * keeping the lighter one with a compare-and-set; the edges inside a component are
+ * dropped for good.</li>
+ * <li>The lightest edge of every root is added, once if both of its roots chose it,
+ * and the components are merged with concurrent unions.</li>
+ * </ul>
+ * Ties between equal weights are broken by edge index, so the chosen edges never form a cycle.
+ * The constructor takes time proportional to <em>E</em> log <em>V</em> in the worst
+ * case, usually much less since most edges are dropped in the first rounds, divided
+ * among the threads of the pool, and extra space proportional to <em>V</em> + <em>E</em>.
+ * Afterwards, the <tt>weight()</tt> method takes constant time and the
+ * <tt>edges()</tt> method takes time proportional to <em>V</em>.
+ * <p/>
+ */
+public class ParallelBoruvkaMST {
+    private static final int GRAIN = 4096;  // edges or vertices per task
+
+    private final int V;
+    private final int[] from, to;         // edge i joins from[i] and to[i]
+    private final double[] weights;       // and has weight weights[i]
+    private final Edge[] source;          // the edges of the graph, or null if given as arrays
+    private final ConcurrentUF uf;
+    private final AtomicIntegerArray cheapest;  // cheapest[r] = lightest edge leaving root r this round, or -1
+    private int[] live;                   // the first n entries are the edges that may still join two components
+    private int[] kept;                   // kept[c] = entries of chunk c of live still live after this round
+    private int[] chosen;                 // the edges of the tree
+    private final AtomicInteger size = new AtomicInteger();  // number of edges in chosen
+    private double weight;                // weight of MST
+    private int rounds;                   // number of Boruvka rounds
+
+    // Compute a MST (or forest) of an edge-weighted graph, in the common fork-join pool
+    public ParallelBoruvkaMST(EdgeWeightedGraph G) {
+        this(G, ForkJoinPool.commonPool());
+    }
+
+    // Compute a MST (or forest) of an edge-weighted graph, running the tasks in pool
+    public ParallelBoruvkaMST(EdgeWeightedGraph G, ForkJoinPool pool) {
+        V = G.V();
+        source = new Edge[G.E()];
+        int E = 0;
+        for (Edge e : G.edges()) source[E++] = e;
+        from = new int[E];
+        to = new int[E];
+        weights = new double[E];
+        for (int i = 0; i < E; i++) {
+            from[i] = source[i].either();
+            to[i] = source[i].other(from[i]);
+            weights[i] = source[i].weight();
+        }
+        uf = new ConcurrentUF(V);
+        cheapest = new AtomicIntegerArray(V);
+        boruvka(pool);
+    }
+
+    /**
+     * Computes a MST (or forest) of the graph of <tt>V</tt> vertices whose edge
+     * <em>i</em> joins <tt>from[i]</tt> and <tt>to[i]</tt> and has weight <tt>weight[i]</tt>.
+     * The arrays are not copied, and must not be changed while this object is in use.
+     *
+     * @throws IllegalArgumentException  if the arrays have different lengths
+     * @throws IndexOutOfBoundsException if an endpoint is not between 0 and <tt>V</tt> - 1
+     */
+    public ParallelBoruvkaMST(int V, int[] from, int[] to, double[] weight, ForkJoinPool pool) {
+        if (to.length != from.length || weight.length != from.length)
+            throw new IllegalArgumentException("from, to and weight must have the same length");
+        for (int i = 0; i < from.length; i++)
+            if (from[i] < 0 || from[i] >= V || to[i] < 0 || to[i] >= V)
+                throw new IndexOutOfBoundsException("edge " + i + " has an endpoint not between 0 and " + (V - 1));
+        this.V = V;
+        this.from = from;
+        this.to = to;
+        this.weights = weight;
+        source = null;
+        uf = new ConcurrentUF(V);
+        cheapest = new AtomicIntegerArray(V);
+        boruvka(pool);
+    }
+
+    private void boruvka(ForkJoinPool pool) {
+        for (int r = 0; r < V; r++) cheapest.set(r, -1);
+        chosen = new int[Math.max(V - 1, 0)];
+        int n = from.length;
+        live = new int[n];
+        for (int i = 0; i < n; i++) live[i] = i;
+        kept = new int[(n + GRAIN - 1) / GRAIN];
+        while (n > 0 && uf.count() > 1) {
+            rounds++;
+            int chunks = (n + GRAIN - 1) / GRAIN;
+            pool.invoke(new Offer(0, chunks, n));
+            int before = size.get();
+            pool.invoke(new Choose(0, V));
+            if (size.get() == before) break;  // no edge joins two components any more
+            // clear the roots before any union changes them
+            pool.invoke(new Merge(before, size.get(), false));
+            pool.invoke(new Merge(before, size.get(), true));
+
+            // pack the live entries of each chunk together
+            int m = 0;
+            for (int c = 0; c < chunks; c++) {
+                System.arraycopy(live, c * GRAIN, live, m, kept[c]);
+                m += kept[c];
+            }
+            n = m;
+        }
+        live = kept = null;
+        for (int k = 0; k < size.get(); k++) weight += weights[chosen[k]];
+    }
+
+    // is edge e lighter than edge f, breaking ties by index?
+    private boolean less(int e, int f) {
+        return weights[e] < weights[f] || (weights[e] == weights[f] && e < f);
+    }
+
+    // make e the cheapest edge of root r, unless it already has a lighter one
+    private void offer(int r, int e) {
+        while (true) {
+            int f = cheapest.get(r);
+            if (f != -1 && !less(e, f)) return;
+            if (cheapest.compareAndSet(r, f, e)) return;
+        }
+    }
+
+    // offer the edges of chunks lo..hi-1 of live[0..n-1] to their roots, keeping those between two components
+    @SuppressWarnings("serial")
+    private class Offer extends RecursiveAction {
+        private final int lo, hi, n;
+
+        Offer(int lo, int hi, int n) {
+            this.lo = lo;
+            this.hi = hi;
+            this.n = n;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo > 1) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new Offer(lo, mid, n), new Offer(mid, hi, n));
+                return;
+            }
+            int begin = lo * GRAIN, end = Math.min(n, begin + GRAIN), k = begin;
+            for (int i = begin; i < end; i++) {
+                int e = live[i];
+                int p = uf.find(from[e]), q = uf.find(to[e]);
+                if (p == q) continue;
+                offer(p, e);
+                offer(q, e);
+                live[k++] = e;
+            }
+            kept[lo] = k - begin;
+        }
+    }
+
+    // add the cheapest edge of each root in lo..hi-1 to the tree, once; no unions happen meanwhile
+    @SuppressWarnings("serial")
+    private class Choose extends RecursiveAction {
+        private final int lo, hi;
+
+        Choose(int lo, int hi) {
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo > GRAIN) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new Choose(lo, mid), new Choose(mid, hi));
+                return;
+            }
+            for (int r = lo; r < hi; r++) {
+                int e = cheapest.get(r);
+                if (e == -1) continue;
+                int p = uf.find(from[e]);
+                int other = p == r ? uf.find(to[e]) : p;
+                // if both roots chose e, the smaller one adds it
+                if (cheapest.get(other) == e && other < r) continue;
+                chosen[size.getAndIncrement()] = e;
+            }
+        }
+    }
+
+    // clear the cheapest edges of the roots of chosen[lo..hi-1], or union their endpoints
+    @SuppressWarnings("serial")
+    private class Merge extends RecursiveAction {
+        private final int lo, hi;
+        private final boolean union;
+
+        Merge(int lo, int hi, boolean union) {
+            this.lo = lo;
+            this.hi = hi;
+            this.union = union;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo > GRAIN) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new Merge(lo, mid, union), new Merge(mid, hi, union));
+                return;
+            }
+            for (int k = lo; k < hi; k++) {
+                int e = chosen[k];
+                // the edges chosen form a forest, so every union joins two components
+                if (union) uf.union(from[e], to[e]);
+                else {
+                    cheapest.set(uf.find(from[e]), -1);
+                    cheapest.set(uf.find(to[e]), -1);
+                }
+            }
+        }
+    }
+
+    // Returns the edges in a minimum spanning tree (or forest).
+    public Iterable<Edge> edges() {
+        LinkedQueue<Edge> mst = new LinkedQueue<>();
+        for (int k = 0; k < size.get(); k++) {
+            int e = chosen[k];
+            mst.enqueue(source != null ? source[e] : new Edge(from[e], to[e], weights[e]));
+        }
+        return mst;
+    }
+
+    // Returns the sum of the edge weights in a minimum spanning tree (or forest).
+    public double weight() {
+        return weight;
+    }
+
+    // Returns the number of Boruvka rounds the constructor took
+    public int rounds() {
+        return rounds;
+    }
+
+    /**
+     * Prints the MST of tinyEWG, then compares the running time with
+     * {@link KruskalMST} and {@link PrimMST} on a random graph and checks that
+     * the weights agree.
+     * Arguments: V (default 262144), edges per vertex (default 8), pool size.
+     */
+    public static void main(String[] args) throws FileNotFoundException {
+        In in = new In(new Scanner(new File("src/graph/tinyEWG.txt")));
+        EdgeWeightedGraph tiny = new EdgeWeightedGraph(in);
+        ParallelBoruvkaMST mst = new ParallelBoruvkaMST(tiny);
+        for (Edge e : mst.edges()) System.out.println(e);
+        System.out.printf("%.5f\n", mst.weight());
+
+        int V = args.length > 0 ? Integer.parseInt(args[0]) : 1 << 18;
+        int edgeFactor = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        ForkJoinPool pool = args.length > 2 ? new ForkJoinPool(Integer.parseInt(args[2])) : ForkJoinPool.commonPool();
+        int E = V * edgeFactor;
+        Random random = new Random(42);
+        int[] from = new int[E], to = new int[E];
+        double[] weight = new double[E];
+        EdgeWeightedGraph G = new EdgeWeightedGraph(V);
+        for (int i = 0; i < E; i++) {
+            from[i] = random.nextInt(V);
+            to[i] = random.nextInt(V);
+            weight[i] = random.nextInt(1000000) / 1000000.0;
+            G.addEdge(new Edge(from[i], to[i], weight[i]));
+        }
+        System.out.printf("random graph: %d vertices, %d edges, %d threads%n", V, E, pool.getParallelism());
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            KruskalMST mst1 = new KruskalMST(G);
+            long t1 = System.nanoTime() - start;
+            start = System.nanoTime();
+            PrimMST mst2 = new PrimMST(G);
+            long t2 = System.nanoTime() - start;
+            start = System.nanoTime();
+            ParallelBoruvkaMST mst3 = new ParallelBoruvkaMST(V, from, to, weight, pool);
+            long t3 = System.nanoTime() - start;
+            if (Math.abs(mst1.weight() - mst3.weight()) > 1e-6 || Math.abs(mst2.weight() - mst3.weight()) > 1e-6)
+                throw new AssertionError("weights differ");
+            System.out.printf("weight %.6f in %d rounds: Kruskal %6.1f ms, Prim %6.1f ms, Boruvka %6.1f ms%n",
+                    mst3.weight(), mst3.rounds(), t1 / 1e6, t2 / 1e6, t3 / 1e6);
+        }
+    }
+}
@@ -1,6 +1,6 @@
 package graph.shortest_path;
 
-import data_structure.LinkedQueue;
+import data_structure.IntQueue;
 import helper.In;
 
 import java.io.File;
@@ -29,7 +29,7 @@ public class BellmanFordSP {
     private double[] distTo; // distTo[v] = distance of shortest s->v path
     private DirectedEdge[] edgeTo;  //  edgeTo[v] = last edge on shortest s->v path
     private boolean[] onQueue;  //  onQueue[v] = is v currently on the queue
-    private LinkedQueue<Integer> queue;  // queue of vertices to relax
+    private IntQueue queue;  // queue of vertices to relax
     private int cost;  //  number of calls to relax()
     private Iterable<DirectedEdge> cycle;  // negative cycle (or null if no such cycle)
 
@@ -48,7 +48,7 @@ public class BellmanFordSP {
         distTo[s] = 0.0;
 
         // Bellman-Ford algorithm
-        queue = new LinkedQueue<>();
+        queue = new IntQueue();
         queue.enqueue(s);
         onQueue[s] = true;
 
@@ -0,0 +1,344 @@
+package graph.shortest_path;
+
+import data_structure.Bag;
+import helper.In;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Scanner;
+
+/**
+ * The <tt>CSREdgeWeightedDigraph</tt> class represents an immutable edge-weighted
+ * digraph of vertices named 0 through <em>V</em> - 1, stored in compressed sparse
+ * row form. It is built once, from an {@link EdgeWeightedDigraph}, an input stream
+ * or arrays of edges, and then supports iterating over the edges incident from a
+ * given vertex. Parallel edges and self-loops are permitted.
+ * <p/>
+ * This implementation numbers the edges 0 through <em>E</em> - 1 so that the edges
+ * leaving <em>v</em> are <tt>begin(v)</tt> through <tt>end(v) - 1</tt>, and keeps three
+ * parallel arrays instead of {@link DirectedEdge} objects: <tt>offset[]</tt> of length
+ * <em>V</em> + 1, and the heads <tt>target[]</tt> and weights <tt>weight[]</tt> of
+ * length <em>E</em>. It uses 4<em>V</em> + 12<em>E</em> bytes:
+ * <pre>
+ *     for (int e = G.begin(v); e &lt; G.end(v); e++) { int w = G.to(e); double weight = G.weight(e); ... }
+ * </pre>
+ * The tail of an edge is not stored; <tt>from(e)</tt> finds it by binary search on
+ * <tt>offset[]</tt> in time proportional to log <em>V</em>.
+ * Construction takes time proportional to <em>V</em> + <em>E</em>, and the other
+ * operations take constant time except <tt>reverse()</tt>, <tt>edges()</tt> and
+ * <tt>toString()</tt>.
+ * <p/>
+ */
+public class CSREdgeWeightedDigraph {
+    private final int V;
+    private final int[] offset;     // the edges leaving v are offset[v] to offset[v+1]-1
+    private final int[] target;     // target[e] = head of edge e
+    private final double[] weight;  // weight[e] = weight of edge e
+
+    /**
+     * Initializes an edge-weighted digraph with the same vertices, edges and
+     * adjacency order as <tt>G</tt>.
+     *
+     * @param G the edge-weighted digraph to copy
+     */
+    public CSREdgeWeightedDigraph(EdgeWeightedDigraph G) {
+        V = G.V();
+        offset = new int[V + 1];
+        for (int v = 0; v < V; v++) offset[v + 1] = offset[v] + G.outdegree(v);
+        target = new int[offset[V]];
+        weight = new double[offset[V]];
+        for (int v = 0; v < V; v++) {
+            int e = offset[v];
+            for (DirectedEdge edge : G.adj(v)) {
+                target[e] = edge.to();
+                weight[e++] = edge.weight();
+            }
+        }
+    }
+
+    /**
+     * Initializes an edge-weighted digraph from an input stream in the format
+     * read by {@link EdgeWeightedDigraph#EdgeWeightedDigraph(In)}. The adjacency
+     * lists come out in the same order as those of <tt>new EdgeWeightedDigraph(in)</tt>.
+     *
+     * @param in the input stream
+     * @throws java.lang.IndexOutOfBoundsException if the endpoints of any edge are not in prescribed range
+     * @throws java.lang.IllegalArgumentException  if the number of vertices or edges is negative
+     */
+    public CSREdgeWeightedDigraph(In in) {
+        this(readV(in), in);
+    }
+
+    /**
+     * Initializes an edge-weighted digraph from arrays of edges: edge <em>i</em>
+     * goes from <tt>from[i]</tt> to <tt>to[i]</tt> and has weight <tt>weight[i]</tt>.
+     * The edges leaving each vertex keep the order in which they appear in the arrays.
+     *
+     * @param V      the number of vertices
+     * @param from   the tails of the edges
+     * @param to     the heads of the edges
+     * @param weight the weights of the edges
+     * @throws IllegalArgumentException  if <tt>V</tt> is negative, the arrays differ in length
+     *                                   or a weight is <tt>NaN</tt>
+     * @throws IndexOutOfBoundsException if an endpoint is not between 0 and <tt>V</tt> - 1
+     */
+    public CSREdgeWeightedDigraph(int V, int[] from, int[] to, double[] weight) {
+        if (V < 0) throw new IllegalArgumentException("Number of vertices in a Digraph must be nonnegative");
+        if (from.length != to.length || from.length != weight.length)
+            throw new IllegalArgumentException("Edge arrays differ in length");
+        this.V = V;
+        for (int i = 0; i < from.length; i++) {
+            validateVertex(from[i]);
+            validateVertex(to[i]);
+            if (Double.isNaN(weight[i])) throw new IllegalArgumentException("Weight is NaN");
+        }
+        offset = new int[V + 1];
+        target = new int[from.length];
+        this.weight = new double[from.length];
+        fill(from, to, weight, false);
+    }
+
+    // read the rest of the input stream into edge arrays, then build the digraph from them
+    private CSREdgeWeightedDigraph(int V, In in) {
+        this.V = V;
+        int E = in.readInt();
+        if (E < 0) throw new IllegalArgumentException("Number of edges must be nonnegative");
+        int[] from = new int[E];
+        int[] to = new int[E];
+        double[] weight = new double[E];
+        for (int i = 0; i < E; i++) {
+            from[i] = in.readInt();
+            to[i] = in.readInt();
+            validateVertex(from[i]);
+            validateVertex(to[i]);
+            weight[i] = in.readDouble();
+            if (Double.isNaN(weight[i])) throw new IllegalArgumentException("Weight is NaN");
+        }
+        offset = new int[V + 1];
+        target = new int[E];
+        this.weight = new double[E];
+        fill(from, to, weight, true);
+    }
+
+    // wraps arrays that are already in CSR form, without copying them
+    private CSREdgeWeightedDigraph(int[] offset, int[] target, double[] weight) {
+        this.V = offset.length - 1;
+        this.offset = offset;
+        this.target = target;
+        this.weight = weight;
+    }
+
+    private static int readV(In in) {
+        int V = in.readInt();
+        if (V < 0) throw new IllegalArgumentException("Number of vertices in a Digraph must be nonnegative");
+        return V;
+    }
+
+    // counting sort of the edges by tail; if reversed, each adjacency list is
+    // filled back to front, which is the order a bag returns its items in
+    private void fill(int[] from, int[] to, double[] w, boolean reversed) {
+        for (int i = 0; i < from.length; i++) offset[from[i] + 1]++;
+        for (int v = 0; v < V; v++) offset[v + 1] += offset[v];
+        int[] next = new int[V];
+        for (int v = 0; v < V; v++) next[v] = reversed ? offset[v + 1] : offset[v];
+        for (int i = 0; i < from.length; i++) {
+            int e = reversed ? --next[from[i]] : next[from[i]]++;
+            target[e] = to[i];
+            weight[e] = w[i];
+        }
+    }
+
+    // throw an IndexOutOfBoundsException unless 0 <= v < V
+    private void validateVertex(int v) {
+        if (v < 0 || v >= V)
+            throw new IndexOutOfBoundsException("vertex " + v + " is not between 0 and " + (V - 1));
+    }
+
+    // throw an IndexOutOfBoundsException unless 0 <= e < E
+    private void validateEdge(int e) {
+        if (e < 0 || e >= target.length)
+            throw new IndexOutOfBoundsException("edge " + e + " is not between 0 and " + (target.length - 1));
+    }
+
+    // Returns the number of vertices in the edge-weighted digraph.
+    public int V() {
+        return V;
+    }
+
+    // Returns the number of edges in the edge-weighted digraph.
+    public int E() {
+        return target.length;
+    }
+
+    // Returns the first edge leaving v
+    public int begin(int v) {
+        validateVertex(v);
+        return offset[v];
+    }
+
+    // Returns one past the last edge leaving v
+    public int end(int v) {
+        validateVertex(v);
+        return offset[v + 1];
+    }
+
+    // Returns the head of edge e
+    public int to(int e) {
+        return target[e];
+    }
+
+    // Returns the weight of edge e
+    public double weight(int e) {
+        return weight[e];
+    }
+
+    // Returns the tail of edge e, by binary search for the last v with offset[v] <= e
+    public int from(int e) {
+        validateEdge(e);
+        int lo = 0, hi = V - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (offset[mid] <= e) lo = mid;
+            else hi = mid - 1;
+        }
+        return lo;
+    }
+
+    // Returns edge e as a DirectedEdge object
+    public DirectedEdge edge(int e) {
+        return new DirectedEdge(from(e), target[e], weight[e]);
+    }
+
+    // Returns the number of directed edges incident from vertex v.
+    public int outdegree(int v) {
+        validateVertex(v);
+        return offset[v + 1] - offset[v];
+    }
+
+    // Returns the reverse of the edge-weighted digraph, also in CSR form
+    public CSREdgeWeightedDigraph reverse() {
+        int[] rOffset = new int[V + 1];
+        int[] rTarget = new int[target.length];
+        double[] rWeight = new double[target.length];
+        for (int e = 0; e < target.length; e++) rOffset[target[e] + 1]++;
+        for (int v = 0; v < V; v++) rOffset[v + 1] += rOffset[v];
+        int[] next = new int[V];
+        System.arraycopy(rOffset, 0, next, 0, V);
+        for (int v = 0; v < V; v++)
+            for (int e = offset[v]; e < offset[v + 1]; e++) {
+                int r = next[target[e]]++;
+                rTarget[r] = v;
+                rWeight[r] = weight[e];
+            }
+        return new CSREdgeWeightedDigraph(rOffset, rTarget, rWeight);
+    }
+
+    /**
+     * Returns the directed edges incident from vertex <tt>v</tt>, for code
+     * written against {@link EdgeWeightedDigraph}. Iterating creates a
+     * {@link DirectedEdge} per edge; use <tt>begin(v)</tt>, <tt>end(v)</tt>,
+     * <tt>to(e)</tt> and <tt>weight(e)</tt> in inner loops.
+     *
+     * @param v the vertex
+     * @return the directed edges incident from vertex <tt>v</tt> as an Iterable
+     * @throws java.lang.IndexOutOfBoundsException unless 0 <= v < V
+     */
+    public Iterable<DirectedEdge> adj(final int v) {
+        validateVertex(v);
+        return new Iterable<DirectedEdge>() {
+            @Override
+            public Iterator<DirectedEdge> iterator() {
+                return new Iterator<DirectedEdge>() {
+                    private int e = offset[v];
+
+                    @Override
+                    public boolean hasNext() {
+                        return e < offset[v + 1];
+                    }
+
+                    @Override
+                    public DirectedEdge next() {
+                        if (!hasNext()) throw new NoSuchElementException();
+                        DirectedEdge edge = new DirectedEdge(v, target[e], weight[e]);
+                        e++;
+                        return edge;
+                    }
+                };
+            }
+        };
+    }
+
+    // Returns all directed edges in the edge-weighted digraph.
+    public Iterable<DirectedEdge> edges() {
+        Bag<DirectedEdge> list = new Bag<>();
+        for (int v = 0; v < V; v++) {
+            for (DirectedEdge e : adj(v)) {
+                list.add(e);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Returns a string representation of the edge-weighted digraph.
+     * This method takes time proportional to <em>E</em> + <em>V</em>.
+     *
+     * @return the number of vertices <em>V</em>, followed by the number of edges <em>E</em>,
+     * followed by the <em>V</em> adjacency lists of edges
+     */
+    public String toString() {
+        String NEWLINE = System.getProperty("line.separator");
+        StringBuilder s = new StringBuilder();
+        s.append(V).append(" ").append(E()).append(NEWLINE);
+        for (int v = 0; v < V; v++) {
+            s.append(v).append(": ");
+            for (DirectedEdge e : adj(v)) {
+                s.append(e).append("  ");
+            }
+            s.append(NEWLINE);
+        }
+        return s.toString();
+    }
+
+    /**
+     * Prints tinyEWD in CSR form, then builds the same random edge-weighted
+     * digraph as an {@link EdgeWeightedDigraph} and as a
+     * <tt>CSREdgeWeightedDigraph</tt>, checks that {@link DijkstraSP} finds the
+     * same distances in both, and times the searches.
+     */
+    public static void main(String[] args) throws FileNotFoundException {
+        In in = new In(new Scanner(new File("src/graph/tinyEWD.txt")));
+        CSREdgeWeightedDigraph G = new CSREdgeWeightedDigraph(in);
+        System.out.println(G);
+
+        int V = args.length > 0 ? Integer.parseInt(args[0]) : 500000;
+        int E = args.length > 1 ? Integer.parseInt(args[1]) : 4000000;
+        Random random = new Random(42);
+        int[] from = new int[E], to = new int[E];
+        double[] weight = new double[E];
+        EdgeWeightedDigraph lists = new EdgeWeightedDigraph(V);
+        for (int i = 0; i < E; i++) {
+            from[i] = random.nextInt(V);
+            to[i] = random.nextInt(V);
+            weight[i] = random.nextDouble();
+            lists.addEdge(new DirectedEdge(from[i], to[i], weight[i]));
+        }
+        CSREdgeWeightedDigraph csr = new CSREdgeWeightedDigraph(V, from, to, weight);
+
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            DijkstraSP sp1 = new DijkstraSP(lists, 0);
+            long t1 = System.nanoTime() - start;
+            start = System.nanoTime();
+            DijkstraSP sp2 = new DijkstraSP(csr, 0);
+            long t2 = System.nanoTime() - start;
+            for (int v = 0; v < V; v++)
+                if (sp1.distTo(v) != sp2.distTo(v)) throw new AssertionError("distances differ at " + v);
+            System.out.printf("dijkstra on %d vertices, %d edges: EdgeWeightedDigraph %6.1f ms, CSREdgeWeightedDigraph %6.1f ms%n",
+                    V, E, t1 / 1e6, t2 / 1e6);
+        }
+    }
+}
@@ -0,0 +1,560 @@
+package graph.shortest_path;
+
+import data_structure.DoubleIndexMinPQ;
+import data_structure.IntStack;
+import data_structure.LinkedQueue;
+import data_structure.LinkedStack;
+import helper.In;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Scanner;
+
+/**
+ * The <tt>ContractionHierarchy</tt> class represents a contraction hierarchy of an
+ * edge-weighted digraph with non-negative weights, after Geisberger, Sanders, Schultes
+ * and Delling: a preprocessed form of the digraph that answers shortest-path queries
+ * between two vertices by settling a few hundred vertices instead of a large part of
+ * the digraph.
+ * <p/>
+ * <em>Preprocessing</em> contracts the vertices one at a time, in order of importance.
+ * Contracting <em>v</em> removes it from the digraph, and for every pair of edges
+ * <em>u</em>-&gt;<em>v</em>-&gt;<em>w</em> adds a <em>shortcut</em> <em>u</em>-&gt;<em>w</em> of the
+ * same length, unless a <em>witness search</em> (a Dijkstra search from <em>u</em>
+ * that avoids <em>v</em>, limited to a few hundred vertices) finds a path that is no
+ * longer. The next vertex to contract is the one of lowest priority: the number of
+ * shortcuts it would add minus the number of edges it would remove, plus the number
+ * of its neighbors already contracted, which spreads the contractions evenly.
+ * Priorities are kept in a {@link DoubleIndexMinPQ}, recomputed for the neighbors of each
+ * contracted vertex, and checked again when a vertex reaches the top (lazy updates).
+ * <p/>
+ * The <em>rank</em> of a vertex is its position in that order. Every shortest path in the
+ * digraph has a counterpart of the same length, made of edges and shortcuts, that goes
+ * up in rank and then down. A <em>query</em> is a bidirectional Dijkstra search in which
+ * the forward search from <em>s</em> only follows edges up and the backward search from
+ * <em>t</em> only follows edges down, backwards; a side stops once its next distance is
+ * no less than the best path found, and a vertex that some higher-ranked vertex reaches
+ * more cheaply is <em>stalled</em>: its edges are not relaxed. The path is then unpacked
+ * by replacing each shortcut with the two edges it stands for, recursively.
+ * When shortest paths are unique, it is the path that {@link DijkstraSP} finds, and when
+ * the hierarchy was built from an {@link EdgeWeightedDigraph} its edges are the same
+ * {@link DirectedEdge} objects.
+ * <p/>
+ * A hierarchy can be written to a file and read back, without the digraph.
+ * The file is big-endian, as written by {@link DataOutputStream}: the magic number
+ * 0x43484945, the format version, <em>V</em>, the number of edges and shortcuts <em>M</em>,
+ * the ranks, and then for each edge or shortcut its tail, head, weight and the two
+ * edges it stands for (-1 for an edge of the digraph).
+ * <p/>
+ * Preprocessing takes time that depends on the structure of the digraph; it is near-linear
+ * for road networks, and much slower on grids, whose dense cores need many shortcuts.
+ * Queries reuse their state, like {@link PointToPointSP}, and take time proportional to
+ * the vertices settled and the length of the path unpacked.
+ * A hierarchy must not be queried by more than one thread at a time.
+ * <p/>
+ */
+public class ContractionHierarchy {
+    private static final int MAGIC = 0x43484945;
+    private static final int VERSION = 1;
+    private static final int SIMULATION_LIMIT = 20;  // vertices a witness search may settle to rank a vertex
+    private static final int WITNESS_LIMIT = 500;    // and to contract it
+    private static final double INFINITY = Double.POSITIVE_INFINITY;
+
+    private final int V;
+    private final int[] rank;           // rank[v] = position of v in the contraction order
+
+    // the edges of the digraph, then the shortcuts; together the arcs
+    private int M;                      // number of arcs
+    private int[] tail, head;           // arc a runs from tail[a] to head[a]
+    private double[] weight;            // with weight weight[a]
+    private int[] first, second;        // shortcut a stands for arc first[a] then arc second[a]; -1 for an edge
+    private DirectedEdge[] original;    // original[a] = the edge of the digraph arc a is, or null
+
+    // the search graphs, in CSR form
+    private int[] upOffset, upArc;      // arcs from v to vertices of higher rank
+    private int[] downOffset, downArc;  // arcs into v from vertices of higher rank
+    private final SPWorkspace forward, backward;
+
+    // during preprocessing only: the arcs leaving and entering each vertex, between vertices not contracted
+    private int[][] out, in;
+    private int[] outSize, inSize;
+
+    // the last query
+    private int source = -1, target;
+    private double distance;
+    private int meet;                   // vertex of highest rank on the path
+    private int settled;
+
+    /**
+     * Builds the contraction hierarchy of the edge-weighted digraph.
+     * Of parallel edges only the lightest is kept, and self-loops are dropped,
+     * as no shortest path uses the others.
+     *
+     * @param G the edge-weighted digraph
+     * @throws IllegalArgumentException if an edge weight is negative
+     */
+    public ContractionHierarchy(EdgeWeightedDigraph G) {
+        V = G.V();
+        rank = new int[V];
+        int capacity = Math.max(G.E(), 1);
+        tail = new int[capacity];
+        head = new int[capacity];
+        weight = new double[capacity];
+        first = new int[capacity];
+        second = new int[capacity];
+        original = new DirectedEdge[capacity];
+        out = new int[V][];
+        in = new int[V][];
+        outSize = new int[V];
+        inSize = new int[V];
+        for (int v = 0; v < V; v++) {
+            out[v] = new int[Math.max(G.outdegree(v), 1)];
+            in[v] = new int[1];
+        }
+
+        // the lightest edge between each pair of vertices
+        Map<Long, Integer> arcOf = new HashMap<Long, Integer>();
+        for (DirectedEdge e : G.edges()) {
+            if (!(e.weight() >= 0)) throw new IllegalArgumentException("edge " + e + " has negative weight");
+            if (e.from() == e.to()) continue;
+            Long key = ((long) e.from() << 32) | e.to();
+            Integer a = arcOf.get(key);
+            if (a == null) arcOf.put(key, addArc(e.from(), e.to(), e.weight(), -1, -1, e));
+            else if (e.weight() < weight[a]) {
+                weight[a] = e.weight();
+                original[a] = e;
+            }
+        }
+
+        contract();
+        out = in = null;
+        outSize = inSize = null;
+        buildSearchGraphs();
+        forward = new SPWorkspace(V);
+        backward = new SPWorkspace(V);
+    }
+
+    // a hierarchy read from a file
+    private ContractionHierarchy(int V, int[] rank, int M, int[] tail, int[] head, double[] weight, int[] first, int[] second) {
+        this.V = V;
+        this.rank = rank;
+        this.M = M;
+        this.tail = tail;
+        this.head = head;
+        this.weight = weight;
+        this.first = first;
+        this.second = second;
+        original = new DirectedEdge[M];
+        buildSearchGraphs();
+        forward = new SPWorkspace(V);
+        backward = new SPWorkspace(V);
+    }
+
+    private int addArc(int u, int w, double d, int a, int b, DirectedEdge e) {
+        if (M == tail.length) {
+            int capacity = 2 * M;
+            tail = Arrays.copyOf(tail, capacity);
+            head = Arrays.copyOf(head, capacity);
+            weight = Arrays.copyOf(weight, capacity);
+            first = Arrays.copyOf(first, capacity);
+            second = Arrays.copyOf(second, capacity);
+            original = Arrays.copyOf(original, capacity);
+        }
+        tail[M] = u;
+        head[M] = w;
+        weight[M] = d;
+        first[M] = a;
+        second[M] = b;
+        original[M] = e;
+        if (outSize[u] == out[u].length) out[u] = Arrays.copyOf(out[u], 2 * outSize[u]);
+        out[u][outSize[u]++] = M;
+        if (inSize[w] == in[w].length) in[w] = Arrays.copyOf(in[w], 2 * inSize[w]);
+        in[w][inSize[w]++] = M;
+        return M++;
+    }
+
+    // contract the vertices in order of priority, lazily updated
+    private void contract() {
+        int[] deleted = new int[V];     // deleted[v] = number of neighbors of v already contracted
+        int[] neighborOf = new int[V];  // neighborOf[x] = 1 + last vertex whose contraction updated x
+        SPWorkspace witness = new SPWorkspace(V);
+        DoubleIndexMinPQ order = new DoubleIndexMinPQ(V);
+        for (int v = 0; v < V; v++) order.insert(v, priority(v, 0, witness));
+
+        int next = 0;
+        while (!order.isEmpty()) {
+            int v = order.delMin();
+            double p = priority(v, deleted[v], witness);
+            if (!order.isEmpty() && p > order.minKey()) {
+                order.insert(v, p);
+                continue;
+            }
+            shortcuts(v, true, witness);
+            rank[v] = next++;
+
+            // the neighbors lose their arcs to v, which the searches need not scan again,
+            // and may gain shortcuts
+            for (int i = 0; i < outSize[v]; i++) remove(in, inSize, head[out[v][i]], out[v][i]);
+            for (int i = 0; i < inSize[v]; i++) remove(out, outSize, tail[in[v][i]], in[v][i]);
+            for (int i = 0; i < outSize[v] + inSize[v]; i++) {
+                int x = i < outSize[v] ? head[out[v][i]] : tail[in[v][i - outSize[v]]];
+                if (neighborOf[x] == v + 1) continue;
+                neighborOf[x] = v + 1;
+                deleted[x]++;
+                order.changeKey(x, priority(x, deleted[x], witness));
+            }
+            out[v] = in[v] = null;
+            outSize[v] = inSize[v] = 0;
+        }
+    }
+
+    // remove arc a from the list of arcs of x
+    private static void remove(int[][] arcs, int[] size, int x, int a) {
+        for (int i = 0; i < size[x]; i++) {
+            if (arcs[x][i] == a) {
+                arcs[x][i] = arcs[x][--size[x]];
+                return;
+            }
+        }
+    }
+
+    // edge difference plus contracted neighbors
+    private double priority(int v, int deleted, SPWorkspace witness) {
+        return shortcuts(v, false, witness) - outSize[v] - inSize[v] + deleted;
+    }
+
+    // count, or add, the shortcuts that contracting v needs
+    private int shortcuts(int v, boolean add, SPWorkspace witness) {
+        double maxOut = 0.0;
+        for (int i = 0; i < outSize[v]; i++) maxOut = Math.max(maxOut, weight[out[v][i]]);
+        int count = 0;
+        for (int i = 0; i < inSize[v]; i++) {
+            int a = in[v][i];
+            int u = tail[a];
+            witnessSearch(u, v, weight[a] + maxOut, add ? WITNESS_LIMIT : SIMULATION_LIMIT, witness);
+            // adding shortcuts for u leaves the arcs of v as they are
+            for (int j = 0; j < outSize[v]; j++) {
+                int b = out[v][j];
+                int w = head[b];
+                if (w == u) continue;
+                double d = weight[a] + weight[b];
+                if (witness.dist(w) <= d) continue;
+                count++;
+                if (add) addArc(u, w, d, a, b, null);
+                // a parallel arc v->w needs no second shortcut
+                witness.dist[w] = d;
+                witness.stamp[w] = witness.query;
+            }
+        }
+        return count;
+    }
+
+    // Dijkstra from u over the vertices not contracted, avoiding v, until the next vertex is
+    // farther than limit or settle vertices have been settled
+    private void witnessSearch(int u, int v, double limit, int settle, SPWorkspace witness) {
+        witness.reset();
+        witness.reach(u, 0.0, -1, 0.0);
+        for (int n = 0; n < settle && !witness.pq.isEmpty() && witness.pq.minKey() <= limit; n++) {
+            int x = witness.settle();
+            for (int i = 0; i < outSize[x]; i++) {
+                int a = out[x][i];
+                int y = head[a];
+                if (y == v) continue;
+                double d = witness.dist[x] + weight[a];
+                if (d <= limit && d < witness.dist(y)) witness.reach(y, d, a, 0.0);
+            }
+        }
+    }
+
+    // split the arcs into those going up from their tail and those coming down into their head
+    private void buildSearchGraphs() {
+        upOffset = new int[V + 1];
+        downOffset = new int[V + 1];
+        for (int a = 0; a < M; a++) {
+            if (rank[tail[a]] < rank[head[a]]) upOffset[tail[a] + 1]++;
+            else downOffset[head[a] + 1]++;
+        }
+        for (int v = 0; v < V; v++) {
+            upOffset[v + 1] += upOffset[v];
+            downOffset[v + 1] += downOffset[v];
+        }
+        upArc = new int[upOffset[V]];
+        downArc = new int[downOffset[V]];
+        int[] upNext = Arrays.copyOf(upOffset, V);
+        int[] downNext = Arrays.copyOf(downOffset, V);
+        for (int a = 0; a < M; a++) {
+            if (rank[tail[a]] < rank[head[a]]) upArc[upNext[tail[a]]++] = a;
+            else downArc[downNext[head[a]]++] = a;
+        }
+    }
+
+    /**
+     * Returns the length of a shortest path from <tt>s</tt> to <tt>t</tt>.
+     *
+     * @return the length, or <tt>Double.POSITIVE_INFINITY</tt> if there is no path
+     * @throws IndexOutOfBoundsException unless 0 &le; <tt>s</tt>, <tt>t</tt> &le; <tt>V</tt> - 1
+     */
+    public double query(int s, int t) {
+        validateVertex(s);
+        validateVertex(t);
+        source = s;
+        target = t;
+        distance = INFINITY;
+        meet = -1;
+        settled = 0;
+        forward.reset();
+        backward.reset();
+        forward.reach(s, 0.0, -1, 0.0);
+        backward.reach(t, 0.0, -1, 0.0);
+        while (true) {
+            double f = forward.pq.isEmpty() ? INFINITY : forward.pq.minKey();
+            double b = backward.pq.isEmpty() ? INFINITY : backward.pq.minKey();
+            if (Math.min(f, b) >= distance) break;  // neither side can find a shorter path
+            settled++;
+            if (f <= b) {
+                int v = forward.settle();
+                meet(v);
+                // stalled if a higher vertex reaches v more cheaply
+                boolean stalled = false;
+                for (int i = downOffset[v]; i < downOffset[v + 1] && !stalled; i++) {
+                    int a = downArc[i];
+                    stalled = forward.dist(tail[a]) + weight[a] < forward.dist[v];
+                }
+                if (stalled) continue;
+                for (int i = upOffset[v]; i < upOffset[v + 1]; i++) {
+                    int a = upArc[i];
+                    double d = forward.dist[v] + weight[a];
+                    if (d < forward.dist(head[a])) forward.reach(head[a], d, a, 0.0);
+                }
+            } else {
+                int v = backward.settle();
+                meet(v);
+                boolean stalled = false;
+                for (int i = upOffset[v]; i < upOffset[v + 1] && !stalled; i++) {
+                    int a = upArc[i];
+                    stalled = backward.dist(head[a]) + weight[a] < backward.dist[v];
+                }
+                if (stalled) continue;
+                for (int i = downOffset[v]; i < downOffset[v + 1]; i++) {
+                    int a = downArc[i];
+                    double d = backward.dist[v] + weight[a];
+                    if (d < backward.dist(tail[a])) backward.reach(tail[a], d, a, 0.0);
+                }
+            }
+        }
+        return distance;
+    }
+
+    private void meet(int v) {
+        double through = forward.dist(v) + backward.dist(v);
+        if (through < distance) {
+            distance = through;
+            meet = v;
+        }
+    }
+
+    private void validateVertex(int v) {
+        if (v < 0 || v >= V) throw new IndexOutOfBoundsException("vertex " + v + " is not between 0 and " + (V - 1));
+    }
+
+    // Returns the length of the path found by the last query, or Double.POSITIVE_INFINITY if there is none
+    public double distance() {
+        return distance;
+    }
+
+    // Did the last query find a path?
+    public boolean hasPath() {
+        return distance < INFINITY;
+    }
+
+    // Returns the number of vertices the last query settled
+    public int settled() {
+        return settled;
+    }
+
+    // Returns the number of vertices
+    public int V() {
+        return V;
+    }
+
+    // Returns the number of shortcuts added to the digraph
+    public int shortcuts() {
+        int count = 0;
+        for (int a = 0; a < M; a++) if (first[a] != -1) count++;
+        return count;
+    }
+
+    /**
+     * Returns the shortest path found by the last query, with its shortcuts unpacked.
+     * The edges come in order from <tt>s</tt> to <tt>t</tt>, as from
+     * {@link PointToPointSP#path()}; {@link DijkstraSP#pathTo(int)} lists them from
+     * <tt>t</tt> back to <tt>s</tt>.
+     *
+     * @return the path from <tt>s</tt> to <tt>t</tt> as an iterable of edges in order from <tt>s</tt>,
+     * and <tt>null</tt> if there is no such path
+     * @throws IllegalStateException if there has been no query
+     */
+    public Iterable<DirectedEdge> path() {
+        if (source == -1) throw new IllegalStateException("no query yet");
+        if (!hasPath()) return null;
+        // the arcs down from meet to t, last one first, then those up from s to meet, from meet back
+        IntStack arcs = new IntStack();
+        for (int a = backward.edge[meet]; a != -1; a = backward.edge[head[a]]) arcs.push(a);
+        IntStack down = new IntStack();
+        while (!arcs.isEmpty()) down.push(arcs.pop());
+        for (int a = forward.edge[meet]; a != -1; a = forward.edge[tail[a]]) down.push(a);
+
+        // down now pops the arcs from s to t; unpack each one, first half first
+        LinkedQueue<DirectedEdge> path = new LinkedQueue<>();
+        while (!down.isEmpty()) {
+            int a = down.pop();
+            if (first[a] == -1) path.enqueue(original[a] != null ? original[a] : new DirectedEdge(tail[a], head[a], weight[a]));
+            else {
+                down.push(second[a]);
+                down.push(first[a]);
+            }
+        }
+        return path;
+    }
+
+    // Writes the hierarchy to the file
+    public void write(File file) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(V);
+            out.writeInt(M);
+            for (int v = 0; v < V; v++) out.writeInt(rank[v]);
+            for (int a = 0; a < M; a++) {
+                out.writeInt(tail[a]);
+                out.writeInt(head[a]);
+                out.writeDouble(weight[a]);
+                out.writeInt(first[a]);
+                out.writeInt(second[a]);
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Reads a hierarchy written by <tt>write()</tt>. Its paths are made of new
+     * {@link DirectedEdge} objects with the endpoints and weights of the edges of the digraph.
+     *
+     * @throws IllegalArgumentException if the file is not a contraction hierarchy
+     */
+    public static ContractionHierarchy read(File file) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16));
+        try {
+            if (in.readInt() != MAGIC) throw new IllegalArgumentException(file + " is not a contraction hierarchy");
+            int version = in.readInt();
+            if (version != VERSION) throw new IllegalArgumentException("unsupported version " + version);
+            int V = in.readInt();
+            int M = in.readInt();
+            int[] rank = new int[V];
+            for (int v = 0; v < V; v++) rank[v] = in.readInt();
+            int[] tail = new int[M], head = new int[M], first = new int[M], second = new int[M];
+            double[] weight = new double[M];
+            for (int a = 0; a < M; a++) {
+                tail[a] = in.readInt();
+                head[a] = in.readInt();
+                weight[a] = in.readDouble();
+                first[a] = in.readInt();
+                second[a] = in.readInt();
+            }
+            return new ContractionHierarchy(V, rank, M, tail, head, weight, first, second);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Checks every pair of vertices of tinyEWD against {@link DijkstraSP}, then builds
+     * the hierarchy of a grid with random real weights, writes it to a file and reads
+     * it back, and compares random queries with {@link DijkstraSP} and bidirectional
+     * Dijkstra: the distances, and the paths edge for edge, of the hierarchy built and
+     * of the one read back; with random real weights the shortest paths are unique.
+     * Arguments: grid side (default 100), queries (default 1000).
+     */
+    public static void main(String[] args) throws IOException {
+        In in = new In(new Scanner(new File("src/graph/tinyEWD.txt")));
+        EdgeWeightedDigraph tiny = new EdgeWeightedDigraph(in);
+        ContractionHierarchy ch = new ContractionHierarchy(tiny);
+        for (int s = 0; s < tiny.V(); s++) {
+            DijkstraSP sp = new DijkstraSP(tiny, s);
+            for (int t = 0; t < tiny.V(); t++)
+                if (Math.abs(ch.query(s, t) - sp.distTo(t)) > 1e-12) throw new AssertionError(s + " to " + t);
+        }
+        System.out.printf("0 to 6 (%.2f)   ", ch.query(0, 6));
+        for (DirectedEdge e : ch.path()) System.out.print(e + "   ");
+        System.out.println();
+
+        int side = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        EdgeWeightedDigraph G = PointToPointSP.grid(side, side, 42, false);
+        long start = System.nanoTime();
+        ch = new ContractionHierarchy(G);
+        System.out.printf("%d x %d grid: %d vertices, %d edges; preprocessing %.1f ms, %d shortcuts%n",
+                side, side, G.V(), G.E(), (System.nanoTime() - start) / 1e6, ch.shortcuts());
+        File file = File.createTempFile("grid", ".ch");
+        file.deleteOnExit();
+        start = System.nanoTime();
+        ch.write(file);
+        ContractionHierarchy loaded = read(file);
+        System.out.printf("written and read back in %.1f ms, %d bytes%n", (System.nanoTime() - start) / 1e6, file.length());
+
+        CSREdgeWeightedDigraph csr = new CSREdgeWeightedDigraph(G);
+        PointToPointSP engine = new PointToPointSP(csr);
+        Random random = new Random(1);
+        long t1 = 0, t2 = 0, t3 = 0, settled1 = 0, settled2 = 0;
+        for (int i = 0; i < queries; i++) {
+            int s = random.nextInt(G.V()), t = random.nextInt(G.V());
+            start = System.nanoTime();
+            DijkstraSP sp = new DijkstraSP(G, s);
+            t1 += System.nanoTime() - start;
+            start = System.nanoTime();
+            engine.bidirectional(s, t);
+            t2 += System.nanoTime() - start;
+            settled1 += engine.settled();
+            start = System.nanoTime();
+            double d = ch.query(s, t);
+            Iterable<DirectedEdge> path = ch.path();
+            t3 += System.nanoTime() - start;
+            settled2 += ch.settled();
+            if (Math.abs(d - sp.distTo(t)) > 1e-9 * d || loaded.query(s, t) != d)
+                throw new AssertionError(s + " to " + t + ": distances differ");
+
+            // DijkstraSP.pathTo lists the edges from t back to s
+            LinkedStack<DirectedEdge> expected = new LinkedStack<>();
+            for (DirectedEdge e : sp.pathTo(t)) expected.push(e);
+            if (!samePath(expected, path, true) || !samePath(expected, loaded.path(), false))
+                throw new AssertionError(s + " to " + t + ": paths differ");
+        }
+        System.out.printf("DijkstraSP %8.3f ms per query; bidirectional %8.3f ms, %6d settled; CH %8.3f ms, %4d settled%n",
+                t1 / 1e6 / queries, t2 / 1e6 / queries, settled1 / queries, t3 / 1e6 / queries, settled2 / queries);
+        System.out.printf("%d queries: same distances and the same edges as DijkstraSP.pathTo, also when read back%n", queries);
+    }
+
+    // the same edges in the same order: the same objects, or for a hierarchy read back the same endpoints and weights
+    private static boolean samePath(Iterable<DirectedEdge> expected, Iterable<DirectedEdge> path, boolean identical) {
+        LinkedQueue<DirectedEdge> got = new LinkedQueue<>();
+        for (DirectedEdge e : path) got.enqueue(e);
+        for (DirectedEdge e : expected) {
+            if (got.isEmpty()) return false;
+            DirectedEdge f = got.dequeue();
+            if (identical ? f != e : f.from() != e.from() || f.to() != e.to() || f.weight() != e.weight()) return false;
+        }
+        return got.isEmpty();
+    }
+}
@@ -0,0 +1,416 @@
+package graph.shortest_path;
+
+import data_structure.IntStack;
+import helper.In;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.Random;
+import java.util.Scanner;
+import java.util.Stack;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The <tt>DeltaSteppingSP</tt> class represents a data type for solving the
+ * single-source shortest paths problem in edge-weighted digraphs with non-negative
+ * weights, using all the threads of a fork-join pool. It has the same
+ * <tt>distTo()</tt>, <tt>hasPathTo()</tt> and <tt>pathTo()</tt> API as
+ * {@link DijkstraSP}, and finds the same distances; where there are several shortest
+ * paths the one returned may differ.
+ * <p/>
+ * This implementation uses the <em>delta-stepping</em> algorithm of Meyer and Sanders.
+ * The tentative distances are kept in buckets of width &Delta;: bucket <em>i</em> holds
+ * the vertices at distance in [<em>i</em>&Delta;, (<em>i</em>+1)&Delta;). Edges of weight
+ * at most &Delta; are <em>light</em>, and the others <em>heavy</em>. The buckets are
+ * emptied in order; emptying one takes <em>phases</em>, each of which relaxes the light
+ * edges of all the vertices taken from the bucket at once, which can put vertices back
+ * in it, and then the heavy edges of the vertices taken are relaxed once, as they cannot
+ * reach the same bucket. Within a phase the vertices are split among tasks, and an
+ * edge is relaxed with a compare-and-set minimum on the distance of its head; every
+ * vertex whose distance decreases is claimed once per phase with a compare-and-set,
+ * and filed in its bucket after the phase.
+ * <p/>
+ * A small &Delta; approaches Dijkstra's algorithm, with few wasted relaxations but many
+ * phases of little parallel work; a large one approaches Bellman-Ford. The default,
+ * the largest weight over the average outdegree, is good for random weights.
+ * As a vertex waits at most max weight / &Delta; + 1 buckets ahead of the current one,
+ * the buckets are reused cyclically. The edges leaving each vertex are copied, light
+ * ones first, so the light and heavy relaxations scan separate ranges.
+ * <p/>
+ * The last edges of the paths are chosen after the distances are final, by a search
+ * from <em>s</em>, one level at a time, along the <em>tight</em> edges
+ * <em>v</em>-&gt;<em>w</em> with <tt>distTo(v)</tt> + weight = <tt>distTo(w)</tt>: each
+ * vertex takes the first such edge from a vertex already reached, so they make a tree
+ * even where tiny or zero weights leave the sum equal in floating point both ways.
+ * The constructor takes space proportional to <em>V</em> + <em>E</em>. Its work is
+ * proportional to <em>V</em> + <em>E</em> plus the relaxations repeated for vertices
+ * improved more than once, divided among the threads, and a sequential part
+ * proportional to the number of phases, of levels of the tree and of vertices filed
+ * into buckets.
+ * The other methods take time as in {@link DijkstraSP}.
+ * <p/>
+ */
+public class DeltaSteppingSP {
+    private static final int GRAIN = 512;             // vertices per task
+    private static final int MAX_BUCKETS = 1 << 20;   // buckets kept, at least max weight / delta + 2
+
+    private final CSREdgeWeightedDigraph G;
+    private final double delta;
+    private final int[] lightEnd;          // the edges leaving v are offset(v) to lightEnd[v]-1 light, then heavy
+    private final int[] head;              // head[k] = head of k-th edge, in that order
+    private final double[] weight;         // weight[k] = its weight
+    private final int[] index;             // index[k] = its number in G
+    private final AtomicLongArray dist;    // bits of the tentative distances
+    private final AtomicIntegerArray claim;  // claim[v] = last phase in which v was queued
+    private final AtomicIntegerArray last;   // last[v] = last edge on the shortest path to v, or -1
+    private final double[] distTo;         // distTo[v] = distance of shortest s->v path
+    private int[] improved;                // the vertices whose distance decreased in this phase
+    private final AtomicInteger improvedSize = new AtomicInteger();
+    private int phases;
+
+    // Computes shortest paths from s, with the default delta, in the common fork-join pool
+    public DeltaSteppingSP(EdgeWeightedDigraph G, int s) {
+        this(new CSREdgeWeightedDigraph(G), s);
+    }
+
+    // Computes shortest paths from s, with the default delta, in the common fork-join pool
+    public DeltaSteppingSP(CSREdgeWeightedDigraph G, int s) {
+        this(G, s, defaultDelta(G), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Computes a shortest paths tree from <tt>s</tt> to every other vertex in
+     * the edge-weighted digraph <tt>G</tt>, running the tasks in <tt>pool</tt>.
+     *
+     * @param G     the edge-weighted digraph
+     * @param s     the source vertex
+     * @param delta the width of the buckets
+     * @param pool  the fork-join pool
+     * @throws IllegalArgumentException  if an edge weight is negative, delta is not positive
+     *                                   or less than the largest weight / 2<sup>20</sup>
+     * @throws IndexOutOfBoundsException unless 0 &le; <tt>s</tt> &le; <tt>V</tt> - 1
+     */
+    public DeltaSteppingSP(CSREdgeWeightedDigraph G, int s, double delta, ForkJoinPool pool) {
+        if (!(delta > 0)) throw new IllegalArgumentException("delta must be positive");
+        int V = G.V();
+        if (s < 0 || s >= V) throw new IndexOutOfBoundsException("vertex " + s + " is not between 0 and " + (V - 1));
+        this.G = G;
+        this.delta = delta;
+
+        // split the edges of each vertex into light and heavy
+        lightEnd = new int[V];
+        head = new int[G.E()];
+        weight = new double[G.E()];
+        index = new int[G.E()];
+        double maxWeight = 0.0;
+        for (int v = 0; v < V; v++) {
+            int light = G.begin(v), heavy = G.end(v);
+            for (int e = G.begin(v); e < G.end(v); e++) {
+                double w = G.weight(e);
+                if (!(w >= 0)) throw new IllegalArgumentException("edge " + G.edge(e) + " has negative weight");
+                maxWeight = Math.max(maxWeight, w);
+                int k = w <= delta ? light++ : --heavy;
+                head[k] = G.to(e);
+                weight[k] = w;
+                index[k] = e;
+            }
+            lightEnd[v] = light;
+        }
+
+        if (maxWeight / delta + 2 > MAX_BUCKETS)
+            throw new IllegalArgumentException("delta must be at least the largest weight / " + (MAX_BUCKETS - 2));
+
+        dist = new AtomicLongArray(V);
+        last = new AtomicIntegerArray(V);
+        for (int v = 0; v < V; v++) {
+            dist.set(v, Double.doubleToLongBits(Double.POSITIVE_INFINITY));
+            last.set(v, -1);
+        }
+        claim = new AtomicIntegerArray(V);
+        improved = new int[V];
+        deltaStepping(s, (int) (maxWeight / delta) + 2, pool);
+
+        distTo = new double[V];
+        for (int v = 0; v < V; v++) distTo[v] = dist(v);
+        lastEdges(s, pool);
+        improved = null;
+    }
+
+    // the largest weight over the average outdegree
+    private static double defaultDelta(CSREdgeWeightedDigraph G) {
+        double maxWeight = 0.0;
+        for (int e = 0; e < G.E(); e++) maxWeight = Math.max(maxWeight, G.weight(e));
+        if (maxWeight == 0.0 || G.E() == 0) return 1.0;
+        return maxWeight * G.V() / G.E();
+    }
+
+    private double dist(int v) {
+        return Double.longBitsToDouble(dist.get(v));
+    }
+
+    // lower the distance of w to d if that is less, and queue w if not queued yet in this phase
+    private void relax(int w, double d) {
+        while (true) {
+            long bits = dist.get(w);
+            if (!(d < Double.longBitsToDouble(bits))) return;
+            if (dist.compareAndSet(w, bits, Double.doubleToLongBits(d))) break;
+        }
+        int c = claim.get(w);
+        if (c != phases && claim.compareAndSet(w, c, phases)) improved[improvedSize.getAndIncrement()] = w;
+    }
+
+    // empty the buckets in order; there are B of them, reused cyclically
+    private void deltaStepping(int s, int B, ForkJoinPool pool) {
+        IntStack[] buckets = new IntStack[B];
+        for (int b = 0; b < B; b++) buckets[b] = new IntStack();
+        int V = G.V();
+        int[] frontier = new int[V];
+        int[] taken = new int[V];   // the vertices taken from the current bucket
+        int[] takenIn = new int[V]; // takenIn[v] = 1 + last bucket v was taken from
+        int[] inFrontier = new int[V];
+
+        dist.set(s, Double.doubleToLongBits(0.0));
+        buckets[0].push(s);
+        long i = 0;        // the current bucket
+        int empty = 0;     // buckets found empty in a row
+        int step = 0;      // frontiers built so far
+        while (empty < B) {
+            IntStack bucket = buckets[(int) (i % B)];
+            if (bucket.isEmpty()) {
+                empty++;
+                i++;
+                continue;
+            }
+            empty = 0;
+            int takenSize = 0;
+            while (!bucket.isEmpty()) {
+                // the vertices still in bucket i, once each
+                step++;
+                int n = 0;
+                while (!bucket.isEmpty()) {
+                    int v = bucket.pop();
+                    if ((long) (dist(v) / delta) != i || inFrontier[v] == step) continue;
+                    inFrontier[v] = step;
+                    frontier[n++] = v;
+                    if (takenIn[v] != (int) i + 1) {
+                        takenIn[v] = (int) i + 1;
+                        taken[takenSize++] = v;
+                    }
+                }
+                if (n > 0) phase(frontier, n, true, buckets, pool);
+            }
+            if (takenSize > 0) phase(taken, takenSize, false, buckets, pool);
+            i++;
+        }
+    }
+
+    // relax the light or heavy edges of items[0..n-1] in parallel, then file the vertices improved
+    private void phase(int[] items, int n, boolean light, IntStack[] buckets, ForkJoinPool pool) {
+        phases++;
+        improvedSize.set(0);
+        pool.invoke(new Relax(items, 0, n, light));
+        for (int k = 0; k < improvedSize.get(); k++) {
+            int w = improved[k];
+            buckets[(int) ((long) (dist(w) / delta) % buckets.length)].push(w);
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private class Relax extends RecursiveAction {
+        private final int[] items;
+        private final int lo, hi;
+        private final boolean light;
+
+        Relax(int[] items, int lo, int hi, boolean light) {
+            this.items = items;
+            this.lo = lo;
+            this.hi = hi;
+            this.light = light;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo > GRAIN) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new Relax(items, lo, mid, light), new Relax(items, mid, hi, light));
+                return;
+            }
+            for (int j = lo; j < hi; j++) {
+                int v = items[j];
+                double d = dist(v);
+                int begin = light ? G.begin(v) : lightEnd[v];
+                int end = light ? lightEnd[v] : G.end(v);
+                for (int k = begin; k < end; k++) relax(head[k], d + weight[k]);
+            }
+        }
+    }
+
+    // search from s along the tight edges, one level at a time, giving each vertex reached its last edge
+    private void lastEdges(int s, ForkJoinPool pool) {
+        int[] frontier = new int[G.V()];
+        frontier[0] = s;
+        int n = 1;
+        while (n > 0) {
+            improvedSize.set(0);
+            pool.invoke(new Last(frontier, 0, n, s));
+            n = improvedSize.get();
+            int[] temp = frontier;
+            frontier = improved;
+            improved = temp;
+        }
+    }
+
+    // for the vertices items[lo..hi-1], reached: the first to claim a tight edge v->w sets last[w]
+    // and puts w on the next level, so w is reached from a vertex reached before it
+    @SuppressWarnings("serial")
+    private class Last extends RecursiveAction {
+        private final int[] items;
+        private final int lo, hi, s;
+
+        Last(int[] items, int lo, int hi, int s) {
+            this.items = items;
+            this.lo = lo;
+            this.hi = hi;
+            this.s = s;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo > GRAIN) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new Last(items, lo, mid, s), new Last(items, mid, hi, s));
+                return;
+            }
+            for (int j = lo; j < hi; j++) {
+                int v = items[j];
+                for (int k = G.begin(v); k < G.end(v); k++) {
+                    int w = head[k];
+                    if (w != s && last.get(w) == -1 && distTo[v] + weight[k] == distTo[w]
+                            && last.compareAndSet(w, -1, index[k]))
+                        improved[improvedSize.getAndIncrement()] = w;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the length of a shortest path from the source vertex <tt>s</tt> to vertex <tt>v</tt>.
+     *
+     * @param v the destination vertex
+     * @return the length of a shortest path from the source vertex <tt>s</tt> to vertex <tt>v</tt>;
+     * <tt>Double.POSITIVE_INFINITY</tt> if no such path
+     */
+    public double distTo(int v) {
+        return distTo[v];
+    }
+
+    // Is there a path from the source vertex s to vertex v?
+    public boolean hasPathTo(int v) {
+        return distTo[v] < Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Returns a shortest path from the source vertex <tt>s</tt> to vertex <tt>v</tt>.
+     *
+     * @param v the destination vertex
+     * @return a shortest path from the source vertex <tt>s</tt> to vertex <tt>v</tt>
+     * as an iterable of edges, and <tt>null</tt> if no such path
+     */
+    public Iterable<DirectedEdge> pathTo(int v) {
+        if (!hasPathTo(v)) return null;
+        Stack<DirectedEdge> path = new Stack<>();
+        for (int e = last.get(v); e != -1; e = last.get(G.from(e))) path.push(G.edge(e));
+        return path;
+    }
+
+    // Returns the width of the buckets
+    public double delta() {
+        return delta;
+    }
+
+    // Returns the number of phases, each a parallel relaxation of the light or heavy edges of some vertices
+    public int phases() {
+        return phases;
+    }
+
+    /**
+     * Prints the shortest paths from 0 in tinyEWD and checks every source against
+     * {@link DijkstraSP}, then times both on a random digraph, for several widths of
+     * bucket, checking that the distances are the same and that every path found
+     * has the length of its distance.
+     * Arguments: V (default 1000000), edges per vertex (default 8), threads (default: the common pool).
+     */
+    public static void main(String[] args) throws FileNotFoundException {
+        In in = new In(new Scanner(new File("src/graph/tinyEWD.txt")));
+        EdgeWeightedDigraph tiny = new EdgeWeightedDigraph(in);
+        for (int s = 0; s < tiny.V(); s++) {
+            DijkstraSP sp = new DijkstraSP(tiny, s);
+            DeltaSteppingSP ds = new DeltaSteppingSP(tiny, s);
+            for (int t = 0; t < tiny.V(); t++)
+                if (sp.distTo(t) != ds.distTo(t)) throw new AssertionError(s + " to " + t);
+        }
+        DeltaSteppingSP sp = new DeltaSteppingSP(tiny, 0);
+        for (int t = 0; t < tiny.V(); t++) {
+            if (sp.hasPathTo(t)) {
+                System.out.printf("%d to %d (%.2f)   ", 0, t, sp.distTo(t));
+                for (DirectedEdge e : sp.pathTo(t)) System.out.print(e + "   ");
+                System.out.println();
+            } else System.out.printf("%d to %d         no path\n", 0, t);
+        }
+
+        // weights so small that 1.0 + weight = 1.0 both ways between 0 and 1
+        EdgeWeightedDigraph tied = new EdgeWeightedDigraph(4);
+        tied.addEdge(new DirectedEdge(3, 0, 1.0));
+        tied.addEdge(new DirectedEdge(3, 1, 1.0));
+        tied.addEdge(new DirectedEdge(0, 1, 1e-20));
+        tied.addEdge(new DirectedEdge(1, 0, 1e-20));
+        DeltaSteppingSP ds3 = new DeltaSteppingSP(tied, 3);
+        for (int t = 0; t < 2; t++) {
+            int edges = 0;
+            for (DirectedEdge e : ds3.pathTo(t)) edges++;
+            if (edges != 1) throw new AssertionError("path from 3 to " + t + " has " + edges + " edges");
+        }
+
+        int V = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        int edgeFactor = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        ForkJoinPool pool = args.length > 2 ? new ForkJoinPool(Integer.parseInt(args[2])) : ForkJoinPool.commonPool();
+        int E = V * edgeFactor;
+        Random random = new Random(42);
+        int[] from = new int[E], to = new int[E];
+        double[] weight = new double[E];
+        for (int i = 0; i < E; i++) {
+            from[i] = random.nextInt(V);
+            to[i] = random.nextInt(V);
+            weight[i] = random.nextDouble();
+        }
+        CSREdgeWeightedDigraph G = new CSREdgeWeightedDigraph(V, from, to, weight);
+        System.out.printf("random digraph: %d vertices, %d edges, %d threads%n", V, E, pool.getParallelism());
+        double[] deltas = {1.0 / (4 * edgeFactor), 1.0 / edgeFactor, 4.0 / edgeFactor, 1.0};
+        for (int round = 0; round < 3; round++) {
+            int s = random.nextInt(V);
+            long start = System.nanoTime();
+            DijkstraSP dijkstra = new DijkstraSP(G, s);
+            System.out.printf("DijkstraSP %7.1f ms", (System.nanoTime() - start) / 1e6);
+            for (double delta : deltas) {
+                start = System.nanoTime();
+                DeltaSteppingSP ds = new DeltaSteppingSP(G, s, delta, pool);
+                long t = System.nanoTime() - start;
+                for (int v = 0; v < V; v++)
+                    if (dijkstra.distTo(v) != ds.distTo(v)) throw new AssertionError("distances differ at " + v);
+                System.out.printf(";  delta %.3f: %7.1f ms, %5d phases", delta, t / 1e6, ds.phases());
+            }
+            System.out.println();
+        }
+        DeltaSteppingSP ds = new DeltaSteppingSP(G, 0, 1.0 / edgeFactor, pool);
+        for (int t = 0; t < V; t += 997) {
+            if (!ds.hasPathTo(t)) continue;
+            double length = 0.0;
+            for (DirectedEdge e : ds.pathTo(t)) length += e.weight();
+            if (Math.abs(length - ds.distTo(t)) > 1e-9) throw new AssertionError("path to " + t);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package graph.shortest_path;
 
+import data_structure.DoubleIndexMinPQ;
 import data_structure.IndexMinPQ;
 import helper.In;
 
@@ -26,6 +27,8 @@ public class DijkstraSP {
     private double[] distTo;  // distTo[v] = distance of shortest s->v path
     private DirectedEdge[] edgeTo;  // edgeTo[v] = last edge on shortest s->v path
     private IndexMinPQ<Double> pq;  // priority queue of vertices
+    private CSREdgeWeightedDigraph csr;  // the digraph, when searching a CSR digraph
+    private int[] edgeIndex;  // edgeIndex[v] = index in csr of last edge on shortest s->v path
 
     /**
      * Computes a shortest paths tree from <tt>s</tt> to every other vertex in
@@ -56,6 +59,49 @@ public class DijkstraSP {
         }
     }
 
+    /**
+     * Computes a shortest paths tree from <tt>s</tt> to every other vertex in
+     * the CSR edge-weighted digraph <tt>G</tt>. The search keeps edge indices
+     * and primitive keys, so it allocates nothing per edge;
+     * {@link DirectedEdge} objects are only created by <tt>pathTo()</tt>.
+     *
+     * @param G the edge-weighted digraph
+     * @param s the source vertex
+     * @throws IllegalArgumentException if an edge weight is negative
+     * @throws IndexOutOfBoundsException unless 0 &le; <tt>s</tt> &le; <tt>V</tt> - 1
+     */
+    public DijkstraSP(CSREdgeWeightedDigraph G, int s) {
+        for (int e = 0; e < G.E(); e++)
+            if (G.weight(e) < 0)
+                throw new IllegalArgumentException("edge " + G.edge(e) + " has negative weight");
+
+        csr = G;
+        distTo = new double[G.V()];
+        edgeIndex = new int[G.V()];
+        for (int v = 0; v < G.V(); v++) {
+            distTo[v] = Double.POSITIVE_INFINITY;
+            edgeIndex[v] = -1;
+        }
+        distTo[s] = 0.0;
+
+        // relax vertices in order of distance from s
+        DoubleIndexMinPQ pq = new DoubleIndexMinPQ(G.V());
+        pq.insert(s, distTo[s]);
+        while (!pq.isEmpty()) {
+            int v = pq.delMin();
+            for (int e = G.begin(v); e < G.end(v); e++) {
+                int w = G.to(e);
+                double dist = distTo[v] + G.weight(e);
+                if (distTo[w] > dist) {
+                    distTo[w] = dist;
+                    edgeIndex[w] = e;
+                    if (pq.contains(w)) pq.decreaseKey(w, dist);
+                    else pq.insert(w, dist);
+                }
+            }
+        }
+    }
+
     // relax edge e and update pq if changed
     private void relax(DirectedEdge e) {
         int v = e.from(), w = e.to();
@@ -99,6 +145,10 @@ public class DijkstraSP {
     public Iterable<DirectedEdge> pathTo(int v) {
         if (!hasPathTo(v)) return null;
         Stack<DirectedEdge> path = new Stack<>();
+        if (csr != null) {
+            for (int e = edgeIndex[v]; e != -1; e = edgeIndex[csr.from(e)]) path.push(csr.edge(e));
+            return path;
+        }
         for (DirectedEdge e = edgeTo[v]; e != null; e = edgeTo[e.from()]) path.push(e);
         return path;
     }
@@ -0,0 +1,217 @@
+package graph.shortest_path;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The <tt>DistanceMatrix</tt> class computes the lengths of the shortest paths from
+ * each of a list of sources to each of a list of targets in an edge-weighted digraph
+ * with non-negative weights, using all the threads of a fork-join pool.
+ * The distances are stored row by row in one array of doubles: the distance from
+ * <tt>sources[i]</tt> to <tt>targets[j]</tt> is <tt>matrix()[i * columns() + j]</tt>.
+ * <p/>
+ * This implementation runs one Dijkstra search per source, split among tasks. The digraph
+ * is checked once, by an {@link SPQueryEngine}, and each task checks out an
+ * {@link SPWorkspace} from it for all its rows, so a search allocates nothing and
+ * costs time proportional to what it touches. A search writes the distance of each
+ * target into the matrix as it settles it, and if asked stops once every target is
+ * settled; when the targets are near the sources that is a small part of the digraph.
+ * The constructor takes time proportional to <em>S</em> <em>E</em> log <em>V</em> in the
+ * worst case, divided among the threads, and space proportional to <em>S</em> <em>T</em>
+ * plus <em>V</em> per thread, for <em>S</em> sources and <em>T</em> targets.
+ * <p/>
+ */
+public class DistanceMatrix {
+    private final SPQueryEngine engine;
+    private final CSREdgeWeightedDigraph G;
+    private final int[] sources, targets;
+    private final boolean stopAtTargets;
+    private final int[] first;        // first[v] = first column whose target is v, or -1
+    private final int[] next;         // next[j] = next column with the same target as column j, or -1
+    private final int distinct;       // number of different targets
+    private final double[] matrix;    // matrix[i * T + j] = distance from sources[i] to targets[j]
+    private final AtomicLong settled = new AtomicLong();
+    private final long nanos;
+
+    // Computes the distances in the common fork-join pool, stopping each search once all targets are settled
+    public DistanceMatrix(EdgeWeightedDigraph G, int[] sources, int[] targets) {
+        this(new SPQueryEngine(G), sources, targets, true, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Computes the distances from every source to every target.
+     *
+     * @param engine        the query engine of the digraph
+     * @param sources       the sources, one per row
+     * @param targets       the targets, one per column
+     * @param stopAtTargets whether a search stops once all the targets are settled
+     * @param pool          the fork-join pool
+     * @throws IllegalArgumentException  if an edge weight is negative
+     * @throws IndexOutOfBoundsException if a source or target is not between 0 and <tt>V</tt> - 1
+     */
+    public DistanceMatrix(SPQueryEngine engine, int[] sources, int[] targets, boolean stopAtTargets, ForkJoinPool pool) {
+        if (engine.hasNegativeWeight()) throw new IllegalArgumentException("the digraph has a negative weight");
+        this.engine = engine;
+        this.G = engine.digraph();
+        this.sources = sources.clone();
+        this.targets = targets.clone();
+        this.stopAtTargets = stopAtTargets;
+        for (int s : sources) validateVertex(s);
+        first = new int[G.V()];
+        next = new int[targets.length];
+        for (int v = 0; v < G.V(); v++) first[v] = -1;
+        int distinct = 0;
+        for (int j = targets.length - 1; j >= 0; j--) {
+            validateVertex(targets[j]);
+            if (first[targets[j]] == -1) distinct++;
+            next[j] = first[targets[j]];
+            first[targets[j]] = j;
+        }
+        this.distinct = distinct;
+        matrix = new double[sources.length * targets.length];
+
+        long start = System.nanoTime();
+        pool.invoke(new Rows(0, sources.length));
+        nanos = System.nanoTime() - start;
+    }
+
+    private void validateVertex(int v) {
+        if (v < 0 || v >= G.V()) throw new IndexOutOfBoundsException("vertex " + v + " is not between 0 and " + (G.V() - 1));
+    }
+
+    // compute rows lo..hi-1, one at a time per task, in a workspace per task
+    @SuppressWarnings("serial")
+    private class Rows extends RecursiveAction {
+        private final int lo, hi;
+
+        Rows(int lo, int hi) {
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo > 1) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new Rows(lo, mid), new Rows(mid, hi));
+                return;
+            }
+            SPWorkspace ws = engine.acquire();
+            try {
+                for (int i = lo; i < hi; i++) row(i, ws);
+            } finally {
+                engine.release(ws);
+            }
+        }
+    }
+
+    // Dijkstra from sources[i], until all the targets are settled if asked
+    private void row(int i, SPWorkspace ws) {
+        int T = targets.length;
+        for (int j = 0; j < T; j++) matrix[i * T + j] = Double.POSITIVE_INFINITY;
+        ws.reset();
+        ws.reach(sources[i], 0.0, -1, 0.0);
+        int left = distinct, count = 0;
+        while (!ws.pq.isEmpty()) {
+            int v = ws.settle();
+            count++;
+            if (first[v] != -1) {
+                for (int j = first[v]; j != -1; j = next[j]) matrix[i * T + j] = ws.dist[v];
+                if (--left == 0 && stopAtTargets) break;
+            }
+            for (int e = G.begin(v); e < G.end(v); e++) {
+                int w = G.to(e);
+                double d = ws.dist[v] + G.weight(e);
+                if (d < ws.dist(w)) ws.reach(w, d, e, 0.0);
+            }
+        }
+        settled.addAndGet(count);
+    }
+
+    // Returns the number of sources, or rows
+    public int rows() {
+        return sources.length;
+    }
+
+    // Returns the number of targets, or columns
+    public int columns() {
+        return targets.length;
+    }
+
+    /**
+     * Returns the length of a shortest path from <tt>sources[i]</tt> to <tt>targets[j]</tt>.
+     *
+     * @return the length, or <tt>Double.POSITIVE_INFINITY</tt> if there is no path
+     * @throws IndexOutOfBoundsException unless 0 &le; <tt>i</tt> &lt; <tt>rows()</tt> and 0 &le; <tt>j</tt> &lt; <tt>columns()</tt>
+     */
+    public double distance(int i, int j) {
+        if (i < 0 || i >= sources.length || j < 0 || j >= targets.length)
+            throw new IndexOutOfBoundsException("(" + i + ", " + j + ") is not in the matrix");
+        return matrix[i * targets.length + j];
+    }
+
+    // Returns the distances row by row; the array is not copied, and must not be changed
+    public double[] matrix() {
+        return matrix;
+    }
+
+    // Returns the number of vertices settled by all the searches
+    public long settled() {
+        return settled.get();
+    }
+
+    // Returns the time the searches took, in seconds
+    public double seconds() {
+        return nanos / 1e9;
+    }
+
+    /**
+     * Computes matrices between random vertices of a grid with random real weights,
+     * and between random vertices of a block in its middle, with and without stopping
+     * at the targets. Checks a sample of rows against {@link DijkstraSP}, and reports
+     * the throughput of each way.
+     * Arguments: grid side (default 300), sources and targets (default 200),
+     * threads (default: the common pool).
+     */
+    public static void main(String[] args) {
+        int side = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+        int n = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        ForkJoinPool pool = args.length > 2 ? new ForkJoinPool(Integer.parseInt(args[2])) : ForkJoinPool.commonPool();
+        EdgeWeightedDigraph G = PointToPointSP.grid(side, side, 42, false);
+        long start = System.nanoTime();
+        SPQueryEngine engine = new SPQueryEngine(G);
+        System.out.printf("%d x %d grid: %d vertices, %d edges, %d threads; engine built in %.1f ms%n",
+                side, side, G.V(), G.E(), pool.getParallelism(), (System.nanoTime() - start) / 1e6);
+
+        Random random = new Random(1);
+        for (int block : new int[]{side, side / 10}) {
+            // sources and targets in the block of that side in the middle of the grid
+            int[] sources = new int[n], targets = new int[n];
+            int corner = (side - block) / 2 * (side + 1);
+            for (int i = 0; i < n; i++) {
+                sources[i] = corner + random.nextInt(block) * side + random.nextInt(block);
+                targets[i] = corner + random.nextInt(block) * side + random.nextInt(block);
+            }
+            System.out.printf("%d sources and targets in a %d x %d block%n", n, block, block);
+
+            int sample = Math.min(n, 20);
+            start = System.nanoTime();
+            DijkstraSP[] sp = new DijkstraSP[sample];
+            for (int i = 0; i < sample; i++) sp[i] = new DijkstraSP(G, sources[i]);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("  DijkstraSP, %d sources: %8.1f sources/s%n", sample, sample / seconds);
+
+            for (boolean stop : new boolean[]{false, true}) {
+                DistanceMatrix matrix = new DistanceMatrix(engine, sources, targets, stop, pool);
+                for (int i = 0; i < sample; i++)
+                    for (int j = 0; j < n; j++)
+                        if (matrix.distance(i, j) != sp[i].distTo(targets[j])) throw new AssertionError(i + ", " + j);
+                System.out.printf("  %s %6.2f s: %8.1f sources/s, %10.0f distances/s, %6.1f M vertices settled/s%n",
+                        stop ? "stop at targets:" : "full searches:  ", matrix.seconds(), n / matrix.seconds(),
+                        (double) n * n / matrix.seconds(), matrix.settled() / matrix.seconds() / 1e6);
+            }
+        }
+    }
+}
@@ -5,6 +5,7 @@ import helper.In;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.util.Iterator;
 import java.util.Scanner;
 import java.util.Stack;
 
@@ -36,22 +37,39 @@ public class EdgeWeightedDirectedCycle {
         marked = new boolean[G.V()];
         onStack = new boolean[G.V()];
         edgeTo = new DirectedEdge[G.V()];
-        for (int v = 0; v < G.V(); v++) if (!marked[v]) dfs(G, v);
+        int[] stack = new int[G.V()];
+        @SuppressWarnings("unchecked")
+        Iterator<DirectedEdge>[] next = (Iterator<DirectedEdge>[]) new Iterator<?>[G.V()];
+        for (int v = 0; v < G.V() && cycle == null; v++) if (!marked[v]) dfs(G, v, stack, next);
     }
 
-    private void dfs(EdgeWeightedDigraph G, int v) {
-        onStack[v] = true;
-        marked[v] = true;
-        for (DirectedEdge e : G.adj(v)) {
+    // depth-first search from s, with an explicit stack in place of recursion; the
+    // vertices on stack[] are those with onStack[] set, and next[v] iterates over
+    // the edges leaving v that are still to be checked
+    private void dfs(EdgeWeightedDigraph G, int s, int[] stack, Iterator<DirectedEdge>[] next) {
+        int top = 0;
+        marked[s] = true;
+        onStack[s] = true;
+        next[s] = G.adj(s).iterator();
+        stack[top++] = s;
+        while (top > 0) {
+            int v = stack[top - 1];
+            if (!next[v].hasNext()) {
+                next[v] = null;
+                onStack[v] = false;
+                top--;
+                continue;
+            }
+            DirectedEdge e = next[v].next();
             int w = e.to();
 
-            // short circuit if directed cycle found
-            if (cycle != null) return;
-
-                // found new vertex, so recur
-            else if (!marked[w]) {
+            // found new vertex, so descend
+            if (!marked[w]) {
                 edgeTo[w] = e;
-                dfs(G, w);
+                marked[w] = true;
+                onStack[w] = true;
+                next[w] = G.adj(w).iterator();
+                stack[top++] = w;
             }
 
             // trace back directed cycle
@@ -62,9 +80,9 @@ public class EdgeWeightedDirectedCycle {
                     e = edgeTo[e.from()];
                 }
                 cycle.push(e);
+                return;
             }
         }
-        onStack[v] = false;
     }
 
     // Does the edge-weighted graph have a directed cycle?
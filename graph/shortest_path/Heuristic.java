@@ -0,0 +1,15 @@
+package graph.shortest_path;
+
+/**
+ * A lower bound on shortest-path distances, to guide an A* search toward its target.
+ * The bound must never overestimate (be <em>admissible</em>) for the path found to be
+ * a shortest one; if it is also <em>consistent</em>, that is
+ * <tt>lowerBound(v, t) &le; weight(v-&gt;w) + lowerBound(w, t)</tt> for every edge,
+ * the search never settles a vertex twice.
+ * <tt>Double.POSITIVE_INFINITY</tt> means that <em>t</em> cannot be reached from <em>v</em>.
+ */
+public interface Heuristic {
+
+    // Returns a lower bound on the length of a shortest path from v to t.
+    double lowerBound(int v, int t);
+}
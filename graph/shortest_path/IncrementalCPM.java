@@ -0,0 +1,398 @@
+package graph.shortest_path;
+
+import data_structure.DoubleIndexMinPQ;
+import data_structure.IndexMaxPQ;
+import data_structure.IntBag;
+import data_structure.LinkedStack;
+import graph.directed_graph.Digraph;
+import graph.directed_graph.OnlineTopological;
+import helper.In;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.Random;
+import java.util.Scanner;
+
+/**
+ * The <tt>IncrementalCPM</tt> class solves the parallel precedence-constrained job
+ * scheduling problem as {@link CPM} does, and keeps the schedule up to date as the
+ * durations of the jobs and the precedence constraints change, recomputing only the
+ * jobs that a change affects. For each job it gives the earliest start, the latest
+ * start that does not delay the finish time, and the slack between them; the jobs
+ * without slack are critical, and a chain of them is a critical path.
+ * <p/>
+ * This implementation works on the jobs directly rather than on the 2<em>N</em> + 2
+ * vertex digraph of {@link CPM}, in an {@link OnlineTopological}, which keeps a
+ * topological order of the jobs as precedences are added, and refuses one that would
+ * make a cycle. The start of a job is the longest path to it, and its tail the longest
+ * path from it, its own duration included; the latest start is the finish time less
+ * the tail. After a change the starts are recomputed downstream of it, in topological
+ * order with a priority queue of the positions, stopping where a start does not
+ * change; the tails the same way upstream. The finish time, the latest of the
+ * finishes, is kept in an {@link IndexMaxPQ}.
+ * <p/>
+ * A change takes time proportional to the degrees of the jobs it affects, log <em>N</em>
+ * each, and <em>N</em> + <em>E</em> in the worst case.
+ * <p/>
+ */
+public class IncrementalCPM {
+    // slack less than this part of the finish time is rounding, not slack
+    private static final double EPSILON = 1e-12;
+
+    private final int N;
+    private final double[] duration;
+    private final OnlineTopological dag;  // edge i->j: job i finishes before job j starts
+    private final double[] start;         // start[j] = earliest start of job j
+    private final double[] tail;          // tail[j] = longest time from the start of j to the end
+    private final IndexMaxPQ<Double> finish;
+
+    // work space of the changes
+    private final DoubleIndexMinPQ forward, backward;  // jobs to recompute, by position and reverse position
+    private int touched;                  // jobs recomputed by the last change
+
+    // Initializes N jobs of duration 0, without precedence constraints
+    public IncrementalCPM(int N) {
+        this(new double[N], new int[N][0]);
+    }
+
+    /**
+     * Initializes the jobs with the given durations, and precedence constraints that
+     * job <tt>j</tt> finishes before each job of <tt>successors[j]</tt> starts.
+     *
+     * @param duration   the durations of the jobs
+     * @param successors successors[j] = the jobs that start after job j finishes
+     * @throws IllegalArgumentException if a duration is negative or NaN, or if the
+     *                                  precedence constraints have a cycle
+     */
+    public IncrementalCPM(double[] duration, int[][] successors) {
+        N = duration.length;
+        if (successors.length != N) throw new IllegalArgumentException("Need the successors of every job");
+        this.duration = new double[N];
+        Digraph G = new Digraph(N);
+        for (int j = 0; j < N; j++) {
+            validateDuration(duration[j]);
+            this.duration[j] = duration[j];
+            for (int s : successors[j]) {
+                validateJob(s);
+                G.addEdge(j, s);
+            }
+        }
+        dag = new OnlineTopological(G);
+        start = new double[N];
+        tail = new double[N];
+        finish = new IndexMaxPQ<>(Math.max(N, 1));
+        forward = new DoubleIndexMinPQ(Math.max(N, 1));
+        backward = new DoubleIndexMinPQ(Math.max(N, 1));
+
+        // the starts in topological order, then the tails in reverse
+        int[] order = new int[N];
+        int k = 0;
+        for (int j : dag.order()) order[k++] = j;
+        for (int j : order) {
+            start[j] = earliestStart(j);
+            finish.insert(j, start[j] + this.duration[j]);
+        }
+        for (k = N - 1; k >= 0; k--) tail[order[k]] = longestTail(order[k]);
+    }
+
+    private void validateJob(int j) {
+        if (j < 0 || j >= N) throw new IndexOutOfBoundsException("job " + j + " is not between 0 and " + (N - 1));
+    }
+
+    private static void validateDuration(double d) {
+        if (!(d >= 0) || Double.isInfinite(d)) throw new IllegalArgumentException("duration " + d + " is negative or not finite");
+    }
+
+    // the latest finish of the predecessors of j
+    private double earliestStart(int j) {
+        double s = 0.0;
+        IntBag pred = dag.reverseAdj(j);
+        for (int k = 0; k < pred.size(); k++) {
+            int p = pred.get(k);
+            if (start[p] + duration[p] > s) s = start[p] + duration[p];
+        }
+        return s;
+    }
+
+    // the duration of j and the longest tail of its successors
+    private double longestTail(int j) {
+        double t = 0.0;
+        IntBag succ = dag.adj(j);
+        for (int k = 0; k < succ.size(); k++) t = Math.max(t, tail[succ.get(k)]);
+        return duration[j] + t;
+    }
+
+    /**
+     * Changes the duration of job <tt>j</tt>.
+     *
+     * @throws IllegalArgumentException  if <tt>d</tt> is negative or not finite
+     * @throws IndexOutOfBoundsException unless 0 &le; <tt>j</tt> &lt; <tt>N</tt>
+     */
+    public void setDuration(int j, double d) {
+        validateJob(j);
+        validateDuration(d);
+        duration[j] = d;
+        touched = 0;
+        finish.changeKey(j, start[j] + d);
+        IntBag succ = dag.adj(j);
+        for (int k = 0; k < succ.size(); k++) later(succ.get(k));
+        earlier(j);
+        propagate();
+    }
+
+    /**
+     * Adds the constraint that job <tt>i</tt> finishes before job <tt>j</tt> starts.
+     *
+     * @throws IllegalArgumentException  if that makes a cycle of constraints, which
+     *                                   leaves the schedule as it was
+     * @throws IndexOutOfBoundsException unless both jobs are between 0 and <tt>N</tt> - 1
+     */
+    public void addPrecedence(int i, int j) {
+        validateJob(i);
+        validateJob(j);
+        if (i == j) throw new IllegalArgumentException("job " + i + " cannot precede itself");
+        touched = 0;
+        if (!dag.addEdge(i, j)) throw new IllegalArgumentException("job " + i + " before job " + j + " makes a cycle");
+        later(j);
+        earlier(i);
+        propagate();
+    }
+
+    /**
+     * Removes one constraint that job <tt>i</tt> finishes before job <tt>j</tt> starts.
+     *
+     * @return true if there was such a constraint; false otherwise
+     * @throws IndexOutOfBoundsException unless both jobs are between 0 and <tt>N</tt> - 1
+     */
+    public boolean removePrecedence(int i, int j) {
+        validateJob(i);
+        validateJob(j);
+        touched = 0;
+        if (!dag.removeEdge(i, j)) return false;
+        later(j);
+        earlier(i);
+        propagate();
+        return true;
+    }
+
+    // the start of j has to be recomputed
+    private void later(int j) {
+        if (!forward.contains(j)) forward.insert(j, dag.rank(j));
+    }
+
+    // the tail of j has to be recomputed
+    private void earlier(int j) {
+        if (!backward.contains(j)) backward.insert(j, -dag.rank(j));
+    }
+
+    // recompute the starts in topological order, and the tails in reverse order, as far as they change
+    private void propagate() {
+        while (!forward.isEmpty()) {
+            int j = forward.delMin();
+            touched++;
+            double s = earliestStart(j);
+            if (s == start[j]) continue;
+            start[j] = s;
+            finish.changeKey(j, s + duration[j]);
+            IntBag succ = dag.adj(j);
+            for (int k = 0; k < succ.size(); k++) later(succ.get(k));
+        }
+        while (!backward.isEmpty()) {
+            int j = backward.delMin();
+            touched++;
+            double t = longestTail(j);
+            if (t == tail[j]) continue;
+            tail[j] = t;
+            IntBag pred = dag.reverseAdj(j);
+            for (int k = 0; k < pred.size(); k++) earlier(pred.get(k));
+        }
+    }
+
+    /**
+     * Reads the jobs from an input stream in the format of jobsPC.txt: the number of
+     * jobs, then for each job its duration, the number of jobs that must start after
+     * it finishes and those jobs.
+     *
+     * @param in the input stream
+     * @return the schedule of the jobs
+     */
+    public static IncrementalCPM read(In in) {
+        int N = in.readInt();
+        double[] duration = new double[N];
+        int[][] successors = new int[N][];
+        for (int j = 0; j < N; j++) {
+            duration[j] = in.readDouble();
+            successors[j] = new int[in.readInt()];
+            for (int k = 0; k < successors[j].length; k++) successors[j][k] = in.readInt();
+        }
+        return new IncrementalCPM(duration, successors);
+    }
+
+    // Returns the number of jobs
+    public int N() {
+        return N;
+    }
+
+    // Returns the duration of job j
+    public double duration(int j) {
+        validateJob(j);
+        return duration[j];
+    }
+
+    // Returns the earliest start of job j
+    public double start(int j) {
+        validateJob(j);
+        return start[j];
+    }
+
+    // Returns the earliest finish of job j
+    public double finish(int j) {
+        validateJob(j);
+        return start[j] + duration[j];
+    }
+
+    // Returns the latest start of job j that does not delay the finish time
+    public double latestStart(int j) {
+        validateJob(j);
+        return finishTime() - tail[j];
+    }
+
+    // Returns how much job j can be delayed without delaying the finish time
+    public double slack(int j) {
+        validateJob(j);
+        return Math.max(0.0, finishTime() - start[j] - tail[j]);
+    }
+
+    // Is job j on a critical path?
+    public boolean isCritical(int j) {
+        return slack(j) <= EPSILON * finishTime();
+    }
+
+    // Returns the time when all the jobs are finished
+    public double finishTime() {
+        return N == 0 ? 0.0 : finish.maxKey();
+    }
+
+    // Returns a chain of critical jobs, each starting when the one before finishes, from time 0 to the finish time
+    public Iterable<Integer> criticalPath() {
+        LinkedStack<Integer> path = new LinkedStack<>();
+        if (N == 0) return path;
+        int j = finish.maxIndex();
+        path.push(j);
+        while (start[j] > 0.0) {
+            IntBag pred = dag.reverseAdj(j);
+            for (int k = 0; k < pred.size(); k++) {
+                int p = pred.get(k);
+                if (start[p] + duration[p] == start[j]) {
+                    j = p;
+                    break;
+                }
+            }
+            path.push(j);
+        }
+        return path;
+    }
+
+    // Returns the number of jobs recomputed by the last change
+    public int touched() {
+        return touched;
+    }
+
+    /**
+     * Prints the schedule of jobsPC.txt with the slack of each job and a critical path,
+     * and again after a critical job takes longer. Then makes random changes to a
+     * random schedule: durations, and precedences added, some making cycles, and
+     * removed; checks 50 times along the way, and at least once at the end, against
+     * {@link AcyclicLP} on the digraph of {@link CPM}, and times both.
+     * Arguments: jobs (default 100000), changes (default 100000).
+     */
+    public static void main(String[] args) throws FileNotFoundException {
+        IncrementalCPM cpm = read(new In(new Scanner(new File("src/graph/jobsPC.txt"))));
+        print(cpm);
+        int j = cpm.criticalPath().iterator().next();
+        cpm.setDuration(j, cpm.duration(j) + 10.0);
+        System.out.printf("%nJob %d takes 10 more (%d jobs recomputed)%n", j, cpm.touched());
+        print(cpm);
+
+        int N = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        int M = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+        // each job precedes up to 3 of the next 1000
+        Random random = new Random(42);
+        double[] duration = new double[N];
+        int[][] successors = new int[N][];
+        for (int i = 0; i < N; i++) {
+            duration[i] = 1 + random.nextInt(100);
+            successors[i] = new int[Math.min(random.nextInt(4), N - 1 - i)];
+            for (int k = 0; k < successors[i].length; k++) successors[i][k] = i + 1 + random.nextInt(Math.min(1000, N - 1 - i));
+        }
+        long t = System.nanoTime();
+        cpm = new IncrementalCPM(duration, successors);
+        System.out.printf("%n%d jobs, built in %.1f ms, finish time %.1f%n", N, (System.nanoTime() - t) / 1e6, cpm.finishTime());
+
+        long nanos = 0, full = 0, touched = 0;
+        int cycles = 0, checks = 0;
+        int every = Math.max(1, M / 50);
+        for (int m = 1; m <= M; m++) {
+            int op = random.nextInt(10), a = random.nextInt(N), b = random.nextInt(N);
+            t = System.nanoTime();
+            if (op < 8) {
+                cpm.setDuration(a, 1 + random.nextInt(100));
+            } else if (op == 8) {
+                // a nearby precedence, either way round
+                b = Math.min(N - 1, Math.max(0, a + random.nextInt(2001) - 1000));
+                try {
+                    if (a != b) cpm.addPrecedence(a, b);
+                } catch (IllegalArgumentException e) {
+                    cycles++;
+                }
+            } else if (cpm.dag.adj(a).size() > 0) {
+                cpm.removePrecedence(a, cpm.dag.adj(a).get(0));
+            }
+            nanos += System.nanoTime() - t;
+            touched += cpm.touched();
+
+            if (m % every == 0) {
+                full += check(cpm, m);
+                checks++;
+            }
+        }
+        if (checks == 0) {
+            full += check(cpm, M);
+            checks++;
+        }
+        System.out.printf("%d changes (%d refused, cycles): %.2f us per change, %.1f jobs recomputed per change%n",
+                M, cycles, nanos / 1e3 / Math.max(1, M), (double) touched / Math.max(1, M));
+        System.out.printf("full recompute with AcyclicLP: %.1f ms (%d checks agree), finish time %.1f%n",
+                full / 1e6 / checks, checks, cpm.finishTime());
+    }
+
+    // recompute the schedule with AcyclicLP and compare; returns the time that took
+    private static long check(IncrementalCPM cpm, int m) {
+        long t = System.nanoTime();
+        int N = cpm.N();
+        EdgeWeightedDigraph G = new EdgeWeightedDigraph(2 * N + 2);
+        for (int i = 0; i < N; i++) {
+            G.addEdge(new DirectedEdge(2 * N, i, 0));
+            G.addEdge(new DirectedEdge(i, i + N, cpm.duration(i)));
+            G.addEdge(new DirectedEdge(i + N, 2 * N + 1, 0));
+            for (int k = 0; k < cpm.dag.adj(i).size(); k++) G.addEdge(new DirectedEdge(i + N, cpm.dag.adj(i).get(k), 0));
+        }
+        AcyclicLP lp = new AcyclicLP(G, 2 * N);
+        t = System.nanoTime() - t;
+        if (lp.distTo(2 * N + 1) != cpm.finishTime()) throw new AssertionError("finish time after change " + m);
+        for (int i = 0; i < N; i++)
+            if (lp.distTo(i) != cpm.start(i)) throw new AssertionError("start of job " + i + " after change " + m);
+        return t;
+    }
+
+    private static void print(IncrementalCPM cpm) {
+        System.out.println(" job   start  finish   slack");
+        System.out.println("----------------------------");
+        for (int j = 0; j < cpm.N(); j++)
+            System.out.printf("%4d %7.1f %7.1f %7.1f%s\n", j, cpm.start(j), cpm.finish(j), cpm.slack(j), cpm.isCritical(j) ? "  critical" : "");
+        System.out.printf("Finish time: %7.1f\n", cpm.finishTime());
+        System.out.print("Critical path:");
+        for (int j : cpm.criticalPath()) System.out.print(" " + j);
+        System.out.println();
+    }
+}
@@ -0,0 +1,92 @@
+package graph.shortest_path;
+
+import java.util.Random;
+
+/**
+ * The <tt>Landmarks</tt> class is a {@link Heuristic} for A* search with
+ * landmarks and the triangle inequality (ALT), after Goldberg and Harrelson.
+ * For a few landmark vertices <em>L</em>, the distances from <em>L</em> to every
+ * vertex and from every vertex to <em>L</em> are computed beforehand; then
+ * for any <em>v</em> and <em>t</em>,
+ * <em>d</em>(<em>v</em>, <em>t</em>) &ge; <em>d</em>(<em>L</em>, <em>t</em>) - <em>d</em>(<em>L</em>, <em>v</em>)
+ * and <em>d</em>(<em>v</em>, <em>t</em>) &ge; <em>d</em>(<em>v</em>, <em>L</em>) - <em>d</em>(<em>t</em>, <em>L</em>),
+ * and the bound is the largest of these. It is consistent, and it is
+ * infinite where a landmark proves that <em>t</em> cannot be reached.
+ * <p/>
+ * The landmarks are chosen <em>farthest</em>-first: each new one is the vertex
+ * farthest from those already chosen, which puts them on the edges of the graph,
+ * behind the vertices they bound well.
+ * The constructor runs 2<em>k</em> full Dijkstra searches and uses
+ * 16<em>kV</em> bytes; <tt>lowerBound()</tt> takes time proportional to <em>k</em>.
+ * <p/>
+ */
+public class Landmarks implements Heuristic {
+    private final int[] landmarks;
+    private final double[][] from;  // from[i][v] = distance from landmark i to v
+    private final double[][] to;    // to[i][v] = distance from v to landmark i
+
+    // Chooses k landmarks farthest-first, starting from a random vertex, and computes their distances
+    public Landmarks(CSREdgeWeightedDigraph G, int k) {
+        this(G, G.reverse(), k, new Random(0).nextInt(Math.max(G.V(), 1)));
+    }
+
+    /**
+     * Chooses <tt>k</tt> landmarks farthest-first, starting with the vertex farthest
+     * from <tt>start</tt>, and computes their distances.
+     *
+     * @param G       the edge-weighted digraph, with non-negative weights
+     * @param reverse the reverse of <tt>G</tt>
+     * @param k       the number of landmarks
+     * @param start   the vertex the first landmark is farthest from
+     * @throws IllegalArgumentException unless 1 &le; <tt>k</tt> &le; <tt>V</tt>
+     */
+    public Landmarks(CSREdgeWeightedDigraph G, CSREdgeWeightedDigraph reverse, int k, int start) {
+        if (k < 1 || k > G.V()) throw new IllegalArgumentException("k must be between 1 and V");
+        int V = G.V();
+        landmarks = new int[k];
+        from = new double[k][];
+        to = new double[k][];
+
+        // nearest[v] = distance to v from the closest landmark so far, or from start at first
+        double[] nearest = distances(new DijkstraSP(G, start), V);
+        for (int i = 0; i < k; i++) {
+            int farthest = start;
+            for (int v = 0; v < V; v++)
+                if (nearest[v] < Double.POSITIVE_INFINITY && nearest[v] > nearest[farthest]) farthest = v;
+            landmarks[i] = farthest;
+            from[i] = distances(new DijkstraSP(G, farthest), V);
+            to[i] = distances(new DijkstraSP(reverse, farthest), V);
+            for (int v = 0; v < V; v++)
+                if (i == 0 || from[i][v] < nearest[v]) nearest[v] = from[i][v];
+        }
+    }
+
+    private static double[] distances(DijkstraSP sp, int V) {
+        double[] dist = new double[V];
+        for (int v = 0; v < V; v++) dist[v] = sp.distTo(v);
+        return dist;
+    }
+
+    // Returns the number of landmarks
+    public int size() {
+        return landmarks.length;
+    }
+
+    // Returns the i-th landmark
+    public int landmark(int i) {
+        return landmarks[i];
+    }
+
+    @Override
+    public double lowerBound(int v, int t) {
+        double bound = 0.0;
+        for (int i = 0; i < landmarks.length; i++) {
+            // an infinite difference is a proof that t is unreachable; NaN proves nothing and fails both tests
+            double b = from[i][t] - from[i][v];
+            if (b > bound) bound = b;
+            b = to[i][v] - to[i][t];
+            if (b > bound) bound = b;
+        }
+        return bound;
+    }
+}
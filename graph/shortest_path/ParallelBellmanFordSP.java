@@ -0,0 +1,347 @@
+package graph.shortest_path;
+
+import data_structure.LinkedStack;
+import helper.In;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.Random;
+import java.util.Scanner;
+import java.util.Stack;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The <tt>ParallelBellmanFordSP</tt> class represents a data type for solving the
+ * single-source shortest paths problem in edge-weighted digraphs, using all the
+ * threads of a fork-join pool, with the same API as {@link BellmanFordSP}: it finds
+ * either a shortest path from the source vertex <em>s</em> to every other vertex, or
+ * a negative cycle reachable from <em>s</em>. The distances are the same; where there
+ * are several shortest paths the one returned may differ.
+ * <p/>
+ * This implementation is the Bellman-Ford algorithm in rounds. Each round relaxes the
+ * edges leaving the vertices whose distance decreased in the round before, split among
+ * tasks, from the distances at the start of the round, with a compare-and-set minimum
+ * on the new distance of the head; a vertex that improves is claimed once for the next
+ * round with a compare-and-set. Then the last edge of each vertex that improved is
+ * chosen among the edges that give its new distance, the lowest numbered one, so the
+ * result does not depend on the order in which the tasks ran.
+ * <p/>
+ * After <em>k</em> rounds every distance is at most that of the shortest path of at
+ * most <em>k</em> edges, so without a negative cycle there are at most <em>V</em> - 1
+ * rounds, and a vertex improved in round <em>V</em> proves a negative cycle. As in
+ * {@link BellmanFordSP}, every <em>V</em> relaxations the tree of last edges is checked
+ * for a cycle, which is negative, but here by following the last edges in place, in
+ * time proportional to <em>V</em>, without copying them into a digraph.
+ * The constructor takes time proportional to <em>V</em> <em>E</em> in the worst case,
+ * divided among the threads, and extra space proportional to <em>V</em>.
+ * <p/>
+ */
+public class ParallelBellmanFordSP {
+    private static final int GRAIN = 512;    // vertices per task
+
+    private final CSREdgeWeightedDigraph G;
+    private final double[] distTo;           // distTo[v] = distance of shortest s->v path, at the start of a round
+    private final AtomicLongArray dist;      // bits of the distances found in this round
+    private final AtomicIntegerArray last;   // last[v] = last edge on shortest s->v path, or -1
+    private final AtomicIntegerArray claim;  // claim[v] = last round in which v improved
+    private int[] frontier;                  // the vertices that improved in the last round
+    private int[] next;                      // those that improve in this round
+    private final AtomicInteger nextSize = new AtomicInteger();
+    private int rounds;
+    private Iterable<DirectedEdge> cycle;    // negative cycle (or null if no such cycle)
+
+    // Computes shortest paths from s, or finds a negative cycle, in the common fork-join pool
+    public ParallelBellmanFordSP(EdgeWeightedDigraph G, int s) {
+        this(new CSREdgeWeightedDigraph(G), s, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Computes a shortest paths tree from <tt>s</tt> to every other vertex in the
+     * edge-weighted digraph <tt>G</tt>, or finds a negative cycle reachable from
+     * <tt>s</tt>, running the tasks in <tt>pool</tt>.
+     *
+     * @param G    the edge-weighted digraph
+     * @param s    the source vertex
+     * @param pool the fork-join pool
+     * @throws IndexOutOfBoundsException unless 0 &le; <tt>s</tt> &le; <tt>V</tt> - 1
+     */
+    public ParallelBellmanFordSP(CSREdgeWeightedDigraph G, int s, ForkJoinPool pool) {
+        int V = G.V();
+        if (s < 0 || s >= V) throw new IndexOutOfBoundsException("vertex " + s + " is not between 0 and " + (V - 1));
+        this.G = G;
+        distTo = new double[V];
+        dist = new AtomicLongArray(V);
+        last = new AtomicIntegerArray(V);
+        claim = new AtomicIntegerArray(V);
+        for (int v = 0; v < V; v++) {
+            distTo[v] = Double.POSITIVE_INFINITY;
+            dist.set(v, Double.doubleToLongBits(Double.POSITIVE_INFINITY));
+            last.set(v, -1);
+        }
+        distTo[s] = 0.0;
+        dist.set(s, Double.doubleToLongBits(0.0));
+        frontier = new int[V];
+        next = new int[V];
+        frontier[0] = s;
+        int n = 1;
+        long relaxed = 0;  // edges relaxed since the last check for a cycle
+
+        while (n > 0) {
+            rounds++;
+            nextSize.set(0);
+            pool.invoke(new Relax(0, n, false));
+            int m = nextSize.get();
+            pool.invoke(new Improved(0, m, false));
+            pool.invoke(new Relax(0, n, true));
+            pool.invoke(new Improved(0, m, true));
+            for (int i = 0; i < n; i++) relaxed += G.outdegree(frontier[i]);
+            int[] swap = frontier;
+            frontier = next;
+            next = swap;
+            n = m;
+            if (n > 0 && (relaxed >= V || rounds >= V)) {
+                relaxed = 0;
+                findNegativeCycle();
+                if (cycle != null) break;
+            }
+        }
+        frontier = next = null;
+    }
+
+    private double dist(int v) {
+        return Double.longBitsToDouble(dist.get(v));
+    }
+
+    // relax the edges leaving frontier[lo..hi-1]; or, once the new distances are known,
+    // offer each edge that gives one as the last edge of its head
+    @SuppressWarnings("serial")
+    private class Relax extends RecursiveAction {
+        private final int lo, hi;
+        private final boolean tight;
+
+        Relax(int lo, int hi, boolean tight) {
+            this.lo = lo;
+            this.hi = hi;
+            this.tight = tight;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo > GRAIN) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new Relax(lo, mid, tight), new Relax(mid, hi, tight));
+                return;
+            }
+            for (int i = lo; i < hi; i++) {
+                int v = frontier[i];
+                for (int e = G.begin(v); e < G.end(v); e++) {
+                    int w = G.to(e);
+                    double d = distTo[v] + G.weight(e);
+                    if (tight) {
+                        if (d == dist(w) && d < distTo[w]) offer(w, e);
+                    } else {
+                        relax(w, d);
+                    }
+                }
+            }
+        }
+    }
+
+    // lower the new distance of w to d if that is less, and claim w for the next round
+    private void relax(int w, double d) {
+        while (true) {
+            long bits = dist.get(w);
+            if (!(d < Double.longBitsToDouble(bits))) return;
+            if (dist.compareAndSet(w, bits, Double.doubleToLongBits(d))) break;
+        }
+        int c = claim.get(w);
+        if (c != rounds && claim.compareAndSet(w, c, rounds)) next[nextSize.getAndIncrement()] = w;
+    }
+
+    // make e the last edge of w, unless it has a lower numbered one; the old one was cleared
+    private void offer(int w, int e) {
+        while (true) {
+            int f = last.get(w);
+            if (f != -1 && f <= e) return;
+            if (last.compareAndSet(w, f, e)) return;
+        }
+    }
+
+    // for next[lo..hi-1]: clear the last edges before they are chosen, or afterwards
+    // make the new distances those of the next round
+    @SuppressWarnings("serial")
+    private class Improved extends RecursiveAction {
+        private final int lo, hi;
+        private final boolean commit;
+
+        Improved(int lo, int hi, boolean commit) {
+            this.lo = lo;
+            this.hi = hi;
+            this.commit = commit;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo > GRAIN) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new Improved(lo, mid, commit), new Improved(mid, hi, commit));
+                return;
+            }
+            for (int i = lo; i < hi; i++) {
+                int w = next[i];
+                if (commit) distTo[w] = dist(w);
+                else last.set(w, -1);
+            }
+        }
+    }
+
+    // by following the last edges from each vertex; a walk that comes back on itself has found a cycle
+    private void findNegativeCycle() {
+        int V = G.V();
+        int[] walk = new int[V];  // walk[v] = 1 + the walk that went through v, or 0
+        for (int v = 0; v < V && cycle == null; v++) {
+            int x = v;
+            while (walk[x] == 0 && last.get(x) != -1) {
+                walk[x] = v + 1;
+                x = G.from(last.get(x));
+            }
+            if (walk[x] != v + 1) continue;
+            // x is on a cycle of the walk from v
+            LinkedStack<DirectedEdge> cycle = new LinkedStack<>();
+            int y = x;
+            do {
+                cycle.push(G.edge(last.get(y)));
+                y = G.from(last.get(y));
+            } while (y != x);
+            this.cycle = cycle;
+        }
+    }
+
+    // Is there a negative cycle reachable from the source vertex s?
+    public boolean hasNegativeCycle() {
+        return cycle != null;
+    }
+
+    // Returns a negative cycle reachable from the source vertex s, or null if there is no such cycle
+    public Iterable<DirectedEdge> negativeCycle() {
+        return cycle;
+    }
+
+    /**
+     * Returns the length of a shortest path from the source vertex <tt>s</tt> to vertex <tt>v</tt>.
+     *
+     * @param v the destination vertex
+     * @return the length of a shortest path from the source vertex <tt>s</tt> to vertex <tt>v</tt>;
+     * <tt>Double.POSITIVE_INFINITY</tt> if no such path
+     * @throws UnsupportedOperationException if there is a negative cost cycle reachable
+     *                                       from the source vertex <tt>s</tt>
+     */
+    public double distTo(int v) {
+        if (hasNegativeCycle()) throw new UnsupportedOperationException("Negative cost cycle exists");
+        return distTo[v];
+    }
+
+    // Is there a path from the source s to vertex v?
+    public boolean hasPathTo(int v) {
+        return distTo(v) < Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Returns a shortest path from the source <tt>s</tt> to vertex <tt>v</tt>.
+     *
+     * @param v the destination vertex
+     * @return a shortest path from the source <tt>s</tt> to vertex <tt>v</tt>
+     * as an iterable of edges, and <tt>null</tt> if no such path
+     * @throws UnsupportedOperationException if there is a negative cost cycle reachable
+     *                                       from the source vertex <tt>s</tt>
+     */
+    public Iterable<DirectedEdge> pathTo(int v) {
+        if (hasNegativeCycle()) throw new UnsupportedOperationException("Negative cost cycle exists");
+        if (!hasPathTo(v)) return null;
+        Stack<DirectedEdge> path = new Stack<>();
+        for (int e = last.get(v); e != -1; e = last.get(G.from(e))) path.push(G.edge(e));
+        return path;
+    }
+
+    // Returns the number of rounds
+    public int rounds() {
+        return rounds;
+    }
+
+    /**
+     * Prints the shortest paths of tinyEWD.txt from vertex 0, then times this class
+     * against {@link BellmanFordSP} and {@link SPFA} on a large sparse digraph with
+     * negative weights but no negative cycle, and on the same with a negative cycle,
+     * checking that they agree.
+     * Arguments: V (default 500000), threads (default: the common pool).
+     */
+    public static void main(String[] args) throws FileNotFoundException {
+        In in = new In(new Scanner(new File("src/graph/tinyEWD.txt")));
+        EdgeWeightedDigraph tiny = new EdgeWeightedDigraph(in);
+        ParallelBellmanFordSP tinySP = new ParallelBellmanFordSP(tiny, 0);
+        for (int v = 0; v < tiny.V(); v++) {
+            System.out.printf("%d to %d (%5.2f)  ", 0, v, tinySP.distTo(v));
+            for (DirectedEdge e : tinySP.pathTo(v)) System.out.print(e + "  ");
+            System.out.println();
+        }
+
+        int V = args.length > 0 ? Integer.parseInt(args[0]) : 500000;
+        ForkJoinPool pool = args.length > 1 ? new ForkJoinPool(Integer.parseInt(args[1])) : ForkJoinPool.commonPool();
+        // negative weights from potentials: w(v->w) + p(v) - p(w), no negative cycle
+        Random random = new Random(42);
+        EdgeWeightedDigraph G = new EdgeWeightedDigraph(V);
+        double[] potential = new double[V];
+        for (int v = 0; v < V; v++) potential[v] = 10 * random.nextDouble();
+        for (int i = 0; i < 4 * V; i++) {
+            int v = random.nextInt(V), w = random.nextInt(V);
+            G.addEdge(new DirectedEdge(v, w, random.nextDouble() + potential[v] - potential[w]));
+        }
+        benchmark("sparse random digraph, negative weights", G, pool);
+        int v = random.nextInt(V), w = random.nextInt(V);
+        G.addEdge(new DirectedEdge(v, w, potential[v] - potential[w] - 0.5));
+        G.addEdge(new DirectedEdge(w, v, potential[w] - potential[v] - 0.5));
+        benchmark("the same with a negative cycle", G, pool);
+    }
+
+    private static void benchmark(String name, EdgeWeightedDigraph G, ForkJoinPool pool) {
+        CSREdgeWeightedDigraph csr = new CSREdgeWeightedDigraph(G);
+        System.out.printf("%s: %d vertices, %d edges, %d threads%n", name, G.V(), G.E(), pool.getParallelism());
+        long start = System.nanoTime();
+        BellmanFordSP bf = new BellmanFordSP(G, 0);
+        System.out.printf("  %-22s %8.1f ms%s%n", "BellmanFordSP", (System.nanoTime() - start) / 1e6,
+                bf.hasNegativeCycle() ? ", negative cycle" : "");
+        start = System.nanoTime();
+        SPFA spfa = new SPFA(G, 0);
+        System.out.printf("  %-22s %8.1f ms%s%n", "SPFA", (System.nanoTime() - start) / 1e6,
+                spfa.hasNegativeCycle() ? ", negative cycle" : "");
+        start = System.nanoTime();
+        ParallelBellmanFordSP sp = new ParallelBellmanFordSP(csr, 0, pool);
+        System.out.printf("  %-22s %8.1f ms, %d rounds%s%n", "ParallelBellmanFordSP", (System.nanoTime() - start) / 1e6,
+                sp.rounds(), sp.hasNegativeCycle() ? ", negative cycle" : "");
+
+        if (sp.hasNegativeCycle() != bf.hasNegativeCycle() || spfa.hasNegativeCycle() != bf.hasNegativeCycle())
+            throw new AssertionError("negative cycle");
+        if (sp.hasNegativeCycle()) {
+            double weight = 0.0;
+            int edges = 0;
+            for (DirectedEdge e : sp.negativeCycle()) {
+                weight += e.weight();
+                edges++;
+            }
+            if (!(weight < 0)) throw new AssertionError("cycle of weight " + weight);
+            System.out.printf("  negative cycle of %d edges, weight %.4f%n", edges, weight);
+        } else {
+            for (int v = 0; v < G.V(); v++) {
+                if (Math.abs(sp.distTo(v) - bf.distTo(v)) > 1e-9) throw new AssertionError("distance to " + v);
+                if (!sp.hasPathTo(v)) continue;
+                double length = 0.0;
+                for (DirectedEdge e : sp.pathTo(v)) length += e.weight();
+                if (Math.abs(length - sp.distTo(v)) > 1e-9) throw new AssertionError("path to " + v);
+            }
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package graph.shortest_path;
+
+import data_structure.LinkedStack;
+import helper.In;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.Random;
+import java.util.Scanner;
+
+/**
+ * The <tt>PointToPointSP</tt> class represents a query engine for shortest paths
+ * from a source <em>s</em> to a single target <em>t</em> in an edge-weighted digraph
+ * with non-negative weights. A query returns the distance, after which <tt>path()</tt>
+ * returns the path found and <tt>settled()</tt> the number of vertices the search
+ * took off its priority queue. There are three kinds of query:
+ * <ul>
+ * <li><tt>dijkstra(s, t)</tt>: Dijkstra's algorithm, stopped as soon as <em>t</em> is settled.</li>
+ * <li><tt>bidirectional(s, t)</tt>: two Dijkstra searches, forward from <em>s</em> and
+ * backward from <em>t</em> over the reverse digraph, each step taken by the one whose next
+ * vertex is closer. Every edge that joins the two gives a candidate path, and the search
+ * stops once the two next distances add up to at least the best candidate. On road-like
+ * graphs the two balls together cover about half the area of one.</li>
+ * <li><tt>aStar(s, t, h)</tt>: A* search, which orders the vertices by distance from
+ * <em>s</em> plus a {@link Heuristic} lower bound on the distance left, such as
+ * {@link Landmarks}, so that it heads toward <em>t</em>.</li>
+ * </ul>
+ * <p/>
+ * This implementation converts the digraph to CSR form, with its reverse, and checks the
+ * weights once, in the constructor. The state of a search is kept between queries: the
+ * distances and edges are valid only for the vertices stamped with the number of the
+ * current query, so a new query starts by incrementing that number, and clearing the
+ * priority queues costs only what they hold. A query therefore takes time proportional
+ * to the vertices and edges it touches, times log <em>V</em>, and allocates nothing but
+ * the path. The engine uses space proportional to <em>V</em> + <em>E</em>, and must not
+ * be used by more than one thread at a time.
+ * <p/>
+ */
+public class PointToPointSP {
+    private static final double INFINITY = Double.POSITIVE_INFINITY;
+
+    private final CSREdgeWeightedDigraph G;  // the digraph
+    private final CSREdgeWeightedDigraph R;  // its reverse
+    private final SPWorkspace forward, backward;
+
+    // the last query
+    private int source = -1, target;
+    private double distance;
+    private int meet;                        // vertex where the path leaves the forward search for the backward one
+    private int settled;
+
+    // Initializes an engine for the edge-weighted digraph, which must not have negative weights
+    public PointToPointSP(EdgeWeightedDigraph G) {
+        this(new CSREdgeWeightedDigraph(G));
+    }
+
+    /**
+     * Initializes an engine for the edge-weighted digraph.
+     *
+     * @param G the edge-weighted digraph
+     * @throws IllegalArgumentException if an edge weight is negative
+     */
+    public PointToPointSP(CSREdgeWeightedDigraph G) {
+        for (int e = 0; e < G.E(); e++)
+            if (!(G.weight(e) >= 0))
+                throw new IllegalArgumentException("edge " + G.edge(e) + " has negative weight");
+        this.G = G;
+        this.R = G.reverse();
+        forward = new SPWorkspace(G.V());
+        backward = new SPWorkspace(G.V());
+    }
+
+    private void start(int s, int t) {
+        validateVertex(s);
+        validateVertex(t);
+        source = s;
+        target = t;
+        distance = INFINITY;
+        meet = -1;
+        settled = 0;
+        forward.reset();
+        backward.reset();
+    }
+
+    private void validateVertex(int v) {
+        if (v < 0 || v >= G.V()) throw new IndexOutOfBoundsException("vertex " + v + " is not between 0 and " + (G.V() - 1));
+    }
+
+    /**
+     * Returns the length of a shortest path from <tt>s</tt> to <tt>t</tt>, found
+     * with Dijkstra's algorithm stopped once <tt>t</tt> is settled.
+     *
+     * @return the length, or <tt>Double.POSITIVE_INFINITY</tt> if there is no path
+     */
+    public double dijkstra(int s, int t) {
+        return aStar(s, t, null);
+    }
+
+    /**
+     * Returns the length of a shortest path from <tt>s</tt> to <tt>t</tt>, found
+     * with A* search guided by <tt>h</tt>, which must be admissible; with
+     * <tt>null</tt>, this is plain Dijkstra.
+     *
+     * @return the length, or <tt>Double.POSITIVE_INFINITY</tt> if there is no path
+     */
+    public double aStar(int s, int t, Heuristic h) {
+        start(s, t);
+        double estimate = h == null ? 0.0 : h.lowerBound(s, t);
+        if (estimate < INFINITY) forward.reach(s, 0.0, -1, estimate);
+        while (!forward.pq.isEmpty()) {
+            int v = forward.settle();
+            settled++;
+            if (v == t) {
+                distance = forward.dist(t);
+                meet = t;
+                break;
+            }
+            for (int e = G.begin(v); e < G.end(v); e++) {
+                int w = G.to(e);
+                double d = forward.dist[v] + G.weight(e);
+                if (d < forward.dist(w)) {
+                    // with an admissible but inconsistent bound, a settled vertex may be reopened
+                    estimate = h == null ? 0.0 : h.lowerBound(w, t);
+                    if (estimate < INFINITY) forward.reach(w, d, e, estimate);
+                }
+            }
+        }
+        return distance;
+    }
+
+    /**
+     * Returns the length of a shortest path from <tt>s</tt> to <tt>t</tt>, found
+     * with bidirectional Dijkstra.
+     *
+     * @return the length, or <tt>Double.POSITIVE_INFINITY</tt> if there is no path
+     */
+    public double bidirectional(int s, int t) {
+        start(s, t);
+        forward.reach(s, 0.0, -1, 0.0);
+        backward.reach(t, 0.0, -1, 0.0);
+        if (s == t) {
+            distance = 0.0;
+            meet = s;
+        }
+        while (!forward.pq.isEmpty() || !backward.pq.isEmpty()) {
+            double f = forward.pq.isEmpty() ? INFINITY : forward.pq.minKey();
+            double b = backward.pq.isEmpty() ? INFINITY : backward.pq.minKey();
+            if (f + b >= distance) break;  // no path through unsettled vertices can be shorter
+            if (f <= b) step(forward, G, backward);
+            else step(backward, R, forward);
+        }
+        return distance;
+    }
+
+    // settle the next vertex of one side, relaxing its edges in H and checking them against the other side
+    private void step(SPWorkspace side, CSREdgeWeightedDigraph H, SPWorkspace other) {
+        int v = side.settle();
+        settled++;
+        for (int e = H.begin(v); e < H.end(v); e++) {
+            int w = H.to(e);
+            double d = side.dist[v] + H.weight(e);
+            if (d < side.dist(w)) side.reach(w, d, e, 0.0);
+            double through = side.dist(w) + other.dist(w);
+            if (through < distance) {
+                distance = through;
+                meet = w;
+            }
+        }
+    }
+
+    // Returns the length of the path found by the last query, or Double.POSITIVE_INFINITY if there is none
+    public double distance() {
+        return distance;
+    }
+
+    // Did the last query find a path?
+    public boolean hasPath() {
+        return distance < INFINITY;
+    }
+
+    // Returns the number of vertices the last query settled, a measure of its work
+    public int settled() {
+        return settled;
+    }
+
+    /**
+     * Returns the shortest path found by the last query.
+     *
+     * @return the path from <tt>s</tt> to <tt>t</tt> as an iterable of edges in order from <tt>s</tt>,
+     * and <tt>null</tt> if there is no such path
+     * @throws IllegalStateException if there has been no query
+     */
+    public Iterable<DirectedEdge> path() {
+        if (source == -1) throw new IllegalStateException("no query yet");
+        if (!hasPath()) return null;
+        // the backward part, pushed from t back to meet so that it pops from meet to t;
+        // the reverse edge e = backward.edge[v] runs into v from R.from(e), so the edge runs from v to R.from(e)
+        LinkedStack<DirectedEdge> backwardPart = new LinkedStack<>();
+        for (int v = meet; v != target; ) {
+            int e = backward.edge[v];
+            int w = R.from(e);
+            backwardPart.push(new DirectedEdge(v, w, R.weight(e)));
+            v = w;
+        }
+        LinkedStack<DirectedEdge> path = new LinkedStack<>();
+        for (DirectedEdge e : backwardPart) path.push(e);
+        // then the forward part, from meet back to s, so the stack iterates from s to t
+        for (int e = forward.edge[meet]; e != -1; e = forward.edge[G.from(e)]) path.push(G.edge(e));
+        return path;
+    }
+
+    // a rows x cols grid of vertices, with edges both ways between neighbors, like a road
+    // network; the weights are random from 1 to 10, integers or not
+    static EdgeWeightedDigraph grid(int rows, int cols, long seed, boolean integers) {
+        Random random = new Random(seed);
+        EdgeWeightedDigraph G = new EdgeWeightedDigraph(rows * cols);
+        for (int r = 0; r < rows; r++)
+            for (int c = 0; c < cols; c++) {
+                int v = r * cols + c;
+                if (c + 1 < cols) {
+                    G.addEdge(new DirectedEdge(v, v + 1, weight(random, integers)));
+                    G.addEdge(new DirectedEdge(v + 1, v, weight(random, integers)));
+                }
+                if (r + 1 < rows) {
+                    G.addEdge(new DirectedEdge(v, v + cols, weight(random, integers)));
+                    G.addEdge(new DirectedEdge(v + cols, v, weight(random, integers)));
+                }
+            }
+        return G;
+    }
+
+    private static double weight(Random random, boolean integer) {
+        return integer ? 1 + random.nextInt(10) : 1 + 9 * random.nextDouble();
+    }
+
+    /**
+     * Checks every query against {@link DijkstraSP} on every pair of vertices of
+     * tinyEWD, then compares the kinds of query on random pairs of a grid.
+     * Arguments: grid side (default 300), queries (default 1000), landmarks (default 16).
+     */
+    public static void main(String[] args) throws FileNotFoundException {
+        In in = new In(new Scanner(new File("src/graph/tinyEWD.txt")));
+        EdgeWeightedDigraph tiny = new EdgeWeightedDigraph(in);
+        CSREdgeWeightedDigraph csr = new CSREdgeWeightedDigraph(tiny);
+        PointToPointSP engine = new PointToPointSP(csr);
+        Landmarks landmarks = new Landmarks(csr, 2);
+        for (int s = 0; s < tiny.V(); s++) {
+            DijkstraSP sp = new DijkstraSP(tiny, s);
+            for (int t = 0; t < tiny.V(); t++) {
+                double[] d = {engine.dijkstra(s, t), engine.bidirectional(s, t), engine.aStar(s, t, landmarks)};
+                for (double x : d)
+                    if (Math.abs(x - sp.distTo(t)) > 1e-12) throw new AssertionError(s + " to " + t + ": " + x);
+            }
+        }
+        System.out.printf("0 to 6 (%.2f)   ", engine.bidirectional(0, 6));
+        for (DirectedEdge e : engine.path()) System.out.print(e + "   ");
+        System.out.println();
+
+        int side = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int k = args.length > 2 ? Integer.parseInt(args[2]) : 16;
+        EdgeWeightedDigraph G = grid(side, side, 42, true);
+        csr = new CSREdgeWeightedDigraph(G);
+        long start = System.nanoTime();
+        engine = new PointToPointSP(csr);
+        landmarks = new Landmarks(csr, k);
+        System.out.printf("%d x %d grid: %d vertices, %d edges; engine and %d landmarks in %.1f ms%n",
+                side, side, G.V(), G.E(), k, (System.nanoTime() - start) / 1e6);
+
+        Random random = new Random(1);
+        int[] s = new int[queries], t = new int[queries];
+        for (int i = 0; i < queries; i++) {
+            s[i] = random.nextInt(G.V());
+            t[i] = random.nextInt(G.V());
+        }
+        String[] names = {"DijkstraSP", "early exit", "bidirectional", "A* with landmarks"};
+        double[] expected = new double[queries];
+        for (int kind = 0; kind < names.length; kind++) {
+            long settled = 0;
+            start = System.nanoTime();
+            for (int i = 0; i < queries; i++) {
+                double d;
+                if (kind == 0) {
+                    d = new DijkstraSP(csr, s[i]).distTo(t[i]);
+                    expected[i] = d;
+                    settled += G.V();
+                } else {
+                    if (kind == 1) d = engine.dijkstra(s[i], t[i]);
+                    else if (kind == 2) d = engine.bidirectional(s[i], t[i]);
+                    else d = engine.aStar(s[i], t[i], landmarks);
+                    settled += engine.settled();
+                    // the weights are integers, so the sums are exact
+                    if (d != expected[i]) throw new AssertionError(names[kind] + ": wrong distance");
+                    double length = 0.0;
+                    int at = s[i];
+                    for (DirectedEdge e : engine.path()) {
+                        if (e.from() != at) throw new AssertionError(names[kind] + ": broken path");
+                        length += e.weight();
+                        at = e.to();
+                    }
+                    if (at != t[i] || length != d) throw new AssertionError(names[kind] + ": wrong path");
+                }
+            }
+            double elapsed = (System.nanoTime() - start) / 1e6;
+            System.out.printf("%-18s %8.3f ms per query, %8d vertices settled per query%n",
+                    names[kind], elapsed / queries, settled / queries);
+        }
+    }
+}
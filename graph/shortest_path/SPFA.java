@@ -0,0 +1,327 @@
+package graph.shortest_path;
+
+import data_structure.IntQueue;
+import data_structure.LinkedStack;
+import helper.In;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.Random;
+import java.util.Scanner;
+import java.util.Stack;
+
+/**
+ * The <tt>SPFA</tt> class represents a data type for solving the single-source
+ * shortest paths problem in edge-weighted digraphs, with the same API as
+ * {@link BellmanFordSP}: it finds either a shortest path from the source vertex
+ * <em>s</em> to every other vertex, or a negative cycle reachable from <em>s</em>.
+ * <p/>
+ * This implementation is the queue-based Bellman-Ford algorithm (the "shortest path
+ * faster algorithm") with three improvements, each of which can be turned off:
+ * <ul>
+ * <li><em>Small label first</em> (SLF): a vertex whose distance is less than that of
+ * the vertex at the front of the queue goes to the front instead of the back.</li>
+ * <li><em>Large label last</em> (LLL): a vertex at the front of the queue whose distance
+ * is more than the average of the queue goes to the back instead of being scanned.</li>
+ * <li><em>Subtree disassembly</em>, after Tarjan: the shortest-paths tree is kept as a
+ * list of its vertices in preorder, with their depths. When the distance of <em>w</em>
+ * decreases, the vertices of its subtree have distances that are now too large: they
+ * are taken out of the tree and out of the queue, and will come back with better ones.
+ * If the tail of the edge into <em>w</em> is among them, the edge closes a cycle of
+ * the tree, which is negative, so the search stops at the first negative cycle
+ * without ever copying the digraph, as {@link BellmanFordSP} does every <em>V</em>
+ * relaxations.</li>
+ * </ul>
+ * The constructor takes time proportional to <em>V</em> <em>E</em> in the worst case,
+ * usually far less, and extra space proportional to <em>V</em>. Afterwards, the
+ * methods take time as in {@link BellmanFordSP}.
+ * <p/>
+ */
+public class SPFA {
+    private final double[] distTo;        // distTo[v] = distance of shortest s->v path
+    private final DirectedEdge[] edgeTo;  // edgeTo[v] = last edge on shortest s->v path
+    private final boolean[] onQueue;      // onQueue[v] = is v on the queue, and not a leftover
+    private final IntQueue queue;         // the vertices to scan, and leftovers of those taken out
+    private final boolean slf, lll;
+    private int queued;                   // number of vertices on the queue
+    private double sum;                   // and the sum of their distances
+
+    // the shortest-paths tree, as a circular list in preorder
+    private final boolean disassembly;
+    private final boolean[] inTree;       // inTree[v] = is v in the tree
+    private final int[] next, prev;       // next[v] and prev[v] = neighbors of v in the list
+    private final int[] depth;            // depth[v] = depth of v in the tree
+
+    private long relaxations;
+    private Iterable<DirectedEdge> cycle;  // negative cycle (or null if no such cycle)
+
+    // Computes shortest paths from s, or finds a negative cycle, with all three improvements
+    public SPFA(EdgeWeightedDigraph G, int s) {
+        this(G, s, true, true, true);
+    }
+
+    /**
+     * Computes a shortest paths tree from <tt>s</tt> to every other vertex in the
+     * edge-weighted digraph <tt>G</tt>, or finds a negative cycle reachable from <tt>s</tt>.
+     *
+     * @param G           the edge-weighted digraph
+     * @param s           the source vertex
+     * @param slf         whether to use small label first
+     * @param lll         whether to use large label last
+     * @param disassembly whether to disassemble subtrees; without it a negative cycle
+     *                    is found by looking for a cycle in the tree every <em>V</em> relaxations
+     * @throws IndexOutOfBoundsException unless 0 &le; <tt>s</tt> &le; <tt>V</tt> - 1
+     */
+    public SPFA(EdgeWeightedDigraph G, int s, boolean slf, boolean lll, boolean disassembly) {
+        int V = G.V();
+        if (s < 0 || s >= V) throw new IndexOutOfBoundsException("vertex " + s + " is not between 0 and " + (V - 1));
+        this.slf = slf;
+        this.lll = lll;
+        this.disassembly = disassembly;
+        distTo = new double[V];
+        edgeTo = new DirectedEdge[V];
+        onQueue = new boolean[V];
+        inTree = new boolean[V];
+        next = new int[V];
+        prev = new int[V];
+        depth = new int[V];
+        for (int v = 0; v < V; v++) distTo[v] = Double.POSITIVE_INFINITY;
+        distTo[s] = 0.0;
+        inTree[s] = true;
+        next[s] = prev[s] = s;
+
+        queue = new IntQueue();
+        add(s);
+        while (cycle == null) {
+            int v = take();
+            if (v == -1) break;
+            for (DirectedEdge e : G.adj(v)) {
+                int w = e.to();
+                double d = distTo[v] + e.weight();
+                if (!(d < distTo[w])) continue;
+                relaxations++;
+                if (disassembly) {
+                    if (inTree[w] && disassemble(w, v, e)) return;
+                    insertAfter(v, w);
+                } else if (relaxations % V == 0) {
+                    findNegativeCycle();
+                }
+                if (onQueue[w]) sum -= distTo[w] - d;
+                distTo[w] = d;
+                edgeTo[w] = e;
+                if (!onQueue[w]) add(w);
+                if (cycle != null) return;
+            }
+        }
+    }
+
+    // put v on the queue, at the front if small label first says so
+    private void add(int v) {
+        if (slf && !queue.isEmpty() && distTo[v] < distTo[queue.peek()]) queue.enqueueFirst(v);
+        else queue.enqueue(v);
+        onQueue[v] = true;
+        queued++;
+        sum += distTo[v];
+    }
+
+    // take the next vertex to scan off the queue, or return -1 if there is none
+    private int take() {
+        int rotations = 0;
+        while (!queue.isEmpty()) {
+            int v = queue.dequeue();
+            if (!onQueue[v]) continue;  // taken out with its subtree
+            // large label last; the count keeps rounding errors in sum from cycling forever
+            if (lll && distTo[v] * queued > sum && rotations++ < queued) {
+                queue.enqueue(v);
+                continue;
+            }
+            onQueue[v] = false;
+            queued--;
+            sum -= distTo[v];
+            if (queued == 0) sum = 0.0;
+            return v;
+        }
+        return -1;
+    }
+
+    // take the subtree of w out of the tree, and its vertices other than w out of the queue;
+    // if v is among them, e = v->w closes a negative cycle
+    private boolean disassemble(int w, int v, DirectedEdge e) {
+        int x = next[w];
+        while (x != w && depth[x] > depth[w]) {
+            if (x == v) {
+                cycle(w, e);
+                return true;
+            }
+            inTree[x] = false;
+            if (onQueue[x]) {
+                onQueue[x] = false;
+                queued--;
+                sum -= distTo[x];
+            }
+            x = next[x];
+        }
+        if (v == w) {
+            cycle(w, e);
+            return true;
+        }
+        // unlink w and its subtree, up to x
+        next[prev[w]] = x;
+        prev[x] = prev[w];
+        inTree[w] = false;
+        return false;
+    }
+
+    // make w a child of v: right after v in preorder
+    private void insertAfter(int v, int w) {
+        depth[w] = depth[v] + 1;
+        next[w] = next[v];
+        prev[next[v]] = w;
+        next[v] = w;
+        prev[w] = v;
+        inTree[w] = true;
+    }
+
+    // the tree path from w to v, then e = v->w
+    private void cycle(int w, DirectedEdge e) {
+        LinkedStack<DirectedEdge> cycle = new LinkedStack<>();
+        cycle.push(e);
+        for (int x = e.from(); x != w; x = edgeTo[x].from()) cycle.push(edgeTo[x]);
+        this.cycle = cycle;
+    }
+
+    // without subtree disassembly: by finding a cycle in predecessor graph
+    private void findNegativeCycle() {
+        int V = edgeTo.length;
+        EdgeWeightedDigraph spt = new EdgeWeightedDigraph(V);
+        for (DirectedEdge e : edgeTo) if (e != null) spt.addEdge(e);
+        EdgeWeightedDirectedCycle finder = new EdgeWeightedDirectedCycle(spt);
+        cycle = finder.cycle();
+    }
+
+    // Is there a negative cycle reachable from the source vertex s?
+    public boolean hasNegativeCycle() {
+        return cycle != null;
+    }
+
+    // Returns a negative cycle reachable from the source vertex s, or null if there is no such cycle
+    public Iterable<DirectedEdge> negativeCycle() {
+        return cycle;
+    }
+
+    /**
+     * Returns the length of a shortest path from the source vertex <tt>s</tt> to vertex <tt>v</tt>.
+     *
+     * @param v the destination vertex
+     * @return the length of a shortest path from the source vertex <tt>s</tt> to vertex <tt>v</tt>;
+     * <tt>Double.POSITIVE_INFINITY</tt> if no such path
+     * @throws UnsupportedOperationException if there is a negative cost cycle reachable
+     *                                       from the source vertex <tt>s</tt>
+     */
+    public double distTo(int v) {
+        if (hasNegativeCycle()) throw new UnsupportedOperationException("Negative cost cycle exists");
+        return distTo[v];
+    }
+
+    // Is there a path from the source s to vertex v?
+    public boolean hasPathTo(int v) {
+        return distTo(v) < Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Returns a shortest path from the source <tt>s</tt> to vertex <tt>v</tt>.
+     *
+     * @param v the destination vertex
+     * @return a shortest path from the source <tt>s</tt> to vertex <tt>v</tt>
+     * as an iterable of edges, and <tt>null</tt> if no such path
+     * @throws UnsupportedOperationException if there is a negative cost cycle reachable
+     *                                       from the source vertex <tt>s</tt>
+     */
+    public Iterable<DirectedEdge> pathTo(int v) {
+        if (hasNegativeCycle()) throw new UnsupportedOperationException("Negative cost cycle exists");
+        if (!hasPathTo(v)) return null;
+        Stack<DirectedEdge> path = new Stack<>();
+        for (DirectedEdge e = edgeTo[v]; e != null; e = edgeTo[e.from()]) path.push(e);
+        return path;
+    }
+
+    // Returns the number of times a distance was lowered
+    public long relaxations() {
+        return relaxations;
+    }
+
+    /**
+     * Finds the arbitrage of rates.txt with each combination of improvements, then
+     * times them against {@link BellmanFordSP} on a complete digraph of random
+     * exchange rates without arbitrage and with one, and on a sparse digraph with
+     * negative weights but no negative cycle, checking that they agree.
+     * Arguments: currencies (default 400), V of the sparse digraph (default 200000).
+     */
+    public static void main(String[] args) throws FileNotFoundException {
+        In in = new In(new Scanner(new File("src/graph/rates.txt")));
+        int V = in.readInt();
+        String[] name = new String[V];
+        EdgeWeightedDigraph rates = new EdgeWeightedDigraph(V);
+        for (int v = 0; v < V; v++) {
+            name[v] = in.readString();
+            for (int w = 0; w < V; w++) rates.addEdge(new DirectedEdge(v, w, -Math.log(in.readDouble())));
+        }
+        SPFA spfa = new SPFA(rates, 0);
+        double stake = 1000.0;
+        for (DirectedEdge e : spfa.negativeCycle()) {
+            System.out.printf("%10.5f %s", stake, name[e.from()]);
+            stake *= Math.exp(-e.weight());
+            System.out.printf("= %10.5f %s\n", stake, name[e.to()]);
+        }
+
+        int currencies = args.length > 0 ? Integer.parseInt(args[0]) : 400;
+        int sparse = args.length > 1 ? Integer.parseInt(args[1]) : 200000;
+        Random random = new Random(42);
+        double[] price = new double[currencies];
+        for (int v = 0; v < currencies; v++) price[v] = Math.exp(4 * random.nextDouble());
+        for (boolean arbitrage : new boolean[]{false, true}) {
+            // rates at the prices less a spread, so that no cycle gains; then one that does
+            EdgeWeightedDigraph G = new EdgeWeightedDigraph(currencies);
+            for (int v = 0; v < currencies; v++)
+                for (int w = 0; w < currencies; w++)
+                    if (v != w) G.addEdge(new DirectedEdge(v, w, -Math.log(price[v] / price[w] * (1 - 0.01 * random.nextDouble()))));
+            if (arbitrage) G.addEdge(new DirectedEdge(currencies - 1, currencies / 2, -Math.log(price[currencies - 1] / price[currencies / 2] * 1.02)));
+            benchmark((arbitrage ? "currencies with arbitrage" : "currencies") + ", complete digraph", G);
+        }
+
+        // negative weights from potentials: w(v->w) + p(v) - p(w), no negative cycle
+        EdgeWeightedDigraph G = new EdgeWeightedDigraph(sparse);
+        double[] potential = new double[sparse];
+        for (int v = 0; v < sparse; v++) potential[v] = 10 * random.nextDouble();
+        for (int i = 0; i < 4 * sparse; i++) {
+            int v = random.nextInt(sparse), w = random.nextInt(sparse);
+            G.addEdge(new DirectedEdge(v, w, random.nextDouble() + potential[v] - potential[w]));
+        }
+        benchmark("sparse random digraph, negative weights", G);
+    }
+
+    private static void benchmark(String name, EdgeWeightedDigraph G) {
+        System.out.printf("%s: %d vertices, %d edges%n", name, G.V(), G.E());
+        long start = System.nanoTime();
+        BellmanFordSP bf = new BellmanFordSP(G, 0);
+        System.out.printf("  %-28s %8.1f ms%s%n", "BellmanFordSP", (System.nanoTime() - start) / 1e6,
+                bf.hasNegativeCycle() ? ", negative cycle" : "");
+        String[] names = {"queue", "SLF", "SLF + LLL", "subtree disassembly", "all three"};
+        boolean[][] options = {{false, false, false}, {true, false, false}, {true, true, false}, {false, false, true}, {true, true, true}};
+        for (int k = 0; k < names.length; k++) {
+            start = System.nanoTime();
+            SPFA sp = new SPFA(G, 0, options[k][0], options[k][1], options[k][2]);
+            long t = System.nanoTime() - start;
+            if (sp.hasNegativeCycle() != bf.hasNegativeCycle()) throw new AssertionError(names[k] + ": negative cycle");
+            if (sp.hasNegativeCycle()) {
+                double weight = 0.0;
+                for (DirectedEdge e : sp.negativeCycle()) weight += e.weight();
+                if (!(weight < 0)) throw new AssertionError(names[k] + ": cycle of weight " + weight);
+            } else {
+                for (int v = 0; v < G.V(); v++)
+                    if (Math.abs(sp.distTo(v) - bf.distTo(v)) > 1e-9) throw new AssertionError(names[k] + ": distance to " + v);
+            }
+            System.out.printf("  %-28s %8.1f ms, %10d relaxations%n", "SPFA, " + names[k], t / 1e6, sp.relaxations());
+        }
+    }
+}
@@ -0,0 +1,362 @@
+package graph.shortest_path;
+
+import data_structure.IntQueue;
+import helper.In;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.Random;
+import java.util.Scanner;
+import java.util.Stack;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * The <tt>SPQueryEngine</tt> class answers many single-source shortest-path queries
+ * on the same edge-weighted digraph, with the algorithms of {@link DijkstraSP},
+ * {@link BellmanFordSP}, {@link AcyclicSP} and {@link AcyclicLP}.
+ * <p/>
+ * Those classes check the digraph and allocate arrays of size <em>V</em> in every
+ * constructor. The engine converts the digraph to CSR form, looks for a negative
+ * weight and computes a topological order once, in its constructor. A query runs
+ * in an {@link SPWorkspace} checked out with <tt>acquire()</tt> and returned with
+ * <tt>release()</tt>: its arrays are reused, and only the vertices stamped with the
+ * number of the current query are valid, so a query costs time proportional to the
+ * vertices and edges it touches (times log <em>V</em> for the priority queue) instead
+ * of <em>V</em>, and allocates nothing but the paths asked for. Each thread queries
+ * in a workspace of its own; the engine itself is immutable and the pool is a
+ * {@link ConcurrentLinkedQueue}, so any number of threads may share it.
+ * <pre>
+ *     SPWorkspace ws = engine.acquire();
+ *     try {
+ *         engine.dijkstra(s, ws);
+ *         double d = ws.distTo(t);
+ *     } finally {
+ *         engine.release(ws);
+ *     }
+ * </pre>
+ * <p/>
+ * The acyclic queries settle the vertices in topological order, with the positions in
+ * the order as keys, so that they too only touch the vertices reachable from the source.
+ * The Bellman-Ford query is queue-based; it counts the edges on the path to each vertex,
+ * and once a count reaches <em>V</em> the path repeats a vertex, which only a negative
+ * cycle allows, so it follows the path back to the cycle instead of rebuilding the
+ * shortest-paths tree as {@link BellmanFordSP} does every <em>V</em> relaxations.
+ * <p/>
+ */
+public class SPQueryEngine {
+    private final CSREdgeWeightedDigraph G;
+    private final int negative;  // an edge of negative weight, or -1 if there is none
+    private final int[] rank;    // rank[v] = position of v in a topological order, or null if G has a cycle
+    private final ConcurrentLinkedQueue<SPWorkspace> pool = new ConcurrentLinkedQueue<>();
+
+    // Initializes an engine for the edge-weighted digraph
+    public SPQueryEngine(EdgeWeightedDigraph G) {
+        this(new CSREdgeWeightedDigraph(G));
+    }
+
+    /**
+     * Initializes an engine for the edge-weighted digraph.
+     *
+     * @param G the edge-weighted digraph
+     * @throws IllegalArgumentException if an edge weight is <tt>NaN</tt>
+     */
+    public SPQueryEngine(CSREdgeWeightedDigraph G) {
+        this.G = G;
+        int negative = -1;
+        for (int e = 0; e < G.E(); e++) {
+            if (Double.isNaN(G.weight(e))) throw new IllegalArgumentException("edge " + G.edge(e) + " has weight NaN");
+            if (negative == -1 && G.weight(e) < 0) negative = e;
+        }
+        this.negative = negative;
+        rank = topologicalRanks(G);
+    }
+
+    // Kahn's algorithm: take vertices with no edge left entering them, in turn
+    private static int[] topologicalRanks(CSREdgeWeightedDigraph G) {
+        int V = G.V();
+        int[] indegree = new int[V];
+        for (int e = 0; e < G.E(); e++) indegree[G.to(e)]++;
+        int[] order = new int[V];
+        int size = 0;
+        for (int v = 0; v < V; v++) if (indegree[v] == 0) order[size++] = v;
+        for (int i = 0; i < size; i++)
+            for (int e = G.begin(order[i]); e < G.end(order[i]); e++)
+                if (--indegree[G.to(e)] == 0) order[size++] = G.to(e);
+        if (size < V) return null;
+        int[] rank = new int[V];
+        for (int i = 0; i < V; i++) rank[order[i]] = i;
+        return rank;
+    }
+
+    // Returns the digraph, in CSR form
+    public CSREdgeWeightedDigraph digraph() {
+        return G;
+    }
+
+    // Does the digraph have an edge of negative weight?
+    public boolean hasNegativeWeight() {
+        return negative != -1;
+    }
+
+    // Is the digraph acyclic?
+    public boolean isAcyclic() {
+        return rank != null;
+    }
+
+    // Returns a workspace for queries, from the pool or new
+    public SPWorkspace acquire() {
+        SPWorkspace ws = pool.poll();
+        return ws != null ? ws : new SPWorkspace(G.V());
+    }
+
+    /**
+     * Returns a workspace to the pool. It must not be used afterwards, since
+     * another thread can acquire it.
+     *
+     * @throws IllegalArgumentException if the workspace is not the size of the digraph
+     */
+    public void release(SPWorkspace ws) {
+        if (ws.dist.length != G.V()) throw new IllegalArgumentException("workspace of another digraph");
+        pool.offer(ws);
+    }
+
+    private void start(int s, SPWorkspace ws, double sign) {
+        if (s < 0 || s >= G.V()) throw new IndexOutOfBoundsException("vertex " + s + " is not between 0 and " + (G.V() - 1));
+        if (ws.dist.length != G.V()) throw new IllegalArgumentException("workspace of another digraph");
+        ws.reset();
+        ws.G = G;
+        ws.source = s;
+        ws.sign = sign;
+        ws.cycle = null;
+    }
+
+    /**
+     * Computes shortest paths from <tt>s</tt> with Dijkstra's algorithm, into <tt>ws</tt>.
+     *
+     * @return <tt>ws</tt>
+     * @throws IllegalArgumentException  if an edge weight is negative
+     * @throws IndexOutOfBoundsException unless 0 &le; <tt>s</tt> &le; <tt>V</tt> - 1
+     */
+    public SPWorkspace dijkstra(int s, SPWorkspace ws) {
+        if (negative != -1) throw new IllegalArgumentException("edge " + G.edge(negative) + " has negative weight");
+        start(s, ws, 1.0);
+        ws.reach(s, 0.0, -1, 0.0);
+        while (!ws.pq.isEmpty()) {
+            int v = ws.settle();
+            for (int e = G.begin(v); e < G.end(v); e++) {
+                int w = G.to(e);
+                double d = ws.dist[v] + G.weight(e);
+                if (d < ws.dist(w)) ws.reach(w, d, e, 0.0);
+            }
+        }
+        return ws;
+    }
+
+    /**
+     * Computes shortest paths from <tt>s</tt> in a directed acyclic graph, into <tt>ws</tt>.
+     *
+     * @return <tt>ws</tt>
+     * @throws IllegalArgumentException  if the digraph is not acyclic
+     * @throws IndexOutOfBoundsException unless 0 &le; <tt>s</tt> &le; <tt>V</tt> - 1
+     */
+    public SPWorkspace acyclicSP(int s, SPWorkspace ws) {
+        return acyclic(s, ws, 1.0);
+    }
+
+    /**
+     * Computes longest paths from <tt>s</tt> in a directed acyclic graph, into <tt>ws</tt>.
+     *
+     * @return <tt>ws</tt>
+     * @throws IllegalArgumentException  if the digraph is not acyclic
+     * @throws IndexOutOfBoundsException unless 0 &le; <tt>s</tt> &le; <tt>V</tt> - 1
+     */
+    public SPWorkspace acyclicLP(int s, SPWorkspace ws) {
+        return acyclic(s, ws, -1.0);
+    }
+
+    // relax the vertices reachable from s in topological order; longest paths are
+    // shortest paths with the weights negated, and are stored negated
+    private SPWorkspace acyclic(int s, SPWorkspace ws, double sign) {
+        if (rank == null) throw new IllegalArgumentException("Digraph is not acyclic.");
+        start(s, ws, sign);
+        ws.set(s, 0.0, -1);
+        ws.pq.insert(s, rank[s]);
+        while (!ws.pq.isEmpty()) {
+            int v = ws.settle();
+            for (int e = G.begin(v); e < G.end(v); e++) {
+                int w = G.to(e);
+                double d = ws.dist[v] + sign * G.weight(e);
+                if (d < ws.dist(w)) {
+                    ws.set(w, d, e);
+                    if (!ws.pq.contains(w)) ws.pq.insert(w, rank[w]);
+                }
+            }
+        }
+        return ws;
+    }
+
+    /**
+     * Computes shortest paths from <tt>s</tt> with the queue-based Bellman-Ford
+     * algorithm, into <tt>ws</tt>, or finds a negative cycle reachable from <tt>s</tt>.
+     *
+     * @return <tt>ws</tt>
+     * @throws IndexOutOfBoundsException unless 0 &le; <tt>s</tt> &le; <tt>V</tt> - 1
+     */
+    public SPWorkspace bellmanFord(int s, SPWorkspace ws) {
+        start(s, ws, 1.0);
+        if (ws.queue == null) {
+            ws.hops = new int[G.V()];
+            ws.queued = new int[G.V()];
+            ws.queue = new IntQueue();
+        }
+        ws.queue.clear();
+        ws.set(s, 0.0, -1);
+        ws.hops[s] = 0;
+        ws.queue.enqueue(s);
+        ws.queued[s] = ws.query;
+        while (!ws.queue.isEmpty()) {
+            int v = ws.queue.dequeue();
+            ws.queued[v] = 0;
+            for (int e = G.begin(v); e < G.end(v); e++) {
+                int w = G.to(e);
+                double d = ws.dist[v] + G.weight(e);
+                if (!(d < ws.dist(w))) continue;
+                ws.set(w, d, e);
+                ws.hops[w] = ws.hops[v] + 1;
+                if (ws.hops[w] >= G.V() && findNegativeCycle(w, ws)) {
+                    while (!ws.queue.isEmpty()) ws.queued[ws.queue.dequeue()] = 0;
+                    return ws;
+                }
+                if (ws.queued[w] != ws.query) {
+                    ws.queue.enqueue(w);
+                    ws.queued[w] = ws.query;
+                }
+            }
+        }
+        return ws;
+    }
+
+    // follow the edges back from w V times: if that does not reach the source, the path
+    // went around a cycle of the shortest-paths tree, which is negative, and it ends on it
+    private boolean findNegativeCycle(int w, SPWorkspace ws) {
+        int v = w;
+        for (int i = 0; i < G.V(); i++) {
+            if (ws.edge[v] == -1) return false;
+            v = G.from(ws.edge[v]);
+        }
+        Stack<DirectedEdge> cycle = new Stack<>();
+        int x = v;
+        do {
+            cycle.push(G.edge(ws.edge[x]));
+            x = G.from(ws.edge[x]);
+        } while (x != v);
+        ws.cycle = cycle;
+        return true;
+    }
+
+    /**
+     * Compares every query with the class it stands for: on tinyEWD, on the
+     * exchange rates of rates.txt, which have a negative cycle, and on a random
+     * DAG. Then times {@link DijkstraSP} and the engine on a sparse random digraph,
+     * where the vertices reachable from most sources are few, and on a grid, where
+     * every vertex is reachable.
+     * Arguments: V of the random digraph (default 1000000), queries (default 1000).
+     */
+    public static void main(String[] args) throws FileNotFoundException {
+        In in = new In(new Scanner(new File("src/graph/tinyEWD.txt")));
+        EdgeWeightedDigraph tiny = new EdgeWeightedDigraph(in);
+        SPQueryEngine engine = new SPQueryEngine(tiny);
+        SPWorkspace ws = engine.acquire();
+        for (int s = 0; s < tiny.V(); s++) {
+            DijkstraSP sp = new DijkstraSP(tiny, s);
+            BellmanFordSP bf = new BellmanFordSP(tiny, s);
+            engine.dijkstra(s, ws);
+            for (int v = 0; v < tiny.V(); v++)
+                if (ws.distTo(v) != sp.distTo(v)) throw new AssertionError("dijkstra " + s + " to " + v);
+            engine.bellmanFord(s, ws);
+            for (int v = 0; v < tiny.V(); v++)
+                if (ws.distTo(v) != bf.distTo(v)) throw new AssertionError("bellmanFord " + s + " to " + v);
+        }
+        engine.dijkstra(0, ws);
+        for (int v = 0; v < tiny.V(); v++) {
+            System.out.printf("0 to %d (%5.2f)  ", v, ws.distTo(v));
+            for (DirectedEdge e : ws.pathTo(v)) System.out.print(e + "  ");
+            System.out.println();
+        }
+        engine.release(ws);
+
+        // exchange rates, as in Arbitrage
+        in = new In(new Scanner(new File("src/graph/rates.txt")));
+        int currencies = in.readInt();
+        EdgeWeightedDigraph rates = new EdgeWeightedDigraph(currencies);
+        for (int v = 0; v < currencies; v++) {
+            in.readString();
+            for (int w = 0; w < currencies; w++) rates.addEdge(new DirectedEdge(v, w, -Math.log(in.readDouble())));
+        }
+        engine = new SPQueryEngine(rates);
+        ws = engine.bellmanFord(0, engine.acquire());
+        double total = 0.0;
+        for (DirectedEdge e : ws.negativeCycle()) total += e.weight();
+        System.out.printf("rates.txt: negative cycle of weight %.5f, BellmanFordSP finds one: %b%n",
+                total, new BellmanFordSP(rates, 0).hasNegativeCycle());
+        if (!(total < 0)) throw new AssertionError("cycle is not negative");
+        engine.release(ws);
+
+        // a random DAG with weights of both signs
+        Random random = new Random(42);
+        EdgeWeightedDigraph dag = new EdgeWeightedDigraph(200);
+        for (int i = 0; i < 1000; i++) {
+            int v = random.nextInt(200), w = random.nextInt(200);
+            if (v != w) dag.addEdge(new DirectedEdge(Math.min(v, w), Math.max(v, w), random.nextDouble() - 0.3));
+        }
+        engine = new SPQueryEngine(dag);
+        ws = engine.acquire();
+        for (int s = 0; s < dag.V(); s++) {
+            AcyclicSP sp = new AcyclicSP(dag, s);
+            AcyclicLP lp = new AcyclicLP(dag, s);
+            BellmanFordSP bf = new BellmanFordSP(dag, s);
+            engine.acyclicSP(s, ws);
+            for (int v = 0; v < dag.V(); v++)
+                if (ws.distTo(v) != sp.distTo(v) || ws.hasPathTo(v) != sp.hasPathTo(v)) throw new AssertionError("acyclicSP " + s + " to " + v);
+            engine.acyclicLP(s, ws);
+            for (int v = 0; v < dag.V(); v++)
+                if (ws.distTo(v) != lp.distTo(v) || ws.hasPathTo(v) != lp.hasPathTo(v)) throw new AssertionError("acyclicLP " + s + " to " + v);
+            engine.bellmanFord(s, ws);
+            for (int v = 0; v < dag.V(); v++)
+                if (Math.abs(ws.distTo(v) - bf.distTo(v)) > 1e-9) throw new AssertionError("bellmanFord " + s + " to " + v);
+        }
+        engine.release(ws);
+        System.out.println("random DAG: acyclicSP, acyclicLP and bellmanFord agree with AcyclicSP, AcyclicLP and BellmanFordSP");
+
+        int V = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        EdgeWeightedDigraph sparse = new EdgeWeightedDigraph(V);
+        for (int i = 0; i < V; i++) sparse.addEdge(new DirectedEdge(random.nextInt(V), random.nextInt(V), random.nextDouble()));
+        benchmark("sparse random digraph", sparse, queries);
+        int side = (int) Math.sqrt(V / 10);
+        benchmark("grid", PointToPointSP.grid(side, side, 42, false), queries / 10);
+    }
+
+    private static void benchmark(String name, EdgeWeightedDigraph G, int queries) {
+        long start = System.nanoTime();
+        SPQueryEngine engine = new SPQueryEngine(G);
+        System.out.printf("%s: %d vertices, %d edges, engine built in %.1f ms%n", name, G.V(), G.E(), (System.nanoTime() - start) / 1e6);
+        Random random = new Random(1);
+        SPWorkspace ws = engine.acquire();
+        long t1 = 0, t2 = 0;
+        for (int i = 0; i < queries; i++) {
+            int s = random.nextInt(G.V()), t = random.nextInt(G.V());
+            start = System.nanoTime();
+            DijkstraSP sp = new DijkstraSP(G, s);
+            double d1 = sp.distTo(t);
+            t1 += System.nanoTime() - start;
+            start = System.nanoTime();
+            double d2 = engine.dijkstra(s, ws).distTo(t);
+            t2 += System.nanoTime() - start;
+            if (d1 != d2) throw new AssertionError(s + " to " + t);
+        }
+        engine.release(ws);
+        System.out.printf("DijkstraSP %8.3f ms per query, engine %8.3f ms per query (%.1fx)%n",
+                t1 / 1e6 / queries, t2 / 1e6 / queries, (double) t1 / t2);
+    }
+}
@@ -0,0 +1,131 @@
+package graph.shortest_path;
+
+import data_structure.DoubleIndexMinPQ;
+import data_structure.IntQueue;
+
+import java.util.Arrays;
+import java.util.Stack;
+
+/**
+ * The state of one Dijkstra-like search over the vertices 0 through <em>V</em> - 1,
+ * kept between searches so that starting a new one takes constant time.
+ * A distance and an edge are valid only for the vertices stamped with the number
+ * of the current search; the others are at infinite distance. <tt>reset()</tt>
+ * increments that number and clears the priority queue, in time proportional to
+ * what it holds.
+ * <p/>
+ * An {@link SPQueryEngine} hands out workspaces and runs its queries in them, after
+ * which the workspace answers <tt>distTo()</tt>, <tt>hasPathTo()</tt> and
+ * <tt>pathTo()</tt> like {@link DijkstraSP}, until it is used for the next query.
+ */
+public class SPWorkspace {
+    final double[] dist;    // dist[v] = distance of shortest path found to v, if stamp[v] == query
+    final int[] edge;       // edge[v] = last edge on that path, or -1 at the source
+    final int[] stamp;      // search in which v was last reached
+    final DoubleIndexMinPQ pq;
+    int query;
+
+    // for the queries of an SPQueryEngine
+    CSREdgeWeightedDigraph G;   // the digraph searched, or null before the first query
+    int source;
+    double sign = 1.0;          // -1.0 if dist[] holds the opposites of longest distances
+    int[] hops;                 // hops[v] = number of edges on the path to v (Bellman-Ford only)
+    int[] queued;               // queued[v] == query if v is on queue (Bellman-Ford only)
+    IntQueue queue;
+    Stack<DirectedEdge> cycle;  // negative cycle found by Bellman-Ford, or null
+
+    SPWorkspace(int V) {
+        dist = new double[V];
+        edge = new int[V];
+        stamp = new int[V];
+        pq = new DoubleIndexMinPQ(V);
+    }
+
+    // start a new search
+    void reset() {
+        pq.clear();
+        if (++query == Integer.MAX_VALUE) {
+            // the stamps would wrap around: start them over
+            Arrays.fill(stamp, 0);
+            if (queued != null) Arrays.fill(queued, 0);
+            query = 1;
+        }
+    }
+
+    double dist(int v) {
+        return stamp[v] == query ? dist[v] : Double.POSITIVE_INFINITY;
+    }
+
+    // set the distance of v to d by edge e
+    void set(int v, double d, int e) {
+        dist[v] = d;
+        edge[v] = e;
+        stamp[v] = query;
+    }
+
+    // set the distance of v to d by edge e, and its key to d plus estimate
+    void reach(int v, double d, int e, double estimate) {
+        set(v, d, e);
+        if (pq.contains(v)) pq.decreaseKey(v, d + estimate);
+        else pq.insert(v, d + estimate);
+    }
+
+    int settle() {
+        return pq.delMin();
+    }
+
+    private void checkQuery() {
+        if (G == null) throw new IllegalStateException("no query yet");
+    }
+
+    // Returns the source vertex of the last query
+    public int source() {
+        checkQuery();
+        return source;
+    }
+
+    /**
+     * Returns the length of a shortest path (a longest path, after <tt>acyclicLP()</tt>)
+     * from the source vertex to vertex <tt>v</tt>.
+     *
+     * @return the length, or <tt>Double.POSITIVE_INFINITY</tt> (<tt>NEGATIVE_INFINITY</tt>
+     * after <tt>acyclicLP()</tt>) if there is no path
+     * @throws UnsupportedOperationException if there is a negative cycle reachable from the source
+     */
+    public double distTo(int v) {
+        checkQuery();
+        if (hasNegativeCycle()) throw new UnsupportedOperationException("Negative cost cycle exists");
+        return sign * dist(v);
+    }
+
+    // Is there a path from the source vertex to vertex v?
+    public boolean hasPathTo(int v) {
+        checkQuery();
+        return stamp[v] == query;
+    }
+
+    /**
+     * Returns the path from the source vertex to vertex <tt>v</tt>, as an iterable of edges
+     * in the same order as {@link DijkstraSP#pathTo(int)}, or <tt>null</tt> if there is no path.
+     *
+     * @throws UnsupportedOperationException if there is a negative cycle reachable from the source
+     */
+    public Iterable<DirectedEdge> pathTo(int v) {
+        checkQuery();
+        if (hasNegativeCycle()) throw new UnsupportedOperationException("Negative cost cycle exists");
+        if (!hasPathTo(v)) return null;
+        Stack<DirectedEdge> path = new Stack<>();
+        for (int e = edge[v]; e != -1; e = edge[G.from(e)]) path.push(G.edge(e));
+        return path;
+    }
+
+    // Is there a negative cycle reachable from the source vertex?
+    public boolean hasNegativeCycle() {
+        return cycle != null;
+    }
+
+    // Returns a negative cycle reachable from the source vertex, or null if there is none
+    public Iterable<DirectedEdge> negativeCycle() {
+        return cycle;
+    }
+}
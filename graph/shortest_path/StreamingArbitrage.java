@@ -0,0 +1,402 @@
+package graph.shortest_path;
+
+import data_structure.DoubleIndexMinPQ;
+import data_structure.IntQueue;
+import data_structure.LinkedStack;
+import helper.In;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.Random;
+import java.util.Scanner;
+
+/**
+ * The <tt>StreamingArbitrage</tt> class finds arbitrage opportunities in a table of
+ * exchange rates that changes one rate at a time, as quotes come in, without
+ * running {@link BellmanFordSP} on the whole table for each one as {@link Arbitrage} does.
+ * The weights -ln(<em>rate</em>) are kept in one array of doubles, row by row, and
+ * when an update closes a cycle of negative weight, that is, one whose rates multiply
+ * to more than 1, the cycle is passed to a {@link Listener} as an {@link Event}.
+ * <p/>
+ * This implementation keeps a potential <em>p</em>(<em>v</em>) for each currency such that
+ * every weight <em>w</em>(<em>v</em>, <em>w</em>) + <em>p</em>(<em>v</em>) - <em>p</em>(<em>w</em>)
+ * is non-negative, which is possible exactly when there is no negative cycle. A rate
+ * that goes down, or an edge whose weight goes up, keeps the potentials valid. When
+ * the weight of <em>u</em>-&gt;<em>v</em> goes down below <em>p</em>(<em>v</em>) - <em>p</em>(<em>u</em>),
+ * a Dijkstra search from <em>v</em> with the non-negative reduced weights finds the
+ * currencies whose potential has to drop, and by how much; it stops at the first
+ * whose potential stays, so it only touches the region the change affects. If it
+ * reaches <em>u</em>, the path back to <em>u</em> and the edge <em>u</em>-&gt;<em>v</em> make
+ * a negative cycle; otherwise the new potentials are valid again.
+ * <p/>
+ * An edge that closed a negative cycle is left out of the searches until the cycle is
+ * gone: after each update, every such edge is tried again, and there is an arbitrage
+ * opportunity as long as one is left. An event is sent for the cycle that an update
+ * closes, not again for each update while it lasts.
+ * An update takes time proportional to <em>V</em> times the number of currencies whose
+ * potential changes, log <em>V</em> each, and <em>V</em><sup>2</sup> log <em>V</em> in the worst case.
+ * <p/>
+ */
+public class StreamingArbitrage {
+    // cycles that gain less than this are rounding errors, not arbitrage
+    private static final double EPSILON = 1e-12;
+
+    /**
+     * An arbitrage opportunity: a cycle of exchanges whose rates multiply to more than 1.
+     */
+    public static class Event {
+        private final Iterable<DirectedEdge> cycle;
+        private final double profit;
+        private final long update;
+        private final long latency;
+
+        private Event(Iterable<DirectedEdge> cycle, double profit, long update, long latency) {
+            this.cycle = cycle;
+            this.profit = profit;
+            this.update = update;
+            this.latency = latency;
+        }
+
+        // Returns the exchanges of the cycle, in order, each weighted -ln(rate)
+        public Iterable<DirectedEdge> cycle() {
+            return cycle;
+        }
+
+        // Returns the gain of one turn of the cycle: 0.01 is 1%
+        public double profit() {
+            return profit;
+        }
+
+        // Returns the number of the update that closed the cycle, counting from 1
+        public long update() {
+            return update;
+        }
+
+        // Returns the nanoseconds between the start of the update and the event
+        public long latency() {
+            return latency;
+        }
+    }
+
+    /**
+     * Receives the arbitrage opportunities, on the thread that calls {@link #update}.
+     */
+    public interface Listener {
+        void arbitrage(Event event);
+    }
+
+    private final int V;
+    private final double[] weight;        // weight[v * V + w] = -ln(rate from v to w), infinite if no rate
+    private final double[] potential;     // potential[v] + weight of v->w >= potential[w], except for the pending edges
+    private final boolean[] pending;      // pending[v * V + w] = does v->w close a negative cycle?
+    private final IntQueue pendingEdges = new IntQueue();
+    private final Listener listener;
+
+    // the search, reused by every update
+    private final DoubleIndexMinPQ pq;
+    private final double[] reduced;       // reduced[x] = reduced length of the search path to x
+    private final int[] parent;           // parent[x] = previous currency on that path
+    private final int[] settled;          // the currencies settled by the search, in order
+    private int count;                    // their number
+    private final int[] mark;             // mark[x] = search == is x settled?
+    private int search;                   // number of searches so far
+
+    private long updates;
+    private long events;
+    private long totalNanos, maxNanos;
+    private final long[] histogram = new long[64];  // histogram[k] = number of updates that took 2^(k-1) to 2^k - 1 ns
+
+    /**
+     * Initializes an empty table of exchange rates between <tt>V</tt> currencies.
+     *
+     * @param V        the number of currencies
+     * @param listener receives the arbitrage opportunities
+     * @throws IllegalArgumentException if <tt>V</tt> &lt; 0
+     */
+    public StreamingArbitrage(int V, Listener listener) {
+        if (V < 0) throw new IllegalArgumentException("Number of currencies must be nonnegative");
+        this.V = V;
+        this.listener = listener;
+        weight = new double[V * V];
+        for (int i = 0; i < V * V; i++) weight[i] = Double.POSITIVE_INFINITY;
+        potential = new double[V];
+        pending = new boolean[V * V];
+        pq = new DoubleIndexMinPQ(V);
+        reduced = new double[V];
+        parent = new int[V];
+        settled = new int[V];
+        mark = new int[V];
+    }
+
+    private void validateCurrency(int v) {
+        if (v < 0 || v >= V) throw new IndexOutOfBoundsException("currency " + v + " is not between 0 and " + (V - 1));
+    }
+
+    /**
+     * Sets the rate from currency <tt>v</tt> to currency <tt>w</tt>, and sends an event
+     * to the listener if that closes a cycle of exchanges that gains.
+     *
+     * @param v    the currency sold
+     * @param w    the currency bought
+     * @param rate units of <tt>w</tt> for one unit of <tt>v</tt>; 0 if there is no rate
+     * @throws IllegalArgumentException  if <tt>rate</tt> is negative or NaN
+     * @throws IndexOutOfBoundsException unless both currencies are between 0 and <tt>V</tt> - 1
+     */
+    public void update(int v, int w, double rate) {
+        long start = System.nanoTime();
+        validateCurrency(v);
+        validateCurrency(w);
+        if (!(rate >= 0)) throw new IllegalArgumentException("rate " + rate + " is negative or NaN");
+        updates++;
+        int e = v * V + w;
+        double previous = weight[e];
+        weight[e] = -Math.log(rate);
+
+        Iterable<DirectedEdge> cycle = null;
+        if (weight[e] > previous) {
+            // a rate that went down may have broken cycles: try the pending edges again
+            for (int k = pendingEdges.size(); k > 0; k--) {
+                int f = pendingEdges.dequeue();
+                if (violated(f) && !repair(f)) pendingEdges.enqueue(f);
+                else pending[f] = false;
+            }
+        } else if (violated(e)) {
+            // a rate that went up may close a cycle, through this edge
+            if (!repair(e)) {
+                cycle = cycle(v, w);
+                if (!pending[e]) {
+                    pending[e] = true;
+                    pendingEdges.enqueue(e);
+                }
+            } else if (pending[e]) {
+                pending[e] = false;
+                for (int k = pendingEdges.size(); k > 0; k--) {
+                    int f = pendingEdges.dequeue();
+                    if (f != e) pendingEdges.enqueue(f);
+                }
+            }
+        }
+        if (cycle != null) {
+            events++;
+            double gain = 0.0;
+            for (DirectedEdge f : cycle) gain -= f.weight();
+            listener.arbitrage(new Event(cycle, Math.expm1(gain), updates, System.nanoTime() - start));
+        }
+
+        long nanos = System.nanoTime() - start;
+        totalNanos += nanos;
+        if (nanos > maxNanos) maxNanos = nanos;
+        histogram[64 - Long.numberOfLeadingZeros(nanos)]++;
+    }
+
+    // is the weight of edge e less than the difference of the potentials?
+    private boolean violated(int e) {
+        int u = e / V, v = e % V;
+        return weight[e] + potential[u] - potential[v] < -EPSILON;
+    }
+
+    // the reduced weight of x->y, counting the small negative ones of rounding as 0
+    private double reducedWeight(int x, int y) {
+        double r = weight[x * V + y] + potential[x] - potential[y];
+        return r > 0.0 ? r : 0.0;
+    }
+
+    // lower the potentials so that edge e = u->v is no longer violated, and return true;
+    // or leave them and return false if the search from v gets back to u, a negative cycle
+    private boolean repair(int e) {
+        int u = e / V, v = e % V;
+        double drop = -(weight[e] + potential[u] - potential[v]);  // how much v has to drop
+        pq.clear();
+        count = 0;
+        search++;
+        reduced[v] = 0.0;
+        parent[v] = -1;
+        pq.insert(v, 0.0);
+        while (!pq.isEmpty() && pq.minKey() < drop) {
+            double r = pq.minKey();
+            int x = pq.delMin();
+            if (x == u && r < drop - EPSILON) return false;
+            settled[count++] = x;
+            reduced[x] = r;
+            mark[x] = search;
+            for (int y = 0; y < V; y++) {
+                if (mark[y] == search || pending[x * V + y] || weight[x * V + y] == Double.POSITIVE_INFINITY) continue;
+                double d = r + reducedWeight(x, y);
+                if (d >= drop) continue;
+                if (!pq.contains(y)) {
+                    pq.insert(y, d);
+                    parent[y] = x;
+                } else if (d < pq.keyOf(y)) {
+                    pq.decreaseKey(y, d);
+                    parent[y] = x;
+                }
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            int x = settled[i];
+            potential[x] -= drop - reduced[x];
+        }
+        return true;
+    }
+
+    // the cycle u->v, then the search path from v back to u
+    private Iterable<DirectedEdge> cycle(int u, int v) {
+        LinkedStack<DirectedEdge> cycle = new LinkedStack<>();
+        for (int y = u; y != v; y = parent[y]) cycle.push(new DirectedEdge(parent[y], y, weight[parent[y] * V + y]));
+        cycle.push(new DirectedEdge(u, v, weight[u * V + v]));
+        return cycle;
+    }
+
+    // Returns the number of currencies
+    public int V() {
+        return V;
+    }
+
+    // Returns the rate from currency v to currency w, 0 if there is none
+    public double rate(int v, int w) {
+        validateCurrency(v);
+        validateCurrency(w);
+        return Math.exp(-weight[v * V + w]);
+    }
+
+    // Is there an arbitrage opportunity in the table now?
+    public boolean hasArbitrage() {
+        return !pendingEdges.isEmpty();
+    }
+
+    // Returns the number of updates so far
+    public long updates() {
+        return updates;
+    }
+
+    // Returns the number of events sent so far
+    public long events() {
+        return events;
+    }
+
+    // Returns the mean time of an update, in nanoseconds
+    public double meanLatency() {
+        return updates == 0 ? 0.0 : (double) totalNanos / updates;
+    }
+
+    // Returns the longest time of an update, in nanoseconds
+    public long maxLatency() {
+        return maxNanos;
+    }
+
+    /**
+     * Returns a time that the given fraction of the updates took at most, rounded up to
+     * a power of 2 nanoseconds: <tt>latency(0.99)</tt> is the 99th percentile.
+     *
+     * @throws IllegalArgumentException unless 0 &le; <tt>fraction</tt> &le; 1
+     */
+    public long latency(double fraction) {
+        if (!(fraction >= 0 && fraction <= 1)) throw new IllegalArgumentException("fraction " + fraction + " is not between 0 and 1");
+        long seen = 0;
+        for (int k = 0; k < 64; k++) {
+            seen += histogram[k];
+            if (seen >= fraction * updates) return k == 0 ? 0 : (1L << k) - 1;
+        }
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * Streams rates.txt into the table and prints the arbitrage, as {@link Arbitrage} does.
+     * Then streams random quotes for a table of currencies at fixed prices less a spread,
+     * with now and then one 2% off the price that is taken back with the next quote,
+     * and checks every few thousand updates against {@link BellmanFordSP} on the
+     * whole table, which it also times.
+     * Arguments: currencies (default 200), updates (default 1000000).
+     */
+    public static void main(String[] args) throws FileNotFoundException {
+        In in = new In(new Scanner(new File("src/graph/rates.txt")));
+        int V = in.readInt();
+        final String[] name = new String[V];
+        StreamingArbitrage rates = new StreamingArbitrage(V, new Listener() {
+            @Override
+            public void arbitrage(Event event) {
+                System.out.printf("update %d: %.3f%% in %.1f us%n", event.update(), 100 * event.profit(), event.latency() / 1e3);
+                double stake = 1000.0;
+                for (DirectedEdge e : event.cycle()) {
+                    System.out.printf("%10.5f %s", stake, name[e.from()]);
+                    stake *= Math.exp(-e.weight());
+                    System.out.printf("= %10.5f %s\n", stake, name[e.to()]);
+                }
+            }
+        });
+        for (int v = 0; v < V; v++) {
+            name[v] = in.readString();
+            for (int w = 0; w < V; w++) rates.update(v, w, in.readDouble());
+        }
+
+        int currencies = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int n = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+        final double[] eventNanos = {0.0};
+        StreamingArbitrage stream = new StreamingArbitrage(currencies, new Listener() {
+            @Override
+            public void arbitrage(Event event) {
+                int first = -1, last = -1;
+                double weight = 0.0;
+                for (DirectedEdge e : event.cycle()) {
+                    if (first == -1) first = e.from();
+                    else if (e.from() != last) throw new AssertionError("not a cycle");
+                    last = e.to();
+                    weight += e.weight();
+                }
+                if (last != first || !(weight < 0)) throw new AssertionError("not a negative cycle");
+                eventNanos[0] += event.latency();
+            }
+        });
+        Random random = new Random(42);
+        double[] price = new double[currencies];
+        for (int v = 0; v < currencies; v++) price[v] = Math.exp(4 * random.nextDouble());
+        for (int v = 0; v < currencies; v++)
+            for (int w = 0; w < currencies; w++)
+                if (v != w) stream.update(v, w, quote(price, v, w, random));
+        System.out.printf("%d currencies, table of %d rates loaded in %d updates, %d events%n",
+                currencies, currencies * (currencies - 1), stream.updates(), stream.events());
+
+        long start = System.nanoTime();
+        long check = 0, checks = 0;
+        int offV = -1, offW = -1;
+        for (int i = 1; i <= n; i++) {
+            if (offV != -1) {
+                stream.update(offV, offW, quote(price, offV, offW, random));
+                offV = -1;
+            } else {
+                int v = random.nextInt(currencies), w = random.nextInt(currencies - 1);
+                if (w >= v) w++;
+                double rate = quote(price, v, w, random);
+                if (random.nextInt(1000) == 0) {
+                    rate *= 1.02;
+                    offV = v;
+                    offW = w;
+                }
+                stream.update(v, w, rate);
+            }
+            if (i % 20000 == 0) {
+                long t = System.nanoTime();
+                EdgeWeightedDigraph G = new EdgeWeightedDigraph(currencies);
+                for (int v = 0; v < currencies; v++)
+                    for (int w = 0; w < currencies; w++)
+                        if (v != w) G.addEdge(new DirectedEdge(v, w, -Math.log(stream.rate(v, w))));
+                BellmanFordSP bf = new BellmanFordSP(G, 0);
+                if (bf.hasNegativeCycle() != stream.hasArbitrage()) throw new AssertionError("update " + i);
+                check += System.nanoTime() - t;
+                checks++;
+            }
+        }
+        double seconds = (System.nanoTime() - start - check) / 1e9;
+        System.out.printf("%d updates in %.2f s, %.0f updates/s, %d events%n", n, seconds, n / seconds, stream.events());
+        System.out.printf("latency: mean %.2f us, 50%% < %.2f us, 99%% < %.2f us, 99.99%% < %.2f us, max %.1f us; mean to an event %.1f us%n",
+                stream.meanLatency() / 1e3, stream.latency(0.5) / 1e3, stream.latency(0.99) / 1e3,
+                stream.latency(0.9999) / 1e3, stream.maxLatency() / 1e3, eventNanos[0] / 1e3 / stream.events());
+        System.out.printf("rebuilding the digraph and running BellmanFordSP: %.1f ms per update (%d checks agree)%n",
+                check / 1e6 / checks, checks);
+    }
+
+    // the rate at the prices, less a spread of 0.1% to 1%
+    private static double quote(double[] price, int v, int w, Random random) {
+        return price[v] / price[w] * (1 - 0.001 - 0.009 * random.nextDouble());
+    }
+}
@@ -33,9 +33,40 @@ public class BreadthFirstPaths {
         bfs(G, s);
     }
 
+    // Computes the shortest path between the source vertex s and every other vertex in the CSR graph
+    public BreadthFirstPaths(CSRGraph G, int s) {
+        marked = new boolean[G.V()];
+        distTo = new int[G.V()];
+        edgeTo = new int[G.V()];
+        bfs(G, s);
+    }
+
     // breadth-first search from a single source
     private void bfs(Graph G, int s) {
-        LinkedQueue<Integer> q = new LinkedQueue<Integer>();
+        IntQueue q = new IntQueue();
+        for (int v = 0; v < G.V(); v++) distTo[v] = INFINITY;
+        distTo[s] = 0;
+        marked[s] = true;
+        q.enqueue(s);
+
+        while (!q.isEmpty()) {
+            int v = q.dequeue();
+            IntBag adj = G.adj(v);
+            for (int i = 0; i < adj.size(); i++) {
+                int w = adj.get(i);
+                if (!marked[w]) {
+                    edgeTo[w] = v;
+                    distTo[w] = distTo[v] + 1;
+                    marked[w] = true;
+                    q.enqueue(w);
+                }
+            }
+        }
+    }
+
+    // breadth-first search from a single source, walking the CSR arrays directly
+    private void bfs(CSRGraph G, int s) {
+        IntQueue q = new IntQueue();
         for (int v = 0; v < G.V(); v++) distTo[v] = INFINITY;
         distTo[s] = 0;
         marked[s] = true;
@@ -43,7 +74,8 @@ public class BreadthFirstPaths {
 
         while (!q.isEmpty()) {
             int v = q.dequeue();
-            for (int w : G.adj(v)) {
+            for (int e = G.begin(v); e < G.end(v); e++) {
+                int w = G.to(e);
                 if (!marked[w]) {
                     edgeTo[w] = v;
                     distTo[w] = distTo[v] + 1;
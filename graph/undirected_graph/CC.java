@@ -1,5 +1,6 @@
 package graph.undirected_graph;
 
+import data_structure.IntBag;
 import data_structure.LinkedQueue;
 import helper.In;
 
@@ -41,21 +42,40 @@ public class CC {
         marked = new boolean[G.V()];
         id = new int[G.V()];
         size = new int[G.V()];
+        int[] stack = new int[G.V()];
+        int[] next = new int[G.V()];
         for (int v = 0; v < G.V(); v++) {
             if (!marked[v]) {
-                dfs(G, v);
+                dfs(G, v, stack, next);
                 count++;
             }
         }
     }
 
-    // depth-first search
-    private void dfs(Graph G, int v) {
-        marked[v] = true;
-        id[v] = count;
+    // depth-first search from s, with an explicit stack in place of recursion;
+    // next[v] is the position in adj(v) of the next vertex to check
+    private void dfs(Graph G, int s, int[] stack, int[] next) {
+        int top = 0;
+        marked[s] = true;
+        id[s] = count;
         size[count]++;
-        for (int w : G.adj(v)) {
-            if (!marked[w]) dfs(G, w);
+        stack[top++] = s;
+        while (top > 0) {
+            int v = stack[top - 1];
+            IntBag adj = G.adj(v);
+            int i = next[v];
+            while (i < adj.size() && marked[adj.get(i)]) i++;
+            if (i == adj.size()) {
+                next[v] = i;
+                top--;
+                continue;
+            }
+            int w = adj.get(i);
+            next[v] = i + 1;
+            marked[w] = true;
+            id[w] = count;
+            size[count]++;
+            stack[top++] = w;
         }
     }
 
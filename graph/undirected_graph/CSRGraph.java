@@ -0,0 +1,249 @@
+package graph.undirected_graph;
+
+import data_structure.IntBag;
+import graph.directed_graph.CSRDigraph;
+import helper.In;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Scanner;
+
+/**
+ * The <tt>CSRGraph</tt> class represents an immutable undirected graph of
+ * vertices named 0 through <em>V</em> - 1, stored in compressed sparse row form.
+ * It is built once, from a {@link Graph}, an input stream or arrays of edges,
+ * and then supports iterating over the vertices adjacent to a given vertex.
+ * <p/>
+ * This implementation stores each edge <em>v-w</em> twice, as <em>v</em>&rarr;<em>w</em>
+ * and <em>w</em>&rarr;<em>v</em>, and numbers these 2<em>E</em> half-edges so that
+ * those leaving <em>v</em> are <tt>begin(v)</tt> through <tt>end(v) - 1</tt>.
+ * It keeps two <tt>int</tt> arrays, <tt>offset[]</tt> of length <em>V</em> + 1 and
+ * <tt>target[]</tt> of length 2<em>E</em>, and nothing else:
+ * <pre>
+ *     for (int e = G.begin(v); e &lt; G.end(v); e++) { int w = G.to(e); ... }
+ * </pre>
+ * Construction takes time proportional to <em>V</em> + <em>E</em>, and all other
+ * operations take constant time except <tt>toString()</tt>.
+ * <p/>
+ */
+public class CSRGraph {
+    private final int V;
+    private final int E;         // number of edges
+    private final int[] offset;  // the half-edges leaving v are offset[v] to offset[v+1]-1
+    private final int[] target;  // target[e] = other endpoint of half-edge e
+
+    // Initialize a graph with the same vertices, edges and adjacency order as G
+    public CSRGraph(Graph G) {
+        V = G.V();
+        E = G.E();
+        offset = new int[V + 1];
+        for (int v = 0; v < V; v++) offset[v + 1] = offset[v] + G.adj(v).size();
+        target = new int[offset[V]];
+        for (int v = 0; v < V; v++) {
+            IntBag adj = G.adj(v);
+            for (int i = 0; i < adj.size(); i++) target[offset[v] + i] = adj.get(i);
+        }
+    }
+
+    // Initialize a graph from an input stream in the format read by Graph(In);
+    // the adjacency lists come out in the same order as those of new Graph(in)
+    public CSRGraph(In in) {
+        this(readV(in), in);
+    }
+
+    /**
+     * Initializes a graph from arrays of edges: edge <em>i</em> joins
+     * <tt>v[i]</tt> and <tt>w[i]</tt>. The edges incident to each vertex keep
+     * the order in which they appear in the arrays.
+     *
+     * @param V the number of vertices
+     * @param v one endpoint of each edge
+     * @param w the other endpoint of each edge
+     * @throws IllegalArgumentException  if <tt>V</tt> is negative or the arrays differ in length
+     * @throws IndexOutOfBoundsException if an endpoint is not between 0 and <tt>V</tt> - 1
+     */
+    public CSRGraph(int V, int[] v, int[] w) {
+        if (V < 0) throw new IllegalArgumentException("Number of vertices must be non-negative");
+        if (v.length != w.length) throw new IllegalArgumentException("Edge arrays differ in length");
+        this.V = V;
+        this.E = v.length;
+        for (int i = 0; i < E; i++) {
+            validateVertex(v[i]);
+            validateVertex(w[i]);
+        }
+        offset = new int[V + 1];
+        target = new int[2 * E];
+        fill(v, w, false);
+    }
+
+    // read the rest of the input stream into edge arrays, then build the graph from them
+    private CSRGraph(int V, In in) {
+        this.V = V;
+        E = in.readInt();
+        if (E < 0) throw new IllegalArgumentException("Number of edges must be non-negative");
+        int[] v = new int[E];
+        int[] w = new int[E];
+        for (int i = 0; i < E; i++) {
+            v[i] = in.readInt();
+            w[i] = in.readInt();
+            validateVertex(v[i]);
+            validateVertex(w[i]);
+        }
+        offset = new int[V + 1];
+        target = new int[2 * E];
+        fill(v, w, true);
+    }
+
+    private static int readV(In in) {
+        int V = in.readInt();
+        if (V < 0) throw new IllegalArgumentException("Number of vertices must be non-negative");
+        return V;
+    }
+
+    // counting sort of the half-edges by their first endpoint; if reversed, each
+    // adjacency list is filled back to front, which is the order a bag returns its items in
+    private void fill(int[] v, int[] w, boolean reversed) {
+        for (int i = 0; i < E; i++) {
+            offset[v[i] + 1]++;
+            offset[w[i] + 1]++;
+        }
+        for (int x = 0; x < V; x++) offset[x + 1] += offset[x];
+        int[] next = new int[V];
+        for (int x = 0; x < V; x++) next[x] = reversed ? offset[x + 1] : offset[x];
+        for (int i = 0; i < E; i++) {
+            if (reversed) {
+                target[--next[v[i]]] = w[i];
+                target[--next[w[i]]] = v[i];
+            } else {
+                target[next[v[i]]++] = w[i];
+                target[next[w[i]]++] = v[i];
+            }
+        }
+    }
+
+    // is 0 <= v < V
+    private void validateVertex(int v) {
+        if (v < 0 || v >= V) throw new IndexOutOfBoundsException("vertex " + v + " is not between 0 and " + (V - 1));
+    }
+
+    // Returns the number of vertices in the graph.
+    public int V() {
+        return V;
+    }
+
+    // Returns the number of edges in the graph.
+    public int E() {
+        return E;
+    }
+
+    // Returns the first half-edge leaving v
+    public int begin(int v) {
+        validateVertex(v);
+        return offset[v];
+    }
+
+    // Returns one past the last half-edge leaving v
+    public int end(int v) {
+        validateVertex(v);
+        return offset[v + 1];
+    }
+
+    // Returns the vertex half-edge e leads to
+    public int to(int e) {
+        return target[e];
+    }
+
+    // Returns the degree of vertex v
+    public int degree(int v) {
+        validateVertex(v);
+        return offset[v + 1] - offset[v];
+    }
+
+    // Returns the graph as a digraph with an edge each way for every edge, sharing the arrays;
+    // the digraph is its own reverse
+    public CSRDigraph asDigraph() {
+        return new CSRDigraph(offset, target);
+    }
+
+    // Returns the vertices adjacent to vertex v, for code written against Graph.
+    // Iterating boxes every vertex; use begin(v), end(v) and to(e) in inner loops.
+    public Iterable<Integer> adj(final int v) {
+        validateVertex(v);
+        return new Iterable<Integer>() {
+            @Override
+            public Iterator<Integer> iterator() {
+                return new Iterator<Integer>() {
+                    private int e = offset[v];
+
+                    @Override
+                    public boolean hasNext() {
+                        return e < offset[v + 1];
+                    }
+
+                    @Override
+                    public Integer next() {
+                        if (!hasNext()) throw new NoSuchElementException();
+                        return target[e++];
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * Returns a string representation of the graph.
+     *
+     * @return the number of vertices <em>V</em>, followed by the number of edges
+     * <em>E</em>, followed by the <em>V</em> adjacency lists
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        String NEWLINE = System.getProperty("line.separator");
+        sb.append(V).append(" vertices, ").append(E).append(" edges ").append(NEWLINE);
+        for (int v = 0; v < V; v++) {
+            sb.append(v).append(": ");
+            for (int e = offset[v]; e < offset[v + 1]; e++) sb.append(target[e]).append(" ");
+            sb.append(NEWLINE);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Prints tinyG in CSR form, then builds the same random graph as a
+     * {@link Graph} and as a <tt>CSRGraph</tt>, checks that breadth-first
+     * search finds the same distances in both, and times the searches.
+     */
+    public static void main(String[] args) throws FileNotFoundException {
+        In in = new In(new Scanner(new File("src/tinyG.txt")));
+        CSRGraph G = new CSRGraph(in);
+        System.out.println(G);
+
+        int V = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        int E = args.length > 1 ? Integer.parseInt(args[1]) : 4000000;
+        Random random = new Random(42);
+        int[] v = new int[E], w = new int[E];
+        for (int i = 0; i < E; i++) {
+            v[i] = random.nextInt(V);
+            w[i] = random.nextInt(V);
+        }
+        CSRGraph csr = new CSRGraph(V, v, w);
+        Graph lists = new Graph(csr);
+
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            BreadthFirstPaths bfs1 = new BreadthFirstPaths(lists, 0);
+            long t1 = System.nanoTime() - start;
+            start = System.nanoTime();
+            BreadthFirstPaths bfs2 = new BreadthFirstPaths(csr, 0);
+            long t2 = System.nanoTime() - start;
+            for (int x = 0; x < V; x++)
+                if (bfs1.distTo(x) != bfs2.distTo(x)) throw new AssertionError("distances differ at " + x);
+            System.out.printf("bfs on %d vertices, %d edges: Graph %6.1f ms, CSRGraph %6.1f ms%n",
+                    V, E, t1 / 1e6, t2 / 1e6);
+        }
+    }
+}
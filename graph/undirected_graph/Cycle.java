@@ -1,5 +1,6 @@
 package graph.undirected_graph;
 
+import data_structure.IntBag;
 import data_structure.LinkedStack;
 import helper.In;
 
@@ -32,21 +33,32 @@ public class Cycle {
         if (hasParallelEdges(G)) return;
         marked = new boolean[G.V()];
         edgeTo = new int[G.V()];
-        for (int s = 0; s < G.V(); s++) {
-            if (!marked[s]) dfs(G, s, s);
+        int[] stack = new int[G.V()];
+        int[] next = new int[G.V()];
+        for (int s = 0; s < G.V() && cycle == null; s++) {
+            if (!marked[s]) dfs(G, s, stack, next);
         }
     }
 
-    private void dfs(Graph G, int v, int u) {
-        marked[v] = true;
-        for (int w : G.adj(v)) {
-
-            // short circuit if cycle already found
-            if (cycle != null) return;
-
+    // depth-first search from s, with an explicit stack in place of recursion;
+    // next[v] is the position in adj(v) of the next vertex to check
+    private void dfs(Graph G, int s, int[] stack, int[] next) {
+        int top = 0;
+        marked[s] = true;
+        stack[top++] = s;
+        while (top > 0) {
+            int v = stack[top - 1];
+            int u = v == s ? s : edgeTo[v];  // the vertex v was reached from
+            IntBag adj = G.adj(v);
+            if (next[v] == adj.size()) {
+                top--;
+                continue;
+            }
+            int w = adj.get(next[v]++);
             if (!marked[w]) {
                 edgeTo[w] = v;
-                dfs(G, w, v);
+                marked[w] = true;
+                stack[top++] = w;
             }
             // check for cycle (but disregard reverse of edge leading to v)
             else if (w != u) {
@@ -54,6 +66,7 @@ public class Cycle {
                 for (int x = v; x != w; x = edgeTo[x]) cycle.push(x);
                 cycle.push(w);
                 cycle.push(v);
+                return;
             }
         }
     }
@@ -1,5 +1,6 @@
 package graph.undirected_graph;
 
+import data_structure.IntBag;
 import data_structure.LinkedStack;
 import helper.In;
 
@@ -31,13 +32,28 @@ public class DepthFirstPaths {
         dfs(G, s);
     }
 
-    private void dfs(Graph G, int v) {
-        marked[v] = true;
-        for (int w : G.adj(v)) {
-            if (!marked[w]) {
-                edgeTo[w] = v;
-                dfs(G, w);
+    // depth first search from s, with an explicit stack in place of recursion
+    private void dfs(Graph G, int s) {
+        int[] stack = new int[G.V()];  // the vertices on the current path
+        int[] next = new int[G.V()];   // next[v] = position in adj(v) of the next vertex to check
+        int top = 0;
+        marked[s] = true;
+        stack[top++] = s;
+        while (top > 0) {
+            int v = stack[top - 1];
+            IntBag adj = G.adj(v);
+            int i = next[v];
+            while (i < adj.size() && marked[adj.get(i)]) i++;
+            if (i == adj.size()) {
+                next[v] = i;
+                top--;
+                continue;
             }
+            int w = adj.get(i);
+            next[v] = i + 1;
+            edgeTo[w] = v;
+            marked[w] = true;
+            stack[top++] = w;
         }
     }
 
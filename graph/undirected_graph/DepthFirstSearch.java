@@ -1,5 +1,6 @@
 package graph.undirected_graph;
 
+import data_structure.IntBag;
 import helper.In;
 
 import java.io.File;
@@ -26,12 +27,30 @@ public class DepthFirstSearch {
         dfs(G, s);
     }
 
-    // depth first search from v
-    private void dfs(Graph G, int v) {
-        marked[v] = true;
+    // depth first search from s, with an explicit stack in place of recursion so that
+    // long paths cannot overflow the call stack; visits the vertices in the same order
+    private void dfs(Graph G, int s) {
+        int[] stack = new int[G.V()];  // the vertices on the current path
+        int[] next = new int[G.V()];   // next[v] = position in adj(v) of the next vertex to check
+        int top = 0;
+        marked[s] = true;
         count++;
-        for (int w : G.adj(v)) {
-            if (!marked[w]) dfs(G, w);
+        stack[top++] = s;
+        while (top > 0) {
+            int v = stack[top - 1];
+            IntBag adj = G.adj(v);
+            int i = next[v];
+            while (i < adj.size() && marked[adj.get(i)]) i++;
+            if (i == adj.size()) {
+                next[v] = i;
+                top--;
+                continue;
+            }
+            int w = adj.get(i);
+            next[v] = i + 1;
+            marked[w] = true;
+            count++;
+            stack[top++] = w;
         }
     }
 
@@ -3,12 +3,15 @@ package graph.undirected_graph;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.util.Scanner;
+
+import data_structure.IntBag;
 import helper.*;
 /**
  * A graph, implemented using an array of sets.
+ * The adjacency sets are {@link IntBag}s, so vertex ids are stored unboxed.
  */
 public class Graph {
-    private In.Bag<Integer>[] adj;
+    private IntBag[] adj;
     private int V;  // number of vertices
     private int E;  // number of edges
 
@@ -21,8 +24,8 @@ public class Graph {
         if (V < 0) throw new IllegalArgumentException("Number of vertices must be non-negative");
         this.V = V;
         this.E = 0;
-        adj = (In.Bag<Integer>[]) new In.Bag[V];
-        for (int v = 0; v < V; v++) adj[v] = new In.Bag<Integer>();
+        adj = new IntBag[V];
+        for (int v = 0; v < V; v++) adj[v] = new IntBag();
     }
 
     /**
@@ -50,9 +53,19 @@ public class Graph {
         this(G.V());
         this.E = G.E();
         for (int v = 0; v < G.V(); v++) {
-            for (int w : G.adj[v]) {
-                adj[v].add(w);
-            }
+            IntBag bag = G.adj[v];
+            for (int i = bag.size() - 1; i >= 0; i--) adj[v].add(bag.get(i));
+        }
+    }
+
+    /**
+     * Initialize a graph with the same adjacency lists as the CSR graph <tt>G</tt>.
+     */
+    public Graph(CSRGraph G) {
+        this(G.V());
+        this.E = G.E();
+        for (int v = 0; v < G.V(); v++) {
+            for (int e = G.end(v) - 1; e >= G.begin(v); e--) adj[v].add(G.to(e));
         }
     }
 
@@ -81,7 +94,8 @@ public class Graph {
     }
 
     // Returns the vertices adjacent to vertex v.
-    public Iterable<Integer> adj(int v) {
+    // Use adj(v).get(i) for 0 <= i < adj(v).size() to walk them without boxing.
+    public IntBag adj(int v) {
         validateVertex(v);
         return adj[v];
     }
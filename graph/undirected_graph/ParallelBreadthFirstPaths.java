@@ -0,0 +1,87 @@
+package graph.undirected_graph;
+
+import graph.directed_graph.CSRDigraph;
+import graph.directed_graph.ParallelBreadthFirstDirectedPaths;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The <tt>ParallelBreadthFirstPaths</tt> class represents a data type for finding
+ * shortest paths (number of edges) from a source vertex <em>s</em> to every other
+ * vertex in a {@link CSRGraph}, using all the threads of a fork-join pool.
+ * It has the same <tt>distTo()</tt> and <tt>pathTo()</tt> API as {@link BreadthFirstPaths}.
+ * <p/>
+ * This implementation runs {@link ParallelBreadthFirstDirectedPaths}, Beamer's
+ * direction-optimizing breadth-first search, on the graph viewed as a digraph with
+ * an edge each way for every edge. That digraph is its own reverse, so unlike the
+ * directed search no reverse graph is built. The constructor takes time proportional
+ * to <em>V</em> + <em>E</em> in the worst case, divided among the threads of the pool.
+ * <p/>
+ */
+public class ParallelBreadthFirstPaths {
+    private final ParallelBreadthFirstDirectedPaths bfs;
+
+    // Computes the shortest path between the source vertex s and every other vertex in the graph
+    public ParallelBreadthFirstPaths(CSRGraph G, int s) {
+        this(G, s, ForkJoinPool.commonPool());
+    }
+
+    // Computes the shortest path between s and every other vertex, running the tasks in pool
+    public ParallelBreadthFirstPaths(CSRGraph G, int s, ForkJoinPool pool) {
+        CSRDigraph D = G.asDigraph();
+        bfs = new ParallelBreadthFirstDirectedPaths(D, D, s, pool);
+    }
+
+    // Is there a path between the source vertex s and vertex v
+    public boolean hasPathTo(int v) {
+        return bfs.hasPathTo(v);
+    }
+
+    // Returns the number of edges in a shortest path between the source vertex s and vertex v
+    public int distTo(int v) {
+        return bfs.distTo(v);
+    }
+
+    public Iterable<Integer> pathTo(int v) {
+        return bfs.pathTo(v);
+    }
+
+    /**
+     * Benchmarks the search against {@link BreadthFirstPaths} on an undirected RMAT graph,
+     * checking that the distances agree.
+     * Arguments: scale (default 18), edges per vertex (default 16), pool size.
+     */
+    public static void main(String[] args) {
+        int scale = args.length > 0 ? Integer.parseInt(args[0]) : 18;
+        int edgeFactor = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        ForkJoinPool pool = args.length > 2 ? new ForkJoinPool(Integer.parseInt(args[2])) : ForkJoinPool.commonPool();
+        int V = 1 << scale;
+        int[][] edges = ParallelBreadthFirstDirectedPaths.rmat(scale, edgeFactor, 42);
+        CSRGraph G = new CSRGraph(V, edges[0], edges[1]);
+        Graph lists = new Graph(G);
+        edges = null;
+
+        int s = 0;
+        System.out.printf("RMAT scale %d: %d vertices, %d edges, %d threads%n",
+                scale, V, G.E(), pool.getParallelism());
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            BreadthFirstPaths bfs1 = new BreadthFirstPaths(lists, s);
+            long t1 = System.nanoTime() - start;
+            start = System.nanoTime();
+            BreadthFirstPaths bfs2 = new BreadthFirstPaths(G, s);
+            long t2 = System.nanoTime() - start;
+            start = System.nanoTime();
+            ParallelBreadthFirstPaths bfs3 = new ParallelBreadthFirstPaths(G, s, pool);
+            long t3 = System.nanoTime() - start;
+            int reached = 0;
+            for (int v = 0; v < V; v++) {
+                if (bfs1.distTo(v) != bfs3.distTo(v) || bfs2.distTo(v) != bfs3.distTo(v))
+                    throw new AssertionError("distances differ at " + v);
+                if (bfs3.hasPathTo(v)) reached++;
+            }
+            System.out.printf("reached %d: Graph %6.1f ms, CSRGraph %6.1f ms, parallel %6.1f ms%n",
+                    reached, t1 / 1e6, t2 / 1e6, t3 / 1e6);
+        }
+    }
+}
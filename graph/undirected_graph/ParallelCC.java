@@ -0,0 +1,268 @@
+package graph.undirected_graph;
+
+import data_structure.LinkedQueue;
+import graph.directed_graph.ParallelBreadthFirstDirectedPaths;
+import helper.In;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Scanner;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * The <tt>ParallelCC</tt> class represents a data type for determining the
+ * connected components in an undirected graph, using all the threads of a
+ * fork-join pool. It has the same API as {@link CC}, and gives every vertex
+ * the same component <em>id</em>: components are numbered 0 through
+ * <em>count</em> - 1 in the order of their smallest vertex.
+ * <p/>
+ * This implementation uses the Afforest algorithm of Sutton, Ben-Nun and Bar-Noy.
+ * Each vertex points to a parent, and the roots of the resulting forest are the
+ * smallest vertices of their trees. Edges are linked concurrently: the larger of
+ * the two roots is hooked under the smaller one with a compare-and-set, retrying
+ * if another thread got there first, and paths are compressed between rounds.
+ * <ul>
+ * <li>First the first two edges of every vertex are linked, which is usually
+ * enough to join most of the largest component.</li>
+ * <li>Then a sample of vertices finds the most frequent root, which is then
+ * likely that of the largest component. The remaining edges are linked except
+ * those of vertices already in that component, which are most of the edges.
+ * Skipping them is safe since every edge is stored at both its endpoints.</li>
+ * </ul>
+ * The constructor takes time proportional to <em>V</em> + <em>E</em> in the worst
+ * case (times the length of the paths followed, which compression keeps short),
+ * divided among the threads of the pool. Afterwards, the <em>id</em>, <em>count</em>,
+ * <em>connected</em> and <em>size</em> operations take constant time.
+ * <p/>
+ */
+public class ParallelCC {
+    private static final int NEIGHBOR_ROUNDS = 2;  // edges per vertex linked before sampling
+    private static final int SAMPLES = 1024;       // vertices sampled to find the largest component
+    private static final int GRAIN = 1024;         // vertices per task
+
+    private final CSRGraph G;
+    private final AtomicIntegerArray parent;  // parent[v] = parent of v; roots are the smallest vertex of their tree
+    private int[] id;    // id[v] = id of connected component containing v
+    private int[] size;  // size[id] = number of vertices in given component
+    private int count;   // number of connected components
+
+    // Computes the connected components of the graph, in the common fork-join pool
+    public ParallelCC(CSRGraph G) {
+        this(G, ForkJoinPool.commonPool());
+    }
+
+    // Computes the connected components of the graph, running the tasks in pool
+    public ParallelCC(CSRGraph G, ForkJoinPool pool) {
+        this.G = G;
+        int V = G.V();
+        parent = new AtomicIntegerArray(V);
+        for (int v = 0; v < V; v++) parent.set(v, v);
+
+        // link the first few edges of every vertex
+        for (int r = 0; r < NEIGHBOR_ROUNDS; r++) {
+            pool.invoke(new LinkNeighbor(0, V, r));
+            pool.invoke(new Compress(0, V));
+        }
+
+        // link the remaining edges, except those of vertices in the most frequent component
+        int frequent = V == 0 ? -1 : sampleFrequentRoot();
+        pool.invoke(new LinkRemaining(0, V, frequent));
+        pool.invoke(new Compress(0, V));
+
+        // number the components in order of their smallest vertex, which is their root
+        id = new int[V];
+        size = new int[V];
+        for (int v = 0; v < V; v++) {
+            int root = parent.get(v);
+            if (root == v) id[v] = count++;
+            else id[v] = id[root];
+            size[id[v]]++;
+        }
+    }
+
+    // Computes the connected components of the graph, after converting it to CSR form
+    public ParallelCC(Graph G) {
+        this(new CSRGraph(G));
+    }
+
+    // hook the larger of the roots of u and v under the smaller one
+    private void link(int u, int v) {
+        int p1 = parent.get(u);
+        int p2 = parent.get(v);
+        while (p1 != p2) {
+            int high = Math.max(p1, p2), low = Math.min(p1, p2);
+            int pHigh = parent.get(high);
+            // already linked, or high is a root that we manage to hook
+            if (pHigh == low || (pHigh == high && parent.compareAndSet(high, high, low))) return;
+            // high is no longer a root: climb and retry
+            p1 = parent.get(pHigh);
+            p2 = parent.get(low);
+        }
+    }
+
+    // point v straight at its root
+    private void compress(int v) {
+        int p = parent.get(v);
+        while (p != parent.get(p)) {
+            p = parent.get(p);
+        }
+        parent.set(v, p);
+    }
+
+    private int sampleFrequentRoot() {
+        Random random = new Random(0);
+        Map<Integer, Integer> frequency = new HashMap<Integer, Integer>();
+        int best = -1, bestCount = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            int root = parent.get(random.nextInt(G.V()));
+            Integer n = frequency.get(root);
+            n = n == null ? 1 : n + 1;
+            frequency.put(root, n);
+            if (n > bestCount) {
+                best = root;
+                bestCount = n;
+            }
+        }
+        return best;
+    }
+
+    // link edge number r of each vertex in lo..hi-1
+    @SuppressWarnings("serial")
+    private class LinkNeighbor extends RecursiveAction {
+        private final int lo, hi, r;
+
+        LinkNeighbor(int lo, int hi, int r) {
+            this.lo = lo;
+            this.hi = hi;
+            this.r = r;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo > GRAIN) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new LinkNeighbor(lo, mid, r), new LinkNeighbor(mid, hi, r));
+                return;
+            }
+            for (int v = lo; v < hi; v++) {
+                int e = G.begin(v) + r;
+                if (e < G.end(v)) link(v, G.to(e));
+            }
+        }
+    }
+
+    // link the edges after the first few of each vertex in lo..hi-1 not in component skip
+    @SuppressWarnings("serial")
+    private class LinkRemaining extends RecursiveAction {
+        private final int lo, hi, skip;
+
+        LinkRemaining(int lo, int hi, int skip) {
+            this.lo = lo;
+            this.hi = hi;
+            this.skip = skip;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo > GRAIN) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new LinkRemaining(lo, mid, skip), new LinkRemaining(mid, hi, skip));
+                return;
+            }
+            for (int v = lo; v < hi; v++) {
+                if (parent.get(v) == skip) continue;
+                for (int e = G.begin(v) + NEIGHBOR_ROUNDS; e < G.end(v); e++) link(v, G.to(e));
+            }
+        }
+    }
+
+    // compress the paths of the vertices in lo..hi-1
+    @SuppressWarnings("serial")
+    private class Compress extends RecursiveAction {
+        private final int lo, hi;
+
+        Compress(int lo, int hi) {
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo > GRAIN) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new Compress(lo, mid), new Compress(mid, hi));
+                return;
+            }
+            for (int v = lo; v < hi; v++) compress(v);
+        }
+    }
+
+    // Returns the component id of the connected component containing vertex v
+    public int id(int v) {
+        return id[v];
+    }
+
+    // return the number of vertices in the connected component containing vertex v
+    public int size(int v) {
+        return size[id[v]];
+    }
+
+    // returns the number of connected components
+    public int count() {
+        return count;
+    }
+
+    // are vertices v and w in the same connected component ?
+    public boolean connected(int v, int w) {
+        return id(v) == id(w);
+    }
+
+    /**
+     * Prints the components of tinyG, then compares the running time with
+     * {@link CC} on an undirected RMAT graph and checks that the ids agree.
+     * Arguments: scale (default 18), edges per vertex (default 8), pool size.
+     */
+    public static void main(String[] args) throws FileNotFoundException {
+        In in = new In(new Scanner(new File("src/tinyG.txt")));
+        Graph graph = new Graph(in);
+        ParallelCC cc = new ParallelCC(graph);
+        int M = cc.count();
+        System.out.println(M + " components");
+        @SuppressWarnings("unchecked")
+        LinkedQueue<Integer>[] components = (LinkedQueue<Integer>[]) new LinkedQueue<?>[M];
+        for (int i = 0; i < M; i++) components[i] = new LinkedQueue<Integer>();
+        for (int v = 0; v < graph.V(); v++) components[cc.id(v)].enqueue(v);
+        for (int i = 0; i < M; i++) {
+            for (int v : components[i]) System.out.print(v + " ");
+            System.out.println();
+        }
+
+        int scale = args.length > 0 ? Integer.parseInt(args[0]) : 18;
+        int edgeFactor = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        ForkJoinPool pool = args.length > 2 ? new ForkJoinPool(Integer.parseInt(args[2])) : ForkJoinPool.commonPool();
+        int V = 1 << scale;
+        int[][] edges = ParallelBreadthFirstDirectedPaths.rmat(scale, edgeFactor, 42);
+        CSRGraph G = new CSRGraph(V, edges[0], edges[1]);
+        Graph lists = new Graph(G);
+        edges = null;
+        System.out.printf("RMAT scale %d: %d vertices, %d edges, %d threads%n", scale, V, G.E(), pool.getParallelism());
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            CC cc1 = new CC(lists);
+            long t1 = System.nanoTime() - start;
+            start = System.nanoTime();
+            ParallelCC cc2 = new ParallelCC(G, pool);
+            long t2 = System.nanoTime() - start;
+            if (cc1.count() != cc2.count()) throw new AssertionError("counts differ");
+            for (int v = 0; v < V; v++)
+                if (cc1.id(v) != cc2.id(v)) throw new AssertionError("ids differ at " + v);
+            System.out.printf("%d components, largest %d: CC %6.1f ms, ParallelCC %6.1f ms%n",
+                    cc2.count(), cc2.size(0), t1 / 1e6, t2 / 1e6);
+        }
+    }
+}
@@ -7,6 +7,8 @@ import java.util.Arrays;
  * - Sort a String[] array of N extended ASCII strings (R = 256), each of length W
  * - Sort an int[] array of N 32-bit integers, treating each integer as a
  * sequence of W = 4 bytes (R = 256)
+ * - Sort a range of an int[] array of indices by double keys, treating each key as a
+ * sequence of W = 8 bytes (R = 256)
  */
 public class LSD {
 
@@ -76,6 +78,57 @@ public class LSD {
         }
     }
 
+    // LSD sort a[lo..hi-1], a permutation of indices, by keys[a[i]], treating each
+    // double as 8 bytes; the sort is stable, and bytes that all keys share are skipped
+    public static void sort(int[] a, int lo, int hi, double[] keys) {
+        int W = 64 / BITS_PER_BYTE;  // each double is 8 bytes
+        int R = 1 << BITS_PER_BYTE;
+        int MASK = R - 1;
+
+        int N = hi - lo;
+        long[] k = new long[N], kaux = new long[N];
+        int[] aux = new int[N];
+        long and = -1, or = 0;
+        for (int i = 0; i < N; i++) {
+            // flip the sign bit of positive doubles and every bit of negative ones,
+            // so that the bits compare as unsigned longs in the order of the doubles
+            long bits = Double.doubleToLongBits(keys[a[lo + i]]);
+            k[i] = bits ^ ((bits >> 63) | Long.MIN_VALUE);
+            and &= k[i];
+            or |= k[i];
+        }
+        int[] items = new int[N];
+        System.arraycopy(a, lo, items, 0, N);
+
+        for (int d = 0; d < W; d++) {
+            int shift = BITS_PER_BYTE * d;
+            if ((((and ^ or) >>> shift) & MASK) == 0) continue;  // the same d-th byte everywhere
+
+            // compute frequency counts
+            int[] count = new int[R + 1];
+            for (int i = 0; i < N; i++) count[(int) ((k[i] >>> shift) & MASK) + 1]++;
+
+            // compute cumulates
+            for (int r = 0; r < R; r++) count[r + 1] += count[r];
+
+            // move data
+            for (int i = 0; i < N; i++) {
+                int c = (int) ((k[i] >>> shift) & MASK);
+                kaux[count[c]] = k[i];
+                aux[count[c]++] = items[i];
+            }
+
+            // swap instead of copying back
+            long[] ktemp = k;
+            k = kaux;
+            kaux = ktemp;
+            int[] temp = items;
+            items = aux;
+            aux = temp;
+        }
+        System.arraycopy(items, 0, a, lo, N);
+    }
+
     public static void main(String[] args) {
         String[] a = new String[]{"dab", "add", "cab", "fad", "fee", "bad", "dad", "bee", "fed", "bed", "ebb", "ace"};
         sort(a, 3);